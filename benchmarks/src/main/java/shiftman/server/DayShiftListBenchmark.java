@@ -0,0 +1,152 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The shifts of one day: filling a day with shifts, rejecting a shift that overlaps one already rostered, and finding a
+ * shift by its exact hours. Each is run on a {@link DayShiftList}, which keeps shifts by start time, and on
+ * {@link ShiftArrayList}, which checks every shift as the day's list did before shifts were indexed. A day holds at most
+ * about 700 shifts, as shifts are to the minute and cannot touch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DayShiftListBenchmark {
+
+	@Param({"10", "100", "700"})
+	public int shiftsPerDay;
+
+	private WorkDay.Shift[] _shifts; //in reverse order of start time, so each is added ahead of the rest.
+	private WorkDay.Shift _overlapping; //overlaps the middle shift.
+	private String[][] _hours; //start and end of every shift, to look them up by.
+	private DayShiftList _index;
+	private ShiftArrayList _list;
+	private int _lookup;
+
+	@Setup
+	public void setUp() throws RosterException {
+		WorkDay day = new WorkDay("Monday", 0, new ShiftTable());
+		day.setHours("00:01", "23:59");
+		_shifts = new WorkDay.Shift[shiftsPerDay];
+		_hours = new String[shiftsPerDay][];
+		_index = new DayShiftList();
+		_list = new ShiftArrayList();
+		for (int shift = 0; shift < shiftsPerDay; shift++) {
+			String start = RosterData.shiftStart(shift, shiftsPerDay);
+			String end = RosterData.shiftEnd(shift, shiftsPerDay);
+			_shifts[shiftsPerDay - 1 - shift] = day.new Shift(start, end, "1");
+			_hours[shift] = new String[] {start, end};
+		}
+		for (WorkDay.Shift shift : _shifts) {
+			_index.rosterInShift(shift);
+			_list.rosterInShift(shift);
+		}
+		WorkDay.Shift middle = _shifts[shiftsPerDay / 2];
+		_overlapping = day.new Shift(Hours.format(middle.getStart()), Hours.format(middle.getEnd()), "1");
+	}
+
+	@Benchmark
+	public DayShiftList fillIndex() throws RosterException {
+		DayShiftList shifts = new DayShiftList();
+		for (WorkDay.Shift shift : _shifts) {
+			shifts.rosterInShift(shift);
+		}
+		return shifts;
+	}
+
+	@Benchmark
+	public ShiftArrayList fillList() throws RosterException {
+		ShiftArrayList shifts = new ShiftArrayList();
+		for (WorkDay.Shift shift : _shifts) {
+			shifts.rosterInShift(shift);
+		}
+		return shifts;
+	}
+
+	@Benchmark
+	public String overlapIndex() {
+		try {
+			_index.rosterInShift(_overlapping);
+			throw new IllegalStateException("the overlapping shift was rostered in");
+		} catch (RosterException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public String overlapList() {
+		try {
+			_list.rosterInShift(_overlapping);
+			throw new IllegalStateException("the overlapping shift was rostered in");
+		} catch (RosterException e) {
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public WorkDay.Shift getShiftIndex() throws RosterException {
+		String[] hours = _hours[_lookup++ % shiftsPerDay];
+		return _index.getShift(hours[0], hours[1]);
+	}
+
+	@Benchmark
+	public WorkDay.Shift getShiftList() throws RosterException {
+		String[] hours = _hours[_lookup++ % shiftsPerDay];
+		return _list.getShift(hours[0], hours[1]);
+	}
+
+	/**
+	 * The shifts of a day in a list, checked one by one as the day's list did before shifts were indexed: every shift is
+	 * compared for overlaps and the list sorted after each one is added, and a shift is found by comparing its hours as
+	 * text.
+	 */
+	static final class ShiftArrayList {
+		private final List<WorkDay.Shift> _shiftList = new ArrayList<WorkDay.Shift>();
+
+		void rosterInShift(WorkDay.Shift shift) throws RosterException {
+			int start = shift.getStart();
+			int end = shift.getEnd();
+			for (WorkDay.Shift shiftCompare : _shiftList) {
+				int compStart = shiftCompare.getStart();
+				int compEnd = shiftCompare.getEnd();
+				if ((start <= compStart && end >= compStart) ||
+						(start >= compStart && end <= compEnd) ||
+						(start >= compStart && start <= compEnd) ||
+						(start <= compStart && end >= compEnd)) {
+					throw new RosterException("ERROR: cannot roster in shift, overlaps with "
+							+ Hours.format(shiftCompare.getStart()) + " shift.");
+				}
+			}
+			_shiftList.add(shift);
+			Collections.sort(_shiftList);
+		}
+
+		WorkDay.Shift getShift(String startTime, String endTime) throws RosterException {
+			Hours comparison = new ShiftHours(startTime, endTime);
+			for (WorkDay.Shift shift : _shiftList) {
+				if ((comparison.toString()).equals(shift.toString())) {
+					return shift;
+				}
+			}
+			throw new RosterException("ERROR: " + startTime + " shift has not been specified.");
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package shiftman.server;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads a {@link ShiftManHttpServer} from many kept-alive connections at once, and reports the requests per second and
+ * the latencies of getRosterForDay and assignStaff. Each connection sends a request, waits for its answer and then
+ * sends the next, alternating the two operations. Every connection is driven from one NIO selector, so the client needs
+ * no thread for each connection.
+ *
+ * <p>Each connection takes a file descriptor at both of its ends, so for 10,000 connections the server and the client
+ * are best run as separate processes, each with an open file limit above 10,000. The server holds about 1.5 GB while
+ * every connection has a request in flight:
+ * <pre>
+ * java -Xmx2g -cp target/benchmarks.jar shiftman.server.HttpLoadTest server 8080
+ * java -cp target/benchmarks.jar shiftman.server.HttpLoadTest client localhost 8080 10000 30
+ * </pre>
+ * Run with no arguments, the server and 1,000 connections share one process.
+ */
+public final class HttpLoadTest {
+
+	private static final int STAFF = 1000;
+	private static final int SHIFTS_PER_DAY = 20;
+	private static final int WARMUP_SECONDS = 5;
+
+	private HttpLoadTest() {
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length >= 2 && args[0].equals("server")) {
+			ShiftManHttpServer server = startServer(new InetSocketAddress(Integer.parseInt(args[1])), 20000);
+			System.out.println("Serving on " + server.getAddress());
+			Thread.currentThread().join(); //until the process is stopped.
+		} else if (args.length >= 3 && args[0].equals("client")) {
+			int connections = args.length > 3 ? Integer.parseInt(args[3]) : 10000;
+			int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+			new Client(new InetSocketAddress(args[1], Integer.parseInt(args[2])), connections).run(seconds);
+		} else {
+			ShiftManHttpServer server = startServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1000);
+			try {
+				new Client(server.getAddress(), 1000).run(30);
+			} finally {
+				server.stop(0);
+			}
+		}
+	}
+
+	/**
+	 * Start a server of a roster built by {@link RosterData}, keeping every connection of the load open while idle.
+	 */
+	private static ShiftManHttpServer startServer(InetSocketAddress address, int connections) throws IOException {
+		ShiftManHttpServer.configure(true, connections);
+		ShiftManHttpServer server = new ShiftManHttpServer(RosterData.build(STAFF, SHIFTS_PER_DAY), address, connections);
+		server.start();
+		return server;
+	}
+
+	/**
+	 * Sends the requests of every connection and records the latency of each answer.
+	 */
+	private static final class Client {
+		private final InetSocketAddress _address;
+		private final int _connections;
+		private final Latencies _rosterForDay = new Latencies();
+		private final Latencies _assignStaff = new Latencies();
+		private final ByteBuffer _readBuffer = ByteBuffer.allocateDirect(1 << 20); //shared, as answers are parsed as read.
+		private long _recordFrom; //System.nanoTime() after which answers are recorded.
+		private long _errors;
+
+		Client(InetSocketAddress address, int connections) {
+			_address = address;
+			_connections = connections;
+		}
+
+		void run(int seconds) throws IOException {
+			try (Selector selector = Selector.open()) {
+				for (int connection = 0; connection < _connections; connection++) {
+					SocketChannel channel = SocketChannel.open();
+					channel.configureBlocking(false);
+					channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+					channel.connect(_address);
+					channel.register(selector, SelectionKey.OP_CONNECT, new Connection(connection, _connections));
+				}
+				long start = System.nanoTime();
+				_recordFrom = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+				long end = _recordFrom + TimeUnit.SECONDS.toNanos(seconds);
+				while (System.nanoTime() < end) {
+					selector.select(100);
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						handle(key);
+					}
+				}
+				for (SelectionKey key : selector.keys()) {
+					key.channel().close();
+				}
+			}
+			System.out.printf(Locale.ROOT, "%d connections, %d s after %d s of warm-up, %d error answers%n", _connections,
+					seconds, WARMUP_SECONDS, _errors);
+			_rosterForDay.report("getRosterForDay", seconds);
+			_assignStaff.report("assignStaff", seconds);
+		}
+
+		private void handle(SelectionKey key) throws IOException {
+			SocketChannel channel = (SocketChannel) key.channel();
+			Connection connection = (Connection) key.attachment();
+			if (key.isConnectable()) {
+				channel.finishConnect();
+				key.interestOps(SelectionKey.OP_READ);
+				send(channel, connection);
+			} else if (key.isReadable()) {
+				_readBuffer.clear();
+				int read = channel.read(_readBuffer);
+				if (read < 0) {
+					throw new IOException("connection " + connection._number + " was closed by the server");
+				}
+				_readBuffer.flip();
+				while (_readBuffer.hasRemaining()) {
+					if (connection.parse(_readBuffer)) { //a whole answer has been read.
+						long now = System.nanoTime();
+						if (connection._sent >= _recordFrom) {
+							(connection._assign ? _assignStaff : _rosterForDay).add(now - connection._sent);
+							if (connection._error) {
+								_errors++;
+							}
+						}
+						connection._assign = !connection._assign;
+						send(channel, connection);
+					}
+				}
+			}
+		}
+
+		private void send(SocketChannel channel, Connection connection) throws IOException {
+			ByteBuffer request = connection.nextRequest();
+			connection._sent = System.nanoTime();
+			while (request.hasRemaining()) {
+				if (channel.write(request) == 0) {
+					Thread.onSpinWait(); //requests are small, so the socket buffer is rarely full.
+				}
+			}
+		}
+	}
+
+	/**
+	 * A connection of the client, and how far it has read its answer.
+	 */
+	private static final class Connection {
+		private final int _number;
+		private final int _connections; //the connections of the client.
+		private boolean _assign; //whether the request waiting for an answer is assignStaff.
+		private long _sent;
+		private int _requests;
+		//parsing the answer: the headers read so far, then the body bytes still to come.
+		private final StringBuilder _headers = new StringBuilder(256);
+		private int _bodyRemaining = -1;
+		private boolean _error;
+		private final StringBuilder _bodyStart = new StringBuilder(16);
+
+		Connection(int number, int connections) {
+			_number = number;
+			_connections = connections;
+		}
+
+		ByteBuffer nextRequest() {
+			String path, body;
+			int day = (_number + _requests) % 7;
+			if (_assign) {
+				//the assignments of all connections sweep through every staff member on every shift, so they are new
+				//until the sweep wraps around, apart from the shifts the roster was built with.
+				long assignment = (long) (_requests / 2) * _connections + _number;
+				int member = (int) (assignment % STAFF);
+				int slot = (int) (assignment / STAFF % (7 * SHIFTS_PER_DAY));
+				day = slot % 7;
+				int shift = slot / 7;
+				path = "/assignStaff";
+				body = "{\"dayOfWeek\":\"" + RosterData.DAYS[day] + "\",\"startTime\":\""
+						+ RosterData.shiftStart(shift, SHIFTS_PER_DAY) + "\",\"endTime\":\""
+						+ RosterData.shiftEnd(shift, SHIFTS_PER_DAY) + "\",\"givenName\":\"" + RosterData.givenName(member)
+						+ "\",\"familyName\":\"" + RosterData.familyName(member) + "\",\"isManager\":false}";
+			} else {
+				path = "/getRosterForDay";
+				body = "{\"dayOfWeek\":\"" + RosterData.DAYS[day] + "\"}";
+			}
+			_requests++;
+			byte[] content = body.getBytes(StandardCharsets.UTF_8);
+			String head = "POST " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\nContent-Length: "
+					+ content.length + "\r\n\r\n";
+			byte[] headBytes = head.getBytes(StandardCharsets.US_ASCII);
+			ByteBuffer request = ByteBuffer.allocate(headBytes.length + content.length);
+			request.put(headBytes).put(content).flip();
+			return request;
+		}
+
+		/**
+		 * Read what the buffer holds of the answer, up to its end.
+		 * @param buffer
+		 * @return true if the answer is complete, in which case the buffer is left at the start of the next one.
+		 */
+		boolean parse(ByteBuffer buffer) {
+			while (_bodyRemaining < 0 && buffer.hasRemaining()) {
+				_headers.append((char) buffer.get());
+				int length = _headers.length();
+				if (length >= 4 && _headers.charAt(length - 1) == '\n' && _headers.charAt(length - 2) == '\r'
+						&& _headers.charAt(length - 3) == '\n' && _headers.charAt(length - 4) == '\r') {
+					_bodyRemaining = contentLength(_headers.toString());
+					_error = _headers.indexOf("HTTP/1.1 200") != 0;
+					_bodyStart.setLength(0);
+				}
+			}
+			if (_bodyRemaining < 0) {
+				return false;
+			}
+			int take = Math.min(_bodyRemaining, buffer.remaining());
+			for (int index = 0; index < take; index++) {
+				byte next = buffer.get();
+				if (_bodyStart.length() < 16) {
+					_bodyStart.append((char) next);
+				}
+			}
+			_bodyRemaining -= take;
+			if (_bodyRemaining != 0) {
+				return false;
+			}
+			_error |= _bodyStart.toString().startsWith("{\"status\":\"ERROR");
+			_headers.setLength(0);
+			_bodyRemaining = -1;
+			return true;
+		}
+
+		private static int contentLength(String headers) {
+			for (String line : headers.split("\r\n")) {
+				int colon = line.indexOf(':');
+				if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+					return Integer.parseInt(line.substring(colon + 1).trim());
+				}
+			}
+			throw new IllegalStateException("answer has no Content-Length: " + headers);
+		}
+	}
+
+	/**
+	 * The latencies of the answers to one operation.
+	 */
+	private static final class Latencies {
+		private long[] _nanos = new long[1 << 16];
+		private int _count;
+
+		void add(long nanos) {
+			if (_count == _nanos.length) {
+				_nanos = Arrays.copyOf(_nanos, _count * 2);
+			}
+			_nanos[_count++] = nanos;
+		}
+
+		void report(String operation, int seconds) {
+			long[] sorted = Arrays.copyOf(_nanos, _count);
+			Arrays.sort(sorted);
+			System.out.printf(Locale.ROOT, "%-16s %10.0f req/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n", operation,
+					_count / (double) seconds, percentile(sorted, 0.5), percentile(sorted, 0.99),
+					percentile(sorted, 1.0));
+		}
+
+		private static double percentile(long[] sorted, double fraction) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * fraction) - 1);
+			return sorted[Math.max(0, index)] / 1e6;
+		}
+	}
+}
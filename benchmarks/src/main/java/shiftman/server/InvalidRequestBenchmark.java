@@ -0,0 +1,72 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of requests that are rejected, or that find nothing, as from a client sending invalid or empty-day
+ * queries: an unknown day, a day with no shifts, bad hours, an unregistered staff member and a shift that was never
+ * added. A valid day roster is included to compare against. Every day is looked up from a new string, as a client's
+ * request would give it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InvalidRequestBenchmark {
+
+	private ShiftManServer _server;
+
+	@Setup
+	public void setUp() {
+		_server = new ShiftManServer();
+		RosterData.check(_server.newRoster("Benchmark"));
+		RosterData.check(_server.setWorkingHours("Monday", "09:00", "17:00"));
+		RosterData.check(_server.addShift("Monday", "09:00", "12:00", "1"));
+		RosterData.check(_server.registerStaff("Given", "Family"));
+		RosterData.check(_server.assignStaff("Monday", "09:00", "12:00", "Given", "Family", false));
+	}
+
+	@Benchmark
+	public List<String> validDay() {
+		return _server.getRosterForDay(new String("Monday"));
+	}
+
+	@Benchmark
+	public List<String> emptyDay() {
+		return _server.getRosterForDay(new String("Sunday"));
+	}
+
+	@Benchmark
+	public List<String> unknownDay() {
+		return _server.getRosterForDay("Funday");
+	}
+
+	@Benchmark
+	public String badHours() {
+		return _server.addShift(new String("Monday"), "12:00", "09:00", "1");
+	}
+
+	@Benchmark
+	public String unregisteredStaff() {
+		return _server.assignStaff(new String("Monday"), "09:00", "12:00", "Nobody", "Here", false);
+	}
+
+	@Benchmark
+	public String unknownShift() {
+		return _server.assignStaff(new String("Monday"), "13:00", "14:00", "Given", "Family", false);
+	}
+}
@@ -0,0 +1,182 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the rosters the benchmarks run against, so every benchmark sees the same data for the same size.
+ *
+ * <p>Every day has working hours of 00:01 to 23:59, and its shifts are spread evenly from 00:01 to 23:20, each starting
+ * the minute after the one before ends. The minutes after 23:20 are left free, so shifts can still be added to a full
+ * roster. As shifts cannot touch, a day holds at most 700 shifts of this layout.
+ *
+ * <p>Staff member i is "Given{i} Family{i}" and works shift (i / 7) % shiftsPerDay on day i % 7. Three in every four
+ * shifts have a manager, and the minimum workers vary around the average so some shifts are understaffed and some
+ * overstaffed.
+ */
+public final class RosterData {
+
+	public static final String[] DAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+	public static final int MAX_SHIFTS_PER_DAY = 700;
+	public static final int FREE_SHIFTS_PER_DAY = 19; //free shifts left after 23:20.
+
+	private static final int LAYOUT_MINUTES = 1400; //23:20, where the shifts of the layout end.
+	private static final int BATCH_SIZE = 10000;
+
+	private RosterData() {
+	}
+
+	/**
+	 * Build a roster.
+	 * @param staff the number of staff to register.
+	 * @param shiftsPerDay the number of shifts on each day.
+	 * @return a server holding the roster.
+	 */
+	public static ShiftManServer build(int staff, int shiftsPerDay) {
+		ShiftManServer server = new ShiftManServer();
+		build(server, staff, shiftsPerDay);
+		return server;
+	}
+
+	/**
+	 * Build a roster on a server, replacing any roster it has.
+	 * @param server
+	 * @param staff the number of staff to register.
+	 * @param shiftsPerDay the number of shifts on each day.
+	 */
+	public static void build(ShiftManServer server, int staff, int shiftsPerDay) {
+		if (shiftsPerDay < 1 || shiftsPerDay > MAX_SHIFTS_PER_DAY) {
+			throw new IllegalArgumentException("shifts per day must be from 1 to " + MAX_SHIFTS_PER_DAY);
+		}
+		check(server.newRoster("Benchmark"));
+		int averageWorkers = Math.max(1, staff / (7 * shiftsPerDay));
+		List<String[]> batch = new ArrayList<String[]>(BATCH_SIZE);
+		for (String day : DAYS) {
+			check(server.setWorkingHours(day, "00:01", "23:59"));
+			for (int shift = 0; shift < shiftsPerDay; shift++) {
+				int minWorkers = Math.max(1, averageWorkers + shift % 3 - 1);
+				batch.add(new String[] {day, shiftStart(shift, shiftsPerDay), shiftEnd(shift, shiftsPerDay),
+						Integer.toString(minWorkers)});
+			}
+			checkAll(server.addShiftsBatch(batch));
+			batch.clear();
+		}
+
+		for (int first = 0; first < staff; first += BATCH_SIZE) {
+			for (int member = first; member < Math.min(staff, first + BATCH_SIZE); member++) {
+				batch.add(new String[] {givenName(member), familyName(member)});
+			}
+			checkAll(server.registerStaffBatch(batch));
+			batch.clear();
+		}
+
+		for (int first = 0; first < staff; first += BATCH_SIZE) {
+			for (int member = first; member < Math.min(staff, first + BATCH_SIZE); member++) {
+				int shift = (member / 7) % shiftsPerDay;
+				batch.add(new String[] {DAYS[member % 7], shiftStart(shift, shiftsPerDay), shiftEnd(shift, shiftsPerDay),
+						givenName(member), familyName(member), "false"});
+			}
+			checkAll(server.assignStaffBatch(batch));
+			batch.clear();
+		}
+
+		//a manager for three in every four shifts, chosen from staff not already working the shift.
+		for (int day = 0; day < 7 && staff > 0; day++) {
+			for (int shift = 0; shift < shiftsPerDay; shift++) {
+				int manager = managerOf(day, shift, shiftsPerDay, staff);
+				if (manager >= 0) {
+					batch.add(new String[] {DAYS[day], shiftStart(shift, shiftsPerDay), shiftEnd(shift, shiftsPerDay),
+							givenName(manager), familyName(manager), "true"});
+				}
+			}
+			if (batch.size() >= BATCH_SIZE || day == 6) {
+				checkAll(server.assignStaffBatch(batch));
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the manager of a shift, or -1 if the shift has none.
+	 */
+	public static int managerOf(int day, int shift, int shiftsPerDay, int staff) {
+		if ((day * shiftsPerDay + shift) % 4 == 0) {
+			return -1;
+		}
+		int manager = (int) (((long) (day * shiftsPerDay + shift) * 7919 + 1) % staff);
+		boolean works = manager % 7 == day && (manager / 7) % shiftsPerDay == shift;
+		return works ? -1 : manager;
+	}
+
+	/**
+	 * @return a staff member who manages at least one shift, or -1 if no one does.
+	 */
+	public static int anyManager(int staff, int shiftsPerDay) {
+		for (int day = 0; day < 7 && staff > 0; day++) {
+			for (int shift = 0; shift < shiftsPerDay; shift++) {
+				int manager = managerOf(day, shift, shiftsPerDay, staff);
+				if (manager >= 0) {
+					return manager;
+				}
+			}
+		}
+		return -1;
+	}
+
+	public static String givenName(int member) {
+		return "Given" + member;
+	}
+
+	public static String familyName(int member) {
+		return "Family" + member;
+	}
+
+	/**
+	 * @return the name of a staff member in the format "given family".
+	 */
+	public static String name(int member) {
+		return givenName(member) + " " + familyName(member);
+	}
+
+	public static String shiftStart(int shift, int shiftsPerDay) {
+		return Hours.format(1 + shift * stride(shiftsPerDay));
+	}
+
+	public static String shiftEnd(int shift, int shiftsPerDay) {
+		return Hours.format((shift + 1) * stride(shiftsPerDay));
+	}
+
+	/**
+	 * @return the start of a shift in the free minutes after the layout, from 0 to {@link #FREE_SHIFTS_PER_DAY} - 1.
+	 */
+	public static String freeShiftStart(int shift) {
+		return Hours.format(LAYOUT_MINUTES + 2 + shift * 2);
+	}
+
+	public static String freeShiftEnd(int shift) {
+		return Hours.format(LAYOUT_MINUTES + 3 + shift * 2);
+	}
+
+	/**
+	 * The minutes from the start of one shift to the start of the next. Each shift lasts a minute less than this.
+	 */
+	private static int stride(int shiftsPerDay) {
+		return LAYOUT_MINUTES / shiftsPerDay;
+	}
+
+	/**
+	 * Fail the benchmark if a request was not successful.
+	 * @param status the status the request returned.
+	 */
+	static void check(String status) {
+		if (status.startsWith("ERROR")) {
+			throw new IllegalStateException(status);
+		}
+	}
+
+	private static void checkAll(List<String> statuses) {
+		for (String status : statuses) {
+			check(status);
+		}
+	}
+}
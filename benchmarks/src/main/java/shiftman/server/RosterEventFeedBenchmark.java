@@ -0,0 +1,62 @@
+package shiftman.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Publishing changes to a feed with no subscriber, a dropping subscriber or a blocking one, and the cost of creating a
+ * shop, whose feed has no ring until someone subscribes. Run with {@code -prof gc} to see the allocation of each.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class RosterEventFeedBenchmark {
+
+	@Param({"NONE", "DROP", "BLOCK"})
+	public String subscriber;
+
+	private RosterEventFeed _feed;
+	private RosterEventFeed.Subscription _subscription;
+	private final Staff _staff = new Staff("Ann", "Smith");
+
+	@Setup
+	public void setUp() {
+		_feed = new RosterEventFeed();
+		if (!subscriber.equals("NONE")) {
+			_subscription = _feed.subscribe(RosterEventFeed.Policy.valueOf(subscriber), event -> {
+			});
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (_subscription != null) {
+			_subscription.close();
+		}
+	}
+
+	@Benchmark
+	public void publish() {
+		_feed.publishStaffRegistered(_staff);
+	}
+
+	@Benchmark
+	public Shop newShop() {
+		return new Shop("Shop");
+	}
+}
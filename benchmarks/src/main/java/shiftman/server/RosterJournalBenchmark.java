@@ -0,0 +1,75 @@
+package shiftman.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rebuilding a roster from its journal, and journaling a change, which waits for its record to reach the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Thread)
+public class RosterJournalBenchmark {
+
+	@Param({"1000", "100000"})
+	public int staff;
+
+	@Param({"100"})
+	public int shiftsPerDay;
+
+	private Path _directory;
+	private Path _path;
+	private RosterJournal _journal;
+	private ShiftManServer _server;
+	private int _registered;
+
+	@Setup
+	public void setUp() throws IOException {
+		_directory = Files.createTempDirectory("journal-benchmark");
+		_path = _directory.resolve("roster.journal");
+		try (RosterJournal journal = new RosterJournal(_path)) {
+			RosterData.build(new ShiftManServer(journal), staff, shiftsPerDay);
+		}
+		_journal = new RosterJournal(_directory.resolve("changes.journal"));
+		_server = new ShiftManServer(_journal);
+		RosterData.build(_server, 0, shiftsPerDay);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		_journal.close();
+		Files.delete(_directory.resolve("changes.journal"));
+		Files.delete(_path);
+		Files.delete(_directory);
+	}
+
+	@Benchmark
+	public ShiftManServer replay() throws IOException {
+		try (RosterJournal journal = new RosterJournal(_path)) {
+			return new ShiftManServer(journal);
+		}
+	}
+
+	@Benchmark
+	public String registerStaff() {
+		return _server.registerStaff("New", "Staff" + _registered++);
+	}
+}
@@ -0,0 +1,61 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of the metrics: recording a request on its own, a cheap request that is timed and counted, and creating a
+ * shop in a registry, whose server only makes the histograms of the requests it is asked. Run with {@code -prof gc} to
+ * see the allocation of each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class RosterMetricsBenchmark {
+
+	private ShiftManServer _server;
+	private RosterMetrics _metrics;
+	private ShopRegistry _registry;
+	private int _shops;
+
+	@Setup
+	public void setUp() {
+		_server = RosterData.build(1000, 10);
+		_metrics = _server.getMetrics();
+		_registry = new ShopRegistry();
+	}
+
+	@Benchmark
+	public String record() {
+		return _metrics.record(RosterOperation.ASSIGN_STAFF, System.nanoTime(), "");
+	}
+
+	@Benchmark
+	public List<String> getRosterForDay() {
+		return _server.getRosterForDay("Monday");
+	}
+
+	@Benchmark
+	public String newShop() {
+		String status = _registry.newRoster("Shop" + _shops++);
+		if (_shops == 100000) { //keep the registry from filling the heap.
+			_registry = new ShopRegistry();
+			_shops = 0;
+		}
+		return status;
+	}
+}
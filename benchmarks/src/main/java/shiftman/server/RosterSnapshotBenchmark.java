@@ -0,0 +1,66 @@
+package shiftman.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading a roster from a snapshot and then making a change that only looks up one staff member, against loading it and
+ * listing every staff member.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Thread)
+public class RosterSnapshotBenchmark {
+
+	@Param({"100000", "1000000"})
+	public int staff;
+
+	@Param({"700"})
+	public int shiftsPerDay;
+
+	private Path _path;
+
+	@Setup
+	public void setUp() throws IOException {
+		_path = Files.createTempFile("roster", ".snapshot");
+		RosterData.check(RosterData.build(staff, shiftsPerDay).saveSnapshot(_path));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(_path);
+	}
+
+	@Benchmark
+	public String loadAndRegisterStaff() {
+		ShiftManServer server = new ShiftManServer();
+		RosterData.check(server.loadSnapshot(_path));
+		return server.registerStaff("New", "Staff");
+	}
+
+	@Benchmark
+	public List<String> loadAndListStaff() {
+		ShiftManServer server = new ShiftManServer();
+		RosterData.check(server.loadSnapshot(_path));
+		return server.getRegisteredStaff();
+	}
+}
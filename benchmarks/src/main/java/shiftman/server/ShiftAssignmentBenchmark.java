@@ -0,0 +1,66 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Assigning every staff member to one shift, in reverse name order so each new worker goes first, either as one batch
+ * that sorts the workers once or one assignment at a time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Thread)
+public class ShiftAssignmentBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int workers;
+
+	private ShiftManServer _server;
+	private List<String[]> _assignments;
+
+	@Setup(Level.Invocation)
+	public void setUp() {
+		_server = RosterData.build(0, 1);
+		List<String[]> staff = new ArrayList<String[]>(workers);
+		_assignments = new ArrayList<String[]>(workers);
+		for (int member = workers - 1; member >= 0; member--) {
+			staff.add(new String[] {RosterData.givenName(member), RosterData.familyName(member)});
+			_assignments.add(new String[] {"Monday", RosterData.shiftStart(0, 1), RosterData.shiftEnd(0, 1),
+					RosterData.givenName(member), RosterData.familyName(member), "false"});
+		}
+		for (String status : _server.registerStaffBatch(staff)) {
+			RosterData.check(status);
+		}
+	}
+
+	@Benchmark
+	public List<String> batch() {
+		return _server.assignStaffBatch(_assignments);
+	}
+
+	@Benchmark
+	public String single() {
+		String status = "";
+		for (String[] assignment : _assignments) {
+			status = _server.assignStaff(assignment[0], assignment[1], assignment[2], assignment[3], assignment[4], false);
+		}
+		return status;
+	}
+}
@@ -0,0 +1,95 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The queries of {@link ShiftMan}, run against rosters from 10 to 1M staff and from 1 to 700 shifts per day.
+ * Run with {@code -prof gc} to see what each query allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class ShiftManBenchmark {
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int staff;
+
+	@Param({"1", "100", "700"})
+	public int shiftsPerDay;
+
+	private ShiftManServer _server;
+	private String _worker, _manager;
+
+	@Setup
+	public void setUp() {
+		_server = RosterData.build(staff, shiftsPerDay);
+		_worker = RosterData.name(staff / 2);
+		_manager = RosterData.name(RosterData.anyManager(staff, shiftsPerDay));
+	}
+
+	@Benchmark
+	public List<String> getRosterForDay() {
+		return _server.getRosterForDay("Wednesday");
+	}
+
+	@Benchmark
+	public List<String> getRosterForWorker() {
+		return _server.getRosterForWorker(_worker);
+	}
+
+	@Benchmark
+	public List<String> getShiftsManagedBy() {
+		return _server.getShiftsManagedBy(_manager);
+	}
+
+	@Benchmark
+	public List<String> getRegisteredStaff() {
+		return _server.getRegisteredStaff();
+	}
+
+	@Benchmark
+	public List<String> getUnassignedStaff() {
+		return _server.getUnassignedStaff();
+	}
+
+	@Benchmark
+	public List<String> shiftsWithoutManagers() {
+		return _server.shiftsWithoutManagers();
+	}
+
+	@Benchmark
+	public List<String> understaffedShifts() {
+		return _server.understaffedShifts();
+	}
+
+	@Benchmark
+	public List<String> overstaffedShifts() {
+		return _server.overstaffedShifts();
+	}
+
+	@Benchmark
+	public String reportRosterIssues() {
+		return _server.reportRosterIssues();
+	}
+
+	@Benchmark
+	public String displayRoster() {
+		return _server.displayRoster();
+	}
+}
@@ -0,0 +1,80 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The throughput of one roster shared by many threads. Each thread has its own day, so writes to different days can run
+ * at once, and reads take no lock at all. Run it at each thread count to see how it scales, from one thread up to the
+ * number of cores:
+ * <pre>
+ * java -jar target/benchmarks.jar ShiftManThreadsBenchmark -t 1
+ * java -jar target/benchmarks.jar ShiftManThreadsBenchmark -t 4
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ShiftManThreadsBenchmark {
+
+	@Param({"10000"})
+	public int staff;
+
+	@Param({"100"})
+	public int shiftsPerDay;
+
+	private ShiftManServer _server;
+	private final AtomicInteger _threads = new AtomicInteger();
+
+	@Setup
+	public void setUp() {
+		_server = RosterData.build(staff, shiftsPerDay);
+	}
+
+	/**
+	 * The day and a staff member of one thread.
+	 */
+	@State(Scope.Thread)
+	public static class ThreadDay {
+		private String _day;
+		private String _worker;
+
+		@Setup
+		public void setUp(ShiftManThreadsBenchmark benchmark) {
+			int thread = benchmark._threads.getAndIncrement();
+			_day = RosterData.DAYS[thread % 7];
+			_worker = RosterData.name(thread % benchmark.staff);
+		}
+	}
+
+	@Benchmark
+	public List<String> getRosterForDay(ThreadDay thread) {
+		return _server.getRosterForDay(thread._day);
+	}
+
+	@Benchmark
+	public List<String> getRosterForWorker(ThreadDay thread) {
+		return _server.getRosterForWorker(thread._worker);
+	}
+
+	@Benchmark
+	public String setWorkingHours(ThreadDay thread) {
+		return _server.setWorkingHours(thread._day, "00:01", "23:59");
+	}
+}
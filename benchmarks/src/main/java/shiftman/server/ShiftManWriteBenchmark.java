@@ -0,0 +1,93 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The changes of {@link ShiftMan}, made to rosters from 10 to 1M staff and from 1 to 700 shifts per day.
+ *
+ * <p>A shift can only be added or a staff member assigned to it once, so each change is not repeated endlessly on the
+ * same roster. Instead each iteration makes {@value #CHANGES} different changes to a freshly built roster, and the score
+ * is the time for all of them.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = ShiftManWriteBenchmark.CHANGES)
+@Measurement(iterations = 10, batchSize = ShiftManWriteBenchmark.CHANGES)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Thread)
+public class ShiftManWriteBenchmark {
+
+	static final int CHANGES = 50;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int staff;
+
+	@Param({"1", "100", "700"})
+	public int shiftsPerDay;
+
+	private ShiftManServer _server;
+	private int _change;
+	private final List<String[]> _assignments = new ArrayList<String[]>();
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		_server = RosterData.build(staff, shiftsPerDay);
+		_change = 0;
+
+		//staff are assigned to shifts on the days after the one they already work, and never to a shift they manage.
+		_assignments.clear();
+		for (int change = 0; _assignments.size() < CHANGES && change < staff * 6; change++) {
+			int member = change % staff;
+			int round = change / staff;
+			int day = (member % 7 + 1 + round) % 7;
+			int shift = (member / 7 + round) % shiftsPerDay;
+			if (RosterData.managerOf(day, shift, shiftsPerDay, staff) != member) {
+				_assignments.add(new String[] {RosterData.DAYS[day], RosterData.shiftStart(shift, shiftsPerDay),
+						RosterData.shiftEnd(shift, shiftsPerDay), RosterData.givenName(member), RosterData.familyName(member)});
+			}
+		}
+	}
+
+	@Benchmark
+	public String newRoster() {
+		return new ShiftManServer().newRoster("Benchmark");
+	}
+
+	@Benchmark
+	public String setWorkingHours() {
+		return _server.setWorkingHours(RosterData.DAYS[_change++ % 7], "00:01", "23:59");
+	}
+
+	@Benchmark
+	public String addShift() {
+		int change = _change++;
+		return _server.addShift(RosterData.DAYS[change % 7], RosterData.freeShiftStart(change / 7),
+				RosterData.freeShiftEnd(change / 7), "2");
+	}
+
+	@Benchmark
+	public String registerStaff() {
+		return _server.registerStaff("New", "Staff" + _change++);
+	}
+
+	@Benchmark
+	public String assignStaff() {
+		String[] assignment = _assignments.get(_change++);
+		return _server.assignStaff(assignment[0], assignment[1], assignment[2], assignment[3], assignment[4], false);
+	}
+}
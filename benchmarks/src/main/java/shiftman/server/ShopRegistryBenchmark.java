@@ -0,0 +1,74 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Many shops in one registry under a mixed load: three threads read day rosters while one registers and assigns
+ * staff, each request going to a random shop.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Group)
+public class ShopRegistryBenchmark {
+
+	@Param({"10000"})
+	public int shops;
+
+	private ShopRegistry _registry;
+	private String[] _names;
+	private final AtomicLong _registered = new AtomicLong();
+
+	@Setup
+	public void setUp() {
+		_registry = new ShopRegistry();
+		_names = new String[shops];
+		for (int shop = 0; shop < shops; shop++) {
+			_names[shop] = "Shop" + shop;
+			_registry.newRoster(_names[shop]);
+			_registry.setWorkingHours(_names[shop], "Monday", "09:00", "17:00");
+			_registry.addShift(_names[shop], "Monday", "09:00", "13:00", "2");
+			_registry.addShift(_names[shop], "Monday", "14:00", "17:00", "2");
+			for (int staff = 0; staff < 5; staff++) {
+				_registry.registerStaff(_names[shop], "Given" + staff, "Family" + staff);
+				_registry.assignStaff(_names[shop], "Monday", "09:00", "13:00", "Given" + staff, "Family" + staff, staff == 0);
+			}
+		}
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public List<String> getRosterForDay() {
+		return _registry.getRosterForDay(_names[ThreadLocalRandom.current().nextInt(shops)], "Monday");
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public String registerAndAssign() {
+		String shop = _names[ThreadLocalRandom.current().nextInt(shops)];
+		String familyName = "New" + _registered.incrementAndGet();
+		_registry.registerStaff(shop, "Given", familyName);
+		return _registry.assignStaff(shop, "Monday", "14:00", "17:00", "Given", familyName, false);
+	}
+}
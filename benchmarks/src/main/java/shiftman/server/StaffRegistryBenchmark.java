@@ -0,0 +1,104 @@
+package shiftman.server;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The staff registry of a shop on its own: registering every staff member into an empty {@link ShopStaffList}, and
+ * looking a registered staff member up by name, at 1k, 100k and 1M staff.
+ */
+public class StaffRegistryBenchmark {
+
+	/**
+	 * Registers all the staff, in reverse name order so each one is inserted ahead of the rest. The score is the time to
+	 * register all of them.
+	 */
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 5)
+	@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+	@State(Scope.Thread)
+	public static class Register {
+
+		@Param({"1000", "100000", "1000000"})
+		public int staff;
+
+		private Staff[] _staff;
+		private ShopStaffList _staffList;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			_staff = new Staff[staff];
+			for (int member = 0; member < staff; member++) {
+				_staff[member] = new Staff(RosterData.givenName(staff - 1 - member), RosterData.familyName(staff - 1 - member));
+			}
+			_staffList = new ShopStaffList();
+		}
+
+		@Benchmark
+		public ShopStaffList registerStaff() throws RosterException {
+			for (Staff member : _staff) {
+				_staffList.registerStaff(member);
+			}
+			return _staffList;
+		}
+	}
+
+	/**
+	 * Looks up registered staff by name, each lookup with a different name in a different case from the one registered.
+	 */
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	@Warmup(iterations = 3, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+	@State(Scope.Thread)
+	public static class Lookup {
+
+		private static final int NAMES = 1024;
+
+		@Param({"1000", "100000", "1000000"})
+		public int staff;
+
+		private ShopStaffList _staffList;
+		private final String[] _names = new String[NAMES];
+		private final String[] _otherCase = new String[NAMES];
+		private int _lookup;
+
+		@Setup
+		public void setUp() throws RosterException {
+			_staffList = new ShopStaffList();
+			for (int member = 0; member < staff; member++) {
+				_staffList.registerStaff(new Staff(RosterData.givenName(member), RosterData.familyName(member)));
+			}
+			for (int name = 0; name < NAMES; name++) {
+				int member = (int) ((long) name * 7919 % staff);
+				_names[name] = RosterData.name(member);
+				_otherCase[name] = _names[name].toUpperCase();
+			}
+		}
+
+		@Benchmark
+		public Staff getStaff() throws RosterException {
+			return _staffList.getStaff(_names[_lookup++ & (NAMES - 1)]);
+		}
+
+		@Benchmark
+		public Staff findStaffOtherCase() {
+			return _staffList.findStaff(_otherCase[_lookup++ & (NAMES - 1)]); //found in the index, then rejected.
+		}
+	}
+}
@@ -0,0 +1,400 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Proposes assignments that give every shift a manager and its minimum number of workers, drawing on all registered staff.
+ * A staff member is never proposed for a shift they already work or manage, as one person cannot hold two places on a
+ * shift. Shifts are never given more than their minimum workers, so no shift becomes overstaffed.
+ *
+ * <p>The roster is read once, under read locks, and then searched without holding any lock. Several searches run at
+ * once on a fork/join pool, each from a different random order. Each search fills places greedily with the least
+ * loaded eligible staff, then moves places from more loaded to less loaded staff until no move helps or the time
+ * budget runs out. The solution that fills the most places, and then spreads shifts most evenly across the staff, is
+ * kept.
+ */
+public class AutoRoster {
+
+	private final Shop _shop;
+	private final ForkJoinPool _pool;
+
+	/**
+	 * @param shop the shop to staff.
+	 */
+	public AutoRoster(Shop shop) {
+		this(shop, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param shop the shop to staff.
+	 * @param pool the pool to search on. One search is run for each thread of the pool.
+	 */
+	public AutoRoster(Shop shop, ForkJoinPool pool) {
+		_shop = shop;
+		_pool = pool;
+	}
+
+	/**
+	 * Search for assignments that staff the roster.
+	 * @param timeBudgetMillis roughly how long to spend improving the solution after it is first found.
+	 * @return the best assignments found.
+	 */
+	public RosterSolution solve(long timeBudgetMillis) {
+		Problem problem = new Problem(_shop);
+		long deadline = System.nanoTime() + timeBudgetMillis * 1000000L;
+		Plan best = _pool.invoke(new Search(problem, 0, Math.max(1, _pool.getParallelism()), deadline));
+		return problem.toSolution(best);
+	}
+
+	/**
+	 * The roster as read, reduced to arrays of staff ids and the places to fill.
+	 */
+	private static final class Problem {
+		private final Shop _shop;
+		private final List<WorkDay> _days;
+		private final long[] _dayVersions;
+		private final List<ShiftView> _shifts = new ArrayList<ShiftView>();
+		private final IdSet[] _members; //staff ids already on each shift.
+		private final StaffView[] _staff; //by staff id.
+		private final int[] _load; //shifts each staff member already works or manages.
+		private final int[] _placeShift; //the shift of each place to fill.
+		private final boolean[] _placeManager; //whether each place is for a manager.
+
+		Problem(Shop shop) {
+			_shop = shop;
+			List<StaffView> staffViews;
+			shop.lockAllStaff(false);
+			shop.lockWeek(false);
+			try {
+				_days = shop.getWorkDays();
+				_dayVersions = new long[_days.size()];
+				for (int day = 0; day < _days.size(); day++) {
+					_dayVersions[day] = _days.get(day).getVersion();
+					_shifts.addAll(_days.get(day).getShiftViews());
+				}
+				staffViews = shop.getStaffViews(StaffFilter.REGISTERED);
+			} finally {
+				shop.unlockWeek(false);
+				shop.unlockStaff(false);
+			}
+
+			_staff = new StaffView[staffViews.size()];
+			for (StaffView staff : staffViews) {
+				_staff[staff.getId()] = staff;
+			}
+			_load = new int[_staff.length];
+			_members = new IdSet[_shifts.size()];
+			List<Integer> places = new ArrayList<Integer>();
+			for (int shift = 0; shift < _shifts.size(); shift++) {
+				ShiftView view = _shifts.get(shift);
+				_members[shift] = new IdSet();
+				if (view.getManager() != null) {
+					_members[shift].add(view.getManager().getId());
+					_load[view.getManager().getId()]++;
+				} else {
+					places.add(-shift - 1); //manager places are negative.
+				}
+				for (StaffView worker : view.getWorkers()) {
+					_members[shift].add(worker.getId());
+					_load[worker.getId()]++;
+				}
+				for (int worker = view.getWorkers().size(); worker < view.getMinWorkers(); worker++) {
+					places.add(shift);
+				}
+			}
+			_placeShift = new int[places.size()];
+			_placeManager = new boolean[places.size()];
+			for (int place = 0; place < places.size(); place++) {
+				int shift = places.get(place);
+				_placeManager[place] = shift < 0;
+				_placeShift[place] = shift < 0 ? -shift - 1 : shift;
+			}
+		}
+
+		/**
+		 * Count the shifts with each problem, with the staff of a plan added.
+		 * @param plan the plan to add, or null for the roster as read.
+		 * @return the counts, by problem type ordinal.
+		 */
+		int[] countProblems(Plan plan) {
+			int[] workers = new int[_shifts.size()];
+			boolean[] managed = new boolean[_shifts.size()];
+			for (int shift = 0; shift < _shifts.size(); shift++) {
+				workers[shift] = _shifts.get(shift).getWorkers().size();
+				managed[shift] = _shifts.get(shift).getManager() != null;
+			}
+			if (plan != null) {
+				for (int place = 0; place < _placeShift.length; place++) {
+					if (plan._placeStaff[place] != -1) {
+						if (_placeManager[place]) {
+							managed[_placeShift[place]] = true;
+						} else {
+							workers[_placeShift[place]]++;
+						}
+					}
+				}
+			}
+			int[] counts = new int[ProblemType.values().length];
+			for (int shift = 0; shift < _shifts.size(); shift++) {
+				int minWorkers = _shifts.get(shift).getMinWorkers();
+				if (!managed[shift]) {
+					counts[ProblemType.WITHOUT_MANAGERS.ordinal()]++;
+				}
+				if (workers[shift] > minWorkers) {
+					counts[ProblemType.OVERSTAFFED.ordinal()]++;
+				} else if (workers[shift] < minWorkers) {
+					counts[ProblemType.UNDERSTAFFED.ordinal()]++;
+				}
+			}
+			return counts;
+		}
+
+		RosterSolution toSolution(Plan plan) {
+			List<RosterSolution.Assignment> assignments = new ArrayList<RosterSolution.Assignment>();
+			for (int place = 0; place < _placeShift.length; place++) { //places are in shift order.
+				if (plan._placeStaff[place] != -1) {
+					assignments.add(new RosterSolution.Assignment(_shifts.get(_placeShift[place]),
+							_staff[plan._placeStaff[place]], _placeManager[place]));
+				}
+			}
+			return new RosterSolution(_shop, _days, _dayVersions, assignments, countProblems(null), countProblems(plan),
+					plan._unfilled);
+		}
+	}
+
+	/**
+	 * Runs searches for a range of seeds, splitting the range between threads, and keeps the best plan.
+	 */
+	private static final class Search extends RecursiveTask<Plan> {
+		private static final long serialVersionUID = 1L;
+
+		private final Problem _problem;
+		private final int _firstSeed, _endSeed;
+		private final long _deadline;
+
+		Search(Problem problem, int firstSeed, int endSeed, long deadline) {
+			_problem = problem;
+			_firstSeed = firstSeed;
+			_endSeed = endSeed;
+			_deadline = deadline;
+		}
+
+		@Override
+		protected Plan compute() {
+			if (_endSeed - _firstSeed == 1) {
+				Plan plan = new Plan(_problem, _firstSeed);
+				plan.fill();
+				plan.improve(_deadline);
+				return plan;
+			}
+			int middle = (_firstSeed + _endSeed) >>> 1;
+			Search first = new Search(_problem, _firstSeed, middle, _deadline);
+			first.fork();
+			Plan second = new Search(_problem, middle, _endSeed, _deadline).compute();
+			Plan plan = first.join();
+			return second.isBetterThan(plan) ? second : plan;
+		}
+	}
+
+	/**
+	 * One search's staff for each place. Staff are kept in buckets by load, so the least loaded staff are found
+	 * without sorting.
+	 */
+	private static final class Plan {
+		private final Problem _problem;
+		private final int _seed;
+		private final SplittableRandom _random;
+		private final int[] _placeStaff; //staff id for each place, or -1 if it is unfilled.
+		private final IdSet[] _added; //staff ids added to each shift by the plan, created when first needed.
+		private final int[] _load;
+		private int[] _bucketHead; //first staff id with each load, or -1.
+		private final int[] _next, _previous; //the other staff ids in the same load bucket, or -1.
+		private int _lowestLoad;
+		private int _unfilled;
+
+		Plan(Problem problem, int seed) {
+			_problem = problem;
+			_seed = seed;
+			_random = new SplittableRandom(seed);
+			_placeStaff = new int[problem._placeShift.length];
+			_added = new IdSet[problem._shifts.size()];
+			_load = problem._load.clone();
+			_next = new int[_load.length];
+			_previous = new int[_load.length];
+
+			int maxLoad = 0;
+			for (int load : _load) {
+				maxLoad = Math.max(maxLoad, load);
+			}
+			_bucketHead = new int[maxLoad + 2];
+			Arrays.fill(_bucketHead, -1);
+			int[] order = shuffled(_load.length, seed); //ties between equally loaded staff are broken differently by each seed.
+			for (int index = order.length - 1; index >= 0; index--) {
+				link(order[index]);
+			}
+		}
+
+		/**
+		 * Fill each place, in a random order except for the first seed, with the least loaded eligible staff member.
+		 */
+		void fill() {
+			int[] order = shuffled(_placeStaff.length, _seed == 0 ? 0 : _random.nextInt(Integer.MAX_VALUE) + 1);
+			for (int place : order) {
+				int staff = leastLoaded(_problem._placeShift[place], Integer.MAX_VALUE);
+				_placeStaff[place] = staff;
+				if (staff == -1) {
+					_unfilled++;
+				} else {
+					add(place, staff);
+				}
+			}
+		}
+
+		/**
+		 * Move places from staff to eligible staff with at least two fewer shifts, which evens out the load, until no such
+		 * move is left or the deadline passes.
+		 * @param deadline from {@link System#nanoTime()}.
+		 */
+		void improve(long deadline) {
+			boolean moved = true;
+			while (moved) {
+				moved = false;
+				int[] order = shuffled(_placeStaff.length, _random.nextInt(Integer.MAX_VALUE) + 1);
+				for (int index = 0; index < order.length; index++) {
+					if ((index & 255) == 0 && System.nanoTime() > deadline) {
+						return;
+					}
+					int place = order[index];
+					int staff = _placeStaff[place];
+					if (staff == -1 || _load[staff] - _lowestLoad < 2) {
+						continue;
+					}
+					int replacement = leastLoaded(_problem._placeShift[place], _load[staff] - 2);
+					if (replacement != -1) {
+						remove(place, staff);
+						_placeStaff[place] = replacement;
+						add(place, replacement);
+						moved = true;
+					}
+				}
+			}
+		}
+
+		/**
+		 * A plan is better if it fills more places, or fills as many and spreads the shifts more evenly.
+		 */
+		boolean isBetterThan(Plan plan) {
+			if (_unfilled != plan._unfilled) {
+				return _unfilled < plan._unfilled;
+			}
+			return spread() < plan.spread();
+		}
+
+		private long spread() {
+			long sum = 0;
+			for (int load : _load) {
+				sum += (long) load * load;
+			}
+			return sum;
+		}
+
+		/**
+		 * Find the least loaded staff member who is not already on the shift.
+		 * @param shift
+		 * @param maxLoad the most shifts the staff member can already have.
+		 * @return the staff id, or -1 if there is none.
+		 */
+		private int leastLoaded(int shift, int maxLoad) {
+			for (int load = _lowestLoad; load < _bucketHead.length && load <= maxLoad; load++) {
+				for (int staff = _bucketHead[load]; staff != -1; staff = _next[staff]) {
+					if (!_problem._members[shift].contains(staff) && (_added[shift] == null || !_added[shift].contains(staff))) {
+						return staff;
+					}
+				}
+			}
+			return -1;
+		}
+
+		private void add(int place, int staff) {
+			int shift = _problem._placeShift[place];
+			if (_added[shift] == null) {
+				_added[shift] = new IdSet();
+			}
+			_added[shift].add(staff);
+			unlink(staff);
+			_load[staff]++;
+			link(staff);
+		}
+
+		private void remove(int place, int staff) {
+			_added[_problem._placeShift[place]].remove(staff);
+			unlink(staff);
+			_load[staff]--;
+			link(staff);
+		}
+
+		/**
+		 * Put a staff member at the head of the bucket for their load.
+		 */
+		private void link(int staff) {
+			int load = _load[staff];
+			if (load >= _bucketHead.length) {
+				int length = _bucketHead.length;
+				_bucketHead = Arrays.copyOf(_bucketHead, Math.max(load + 1, length * 2));
+				Arrays.fill(_bucketHead, length, _bucketHead.length, -1);
+			}
+			_previous[staff] = -1;
+			_next[staff] = _bucketHead[load];
+			if (_bucketHead[load] != -1) {
+				_previous[_bucketHead[load]] = staff;
+			}
+			_bucketHead[load] = staff;
+			if (load < _lowestLoad || _bucketHead[_lowestLoad] == -1) {
+				_lowestLoad = load;
+			}
+		}
+
+		/**
+		 * Take a staff member out of the bucket for their load.
+		 */
+		private void unlink(int staff) {
+			int load = _load[staff];
+			if (_previous[staff] == -1) {
+				_bucketHead[load] = _next[staff];
+			} else {
+				_next[_previous[staff]] = _next[staff];
+			}
+			if (_next[staff] != -1) {
+				_previous[_next[staff]] = _previous[staff];
+			}
+			while (_lowestLoad < _bucketHead.length - 1 && _bucketHead[_lowestLoad] == -1) {
+				_lowestLoad++;
+			}
+		}
+
+		/**
+		 * @return 0 to length - 1, in order for seed 0 and shuffled for any other seed.
+		 */
+		private static int[] shuffled(int length, int seed) {
+			int[] order = new int[length];
+			for (int index = 0; index < length; index++) {
+				order[index] = index;
+			}
+			if (seed != 0) {
+				SplittableRandom random = new SplittableRandom(seed);
+				for (int index = length - 1; index > 0; index--) {
+					int swap = random.nextInt(index + 1);
+					int value = order[index];
+					order[index] = order[swap];
+					order[swap] = value;
+				}
+			}
+			return order;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package shiftman.server;
+
+import java.util.Arrays;
+
+/**
+ * The staffing coverage of a working day: how many staff are on the floor, and how many of them are managers, at each
+ * minute of the day. It is immutable, and tagged with the version of the day it was computed from.
+ *
+ * <p>Coverage is a step function. It is computed by a sweep over the start and end of the working hours and of each
+ * shift: every start or end is a step boundary, each shift adds its staff to the steps between its start and end, and
+ * the running total at each boundary gives the coverage up to the next. A shift covers the minutes from its start up to,
+ * but not including, its end. Point queries find their step by binary search, and range queries only visit the steps
+ * in the range, so no query walks the minutes of the day.
+ *
+ * <p>Times are minutes of the day. Ranges of times are returned packed into ints in the same way as {@link Hours}.
+ */
+public final class DayCoverage {
+
+	private final long _version;
+	private final int _workingStart, _workingEnd; //both 0 if the working hours have not been set.
+	private final int[] _boundaries; //the minute each step starts at, ascending, starting with 0.
+	private final int[] _headcounts; //staff on the floor in each step.
+	private final int[] _managers; //managers on the floor in each step.
+	private final int[] _shifts; //shifts scheduled in each step.
+
+	private DayCoverage(long version, int workingStart, int workingEnd, int[] boundaries, int[] headcounts, int[] managers,
+			int[] shifts) {
+		_version = version;
+		_workingStart = workingStart;
+		_workingEnd = workingEnd;
+		_boundaries = boundaries;
+		_headcounts = headcounts;
+		_managers = managers;
+		_shifts = shifts;
+	}
+
+	/**
+	 * Compute the coverage of a day by sweeping over the boundaries of its working hours and shifts.
+	 * @param version the version of the day.
+	 * @param workingHours the working hours of the day, or null if they have not been set.
+	 * @param shifts the packed hours of each shift.
+	 * @param headcounts the staff of each shift, including its manager.
+	 * @param managers the managers of each shift.
+	 * @param count the number of shifts.
+	 * @return the coverage.
+	 */
+	static DayCoverage sweep(long version, Hours workingHours, int[] shifts, int[] headcounts, int[] managers, int count) {
+		int workingStart = workingHours == null ? 0 : workingHours.getStart();
+		int workingEnd = workingHours == null ? 0 : workingHours.getEnd();
+
+		//every minute a step can start at, sorted with the duplicates removed.
+		int[] boundaries = new int[count * 2 + 3];
+		boundaries[0] = 0;
+		boundaries[1] = workingStart;
+		boundaries[2] = workingEnd;
+		for (int shift = 0; shift < count; shift++) {
+			boundaries[shift * 2 + 3] = Hours.startOf(shifts[shift]);
+			boundaries[shift * 2 + 4] = Hours.endOf(shifts[shift]);
+		}
+		Arrays.sort(boundaries);
+		int steps = 0;
+		for (int boundary : boundaries) {
+			if (steps == 0 || boundaries[steps - 1] != boundary) {
+				boundaries[steps++] = boundary;
+			}
+		}
+		boundaries = Arrays.copyOf(boundaries, steps);
+
+		//add each shift's staff where it starts and take them away where it ends, then total them up in order.
+		int[] headcountDeltas = new int[steps + 1];
+		int[] managerDeltas = new int[steps + 1];
+		int[] shiftDeltas = new int[steps + 1];
+		for (int shift = 0; shift < count; shift++) {
+			int first = Arrays.binarySearch(boundaries, Hours.startOf(shifts[shift]));
+			int last = Arrays.binarySearch(boundaries, Hours.endOf(shifts[shift]));
+			headcountDeltas[first] += headcounts[shift];
+			headcountDeltas[last] -= headcounts[shift];
+			managerDeltas[first] += managers[shift];
+			managerDeltas[last] -= managers[shift];
+			shiftDeltas[first]++;
+			shiftDeltas[last]--;
+		}
+		int[] headcountSteps = new int[steps];
+		int[] managerSteps = new int[steps];
+		int[] shiftSteps = new int[steps];
+		int headcount = 0, manager = 0, shift = 0;
+		for (int step = 0; step < steps; step++) {
+			headcount += headcountDeltas[step];
+			manager += managerDeltas[step];
+			shift += shiftDeltas[step];
+			headcountSteps[step] = headcount;
+			managerSteps[step] = manager;
+			shiftSteps[step] = shift;
+		}
+		return new DayCoverage(version, workingStart, workingEnd, boundaries, headcountSteps, managerSteps, shiftSteps);
+	}
+
+	/**
+	 * Make the coverage after the staff of one shift have changed. The steps are the same, as the shift's start and end
+	 * already are step boundaries, so only the steps of the shift are changed.
+	 * @param version the version of the day after the change.
+	 * @param shift the packed hours of the shift.
+	 * @param headcountChange the change in the staff of the shift, including its manager.
+	 * @param managerChange the change in the managers of the shift.
+	 * @return the new coverage.
+	 */
+	DayCoverage withStaffChange(long version, int shift, int headcountChange, int managerChange) {
+		int[] headcounts = _headcounts.clone();
+		int[] managers = _managers.clone();
+		int last = Arrays.binarySearch(_boundaries, Hours.endOf(shift));
+		for (int step = Arrays.binarySearch(_boundaries, Hours.startOf(shift)); step < last; step++) {
+			headcounts[step] += headcountChange;
+			managers[step] += managerChange;
+		}
+		return new DayCoverage(version, _workingStart, _workingEnd, _boundaries, headcounts, managers, _shifts);
+	}
+
+	/**
+	 * Check whether the coverage was computed from the given version of the day.
+	 * @param version the current version of the day.
+	 * @return true if the coverage can still be used.
+	 */
+	public boolean isCurrent(long version) {
+		return _version == version;
+	}
+
+	/**
+	 * Get the number of staff on the floor at a minute of the day.
+	 * @param minute
+	 * @return the staff of the shift that covers the minute, including its manager, or 0 if no shift does.
+	 */
+	public int getHeadcount(int minute) {
+		return _headcounts[step(minute)];
+	}
+
+	/**
+	 * Get the number of managers on the floor at a minute of the day.
+	 * @param minute
+	 * @return the managers of the shift that covers the minute, or 0 if no shift does.
+	 */
+	public int getManagers(int minute) {
+		return _managers[step(minute)];
+	}
+
+	/**
+	 * Get the fewest staff on the floor at any minute of a range.
+	 * @param start start minute of the range.
+	 * @param end end minute of the range, which is not included.
+	 * @return the fewest staff.
+	 */
+	public int getMinHeadcount(int start, int end) {
+		checkRange(start, end);
+		int min = Integer.MAX_VALUE;
+		for (int step = step(start); step < _boundaries.length && _boundaries[step] < end; step++) {
+			min = Math.min(min, _headcounts[step]);
+		}
+		return min;
+	}
+
+	/**
+	 * Get the most staff on the floor at any minute of a range.
+	 * @param start start minute of the range.
+	 * @param end end minute of the range, which is not included.
+	 * @return the most staff.
+	 */
+	public int getMaxHeadcount(int start, int end) {
+		checkRange(start, end);
+		int max = 0;
+		for (int step = step(start); step < _boundaries.length && _boundaries[step] < end; step++) {
+			max = Math.max(max, _headcounts[step]);
+		}
+		return max;
+	}
+
+	/**
+	 * Find the gaps in the working hours, where no shift is scheduled.
+	 * @return the packed start and end of each gap, in order, or none if the working hours have not been set.
+	 */
+	public int[] getGaps() {
+		return findRanges(1, _shifts);
+	}
+
+	/**
+	 * Find where coverage in the working hours drops below a number of staff, including the gaps with no shift.
+	 * @param threshold the fewest staff that should be on the floor.
+	 * @return the packed start and end of each range with fewer staff, in order.
+	 */
+	public int[] getRangesBelow(int threshold) {
+		return findRanges(threshold, _headcounts);
+	}
+
+	/**
+	 * @return the working hours the coverage is for, packed, or 0 if they have not been set.
+	 */
+	public int getWorkingHours() {
+		return (_workingStart << 16) | _workingEnd;
+	}
+
+	/**
+	 * Find the ranges of the working hours where a step value is below a threshold, joining neighbouring steps.
+	 */
+	private int[] findRanges(int threshold, int[] values) {
+		int[] ranges = new int[_boundaries.length];
+		int count = 0;
+		int rangeStart = -1;
+		for (int step = step(_workingStart); step < _boundaries.length && _boundaries[step] < _workingEnd; step++) {
+			if (values[step] < threshold) {
+				if (rangeStart < 0) {
+					rangeStart = _boundaries[step];
+				}
+			} else if (rangeStart >= 0) {
+				ranges[count++] = (rangeStart << 16) | _boundaries[step];
+				rangeStart = -1;
+			}
+		}
+		if (rangeStart >= 0) {
+			ranges[count++] = (rangeStart << 16) | _workingEnd;
+		}
+		return Arrays.copyOf(ranges, count);
+	}
+
+	/**
+	 * Find the step a minute falls in.
+	 */
+	private int step(int minute) {
+		if (minute < 0 || minute >= Hours.MINUTES_PER_DAY) {
+			throw new IllegalArgumentException("minute " + minute + " is not in the day.");
+		}
+		int step = Arrays.binarySearch(_boundaries, minute);
+		return step >= 0 ? step : -step - 2; //the step starting before the minute.
+	}
+
+	private static void checkRange(int start, int end) {
+		if (start >= end) {
+			throw new IllegalArgumentException("range " + start + "-" + end + " is empty.");
+		}
+	}
+}
@@ -1,19 +1,33 @@
 package shiftman.server;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * Shift list of the working day.
  * Gets a shift to manage. Roster in the shift into the list. Get shift details.
+ * Shifts in a day never overlap, so they are kept in a map sorted by start time. This orders them for display, and lets
+ * overlaps and exact shifts be found from the neighbouring start times alone.
+ * The shifts with each kind of problem are also kept in their own sets, so problems can be listed and counted without
+ * checking every shift.
  */
 public class DayShiftList {
 
-	private List<WorkDay.Shift> _shiftList;
+	private final TreeMap<Integer, WorkDay.Shift> _shiftList;
+
+	//Shifts with each kind of problem, kept up to date as shifts are added and staffed.
+	private final Set<WorkDay.Shift> _withoutManagers = new TreeSet<WorkDay.Shift>();
+	private final Set<WorkDay.Shift> _overstaffed = new TreeSet<WorkDay.Shift>();
+	private final Set<WorkDay.Shift> _understaffed = new TreeSet<WorkDay.Shift>();
 
 	public DayShiftList() {
-		_shiftList = new ArrayList<WorkDay.Shift>();
+		_shiftList = new TreeMap<Integer, WorkDay.Shift>();
 	}
 
 	/**
@@ -22,25 +36,38 @@ public class DayShiftList {
 	 * @throws RosterException
 	 */
 	public void rosterInShift(WorkDay.Shift shift) throws RosterException {
-		//Get int values.
-		int start = Integer.parseInt((shift.toString()).substring(0,4));
-		int end = Integer.parseInt((shift.toString()).substring(4,8));
-
-		for (WorkDay.Shift shiftCompare : _shiftList) {
-			int compStart = Integer.parseInt((shiftCompare.toString()).substring(0,4));
-			int compEnd = Integer.parseInt((shiftCompare.toString()).substring(4,8));
-
-			//Checks if it overlaps with other shifts.
-			if ((start <= compStart && end >= compStart) ||
-					(start >= compStart && end <= compEnd) ||
-					(start >= compStart && start <= compEnd) ||
-					(start <= compStart && end >= compEnd)) {
-				throw new RosterException("ERROR: cannot roster in shift, overlaps with " + (shiftCompare.toString()).substring(0,2)
-						+ ":" + shiftCompare.toString().substring(2,4) + " shift.");
+		int start = shift.getStart();
+		int end = shift.getEnd();
+
+		//Checks if it overlaps with other shifts. Only the shifts starting either side of this one can overlap with it.
+		WorkDay.Shift overlap = null;
+		Map.Entry<Integer, WorkDay.Shift> before = _shiftList.floorEntry(start);
+		if (before != null && before.getValue().overlaps(start, end)) {
+			overlap = before.getValue();
+		} else {
+			Map.Entry<Integer, WorkDay.Shift> after = _shiftList.ceilingEntry(start);
+			if (after != null && after.getValue().overlaps(start, end)) {
+				overlap = after.getValue();
 			}
 		}
-		_shiftList.add(shift);
-		Collections.sort(_shiftList);
+
+		if (overlap != null) {
+			throw new RosterException("ERROR: cannot roster in shift, overlaps with " + Hours.format(overlap.getStart())
+					+ " shift.");
+		}
+		_shiftList.put(start, shift);
+		updateProblems(shift);
+	}
+
+	/**
+	 * Remove a shift from the working day list, such as when a transaction is rolled back.
+	 * @param shift
+	 */
+	void removeShift(WorkDay.Shift shift) {
+		_shiftList.remove(shift.getStart());
+		_withoutManagers.remove(shift);
+		_overstaffed.remove(shift);
+		_understaffed.remove(shift);
 	}
 
 	/**
@@ -51,11 +78,10 @@ public class DayShiftList {
 	 * @throws RosterException
 	 */
 	public WorkDay.Shift getShift(String startTime, String endTime) throws RosterException {
-		Hours comparison = new ShiftHours(startTime, endTime);
-		for (WorkDay.Shift shift : _shiftList) {
-			if ((comparison.toString()).equals(shift.toString())) {
-				return shift;
-			}
+		int comparison = Hours.pack(startTime, endTime); //checks the times are valid.
+		WorkDay.Shift shift = _shiftList.get(Hours.startOf(comparison));
+		if (shift != null && shift.packed() == comparison) {
+			return shift;
 		}
 
 		throw new RosterException("ERROR: " + startTime + " shift has not been specified.");
@@ -67,9 +93,12 @@ public class DayShiftList {
 	 * @return arraylist of string of all the shift details.
 	 */
 	public List<String> getAllShiftDetails() {
-		List<String> allShifts = new ArrayList<String>();
-		for (WorkDay.Shift shift : _shiftList) {
-			allShifts.add(shift.getShiftDetails() + " " + shift.getShiftStaff("manager") + " " + shift.getShiftStaff("workers"));
+		List<String> allShifts = new ArrayList<String>(_shiftList.size());
+		StringBuilder output = new StringBuilder(); //reused for every shift.
+		for (WorkDay.Shift shift : _shiftList.values()) {
+			output.setLength(0);
+			shift.appendShiftRoster(output);
+			allShifts.add(output.toString());
 		}
 		return allShifts;
 	}
@@ -80,32 +109,77 @@ public class DayShiftList {
 	 * @return arraylist of string of all the days.
 	 */
 	public List<String> getAllShiftsWithProblems(String problemType){
+		return getAllShiftsWithProblems(ProblemType.fromString(problemType));
+	}
 
-		List<String> problems = new ArrayList<String>();
-
-		for (WorkDay.Shift shift : _shiftList) { //Iterates through all shifts of the day. If there are no shifts, empty list is returned.
-			switch (problemType) {
-			case "without managers":
-				if (shift.getShiftStaff("manager").equals("[No manager assigned]")) {
-					problems.add(shift.getShiftDetails());
-				}
-				break;
-			case "overstaffed":
-				if (shift.hasProblems("overstaffed")) {
-					problems.add(shift.getShiftDetails());
-				}
-				break;
-			case "understaffed":
-				if (shift.hasProblems("understaffed")) {
-					problems.add(shift.getShiftDetails());
-				}
-				break;
-			default:
-				throw new UnsupportedOperationException("ShiftList.getAllShiftsWithProblems can only accept arguments \"without managers\" or \"overstaffed\" or \"understaffed\"");
-			}
+	/**
+	 * Get the details of all the problems of all the shifts of the working day.
+	 * @param problemType the problem to look for.
+	 * @return arraylist of string of all the days.
+	 */
+	public List<String> getAllShiftsWithProblems(ProblemType problemType){
+
+		Set<WorkDay.Shift> problemShifts = getShiftsWithProblems(problemType);
+		List<String> problems = new ArrayList<String>(problemShifts.size());
+
+		for (WorkDay.Shift shift : problemShifts) { //Only shifts with the problem are visited. If there are none, empty list is returned.
+			problems.add(shift.getShiftDetails());
 		}
 
 		return problems;
 	}
 
+	/**
+	 * Count the shifts of the working day with the specified problem.
+	 * @param problemType the problem to look for.
+	 * @return the number of shifts with the problem.
+	 */
+	public int countShiftsWithProblems(ProblemType problemType) {
+		return getShiftsWithProblems(problemType).size();
+	}
+
+	/**
+	 * Get all shifts of the working day.
+	 * @return the shifts, in order of start time.
+	 */
+	public Collection<WorkDay.Shift> getShifts() {
+		return Collections.unmodifiableCollection(_shiftList.values());
+	}
+
+	/**
+	 * Update which problem sets the shift is in. Called whenever a shift is added or its staff change.
+	 * @param shift
+	 */
+	void updateProblems(WorkDay.Shift shift) {
+		updateProblem(_withoutManagers, shift, shift.hasProblems(ProblemType.WITHOUT_MANAGERS));
+		updateProblem(_overstaffed, shift, shift.hasProblems(ProblemType.OVERSTAFFED));
+		updateProblem(_understaffed, shift, shift.hasProblems(ProblemType.UNDERSTAFFED));
+	}
+
+	private void updateProblem(Set<WorkDay.Shift> problemShifts, WorkDay.Shift shift, boolean hasProblem) {
+		if (hasProblem) {
+			problemShifts.add(shift);
+		} else {
+			problemShifts.remove(shift);
+		}
+	}
+
+	/**
+	 * Get the shifts of the working day with the specified problem.
+	 * @param problemType the problem to look for.
+	 * @return the shifts with the problem, in order of start time.
+	 */
+	Set<WorkDay.Shift> getShiftsWithProblems(ProblemType problemType) {
+		switch (problemType) {
+		case WITHOUT_MANAGERS:
+			return _withoutManagers;
+		case OVERSTAFFED:
+			return _overstaffed;
+		case UNDERSTAFFED:
+			return _understaffed;
+		default:
+			throw new UnsupportedOperationException("DayShiftList.getShiftsWithProblems does not support " + problemType);
+		}
+	}
+
 }
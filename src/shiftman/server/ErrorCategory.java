@@ -0,0 +1,48 @@
+package shiftman.server;
+
+/**
+ * The kinds of error a request can fail with, as counted by {@link RosterMetrics}.
+ * Errors are told apart by the wording of their message, which is the same wherever the error is raised.
+ */
+public enum ErrorCategory {
+	NO_ROSTER("no roster", "no roster has been created"),
+	INVALID_INPUT("invalid input", "given is not valid", "given are not valid", "is not a valid day", "is invalid",
+			"midnight", "hours cannot be set"),
+	NOT_REGISTERED("not registered", "not been registered", "not a registered"),
+	ALREADY_DONE("already done", "already has", "already registered", "already been committed"),
+	SCHEDULING("scheduling", "not in working hours", "overlaps with", "has not been specified", "rostering horizon"),
+	CONFLICT("conflict", "has changed since", "has been replaced since"),
+	STORAGE("storage", "journal", "snapshot"),
+	OTHER("other");
+
+	private final String _name;
+	private final String[] _wordings; //parts of the messages of errors of the category.
+
+	private ErrorCategory(String name, String... wordings) {
+		_name = name;
+		_wordings = wordings;
+	}
+
+	/**
+	 * Find the category of an error. Nothing is allocated, so errors can be counted on every request.
+	 * @param message an error message, starting with "ERROR".
+	 * @return the category of the error.
+	 */
+	public static ErrorCategory fromMessage(String message) {
+		for (ErrorCategory category : CATEGORIES) {
+			for (String wording : category._wordings) {
+				if (message.contains(wording)) {
+					return category;
+				}
+			}
+		}
+		return OTHER;
+	}
+
+	private static final ErrorCategory[] CATEGORIES = values(); //values() copies the array each time.
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
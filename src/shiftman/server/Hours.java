@@ -1,35 +1,153 @@
 package shiftman.server;
 
+import java.util.Comparator;
+
 /**
  * Abstract class for any type of hours.
+ * Times are parsed once into minutes of the day. A start and end time can also be packed into a single int, with the
+ * start minute in the high half and the end minute in the low half, so that hours can be passed around and compared
+ * without creating any objects.
  */
 public abstract class Hours {
 
-	protected String _startTime, _endTime, _startHour, _startMin, _endHour, _endMin;
+	public static final int MINUTES_PER_DAY = 24 * 60;
+
+	/**
+	 * Orders hours by their start time, then by their end time.
+	 */
+	public static final Comparator<Hours> START_ORDER = new Comparator<Hours>() {
+		@Override
+		public int compare(Hours hours, Hours compare) {
+			return Integer.compare(hours.packed(), compare.packed());
+		}
+	};
+
+	private static final String[] TIMES = new String[MINUTES_PER_DAY]; //shared "hh:mm" strings for every minute of the day.
+
+	static {
+		for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+			int hour = minute / 60;
+			int min = minute % 60;
+			TIMES[minute] = (hour < 10 ? "0" : "") + hour + (min < 10 ? ":0" : ":") + min;
+		}
+	}
+
+	protected final int _start, _end;
 
 	public Hours(String start, String end) throws RosterException {
-		// If the start and end times given are null, empty or do not have a length of 5, it is invalid.
-		if (((start == null || start.isEmpty()) && (end == null || end.isEmpty())) ||
-				(start.length() != 5 && end.length() != 5)) {
+		int packed = pack(start, end);
+		_start = startOf(packed);
+		_end = endOf(packed);
+	}
+
+	/**
+	 * Create hours that have already been checked, such as hours restored from a snapshot.
+	 * @param packed the start and end minutes packed into an int.
+	 */
+	protected Hours(int packed) {
+		_start = startOf(packed);
+		_end = endOf(packed);
+	}
+
+	/**
+	 * Parse a start and end time into a single packed int. The times are checked in the same way as when creating hours.
+	 * @param start time in the format hh:mm
+	 * @param end time in the format hh:mm
+	 * @return the start and end minutes packed into an int.
+	 * @throws RosterException
+	 */
+	public static int pack(String start, String end) throws RosterException {
+		// If the start and end times given are null, empty or not in the format hh:mm, it is invalid.
+		if (!isTime(start) || !isTime(end)) {
 			throw new RosterException("ERROR: start and end times given are not valid.");
 		}
 
-		// Convert start and end times into separate int variables.
-		_startHour = start.substring(0,2);
-		_startMin = start.substring(3,5);
-		_startTime = _startHour + _startMin;
-
-		_endHour = end.substring(0,2);
-		_endMin = end.substring(3,5);
-		_endTime = _endHour + _endMin;
+		int startHour = digits(start, 0), startMin = digits(start, 3);
+		int endHour = digits(end, 0), endMin = digits(end, 3);
+		int startTime = startHour * 60 + startMin;
+		int endTime = endHour * 60 + endMin;
 
 		//Checks whether start is the same as or after the end time, or if hours >23 or minutes >59
-		if (Integer.parseInt(_startTime) >= Integer.parseInt(_endTime) || 
-				Integer.parseInt(_startHour) > 23 || Integer.parseInt(_endHour) > 23 || 
-				Integer.parseInt(_startMin) > 59 || Integer.parseInt(_endMin) > 59) {
+		if (startTime >= endTime || startHour > 23 || endHour > 23 || startMin > 59 || endMin > 59) {
 			throw new RosterException("ERROR: hours cannot be set. The start time is "
 					+ "the same as or after the end time.");
 		}
+		return (startTime << 16) | endTime;
+	}
+
+	/**
+	 * Parse a time into a minute of the day, such as to query the coverage of a day at that time.
+	 * @param time time in the format hh:mm
+	 * @return minute of the day.
+	 * @throws RosterException if the time is not valid.
+	 */
+	public static int minuteOf(String time) throws RosterException {
+		if (!isTime(time) || digits(time, 0) > 23 || digits(time, 3) > 59) {
+			throw new RosterException("ERROR: time given is not valid.");
+		}
+		return digits(time, 0) * 60 + digits(time, 3);
+	}
+
+	/**
+	 * Get the start minute of packed hours.
+	 * @param packed
+	 * @return start minute of the day.
+	 */
+	public static int startOf(int packed) {
+		return packed >>> 16;
+	}
+
+	/**
+	 * Get the end minute of packed hours.
+	 * @param packed
+	 * @return end minute of the day.
+	 */
+	public static int endOf(int packed) {
+		return packed & 0xFFFF;
+	}
+
+	/**
+	 * Format a minute of the day as hh:mm. The strings are shared, so nothing is created.
+	 * @param minute
+	 * @return the time in the format hh:mm
+	 */
+	public static String format(int minute) {
+		return TIMES[minute];
+	}
+
+	public int getStart() {
+		return _start;
+	}
+
+	public int getEnd() {
+		return _end;
+	}
+
+	/**
+	 * @return the start and end minutes packed into an int.
+	 */
+	public int packed() {
+		return (_start << 16) | _end;
+	}
+
+	/**
+	 * Check whether these hours overlap with the given times. Hours that only touch at their ends count as overlapping.
+	 * @param start start minute of the day.
+	 * @param end end minute of the day.
+	 * @return true if the hours overlap.
+	 */
+	public boolean overlaps(int start, int end) {
+		return start <= _end && end >= _start;
+	}
+
+	/**
+	 * Check whether the given times are within these hours.
+	 * @param start start minute of the day.
+	 * @param end end minute of the day.
+	 * @return true if the times are within these hours.
+	 */
+	public boolean contains(int start, int end) {
+		return start >= _start && end <= _end;
 	}
 
 	/**
@@ -37,9 +155,22 @@ public abstract class Hours {
 	 * @param comparison
 	 * @throws RosterException
 	 */
-	public abstract void rosterInTime(String comparison) throws RosterException;
+	public abstract void rosterInTime(int comparison) throws RosterException;
 
 	public String toString() {
-		return _startTime + _endTime;
+		return TIMES[_start] + "-" + TIMES[_end];
+	}
+
+	private static boolean isTime(String time) {
+		return time != null && time.length() == 5 && isDigit(time, 0) && isDigit(time, 1) && isDigit(time, 3) && isDigit(time, 4);
+	}
+
+	private static boolean isDigit(String time, int index) {
+		char digit = time.charAt(index);
+		return digit >= '0' && digit <= '9';
+	}
+
+	private static int digits(String time, int index) {
+		return (time.charAt(index) - '0') * 10 + (time.charAt(index + 1) - '0');
 	}
 }
@@ -0,0 +1,75 @@
+package shiftman.server;
+
+import java.util.Arrays;
+
+/**
+ * A set of int ids, kept as a sorted array. Checking for an id is a binary search, and adding one only moves the ids
+ * after it, so nothing is allocated except when the array grows.
+ */
+class IdSet {
+
+	private int[] _ids;
+	private int _size;
+
+	IdSet() {
+		_ids = new int[4];
+	}
+
+	/**
+	 * @param ids the set to copy.
+	 */
+	IdSet(IdSet ids) {
+		_ids = Arrays.copyOf(ids._ids, Math.max(4, ids._size));
+		_size = ids._size;
+	}
+
+	/**
+	 * @param id
+	 * @return true if the id is in the set.
+	 */
+	boolean contains(int id) {
+		return Arrays.binarySearch(_ids, 0, _size, id) >= 0;
+	}
+
+	/**
+	 * Add an id to the set.
+	 * @param id
+	 * @return true if the id was added, or false if it was already in the set.
+	 */
+	boolean add(int id) {
+		int index = Arrays.binarySearch(_ids, 0, _size, id);
+		if (index >= 0) {
+			return false;
+		}
+		index = -index - 1;
+		if (_size == _ids.length) {
+			_ids = Arrays.copyOf(_ids, _size * 2);
+		}
+		System.arraycopy(_ids, index, _ids, index + 1, _size - index);
+		_ids[index] = id;
+		_size++;
+		return true;
+	}
+
+	/**
+	 * Remove an id from the set.
+	 * @param id
+	 * @return true if the id was removed, or false if it was not in the set.
+	 */
+	boolean remove(int id) {
+		int index = Arrays.binarySearch(_ids, 0, _size, id);
+		if (index < 0) {
+			return false;
+		}
+		System.arraycopy(_ids, index + 1, _ids, index, _size - index - 1);
+		_size--;
+		return true;
+	}
+
+	/**
+	 * @return the number of ids in the set.
+	 */
+	int size() {
+		return _size;
+	}
+}
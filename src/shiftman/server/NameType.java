@@ -0,0 +1,42 @@
+package shiftman.server;
+
+/**
+ * The formats a staff member's name can be given in.
+ */
+public enum NameType {
+	FIRST_LAST("firstlast"),
+	LAST_FIRST("lastfirst"),
+	FIRST("first"),
+	LAST("last");
+
+	private final String _name;
+
+	private NameType(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Get the name type for one of the strings used by the string based methods.
+	 * @param nameType can only be "firstlast", "lastfirst", "first" or "last".
+	 * @return the name type.
+	 */
+	public static NameType fromString(String nameType) {
+		switch (nameType) {
+		case "firstlast":
+			return FIRST_LAST;
+		case "lastfirst":
+			return LAST_FIRST;
+		case "first":
+			return FIRST;
+		case "last":
+			return LAST;
+		default:
+			throw new UnsupportedOperationException("Staff.getName supports only strings of \"firstlast\", \"lastfirst\", \"first\" and \"last\"");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
@@ -0,0 +1,75 @@
+package shiftman.server;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The calls, errors and latencies of one kind of request, as they were when taken from {@link RosterMetrics}.
+ * Latencies are in microseconds, and are accurate to within an eighth of their value.
+ */
+public final class OperationMetrics {
+
+	private final String _operation;
+	private final long _calls, _errors;
+	private final Map<String, Long> _errorsByCategory;
+	private final double _p50, _p99, _p999, _max;
+
+	OperationMetrics(String operation, long calls, long errors, Map<String, Long> errorsByCategory, double p50,
+			double p99, double p999, double max) {
+		_operation = operation;
+		_calls = calls;
+		_errors = errors;
+		_errorsByCategory = Collections.unmodifiableMap(errorsByCategory);
+		_p50 = p50;
+		_p99 = p99;
+		_p999 = p999;
+		_max = max;
+	}
+
+	/**
+	 * @return the name of the method of {@link ShiftManServer}.
+	 */
+	public String getOperation() {
+		return _operation;
+	}
+
+	public long getCalls() {
+		return _calls;
+	}
+
+	/**
+	 * @return the number of calls that returned or threw an error. A batch counts each entry that failed.
+	 */
+	public long getErrors() {
+		return _errors;
+	}
+
+	/**
+	 * @return the number of errors in each category that has had any, by category name.
+	 */
+	public Map<String, Long> getErrorsByCategory() {
+		return _errorsByCategory;
+	}
+
+	public double getP50Micros() {
+		return _p50;
+	}
+
+	public double getP99Micros() {
+		return _p99;
+	}
+
+	public double getP999Micros() {
+		return _p999;
+	}
+
+	public double getMaxMicros() {
+		return _max;
+	}
+
+	@Override
+	public String toString() {
+		return _operation + " calls " + _calls + " errors " + _errors + " " + _errorsByCategory + " p50 " + _p50
+				+ "us p99 " + _p99 + "us p999 " + _p999 + "us max " + _max + "us";
+	}
+}
@@ -0,0 +1,39 @@
+package shiftman.server;
+
+/**
+ * The kinds of problem a shift in the roster can have.
+ */
+public enum ProblemType {
+	WITHOUT_MANAGERS("without managers"),
+	OVERSTAFFED("overstaffed"),
+	UNDERSTAFFED("understaffed");
+
+	private final String _name;
+
+	private ProblemType(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Get the problem type for one of the strings used by the string based methods.
+	 * @param problemType can only be "without managers", "overstaffed" or "understaffed".
+	 * @return the problem type.
+	 */
+	public static ProblemType fromString(String problemType) {
+		switch (problemType) {
+		case "without managers":
+			return WITHOUT_MANAGERS;
+		case "overstaffed":
+			return OVERSTAFFED;
+		case "understaffed":
+			return UNDERSTAFFED;
+		default:
+			throw new UnsupportedOperationException("ProblemType can only be \"without managers\" or \"overstaffed\" or \"understaffed\"");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
@@ -0,0 +1,120 @@
+package shiftman.server;
+
+import java.time.LocalDate;
+
+/**
+ * A change made to a roster, as given to a {@link RosterEventListener}.
+ *
+ * <p>Events are not created for each change. The feed copies each change into an event its subscriber owns, so an
+ * event only holds a change until the listener returns.
+ */
+public final class RosterEvent {
+
+	RosterEventType _type;
+	long _sequence;
+	int _dayIndex; //-1 if the change is not to a day.
+	LocalDate _date; //the date of a day in a rostering horizon, or null for a day of the week.
+	int _hours; //the packed working hours or shift hours.
+	int _minWorkers;
+	StaffView _staff;
+	boolean _isManager;
+
+	RosterEvent() {
+	}
+
+	/**
+	 * Copy a change from another event.
+	 * @param event
+	 */
+	void copy(RosterEvent event) {
+		_type = event._type;
+		_sequence = event._sequence;
+		_dayIndex = event._dayIndex;
+		_date = event._date;
+		_hours = event._hours;
+		_minWorkers = event._minWorkers;
+		_staff = event._staff;
+		_isManager = event._isManager;
+	}
+
+	public RosterEventType getType() {
+		return _type;
+	}
+
+	/**
+	 * @return the position of the change among all the changes published by the feed, starting from 0.
+	 */
+	public long getSequence() {
+		return _sequence;
+	}
+
+	/**
+	 * @return the position in the week of the day that was changed, starting from 0 for Monday, or -1 if the
+	 * change was the registration of a staff member.
+	 */
+	public int getDayIndex() {
+		return _dayIndex;
+	}
+
+	/**
+	 * @return the date that was changed, if the change was to a day in the rostering horizon rather than to the week.
+	 */
+	public LocalDate getDate() {
+		return _date;
+	}
+
+	/**
+	 * @return the start minute of the working hours that were set, or of the shift that was added or assigned to.
+	 */
+	public int getStart() {
+		return _hours >>> 16;
+	}
+
+	/**
+	 * @return the end minute of the working hours that were set, or of the shift that was added or assigned to.
+	 */
+	public int getEnd() {
+		return _hours & 0xffff;
+	}
+
+	/**
+	 * @return the minimum workers of the shift that was added.
+	 */
+	public int getMinWorkers() {
+		return _minWorkers;
+	}
+
+	/**
+	 * @return the staff member that was registered or assigned, or null for other changes.
+	 */
+	public StaffView getStaff() {
+		return _staff;
+	}
+
+	/**
+	 * @return true if the staff member was assigned as the manager of the shift.
+	 */
+	public boolean isManager() {
+		return _isManager;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append(_sequence).append(' ').append(_type);
+		if (_dayIndex != -1) {
+			output.append(" day ").append(_dayIndex).append(' ').append(Hours.format(getStart())).append('-')
+					.append(Hours.format(getEnd()));
+			if (_date != null) {
+				output.append(" on ").append(_date);
+			}
+		}
+		if (_type == RosterEventType.SHIFT_ADDED) {
+			output.append(" minimum ").append(_minWorkers);
+		}
+		if (_staff != null) {
+			output.append(' ').append(_staff).append(_isManager ? " as manager" : "");
+		}
+		return output.toString();
+	}
+}
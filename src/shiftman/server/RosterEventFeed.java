@@ -0,0 +1,301 @@
+package shiftman.server;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Publishes the changes made to a shop's roster to its subscribers, through a ring buffer of events that are created
+ * once, when the first subscriber subscribes, so a shop nobody subscribes to holds no ring.
+ *
+ * <p>Publishing claims the next sequence number with a single atomic increment and copies the change into that slot
+ * of the ring, so it never allocates or takes a lock. Changes to different days are made at the same time, so any
+ * number of threads may publish at once. Each subscriber reads the ring on a thread of its own, in sequence order.
+ *
+ * <p>A subscriber that falls a whole ring behind is handled by its policy. A {@link Policy#DROP} subscriber skips the
+ * changes that have been overwritten and is told how many it missed, so it never holds up the roster. A
+ * {@link Policy#BLOCK} subscriber is never overwritten: publishers wait for it to make room, holding up changes to
+ * the roster until it does, so its listener must never wait on the roster itself.
+ *
+ * <p>Nothing is published while there are no subscribers. A subscription whose listener throws is closed, and the
+ * failure is kept for {@link Subscription#getFailure()}.
+ */
+public class RosterEventFeed {
+
+	/**
+	 * What happens when a subscriber falls a whole ring behind.
+	 */
+	public enum Policy {
+		/** Drop the changes the subscriber has not read yet. */
+		DROP,
+		/** Make publishers wait until the subscriber has read them. */
+		BLOCK
+	}
+
+	private static final long UNUSED = Long.MIN_VALUE; //the sequence of a slot that has never held a change.
+	private static final long WAIT_NANOS = 50000; //how long subscribers park when there is nothing to read.
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	//the ring is created by the first subscription, before the subscription is added, and is never replaced. Changes are
+	//only published once there are subscribers, so publishers always see it.
+	private int _capacity;
+	private RosterEvent[] _ring;
+	//sequence of the change in each slot, or -2 - the sequence while it is being copied in. Read and written through PUBLISHED.
+	private long[] _published;
+	private int _mask;
+	private final AtomicLong _claimed = new AtomicLong(); //the next sequence to be claimed.
+	private volatile Subscription[] _subscriptions = new Subscription[0];
+
+	private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+
+	public RosterEventFeed() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the number of changes the ring holds. Rounded up to a power of two.
+	 */
+	public RosterEventFeed(int capacity) {
+		_capacity = capacity;
+	}
+
+	/**
+	 * Set the number of changes the ring holds, which can only be done before anyone subscribes.
+	 * @param capacity the number of changes. Rounded up to a power of two.
+	 * @throws IllegalStateException if the ring has already been created.
+	 */
+	public synchronized void setCapacity(int capacity) {
+		if (_ring != null) {
+			throw new IllegalStateException("The roster event ring is created when the first subscriber subscribes");
+		}
+		_capacity = capacity;
+	}
+
+	/**
+	 * Create the ring, if it has not been created yet. Must be called holding the feed's monitor.
+	 */
+	private void createRing() {
+		if (_ring != null) {
+			return;
+		}
+		int size = Integer.highestOneBit(Math.max(2, _capacity - 1)) << 1;
+		RosterEvent[] ring = new RosterEvent[size];
+		long[] published = new long[size];
+		for (int slot = 0; slot < size; slot++) {
+			ring[slot] = new RosterEvent();
+			published[slot] = UNUSED;
+		}
+		_published = published;
+		_mask = size - 1;
+		_ring = ring;
+	}
+
+	/**
+	 * Subscribe to the changes published from now on. The listener is called on a new daemon thread until the
+	 * subscription is closed.
+	 * @param policy what to do when the subscriber falls a whole ring behind.
+	 * @param listener
+	 * @return the subscription.
+	 */
+	public Subscription subscribe(Policy policy, RosterEventListener listener) {
+		Subscription subscription;
+		synchronized (this) {
+			createRing(); //published to other threads by the write of the subscriptions below.
+			subscription = new Subscription(policy, listener, _claimed.get());
+			Subscription[] subscriptions = Arrays.copyOf(_subscriptions, _subscriptions.length + 1);
+			subscriptions[subscriptions.length - 1] = subscription;
+			_subscriptions = subscriptions;
+		}
+		Thread thread = new Thread(subscription, "roster-events-" + policy.name().toLowerCase());
+		thread.setDaemon(true);
+		thread.start();
+		return subscription;
+	}
+
+	/**
+	 * @return the number of changes published so far.
+	 */
+	public long getPublished() {
+		return _claimed.get();
+	}
+
+	void publishWorkingHours(WorkDay workDay, Hours workingHours) {
+		if (_subscriptions.length != 0) {
+			publish(RosterEventType.WORKING_HOURS_SET, workDay.getDayIndex(), workDay.getDate(), workingHours.packed(), 0, null,
+					false);
+		}
+	}
+
+	void publishShiftAdded(WorkDay.Shift shift, int minWorkers) {
+		if (_subscriptions.length != 0) {
+			publish(RosterEventType.SHIFT_ADDED, shift.getWorkDay().getDayIndex(), shift.getWorkDay().getDate(), shift.packed(),
+					minWorkers, null, false);
+		}
+	}
+
+	void publishStaffRegistered(Staff staff) {
+		if (_subscriptions.length != 0) {
+			publish(RosterEventType.STAFF_REGISTERED, -1, null, 0, 0, staff.getView(), false);
+		}
+	}
+
+	void publishStaffAssigned(WorkDay.Shift shift, Staff staff, boolean isManager) {
+		if (_subscriptions.length != 0) {
+			publish(RosterEventType.STAFF_ASSIGNED, shift.getWorkDay().getDayIndex(), shift.getWorkDay().getDate(),
+					shift.packed(), 0, staff.getView(), isManager);
+		}
+	}
+
+	/**
+	 * Copy a change into the next slot of the ring.
+	 */
+	private void publish(RosterEventType type, int dayIndex, LocalDate date, int hours, int minWorkers, StaffView staff,
+			boolean isManager) {
+		long sequence = _claimed.getAndIncrement();
+		int slot = (int) sequence & _mask;
+		awaitRoom(sequence - _ring.length);
+
+		RosterEvent event = _ring[slot];
+		//a slot is overwritten only after any publisher a ring earlier has finished with it.
+		long previous = sequence < _ring.length ? UNUSED : sequence - _ring.length;
+		while ((long) PUBLISHED.getVolatile(_published, slot) != previous) {
+			Thread.onSpinWait();
+		}
+		PUBLISHED.setVolatile(_published, slot, -2 - sequence);
+		VarHandle.storeStoreFence(); //readers see the slot being written before any of the change.
+		event._type = type;
+		event._sequence = sequence;
+		event._dayIndex = dayIndex;
+		event._date = date;
+		event._hours = hours;
+		event._minWorkers = minWorkers;
+		event._staff = staff;
+		event._isManager = isManager;
+		PUBLISHED.setVolatile(_published, slot, sequence);
+	}
+
+	/**
+	 * Wait until every blocking subscriber has read the change a ring earlier.
+	 * @param sequence the sequence of the change that is about to be overwritten.
+	 */
+	private void awaitRoom(long sequence) {
+		if (sequence < 0) {
+			return;
+		}
+		for (Subscription subscription : _subscriptions) {
+			while (subscription._policy == Policy.BLOCK && !subscription._closed && subscription._next <= sequence) {
+				LockSupport.parkNanos(1000);
+			}
+		}
+	}
+
+	private synchronized void unsubscribe(Subscription subscription) {
+		if (!Arrays.asList(_subscriptions).contains(subscription)) {
+			return; //already unsubscribed.
+		}
+		Subscription[] subscriptions = new Subscription[_subscriptions.length - 1];
+		int index = 0;
+		for (Subscription current : _subscriptions) {
+			if (current != subscription) {
+				subscriptions[index++] = current;
+			}
+		}
+		_subscriptions = subscriptions;
+	}
+
+	/**
+	 * A subscriber to the feed, reading the ring on its own thread.
+	 */
+	public final class Subscription implements Runnable, AutoCloseable {
+		private final Policy _policy;
+		private final RosterEventListener _listener;
+		private final RosterEvent _event = new RosterEvent(); //the subscriber's copy of each change.
+		private volatile long _next; //the sequence of the next change to read.
+		private volatile boolean _closed;
+		private volatile long _dropped; //only changed by the subscriber's thread.
+		private volatile Throwable _failure; //what the listener threw, if it did.
+
+		private Subscription(Policy policy, RosterEventListener listener, long next) {
+			_policy = policy;
+			_listener = listener;
+			_next = next;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!_closed) {
+					if (!readNext()) {
+						LockSupport.parkNanos(WAIT_NANOS);
+					}
+				}
+			} catch (Throwable throwable) {
+				_failure = throwable;
+			} finally {
+				close(); //publishers must not wait on a blocking subscriber whose thread has stopped.
+			}
+		}
+
+		/**
+		 * Read the next change and give it to the listener, or skip the changes that have been overwritten.
+		 * @return false if there was nothing to read yet.
+		 */
+		private boolean readNext() {
+			long next = _next;
+			int slot = (int) next & _mask;
+			long published = (long) PUBLISHED.getVolatile(_published, slot);
+			if (published == next) {
+				_event.copy(_ring[slot]);
+				VarHandle.acquireFence(); //the change is read before the slot is checked again.
+				if ((long) PUBLISHED.getVolatile(_published, slot) == next) {
+					_next = next + 1;
+					_listener.onEvent(_event);
+					return true;
+				}
+			} else if (published == UNUSED || (published >= 0 && published < next) || published == -2 - next) {
+				return false; //not published yet.
+			}
+			//overwritten by a later change, which only happens to dropping subscribers.
+			long oldest = Math.max(next + 1, _claimed.get() - _ring.length + 1);
+			_dropped += oldest - next;
+			_next = oldest;
+			_listener.onDropped(oldest - next);
+			return true;
+		}
+
+		/**
+		 * @return the number of changes dropped because the subscriber fell too far behind.
+		 */
+		public long getDropped() {
+			return _dropped;
+		}
+
+		/**
+		 * @return what the listener threw, which closed the subscription, or null if it has not thrown.
+		 */
+		public Throwable getFailure() {
+			return _failure;
+		}
+
+		/**
+		 * @return the number of changes published but not yet read.
+		 */
+		public long getLag() {
+			return Math.max(0, _claimed.get() - _next);
+		}
+
+		/**
+		 * Stop giving changes to the listener. Publishers no longer wait for a blocking subscriber once it is closed.
+		 * Closing a closed subscription does nothing.
+		 */
+		@Override
+		public void close() {
+			_closed = true;
+			unsubscribe(this);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package shiftman.server;
+
+/**
+ * Receives the changes made to a roster, from a subscription to its {@link RosterEventFeed}.
+ */
+public interface RosterEventListener {
+
+	/**
+	 * Called for each change, in the order they were published. The event is reused for the next change once this
+	 * returns, so anything needed later must be copied out of it.
+	 * @param event the change.
+	 */
+	public void onEvent(RosterEvent event);
+
+	/**
+	 * Called when changes were dropped because the subscriber fell too far behind, before the next change is given.
+	 * @param count the number of changes dropped.
+	 */
+	public default void onDropped(long count) {
+	}
+}
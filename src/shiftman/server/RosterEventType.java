@@ -0,0 +1,22 @@
+package shiftman.server;
+
+/**
+ * The kinds of change to a roster that are published as {@link RosterEvent}s.
+ */
+public enum RosterEventType {
+	WORKING_HOURS_SET("working hours set"),
+	SHIFT_ADDED("shift added"),
+	STAFF_REGISTERED("staff registered"),
+	STAFF_ASSIGNED("staff assigned");
+
+	private final String _name;
+
+	private RosterEventType(String name) {
+		_name = name;
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
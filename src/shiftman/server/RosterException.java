@@ -2,6 +2,8 @@ package shiftman.server;
 
 /**
  * An exception to be thrown specific to the roster shift manager system.
+ * It only ever reports a rejected request back to the caller as its message, so it has no stack trace: filling one in
+ * cost more than the rest of rejecting the request.
  */
 public class RosterException extends Exception{
 
@@ -12,7 +14,7 @@ public class RosterException extends Exception{
 	 * @param message description of the roster shift manager system exception.
 	 */
 	public RosterException(String message){
-		super(message);
+		super(message, null, false, false);
 	}
 
 }
@@ -0,0 +1,184 @@
+package shiftman.server;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A rolling horizon of dated weeks, each starting on a Monday, that are rostered from the shop's template week.
+ *
+ * <p>A dated week starts out sharing every day with the template week, so it follows any change made to the template.
+ * The first change to one of its days copies that day from the template, with its shifts and their staff, and only the
+ * copy is changed. Weeks that are never changed therefore take no more than an array of seven references, and rolling
+ * the horizon forward only drops the copied days of the first week.
+ *
+ * <p>Staff only list and total the shifts of the template week, not the shifts of dated weeks.
+ * The horizon is guarded by its own monitor, which is taken after the staff lock and before any day lock. Changes to
+ * dated days hold it from taking the day until the change is recorded, so they are journaled in the order they are made
+ * relative to the horizon being set or rolled forward.
+ */
+public class RosterHorizon {
+
+	private final List<WorkDay> _template; //the days of the template week, by day index.
+	private final TreeMap<LocalDate, WorkDay[]> _weeks = new TreeMap<LocalDate, WorkDay[]>(); //days of each week by its Monday.
+	private int _copiedDays;
+
+	/**
+	 * @param template the days of the template week, by day index.
+	 */
+	RosterHorizon(List<WorkDay> template) {
+		_template = template;
+	}
+
+	/**
+	 * Replace the horizon with weeks that share every day with the template.
+	 * @param firstDay any day of the first week.
+	 * @param weeks the number of weeks.
+	 * @throws RosterException if the number of weeks is not positive.
+	 */
+	synchronized void setHorizon(LocalDate firstDay, int weeks) throws RosterException {
+		if (weeks <= 0) {
+			throw new RosterException("ERROR: number of weeks given is not valid.");
+		}
+		_weeks.clear();
+		_copiedDays = 0;
+		LocalDate monday = mondayOf(firstDay);
+		for (int week = 0; week < weeks; week++) {
+			_weeks.put(monday.plusWeeks(week), templateWeek());
+		}
+	}
+
+	/**
+	 * Drop the first week of the horizon and add a week after the last, sharing every day with the template.
+	 * @throws RosterException if there is no horizon.
+	 */
+	synchronized void rollForward() throws RosterException {
+		checkHorizon();
+		Map.Entry<LocalDate, WorkDay[]> first = _weeks.pollFirstEntry();
+		for (WorkDay workDay : first.getValue()) {
+			if (workDay.getDate() != null) {
+				_copiedDays--;
+			}
+		}
+		_weeks.put(_weeks.isEmpty() ? first.getKey().plusWeeks(1) : _weeks.lastKey().plusWeeks(1), templateWeek());
+	}
+
+	/**
+	 * Get the day for a date, which is the template's day if it has not been changed for that date.
+	 * @param date
+	 * @return the day.
+	 * @throws RosterException if the date is not in the horizon.
+	 */
+	public synchronized WorkDay getWorkDay(LocalDate date) throws RosterException {
+		return week(date)[dayIndex(date)];
+	}
+
+	/**
+	 * Get the day for a date to change. If the date still shares the template's day, a copy of it is returned, which
+	 * only becomes the date's day once it is kept by {@link #keepWorkDay(WorkDay)}, so a change that fails leaves the
+	 * date following the template. The horizon must stay locked, by synchronizing on it, until the day is kept.
+	 * @param date
+	 * @return the date's own day, or a copy of the template's day for it.
+	 * @throws RosterException if the date is not in the horizon.
+	 */
+	synchronized WorkDay changeWorkDay(LocalDate date) throws RosterException {
+		WorkDay workDay = week(date)[dayIndex(date)];
+		if (workDay.getDate() != null) {
+			return workDay;
+		}
+		workDay.readLock().lock();
+		try {
+			return workDay.copy(date);
+		} finally {
+			workDay.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Make a day returned by {@link #changeWorkDay(LocalDate)} the day of its date, once it has been changed.
+	 * @param workDay
+	 * @throws RosterException if the date is not in the horizon.
+	 */
+	synchronized void keepWorkDay(WorkDay workDay) throws RosterException {
+		WorkDay[] week = week(workDay.getDate());
+		int dayIndex = dayIndex(workDay.getDate());
+		if (week[dayIndex] != workDay) {
+			if (week[dayIndex].getDate() == null) {
+				_copiedDays++;
+			}
+			week[dayIndex] = workDay;
+		}
+	}
+
+	/**
+	 * Give a date a day of its own with no working hours or shifts, as a compacted journal does before rebuilding a day
+	 * that was changed from the template.
+	 * @param date
+	 * @throws RosterException if the date is not in the horizon.
+	 */
+	synchronized void clearWorkDay(LocalDate date) throws RosterException {
+		keepWorkDay(week(date)[dayIndex(date)].forDate(date));
+	}
+
+	/**
+	 * @return the days in the horizon that have been changed from the template, in date order.
+	 */
+	synchronized List<WorkDay> getChangedDays() {
+		List<WorkDay> changedDays = new ArrayList<WorkDay>(_copiedDays);
+		for (WorkDay[] week : _weeks.values()) {
+			for (WorkDay workDay : week) {
+				if (workDay.getDate() != null) {
+					changedDays.add(workDay);
+				}
+			}
+		}
+		return changedDays;
+	}
+
+	/**
+	 * @return the Monday of each week in the horizon, in date order.
+	 */
+	public synchronized List<LocalDate> getWeeks() {
+		return new ArrayList<LocalDate>(_weeks.keySet());
+	}
+
+	/**
+	 * @return the number of days in the horizon that have been changed from the template, and so have their own copy.
+	 */
+	public synchronized int countChangedDays() {
+		return _copiedDays;
+	}
+
+	/**
+	 * @return a new week that shares every day with the template.
+	 */
+	private WorkDay[] templateWeek() {
+		return _template.toArray(new WorkDay[_template.size()]);
+	}
+
+	private WorkDay[] week(LocalDate date) throws RosterException {
+		WorkDay[] week = _weeks.get(mondayOf(date));
+		if (week == null) {
+			throw new RosterException("ERROR: " + date + " is not in the rostering horizon.");
+		}
+		return week;
+	}
+
+	private void checkHorizon() throws RosterException {
+		if (_weeks.isEmpty()) {
+			throw new RosterException("ERROR: no rostering horizon has been set.");
+		}
+	}
+
+	private static LocalDate mondayOf(LocalDate date) {
+		return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+	}
+
+	private static int dayIndex(LocalDate date) {
+		return date.getDayOfWeek().getValue() - 1; //Monday is 1.
+	}
+}
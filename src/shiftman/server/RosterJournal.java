@@ -0,0 +1,586 @@
+package shiftman.server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the roster changes that succeeded, so the roster can be rebuilt after a restart.
+ * 
+ * <p>Each record is the operation code and the strings given to the ShiftMan call, framed by its length and a CRC so a
+ * record torn by a crash is found and dropped on replay. The changes of a transaction share a single record, so a crash
+ * never leaves only some of them in the journal. Records are appended to a buffer while the roster is still
+ * locked, which keeps them in the order the changes were made. Callers then wait in {@link #sync()} for the buffer to
+ * reach the disk, and callers that wait at the same time share a single write and fsync (group commit).
+ * 
+ * <p>Loading a snapshot is recorded as a record naming a copy of the snapshot kept beside the journal, which is a hard
+ * link where the file system allows it, so later saves to the snapshot's path do not change what is replayed.
+ *
+ * <p>{@link #compact(Shop)} replaces the journal with the smallest set of records that rebuilds the current roster, and
+ * deletes the snapshots kept for it.
+ *
+ * <p>Once a write fails, the journal no longer matches the roster: the changes whose records were lost were still made.
+ * The callers waiting for those records are told, and from then on {@link #checkWritable()} refuses every change, so
+ * the roster never gets further ahead of the journal.
+ */
+public class RosterJournal implements Closeable {
+
+	static final byte NEW_ROSTER = 1;
+	static final byte SET_WORKING_HOURS = 2;
+	static final byte ADD_SHIFT = 3;
+	static final byte REGISTER_STAFF = 4;
+	static final byte ASSIGN_STAFF = 5;
+	static final byte ASSIGN_MANAGER = 6;
+	static final byte TRANSACTION = 7; //the count of the changes, then each change as its own record would hold it.
+	static final byte LOAD_SNAPSHOT = 8; //the file name of a snapshot kept beside the journal.
+	static final byte SET_HORIZON = 9; //the first date, then the number of weeks.
+	static final byte ROLL_HORIZON = 10;
+	static final byte SET_WORKING_HOURS_ON = 11; //as SET_WORKING_HOURS, with a date in place of the day.
+	static final byte ADD_SHIFT_ON = 12;
+	static final byte ASSIGN_STAFF_ON = 13;
+	static final byte ASSIGN_MANAGER_ON = 14;
+	static final byte CLEAR_DATE = 15; //a date given a day of its own with nothing on it, written by compaction.
+
+	private final Path _path;
+	private FileChannel _channel;
+
+	private final Object _lock = new Object(); //guards everything below.
+	private final ByteArrayOutputStream _pending = new ByteArrayOutputStream(); //records not yet written.
+	private final ByteArrayOutputStream _record = new ByteArrayOutputStream(); //reused to encode each record.
+	private final CRC32 _crc = new CRC32();
+	private long _appended, _durable; //the number of records appended, and the number known to be on disk.
+	private boolean _flushing, _replaying;
+	private IOException _failure; //once writing fails, nothing more can be made durable.
+	private volatile RosterException _refused; //the error every change is refused with once writing has failed.
+
+	/**
+	 * Open the journal at the given path, creating it if it does not exist.
+	 * @param path
+	 * @throws IOException
+	 */
+	public RosterJournal(Path path) throws IOException {
+		_path = path;
+		_channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		_channel.position(_channel.size());
+	}
+
+	/**
+	 * Check that changes can still be recorded, which they cannot once writing to the journal has failed. Changes check
+	 * this while their locks are held, before anything is changed.
+	 * @throws RosterException if writing has failed.
+	 */
+	void checkWritable() throws RosterException {
+		RosterException refused = _refused;
+		if (refused != null) {
+			throw refused;
+		}
+	}
+
+	/**
+	 * Add a record to the journal. It is not durable until {@link #sync()} returns.
+	 * Nothing is recorded while the journal is being replayed. The record is only encoded into memory, so appending
+	 * cannot fail once a change has been made.
+	 * @param operation the operation code.
+	 * @param values the strings given to the operation.
+	 */
+	void append(byte operation, String... values) {
+		synchronized (_lock) {
+			if (_replaying) {
+				return;
+			}
+			_record.reset();
+			encode(operation, values);
+			frame();
+		}
+	}
+
+	/**
+	 * Add the changes of a transaction to the journal as a single record, which is replayed whole or not at all. It is
+	 * not durable until {@link #sync()} returns.
+	 * @param operations the changes, in the order they were made.
+	 */
+	void appendTransaction(List<RosterTransaction.Operation> operations) {
+		synchronized (_lock) {
+			if (_replaying) {
+				return;
+			}
+			_record.reset();
+			_record.write(TRANSACTION);
+			writeInt(_record, operations.size());
+			for (RosterTransaction.Operation operation : operations) {
+				encode(operation._operation, operation._values);
+			}
+			frame();
+		}
+	}
+
+	/**
+	 * Add an operation to the record being encoded. Must be called holding the lock.
+	 * @param operation the operation code.
+	 * @param values the strings given to the operation.
+	 */
+	private void encode(byte operation, String... values) {
+		_record.write(operation);
+		for (String value : values) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeInt(_record, bytes.length);
+			_record.write(bytes, 0, bytes.length);
+		}
+	}
+
+	/**
+	 * Add the encoded record to the pending records, framed by its length and CRC. Must be called holding the lock.
+	 */
+	private void frame() {
+		byte[] record = _record.toByteArray();
+		_crc.reset();
+		_crc.update(record, 0, record.length);
+
+		writeInt(_pending, record.length);
+		_pending.write(record, 0, record.length);
+		writeInt(_pending, (int) _crc.getValue());
+		_appended++;
+	}
+
+	/**
+	 * Keep a snapshot beside the journal, so that a record of loading it can be replayed whatever happens to the file it
+	 * was loaded from. While the journal is being replayed, the snapshot is already the one kept.
+	 * @param snapshot the snapshot file.
+	 * @return the kept snapshot, to load the roster from and to name in the record.
+	 * @throws IOException if the snapshot could not be kept.
+	 */
+	Path keepSnapshot(Path snapshot) throws IOException {
+		synchronized (_lock) {
+			if (_replaying) {
+				return snapshot;
+			}
+		}
+		Path kept = Files.createTempFile(_path.toAbsolutePath().getParent(), _path.getFileName() + ".", ".snapshot");
+		try {
+			Files.delete(kept);
+			Files.createLink(kept, snapshot);
+		} catch (IOException | UnsupportedOperationException exception) {
+			Files.copy(snapshot, kept, StandardCopyOption.REPLACE_EXISTING); //the file system has no hard links.
+		}
+		try (FileChannel channel = FileChannel.open(kept, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+		return kept;
+	}
+
+	/**
+	 * Wait until every record appended so far is on disk. If another caller is already writing, wait for it and then
+	 * write everything that has been appended since in one go.
+	 * @throws IOException if the journal could not be written.
+	 */
+	public void sync() throws IOException {
+		long target;
+		byte[] batch;
+		long batchEnd;
+		synchronized (_lock) {
+			target = _appended;
+			while (true) {
+				if (_failure != null) {
+					throw _failure;
+				}
+				if (_durable >= target) {
+					return;
+				}
+				if (!_flushing) {
+					break;
+				}
+				try {
+					_lock.wait();
+				} catch (InterruptedException exception) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted waiting for the roster journal");
+				}
+			}
+			_flushing = true; //this caller writes for everyone waiting.
+			batch = _pending.toByteArray();
+			batchEnd = _appended;
+			_pending.reset();
+		}
+
+		IOException failure = null;
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(batch);
+			while (buffer.hasRemaining()) {
+				_channel.write(buffer);
+			}
+			_channel.force(false);
+		} catch (IOException exception) {
+			failure = exception;
+		}
+
+		synchronized (_lock) {
+			_flushing = false;
+			if (failure == null) {
+				_durable = batchEnd;
+			} else {
+				fail(failure);
+			}
+			_lock.notifyAll();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Apply every record in the journal to the target, in order. A torn record at the end of the journal, left by a crash
+	 * while writing, is dropped.
+	 * @param target the server to rebuild, which should have no roster yet.
+	 * @return the number of records replayed.
+	 * @throws IOException
+	 */
+	public int replay(ShiftMan target) throws IOException {
+		synchronized (_lock) {
+			_replaying = true;
+			try {
+				_channel.position(0);
+				DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(_channel), 1 << 16));
+				long size = _channel.size();
+				long validEnd = 0;
+				int records = 0;
+				while (true) {
+					byte[] record = readRecord(input, size - validEnd);
+					if (record == null) {
+						break;
+					}
+					apply(target, record);
+					validEnd += record.length + 8;
+					records++;
+				}
+				_channel.truncate(validEnd);
+				_channel.position(validEnd);
+				return records;
+			} finally {
+				_replaying = false;
+			}
+		}
+	}
+
+	/**
+	 * Replace the journal with records that rebuild the shop as it is now. The shop is locked against changes while
+	 * its records are written, and the new journal replaces the old one in a single rename.
+	 * @param shop the shop the journal is for.
+	 * @throws IOException
+	 */
+	public void compact(Shop shop) throws IOException {
+		shop.lockAllStaff(true);
+		shop.lockWeek(false);
+		try {
+			synchronized (_lock) {
+				while (_flushing) { //let a write to the old journal finish first.
+					try {
+						_lock.wait();
+					} catch (InterruptedException exception) {
+						Thread.currentThread().interrupt();
+						throw new InterruptedIOException("Interrupted waiting for the roster journal");
+					}
+				}
+				if (_failure != null) {
+					throw _failure;
+				}
+				byte[] pending = _pending.toByteArray(); //every pending change is already part of the shop.
+				_pending.reset();
+				long appended = _appended;
+				writeShop(shop);
+				byte[] snapshot = _pending.toByteArray();
+				_pending.reset();
+				_appended = appended;
+
+				Path compacted = _path.resolveSibling(_path.getFileName() + ".compact");
+				try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					channel.force(true);
+				} catch (IOException exception) {
+					_pending.write(pending, 0, pending.length); //the old journal is untouched, so keep adding to it.
+					throw exception;
+				}
+				try {
+					_channel.close();
+					Files.move(compacted, _path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+					_channel = FileChannel.open(_path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+					_channel.position(_channel.size());
+				} catch (IOException exception) {
+					fail(exception); //neither journal can be written to any more.
+					throw exception;
+				}
+				deleteKeptSnapshots();
+				_durable = _appended;
+			}
+		} finally {
+			shop.unlockWeek(false);
+			shop.unlockStaff(true);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			sync();
+		} finally {
+			_channel.close();
+		}
+	}
+
+	/**
+	 * Append the records that rebuild the shop. The shop must be locked, and as every change to its rostering horizon
+	 * takes the staff lock for reading, the staff lock held for changes keeps the horizon from changing too.
+	 * @param shop
+	 */
+	private void writeShop(Shop shop) {
+		append(NEW_ROSTER, shop.toString());
+		List<WorkDay> days = shop.getWorkDays();
+		for (WorkDay workDay : days) {
+			writeShifts(workDay, workDay.toString(), SET_WORKING_HOURS, ADD_SHIFT);
+		}
+		for (StaffView staff : shop.getStaffViews(StaffFilter.REGISTERED)) {
+			append(REGISTER_STAFF, staff.getGivenName(), staff.getFamilyName());
+		}
+		for (WorkDay workDay : days) {
+			writeAssignments(workDay, workDay.toString(), ASSIGN_STAFF, ASSIGN_MANAGER);
+		}
+
+		RosterHorizon horizon = shop.getHorizon();
+		List<LocalDate> weeks = horizon.getWeeks();
+		if (weeks.isEmpty()) {
+			return;
+		}
+		append(SET_HORIZON, weeks.get(0).toString(), Integer.toString(weeks.size()));
+		for (WorkDay workDay : horizon.getChangedDays()) { //rebuilt from nothing, as the template may have changed since.
+			String date = workDay.getDate().toString();
+			append(CLEAR_DATE, date);
+			writeShifts(workDay, date, SET_WORKING_HOURS_ON, ADD_SHIFT_ON);
+			writeAssignments(workDay, date, ASSIGN_STAFF_ON, ASSIGN_MANAGER_ON);
+		}
+	}
+
+	/**
+	 * Append the records that set the working hours of a day and add its shifts.
+	 * @param workDay
+	 * @param day the day or date the records are to.
+	 * @param setWorkingHours the operation code that sets working hours.
+	 * @param addShift the operation code that adds a shift.
+	 */
+	private void writeShifts(WorkDay workDay, String day, byte setWorkingHours, byte addShift) {
+		Hours hours = workDay.getWorkingHours();
+		if (hours != null) {
+			append(setWorkingHours, day, Hours.format(hours.getStart()), Hours.format(hours.getEnd()));
+		}
+		for (ShiftView shift : workDay.getShiftViews()) {
+			append(addShift, day, Hours.format(shift.getStart()), Hours.format(shift.getEnd()),
+					Integer.toString(shift.getMinWorkers()));
+		}
+	}
+
+	/**
+	 * Append the records that assign the staff of a day's shifts.
+	 * @param workDay
+	 * @param day the day or date the records are to.
+	 * @param assignStaff the operation code that assigns a worker.
+	 * @param assignManager the operation code that assigns a manager.
+	 */
+	private void writeAssignments(WorkDay workDay, String day, byte assignStaff, byte assignManager) {
+		for (ShiftView shift : workDay.getShiftViews()) {
+			String start = Hours.format(shift.getStart());
+			String end = Hours.format(shift.getEnd());
+			if (shift.getManager() != null) {
+				append(assignManager, day, start, end, shift.getManager().getGivenName(), shift.getManager().getFamilyName());
+			}
+			for (StaffView worker : shift.getWorkers()) {
+				append(assignStaff, day, start, end, worker.getGivenName(), worker.getFamilyName());
+			}
+		}
+	}
+
+	/**
+	 * Delete the snapshots kept beside the journal, once it no longer names them. A snapshot that cannot be deleted is
+	 * left for the next compaction.
+	 */
+	private void deleteKeptSnapshots() {
+		try (DirectoryStream<Path> kept = Files.newDirectoryStream(_path.toAbsolutePath().getParent(),
+				_path.getFileName() + ".*.snapshot")) {
+			for (Path snapshot : kept) {
+				Files.deleteIfExists(snapshot);
+			}
+		} catch (IOException exception) {
+			//the compaction has succeeded, and the snapshots only take up space.
+		}
+	}
+
+	/**
+	 * Read the next record.
+	 * @param input
+	 * @param remaining the bytes left in the journal, which bounds the length a record can have.
+	 * @return the record, or null at the end of the journal or at a torn or corrupt record.
+	 */
+	private byte[] readRecord(DataInputStream input, long remaining) {
+		try {
+			int length = input.readInt();
+			if (length <= 0 || length > remaining - 8) { //a corrupt length must not allocate more than the journal holds.
+				return null;
+			}
+			byte[] record = new byte[length];
+			input.readFully(record);
+			int crc = input.readInt();
+			_crc.reset();
+			_crc.update(record, 0, length);
+			return crc == (int) _crc.getValue() ? record : null;
+		} catch (IOException exception) {
+			return null; //the end of the journal, possibly part way through a record.
+		}
+	}
+
+	/**
+	 * Stop recording changes, once writing has failed. Must be called holding the lock.
+	 * @param failure
+	 */
+	private void fail(IOException failure) {
+		_failure = failure;
+		_refused = new RosterException("ERROR: roster journal could not be written, so no changes can be made. "
+				+ failure.getMessage());
+	}
+
+	/**
+	 * Write an int in big-endian order, as {@link DataInputStream#readInt()} reads it.
+	 * @param output
+	 * @param value
+	 */
+	private static void writeInt(ByteArrayOutputStream output, int value) {
+		output.write(value >>> 24);
+		output.write(value >>> 16);
+		output.write(value >>> 8);
+		output.write(value);
+	}
+
+	/**
+	 * Read a string written by {@link #append(byte, String...)}.
+	 * @param input
+	 * @return the string.
+	 * @throws IOException if the record ends part way through the string.
+	 */
+	private static String readString(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length < 0 || length > input.available()) {
+			throw new IOException("Roster journal has a string longer than its record");
+		}
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Apply a record to the target.
+	 * @param target
+	 * @param record
+	 * @throws IOException
+	 */
+	private void apply(ShiftMan target, byte[] record) throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+		byte operation = input.readByte();
+		if (operation == TRANSACTION) {
+			int count = input.readInt();
+			for (int change = 0; change < count; change++) {
+				apply(target, input.readByte(), input);
+			}
+		} else {
+			apply(target, operation, input);
+		}
+	}
+
+	/**
+	 * Apply a single change to the target.
+	 * @param target
+	 * @param operation the operation code of the change.
+	 * @param input where the strings of the change are read from.
+	 * @throws IOException
+	 */
+	private void apply(ShiftMan target, byte operation, DataInputStream input) throws IOException {
+		switch (operation) {
+		case NEW_ROSTER:
+			target.newRoster(readString(input));
+			break;
+		case SET_WORKING_HOURS:
+			target.setWorkingHours(readString(input), readString(input), readString(input));
+			break;
+		case ADD_SHIFT:
+			target.addShift(readString(input), readString(input), readString(input), readString(input));
+			break;
+		case REGISTER_STAFF:
+			target.registerStaff(readString(input), readString(input));
+			break;
+		case ASSIGN_STAFF:
+		case ASSIGN_MANAGER:
+			target.assignStaff(readString(input), readString(input), readString(input), readString(input), readString(input),
+					operation == ASSIGN_MANAGER);
+			break;
+		case LOAD_SNAPSHOT:
+			if (!(target instanceof ShiftManServer)) {
+				throw new IOException("Roster journal loads a snapshot, which only a ShiftManServer can replay");
+			}
+			((ShiftManServer) target).loadSnapshot(_path.resolveSibling(readString(input)));
+			break;
+		case SET_HORIZON:
+			server(target).setHorizon(readString(input), Integer.parseInt(readString(input)));
+			break;
+		case ROLL_HORIZON:
+			server(target).rollHorizonForward();
+			break;
+		case SET_WORKING_HOURS_ON:
+			server(target).setWorkingHoursOn(readString(input), readString(input), readString(input));
+			break;
+		case ADD_SHIFT_ON:
+			server(target).addShiftOn(readString(input), readString(input), readString(input), readString(input));
+			break;
+		case ASSIGN_STAFF_ON:
+		case ASSIGN_MANAGER_ON:
+			server(target).assignStaffOn(readString(input), readString(input), readString(input), readString(input),
+					readString(input), operation == ASSIGN_MANAGER_ON);
+			break;
+		case CLEAR_DATE:
+			try {
+				server(target).clearDate(readString(input));
+			} catch (RosterException exception) { //only written by compaction, after the horizon holding the date.
+				throw new IOException("Roster journal is corrupt: " + exception.getMessage());
+			}
+			break;
+		default:
+			throw new IOException("Roster journal has an unknown operation " + operation);
+		}
+	}
+
+	/**
+	 * @param target
+	 * @return the target, which must be a ShiftManServer to replay changes to a rostering horizon.
+	 * @throws IOException if it is not.
+	 */
+	private static ShiftManServer server(ShiftMan target) throws IOException {
+		if (!(target instanceof ShiftManServer)) {
+			throw new IOException("Roster journal changes a rostering horizon, which only a ShiftManServer can replay");
+		}
+		return (ShiftManServer) target;
+	}
+}
@@ -0,0 +1,271 @@
+package shiftman.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the requests of a {@link ShiftManServer}, and reports them with gauges of the roster's size and
+ * problems, through {@link #snapshot()} or JMX.
+ *
+ * <p>Latencies are kept in a histogram for each kind of request, with eight buckets for each power of two nanoseconds,
+ * so a latency read back from it is within an eighth of the latency recorded. A histogram takes about 4 KB, so each is
+ * only made when its kind of request is first recorded, and the metrics of a server that is asked few kinds of request
+ * stay small. Once it is made, recording a request only increments counters, so it never allocates or locks.
+ */
+public class RosterMetrics implements RosterMetricsMXBean {
+
+	private static final int SUB_BITS = 3; //log2 of the buckets for each power of two.
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+	private static final RosterOperation[] OPERATIONS = RosterOperation.values();
+	private static final ErrorCategory[] CATEGORIES = ErrorCategory.values();
+
+	private final Supplier<Shop> _shop;
+	private final AtomicLongArray _errors = new AtomicLongArray(OPERATIONS.length * CATEGORIES.length);
+	//the histogram of each operation, or null until one is recorded.
+	private final AtomicReferenceArray<AtomicLongArray> _latencies = new AtomicReferenceArray<AtomicLongArray>(OPERATIONS.length);
+	private final AtomicLongArray _maxLatencies = new AtomicLongArray(OPERATIONS.length);
+
+	/**
+	 * @param shop gives the current shop, or null if no roster has been created.
+	 */
+	RosterMetrics(Supplier<Shop> shop) {
+		_shop = shop;
+	}
+
+	/**
+	 * Register the metrics with the platform MBean server.
+	 * @param name the object name to register as, such as "shiftman.server:type=RosterMetrics".
+	 * @throws JMException if the name is not valid or is already registered.
+	 */
+	public void register(String name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+	}
+
+	/**
+	 * Record a request that returns a status.
+	 * @param operation
+	 * @param start the value of {@link System#nanoTime()} when the request began.
+	 * @param status the status of the request, which is an error if it starts with "ERROR".
+	 * @return the status.
+	 */
+	String record(RosterOperation operation, long start, String status) {
+		recordLatency(operation, start);
+		if (status.startsWith("ERROR")) {
+			recordError(operation, status);
+		}
+		return status;
+	}
+
+	/**
+	 * Record a request that returns a list, which is an error if it holds just one line starting with "ERROR".
+	 * @param operation
+	 * @param start the value of {@link System#nanoTime()} when the request began.
+	 * @param result
+	 * @return the result.
+	 */
+	List<String> record(RosterOperation operation, long start, List<String> result) {
+		recordLatency(operation, start);
+		if (result.size() == 1 && result.get(0).startsWith("ERROR")) {
+			recordError(operation, result.get(0));
+		}
+		return result;
+	}
+
+	/**
+	 * Record a batch request, counting an error for each entry that failed.
+	 * @param operation
+	 * @param start the value of {@link System#nanoTime()} when the request began.
+	 * @param statuses the status of each entry.
+	 * @return the statuses.
+	 */
+	List<String> recordBatch(RosterOperation operation, long start, List<String> statuses) {
+		recordLatency(operation, start);
+		for (String status : statuses) {
+			if (!status.isEmpty()) {
+				recordError(operation, status);
+			}
+		}
+		return statuses;
+	}
+
+	/**
+	 * Record a request that succeeded.
+	 * @param operation
+	 * @param start the value of {@link System#nanoTime()} when the request began.
+	 * @param value what the request returns.
+	 * @return the value.
+	 */
+	<T> T recordValue(RosterOperation operation, long start, T value) {
+		recordLatency(operation, start);
+		return value;
+	}
+
+	/**
+	 * Record a request that threw an error.
+	 * @param operation
+	 * @param start the value of {@link System#nanoTime()} when the request began.
+	 * @param exception the error.
+	 * @return the error, to be thrown again.
+	 */
+	RosterException recordException(RosterOperation operation, long start, RosterException exception) {
+		recordLatency(operation, start);
+		recordError(operation, exception.getMessage());
+		return exception;
+	}
+
+	private void recordLatency(RosterOperation operation, long start) {
+		long latency = Math.max(0, System.nanoTime() - start);
+		int index = operation.ordinal();
+		AtomicLongArray latencies = _latencies.get(index);
+		if (latencies == null) {
+			_latencies.compareAndSet(index, null, new AtomicLongArray(BUCKETS)); //another thread may have made it first.
+			latencies = _latencies.get(index);
+		}
+		latencies.incrementAndGet(bucket(latency));
+		long max = _maxLatencies.get(index);
+		while (latency > max && !_maxLatencies.compareAndSet(index, max, latency)) {
+			max = _maxLatencies.get(index);
+		}
+	}
+
+	private void recordError(RosterOperation operation, String message) {
+		_errors.incrementAndGet(operation.ordinal() * CATEGORIES.length + ErrorCategory.fromMessage(message).ordinal());
+	}
+
+	/**
+	 * Find the histogram bucket of a latency. Latencies below eight nanoseconds have a bucket each, and each power of two
+	 * above that is split into eight buckets.
+	 * @param latency in nanoseconds.
+	 * @return the bucket.
+	 */
+	static int bucket(long latency) {
+		if (latency < SUB_BUCKETS) {
+			return (int) latency;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(latency);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + (int) ((latency >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * @param bucket
+	 * @return the middle of the whole nanoseconds that fall in the bucket.
+	 */
+	static double bucketMiddle(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+		return lowest + ((1L << (exponent - SUB_BITS)) - 1) / 2.0;
+	}
+
+	/**
+	 * Take the metrics of each kind of request that has been called. Requests recorded while the metrics are taken may
+	 * be only partly included.
+	 * @return the metrics, in the order of {@link RosterOperation}.
+	 */
+	public List<OperationMetrics> snapshot() {
+		List<OperationMetrics> snapshot = new ArrayList<OperationMetrics>();
+		long[] buckets = new long[BUCKETS];
+		for (RosterOperation operation : OPERATIONS) {
+			int index = operation.ordinal();
+			AtomicLongArray latencies = _latencies.get(index);
+			if (latencies == null) {
+				continue;
+			}
+			long total = 0;
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				buckets[bucket] = latencies.get(bucket);
+				total += buckets[bucket];
+			}
+			if (total == 0) {
+				continue;
+			}
+			long errors = 0;
+			Map<String, Long> errorsByCategory = new LinkedHashMap<String, Long>();
+			for (ErrorCategory category : CATEGORIES) {
+				long count = _errors.get(index * CATEGORIES.length + category.ordinal());
+				if (count != 0) {
+					errorsByCategory.put(category.toString(), count);
+					errors += count;
+				}
+			}
+			snapshot.add(new OperationMetrics(operation.toString(), total, errors, errorsByCategory,
+					percentile(buckets, total, 0.5), percentile(buckets, total, 0.99), percentile(buckets, total, 0.999),
+					_maxLatencies.get(index) / 1000.0));
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return the latency below which the fraction of requests fall, in microseconds.
+	 */
+	static double percentile(long[] buckets, long total, double fraction) {
+		long rank = (long) Math.ceil(total * fraction);
+		long seen = 0;
+		for (int bucket = 0; bucket < buckets.length; bucket++) {
+			seen += buckets[bucket];
+			if (seen >= rank) {
+				return bucketMiddle(bucket) / 1000.0;
+			}
+		}
+		return bucketMiddle(buckets.length - 1) / 1000.0;
+	}
+
+	@Override
+	public List<OperationMetrics> getOperations() {
+		return snapshot();
+	}
+
+	@Override
+	public int getStaffCount() {
+		Shop shop = _shop.get();
+		return shop == null ? 0 : shop.countStaff();
+	}
+
+	@Override
+	public int[] getShiftsPerDay() {
+		Shop shop = _shop.get();
+		return shop == null ? new int[7] : shop.countShifts();
+	}
+
+	/**
+	 * Counted from the latest published version of the roster, so reading them from JMX takes no lock on the roster.
+	 */
+	@Override
+	public Map<String, Integer> getProblemCounts() {
+		Shop shop = _shop.get();
+		RosterVersion version = shop == null ? null : shop.getRosterVersion();
+		Map<String, Integer> problems = new LinkedHashMap<String, Integer>();
+		for (ProblemType problemType : ProblemType.values()) {
+			problems.put(problemType.toString(), version == null ? 0 : version.countProblems(problemType));
+		}
+		return problems;
+	}
+
+	@Override
+	public void reset() {
+		for (int index = 0; index < _maxLatencies.length(); index++) {
+			_maxLatencies.set(index, 0);
+		}
+		for (int index = 0; index < _errors.length(); index++) {
+			_errors.set(index, 0);
+		}
+		for (int index = 0; index < _latencies.length(); index++) {
+			AtomicLongArray latencies = _latencies.get(index);
+			for (int bucket = 0; latencies != null && bucket < BUCKETS; bucket++) {
+				latencies.set(bucket, 0);
+			}
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of {@link RosterMetrics}, as seen through JMX.
+ */
+public interface RosterMetricsMXBean {
+
+	/**
+	 * @return the metrics of each kind of request that has been called.
+	 */
+	public List<OperationMetrics> getOperations();
+
+	/**
+	 * @return the number of registered staff, or 0 if no roster has been created.
+	 */
+	public int getStaffCount();
+
+	/**
+	 * @return the number of shifts on each day of the week, from Monday.
+	 */
+	public int[] getShiftsPerDay();
+
+	/**
+	 * @return the number of shifts with each problem, by problem name.
+	 */
+	public Map<String, Integer> getProblemCounts();
+
+	/**
+	 * Start counting and timing requests again from nothing.
+	 */
+	public void reset();
+}
@@ -0,0 +1,64 @@
+package shiftman.server;
+
+/**
+ * The requests of {@link ShiftManServer} that are timed and counted by {@link RosterMetrics}.
+ */
+public enum RosterOperation {
+	NEW_ROSTER("newRoster"),
+	COMPACT_JOURNAL("compactJournal"),
+	BEGIN_TRANSACTION("beginTransaction"),
+	COMMIT("commit"),
+	AUTO_ROSTER("autoRoster"),
+	APPLY_AUTO_ROSTER("applyAutoRoster"),
+	SAVE_SNAPSHOT("saveSnapshot"),
+	LOAD_SNAPSHOT("loadSnapshot"),
+	SET_WORKING_HOURS("setWorkingHours"),
+	ADD_SHIFT("addShift"),
+	REGISTER_STAFF("registerStaff"),
+	ASSIGN_STAFF("assignStaff"),
+	SUBSCRIBE("subscribe"),
+	SET_HORIZON("setHorizon"),
+	ROLL_HORIZON_FORWARD("rollHorizonForward"),
+	SET_WORKING_HOURS_ON("setWorkingHoursOn"),
+	ADD_SHIFT_ON("addShiftOn"),
+	ASSIGN_STAFF_ON("assignStaffOn"),
+	GET_ROSTER_FOR_DATE("getRosterForDate"),
+	REGISTER_STAFF_BATCH("registerStaffBatch"),
+	ADD_SHIFTS_BATCH("addShiftsBatch"),
+	ASSIGN_STAFF_BATCH("assignStaffBatch"),
+	GET_REGISTERED_STAFF("getRegisteredStaff"),
+	GET_UNASSIGNED_STAFF("getUnassignedStaff"),
+	SHIFTS_WITHOUT_MANAGERS("shiftsWithoutManagers"),
+	UNDERSTAFFED_SHIFTS("understaffedShifts"),
+	OVERSTAFFED_SHIFTS("overstaffedShifts"),
+	GET_ROSTER_FOR_DAY("getRosterForDay"),
+	GET_ROSTER_FOR_WORKER("getRosterForWorker"),
+	GET_SHIFTS_MANAGED_BY("getShiftsManagedBy"),
+	REPORT_ROSTER_ISSUES("reportRosterIssues"),
+	DISPLAY_ROSTER("displayRoster"),
+	GET_SHIFT_VIEWS_FOR_DAY("getShiftViewsForDay"),
+	GET_COVERAGE_FOR_DAY("getCoverageForDay"),
+	GET_SHIFT_VIEWS_FOR_STAFF("getShiftViewsForStaff"),
+	GET_PROBLEM_SHIFT_VIEWS("getProblemShiftViews"),
+	GET_STAFF_VIEWS("getStaffViews"),
+	GET_WORKLOAD("getWorkload"),
+	GET_MOST_LOADED_STAFF("getMostLoadedStaff"),
+	GET_LEAST_LOADED_STAFF("getLeastLoadedStaff"),
+	GET_STAFF_PAGE("getStaffPage"),
+	STREAM_STAFF("streamStaff"),
+	PIN_ROSTER("pinRoster");
+
+	private final String _name;
+
+	private RosterOperation(String name) {
+		_name = name;
+	}
+
+	/**
+	 * @return the name of the method of {@link ShiftManServer}.
+	 */
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
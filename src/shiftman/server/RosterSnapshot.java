@@ -0,0 +1,326 @@
+package shiftman.server;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A binary snapshot of a whole shop, which can be loaded far faster than replaying the changes that built it.
+ *
+ * <p>The snapshot is memory-mapped when loaded, and only its header is read straight away. The staff and each day are
+ * read from the mapping the first time the shop needs them, so nothing is checked, sorted or formatted again.
+ *
+ * <p>The format is, with every number a big-endian int:
+ * <pre>
+ * header:  magic, format version, string count, staff count, strings offset, staff offset, name index offset,
+ *          days offset, shop name string
+ * strings: string count + 1 byte offsets into the string data, then the UTF-8 string data
+ * staff:   given name string and family name string of each staff member, in staff id order
+ * names:   the staff ids in order of case-folded full name, to find a staff member by name with a binary search
+ * days:    offset of each day, then for each day its packed working hours (or -1), its shift count, and for each shift
+ *          its packed hours, minimum workers, manager staff id (or -1), worker count and worker staff ids
+ * </pre>
+ * Staff keep their ids. A staff member is only created when a loaded day refers to them, when they are looked up by name,
+ * or when the staff are first listed. Each name is stored once in the string table, however many staff share it.
+ */
+public class RosterSnapshot {
+
+	private static final int MAGIC = 0x53484d53; //"SHMS"
+	private static final int FORMAT_VERSION = 2;
+	private static final int HEADER_SIZE = 9 * 4;
+	private static final int DAYS = 7;
+
+	private final MappedByteBuffer _buffer;
+	private final int _stringCount, _staffCount;
+	private final int _stringsOffset, _staffOffset, _namesOffset, _daysOffset;
+	private final String _shopName;
+
+	private RosterSnapshot(MappedByteBuffer buffer) throws IOException {
+		_buffer = buffer;
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("File is not a roster snapshot");
+		}
+		if (buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Roster snapshot format " + buffer.getInt(4) + " is not supported");
+		}
+		_stringCount = buffer.getInt(8);
+		_staffCount = buffer.getInt(12);
+		_stringsOffset = buffer.getInt(16);
+		_staffOffset = buffer.getInt(20);
+		_namesOffset = buffer.getInt(24);
+		_daysOffset = buffer.getInt(28);
+		if (_stringCount < 0 || _staffCount < 0 || _stringsOffset != HEADER_SIZE || _staffOffset < _stringsOffset
+				|| _namesOffset < _staffOffset || _daysOffset < _namesOffset || _daysOffset + DAYS * 4 > buffer.capacity()
+				|| _staffOffset - _stringsOffset < (_stringCount + 1) * 4 || _namesOffset - _staffOffset != _staffCount * 8
+				|| _daysOffset - _namesOffset != _staffCount * 4) {
+			throw new IOException("Roster snapshot is corrupt");
+		}
+		_shopName = string(buffer.getInt(32));
+	}
+
+	/**
+	 * Map a snapshot file and read its header.
+	 * @param path
+	 * @return the snapshot, ready for a shop to load from.
+	 * @throws IOException if the file could not be read or is not a roster snapshot.
+	 */
+	public static RosterSnapshot open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Roster snapshot is too large");
+			}
+			//the mapping stays valid once the channel is closed.
+			return new RosterSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Write a snapshot of the shop. The snapshot is written beside the file and then renamed over it, so the file is
+	 * always either the old snapshot or the whole new one. The shop is locked for reading while it is written.
+	 * @param shop
+	 * @param path
+	 * @throws IOException
+	 */
+	public static void write(Shop shop, Path path) throws IOException {
+		Path written = path.resolveSibling(path.getFileName() + ".tmp");
+		shop.lockAllStaff(false);
+		shop.lockWeek(false);
+		try (FileChannel channel = FileChannel.open(written, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeShop(shop, channel);
+			channel.force(true);
+		} finally {
+			shop.unlockWeek(false);
+			shop.unlockStaff(false);
+		}
+		Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @return the name of the shop in the snapshot.
+	 */
+	public String getShopName() {
+		return _shopName;
+	}
+
+	/**
+	 * @return the number of staff in the snapshot.
+	 */
+	public int getStaffCount() {
+		return _staffCount;
+	}
+
+	/**
+	 * Find a staff member by name, with a binary search of the name index.
+	 * @param foldedName the case-folded full name, as {@link ShopStaffList} folds it.
+	 * @return the staff id, or -1 if no staff member has the name.
+	 */
+	int findStaff(String foldedName) {
+		int low = 0;
+		int high = _staffCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int id = _buffer.getInt(_namesOffset + middle * 4);
+			if (id < 0 || id >= _staffCount) {
+				throw new IllegalStateException("Roster snapshot is corrupt: no staff member " + id);
+			}
+			int offset = _staffOffset + id * 8;
+			String name = string(_buffer.getInt(offset)) + " " + string(_buffer.getInt(offset + 4));
+			int comparison = ShopStaffList.foldName(name).compareTo(foldedName);
+			if (comparison < 0) {
+				low = middle + 1;
+			} else if (comparison > 0) {
+				high = middle - 1;
+			} else {
+				return id;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Restore the working hours, shifts and shift staff of a day. Only the staff of the day's shifts are loaded.
+	 * @param workDay an empty day, which must be locked for changes.
+	 * @param staff the staff already loaded, by staff id. The staff of the day are loaded into it.
+	 */
+	void loadDay(WorkDay workDay, Staff[] staff) {
+		int offset = _buffer.getInt(_daysOffset + workDay.getDayIndex() * 4);
+		int hours = _buffer.getInt(offset);
+		int shifts = _buffer.getInt(offset + 4);
+		offset += 8;
+		if (hours != -1) {
+			workDay.restoreHours(hours);
+		}
+		try {
+			for (int current = 0; current < shifts; current++) {
+				WorkDay.Shift shift = workDay.new Shift(_buffer.getInt(offset), _buffer.getInt(offset + 4));
+				int manager = _buffer.getInt(offset + 8);
+				int workerCount = _buffer.getInt(offset + 12);
+				offset += 16;
+				List<Staff> workers = new ArrayList<Staff>(workerCount);
+				for (int worker = 0; worker < workerCount; worker++) {
+					workers.add(staff(staff, _buffer.getInt(offset)));
+					offset += 4;
+				}
+				workDay.addShift(shift);
+				shift.restoreStaff(manager == -1 ? null : staff(staff, manager), workers);
+			}
+		} catch (RosterException | IndexOutOfBoundsException exception) {
+			throw new IllegalStateException("Roster snapshot is corrupt: " + exception.getMessage());
+		}
+	}
+
+	/**
+	 * Get a staff member, loading them if they have not been loaded yet. Must be called holding the snapshot's monitor.
+	 * @param staff the staff already loaded, by staff id.
+	 * @param id
+	 * @return the staff member.
+	 */
+	Staff staff(Staff[] staff, int id) {
+		if (staff[id] == null) {
+			int offset = _staffOffset + id * 8;
+			staff[id] = new Staff(string(_buffer.getInt(offset)), string(_buffer.getInt(offset + 4)));
+			staff[id].setId(id); //the same id the staff list gives them when they are registered.
+		}
+		return staff[id];
+	}
+
+	/**
+	 * Decode a string from the string table.
+	 * @param index
+	 * @return the string.
+	 */
+	private String string(int index) {
+		if (index < 0 || index >= _stringCount) {
+			throw new IllegalStateException("Roster snapshot is corrupt: no string " + index);
+		}
+		int dataOffset = _stringsOffset + (_stringCount + 1) * 4;
+		int start = _buffer.getInt(_stringsOffset + index * 4);
+		int end = _buffer.getInt(_stringsOffset + index * 4 + 4);
+		byte[] bytes = new byte[end - start];
+		ByteBuffer data = _buffer.duplicate(); //the mapping is shared, so its position is never changed.
+		data.position(dataOffset + start);
+		data.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Write the snapshot of a locked shop.
+	 * @param shop
+	 * @param channel
+	 * @throws IOException
+	 */
+	private static void writeShop(Shop shop, FileChannel channel) throws IOException {
+		//number the staff and their names.
+		//name the staff in id order.
+		List<StaffView> staffViews = shop.getStaffViews(StaffFilter.REGISTERED);
+		Map<String, Integer> stringIds = new HashMap<String, Integer>();
+		List<byte[]> strings = new ArrayList<byte[]>();
+		int shopName = stringId(shop.toString(), stringIds, strings);
+		int[] names = new int[staffViews.size() * 2];
+		for (StaffView staff : staffViews) {
+			names[staff.getId() * 2] = stringId(staff.getGivenName(), stringIds, strings);
+			names[staff.getId() * 2 + 1] = stringId(staff.getFamilyName(), stringIds, strings);
+		}
+
+		channel.position(HEADER_SIZE); //the header is written last, once the offsets are known.
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+		int stringOffset = 0;
+		for (byte[] string : strings) {
+			output.writeInt(stringOffset);
+			stringOffset += string.length;
+		}
+		output.writeInt(stringOffset);
+		for (byte[] string : strings) {
+			output.write(string);
+		}
+		int staffOffset = HEADER_SIZE + output.size();
+		for (int name : names) {
+			output.writeInt(name);
+		}
+		int namesOffset = HEADER_SIZE + output.size();
+		for (int id : nameOrder(staffViews)) {
+			output.writeInt(id);
+		}
+
+		//the days are written after a table of where each day starts.
+		int daysOffset = HEADER_SIZE + output.size();
+		List<WorkDay> days = shop.getWorkDays();
+		List<List<ShiftView>> dayShifts = new ArrayList<List<ShiftView>>(days.size());
+		int dayOffset = daysOffset + DAYS * 4;
+		for (WorkDay workDay : days) {
+			List<ShiftView> shifts = workDay.getShiftViews();
+			dayShifts.add(shifts);
+			output.writeInt(dayOffset);
+			dayOffset += 8;
+			for (ShiftView shift : shifts) {
+				dayOffset += 16 + shift.getWorkers().size() * 4;
+			}
+		}
+		for (int day = 0; day < days.size(); day++) {
+			Hours hours = days.get(day).getWorkingHours();
+			output.writeInt(hours == null ? -1 : hours.packed());
+			output.writeInt(dayShifts.get(day).size());
+			for (ShiftView shift : dayShifts.get(day)) {
+				output.writeInt((shift.getStart() << 16) | shift.getEnd());
+				output.writeInt(shift.getMinWorkers());
+				output.writeInt(shift.getManager() == null ? -1 : shift.getManager().getId());
+				output.writeInt(shift.getWorkers().size());
+				for (StaffView worker : shift.getWorkers()) {
+					output.writeInt(worker.getId());
+				}
+			}
+		}
+		output.flush();
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(strings.size()).putInt(staffViews.size())
+				.putInt(HEADER_SIZE).putInt(staffOffset).putInt(namesOffset).putInt(daysOffset).putInt(shopName);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header, header.position());
+		}
+	}
+
+	/**
+	 * Order the staff ids by case-folded full name, which is unique as names are registered case insensitively.
+	 * @param staffViews
+	 * @return the staff ids, in name order.
+	 */
+	private static int[] nameOrder(List<StaffView> staffViews) {
+		String[] foldedNames = new String[staffViews.size()];
+		for (StaffView staff : staffViews) {
+			foldedNames[staff.getId()] = ShopStaffList.foldName(staff.getGivenName() + " " + staff.getFamilyName());
+		}
+		return IntStream.range(0, foldedNames.length).boxed()
+				.sorted((id, compare) -> foldedNames[id].compareTo(foldedNames[compare]))
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Get the id of a string in the string table, adding it if it is new.
+	 */
+	private static int stringId(String string, Map<String, Integer> stringIds, List<byte[]> strings) {
+		Integer id = stringIds.get(string);
+		if (id == null) {
+			id = strings.size();
+			stringIds.put(string, id);
+			strings.add(string.getBytes(StandardCharsets.UTF_8));
+		}
+		return id;
+	}
+}
@@ -0,0 +1,126 @@
+package shiftman.server;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Assignments proposed by {@link AutoRoster} to staff the roster, and how they would change its problems.
+ * The solution can be applied with {@link ShiftManServer#applyAutoRoster(RosterSolution)}, which only makes the
+ * assignments if the days have not changed since the roster was read.
+ */
+public class RosterSolution {
+
+	private final Shop _shop;
+	private final List<WorkDay> _days;
+	private final long[] _dayVersions; //versions of the days when the roster was read.
+	private final List<Assignment> _assignments;
+	private final int[] _before, _after; //shifts with each problem, by problem type ordinal.
+	private final int _unfilled;
+
+	RosterSolution(Shop shop, List<WorkDay> days, long[] dayVersions, List<Assignment> assignments, int[] before,
+			int[] after, int unfilled) {
+		_shop = shop;
+		_days = days;
+		_dayVersions = dayVersions;
+		_assignments = Collections.unmodifiableList(assignments);
+		_before = before;
+		_after = after;
+		_unfilled = unfilled;
+	}
+
+	/**
+	 * @return the proposed assignments, in order of day of the week and then start time.
+	 */
+	public List<Assignment> getAssignments() {
+		return _assignments;
+	}
+
+	/**
+	 * @param problemType
+	 * @return the number of shifts with the problem before the proposed assignments.
+	 */
+	public int countProblemsBefore(ProblemType problemType) {
+		return _before[problemType.ordinal()];
+	}
+
+	/**
+	 * @param problemType
+	 * @return the number of shifts with the problem after the proposed assignments.
+	 */
+	public int countProblemsAfter(ProblemType problemType) {
+		return _after[problemType.ordinal()];
+	}
+
+	/**
+	 * @return the number of worker and manager places that no staff member could be found for.
+	 */
+	public int getUnfilled() {
+		return _unfilled;
+	}
+
+	/**
+	 * @return a transaction of the proposed assignments, which fails if any day has changed since the roster was read.
+	 */
+	RosterTransaction toTransaction() {
+		RosterTransaction transaction = _shop.beginTransaction();
+		for (int day = 0; day < _days.size(); day++) {
+			transaction.expectVersion(_days.get(day), _dayVersions[day]);
+		}
+		for (Assignment assignment : _assignments) {
+			ShiftView shift = assignment.getShift();
+			transaction.assignStaff(shift.getDay(), Hours.format(shift.getStart()), Hours.format(shift.getEnd()),
+					assignment.getStaff().getGivenName(), assignment.getStaff().getFamilyName(), assignment.isManager());
+		}
+		return transaction;
+	}
+
+	Shop getShop() {
+		return _shop;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder output = new StringBuilder();
+		output.append(_assignments.size()).append(" assignments proposed.");
+		for (ProblemType problemType : ProblemType.values()) {
+			output.append(' ').append(problemType).append(": ").append(_before[problemType.ordinal()]).append(" -> ")
+					.append(_after[problemType.ordinal()]).append('.');
+		}
+		if (_unfilled != 0) {
+			output.append(' ').append(_unfilled).append(" places could not be filled.");
+		}
+		return output.toString();
+	}
+
+	/**
+	 * A staff member proposed to work or manage a shift.
+	 */
+	public static final class Assignment {
+		private final ShiftView _shift;
+		private final StaffView _staff;
+		private final boolean _isManager;
+
+		Assignment(ShiftView shift, StaffView staff, boolean isManager) {
+			_shift = shift;
+			_staff = staff;
+			_isManager = isManager;
+		}
+
+		public ShiftView getShift() {
+			return _shift;
+		}
+
+		public StaffView getStaff() {
+			return _staff;
+		}
+
+		public boolean isManager() {
+			return _isManager;
+		}
+
+		@Override
+		public String toString() {
+			return _shift + (_isManager ? " manager " : " worker ") + _staff;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of changes to a roster that are made all together or not at all.
+ *
+ * <p>Changes are added to the transaction without locking or changing the roster. The first time a change refers to a
+ * day or a staff member, the transaction records their version. When it is committed with
+ * {@link ShiftManServer#commit(RosterTransaction)}, the roster is locked only for as long as it takes to check that none
+ * of those versions have changed and to make every change. If a version has changed or any change fails, the changes
+ * already made are undone and the roster is left as it was.
+ *
+ * <p>A transaction is meant to be used by a single thread.
+ */
+public class RosterTransaction {
+
+	private final Shop _shop;
+	private final List<Operation> _operations = new ArrayList<Operation>();
+	private final Map<WorkDay, Long> _dayVersions = new LinkedHashMap<WorkDay, Long>(); //versions when first referred to.
+	private final Map<Staff, Long> _staffVersions = new LinkedHashMap<Staff, Long>();
+	private boolean _committed;
+
+	RosterTransaction(Shop shop) {
+		_shop = shop;
+	}
+
+	/**
+	 * Add a change to the working hours of a day, as by {@link ShiftMan#setWorkingHours(String, String, String)}.
+	 * @return "" if the change was added, or an error if its values are not valid.
+	 */
+	public String setWorkingHours(String dayOfWeek, String startTime, String endTime) {
+		try {
+			ShiftManServer.checkValidInput(new String[] {dayOfWeek, startTime, endTime}, new String[] {"day", "working hours start time", "working hours end time"});
+			add(RosterJournal.SET_WORKING_HOURS, dayOfWeek, null, dayOfWeek, startTime, endTime);
+		} catch (RosterException exception) {
+			return exception.getMessage();
+		}
+		return "";
+	}
+
+	/**
+	 * Add a new shift, as by {@link ShiftMan#addShift(String, String, String, String)}.
+	 * @return "" if the change was added, or an error if its values are not valid.
+	 */
+	public String addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+		try {
+			ShiftManServer.checkValidInput(new String[] {dayOfWeek, startTime, endTime, minimumWorkers}, new String[] {"day", "shift start time", "shift end time", "minimum worker value"});
+			add(RosterJournal.ADD_SHIFT, dayOfWeek, null, dayOfWeek, startTime, endTime, minimumWorkers);
+		} catch (RosterException exception) {
+			return exception.getMessage();
+		}
+		return "";
+	}
+
+	/**
+	 * Add a new staff member, as by {@link ShiftMan#registerStaff(String, String)}.
+	 * @return "" if the change was added, or an error if its values are not valid.
+	 */
+	public String registerStaff(String givenName, String familyName) {
+		try {
+			ShiftManServer.checkValidInput(new String[] {givenName, familyName}, new String[] {"first name", "last name"});
+			add(RosterJournal.REGISTER_STAFF, null, null, givenName, familyName);
+		} catch (RosterException exception) {
+			return exception.getMessage();
+		}
+		return "";
+	}
+
+	/**
+	 * Add the assignment of a staff member to a shift, as by
+	 * {@link ShiftMan#assignStaff(String, String, String, String, String, boolean)}.
+	 * @return "" if the change was added, or an error if its values are not valid.
+	 */
+	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager) {
+		try {
+			ShiftManServer.checkValidInput(new String[] {dayOfWeek, startTime, endTime, givenName, familyName}, new String[]{"day", "shift start time", "shift end time", "first name", "last name"});
+			add(isManager ? RosterJournal.ASSIGN_MANAGER : RosterJournal.ASSIGN_STAFF, dayOfWeek, givenName + " " + familyName,
+					dayOfWeek, startTime, endTime, givenName, familyName);
+		} catch (RosterException exception) {
+			return exception.getMessage();
+		}
+		return "";
+	}
+
+	/**
+	 * @return the number of changes in the transaction.
+	 */
+	public int size() {
+		return _operations.size();
+	}
+
+	/**
+	 * Add a change, recording the versions of the day and staff member it refers to if they have not been recorded yet.
+	 * @param operation the kind of change, as recorded in a {@link RosterJournal}.
+	 * @param dayOfWeek the day the change is to, or null.
+	 * @param staffName the staff member the change is to, or null.
+	 * @param values the values of the change.
+	 * @throws RosterException if the transaction has already been committed, or the day is not valid.
+	 */
+	private void add(byte operation, String dayOfWeek, String staffName, String... values) throws RosterException {
+		if (_committed) {
+			throw new RosterException("ERROR: transaction has already been committed.");
+		}
+		if (dayOfWeek != null) {
+			WorkDay workDay = _shop.manageWeekSchedule(dayOfWeek); //an invalid day is rejected now, not when committed.
+			if (!_dayVersions.containsKey(workDay)) {
+				_dayVersions.put(workDay, workDay.getVersion());
+			}
+		}
+		if (staffName != null) {
+			Staff staff = _shop.findStaff(staffName);
+			if (staff != null && !_staffVersions.containsKey(staff)) {
+				_staffVersions.put(staff, staff.getVersion());
+			}
+		}
+		_operations.add(new Operation(operation, values));
+	}
+
+	/**
+	 * Record the version of a day as read earlier, so that the transaction fails if the day has changed since then.
+	 * @param workDay
+	 * @param version
+	 */
+	void expectVersion(WorkDay workDay, long version) {
+		_dayVersions.put(workDay, version);
+	}
+
+	Shop getShop() {
+		return _shop;
+	}
+
+	List<Operation> getOperations() {
+		return Collections.unmodifiableList(_operations);
+	}
+
+	/**
+	 * @return the days the transaction refers to.
+	 */
+	Iterable<WorkDay> getWorkDays() {
+		return _dayVersions.keySet();
+	}
+
+	/**
+	 * @param workDay a day the transaction refers to.
+	 * @return whether the day has changed since the transaction recorded its version, such as by its own changes.
+	 */
+	boolean hasChanged(WorkDay workDay) {
+		return workDay.getVersion() != _dayVersions.get(workDay);
+	}
+
+	/**
+	 * Check that nothing the transaction refers to has changed since it was first referred to. The days and staff
+	 * list must be locked.
+	 * @return true if every recorded version is unchanged.
+	 */
+	boolean isCurrent() {
+		for (Map.Entry<WorkDay, Long> day : _dayVersions.entrySet()) {
+			if (day.getKey().getVersion() != day.getValue()) {
+				return false;
+			}
+		}
+		for (Map.Entry<Staff, Long> staff : _staffVersions.entrySet()) {
+			if (staff.getKey().getVersion() != staff.getValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Mark the transaction as committed, so no more changes can be added.
+	 * @throws RosterException if it has already been committed.
+	 */
+	void markCommitted() throws RosterException {
+		if (_committed) {
+			throw new RosterException("ERROR: transaction has already been committed.");
+		}
+		_committed = true;
+	}
+
+	/**
+	 * A change in a transaction, held the same way as a journal record.
+	 */
+	static final class Operation {
+		final byte _operation;
+		final String[] _values;
+
+		Operation(byte operation, String[] values) {
+			_operation = operation;
+			_values = values;
+		}
+	}
+}
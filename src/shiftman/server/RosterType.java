@@ -0,0 +1,42 @@
+package shiftman.server;
+
+/**
+ * The kinds of roster the shop can give.
+ */
+public enum RosterType {
+	DAY("roster for day"),
+	WORKER("roster for worker"),
+	MANAGER("roster for manager"),
+	WEEK_SUMMARY("week roster summary");
+
+	private final String _name;
+
+	private RosterType(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Get the roster type for one of the strings used by the string based methods.
+	 * @param rosterType can only be "roster for day", "roster for worker", "roster for manager" or "week roster summary".
+	 * @return the roster type.
+	 */
+	public static RosterType fromString(String rosterType) {
+		switch (rosterType) {
+		case "roster for day":
+			return DAY;
+		case "roster for worker":
+			return WORKER;
+		case "roster for manager":
+			return MANAGER;
+		case "week roster summary":
+			return WEEK_SUMMARY;
+		default:
+			throw new UnsupportedOperationException("shop.getRoster must take a type string of \"roster for day\", \"roster for worker\", \"roster for manager\" or \"week roster summary\"");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
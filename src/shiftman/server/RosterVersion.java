@@ -0,0 +1,397 @@
+package shiftman.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable version of a shop's roster: its week schedule, the shifts of each day with their staff, and its
+ * registered staff. Reports read from a version see one consistent roster, without locking anything, however the roster
+ * changes while they are read.
+ *
+ * <p>Each change to the roster publishes a new version, sharing everything the change did not touch with the version
+ * before it. A change to a shift's staff only makes a new version of that shift, its day's list of shifts and the week's
+ * list of days. The staff are shared as the registered staff with ids below the version's staff count, as ids are
+ * dense and a staff member's id never changes once they are registered.
+ *
+ * <p>What is rendered from a version is kept with it, and with its days and shifts, so it is only rendered once. The
+ * unassigned staff are found from the staff assigned on each day, which is kept with the day, and are shared with the
+ * last version they were found for while the same staff are registered and assigned.
+ */
+public final class RosterVersion {
+
+	private static final ProblemType[] PROBLEM_TYPES = ProblemType.values();
+
+	private final long _version;
+	private final String _shopName;
+	private final DayVersion[] _days; //by day index.
+	private final ShopStaffList _staffList; //holds every registered staff member, including later ones.
+	private final int _staffCount; //the number of staff registered in this version.
+	private volatile List<String> _weekSummary;
+	private volatile List<String> _registeredStaff;
+	private volatile UnassignedStaff _unassignedStaff;
+	private final UnassignedStaff _earlierUnassigned; //the unassigned staff last found for an earlier version, or null.
+
+	/**
+	 * Create the first version of a roster, with no working hours, shifts or staff.
+	 * @param shopName
+	 * @param workDays the days of the week, by day index.
+	 * @param staffList
+	 */
+	RosterVersion(String shopName, List<WorkDay> workDays, ShopStaffList staffList) {
+		_version = 0;
+		_shopName = shopName;
+		_days = new DayVersion[workDays.size()];
+		for (WorkDay workDay : workDays) {
+			_days[workDay.getDayIndex()] = new DayVersion(workDay.getDayIndex(), workDay.toString(), null, new ShiftVersion[0]);
+		}
+		_staffList = staffList;
+		_staffCount = 0;
+		_earlierUnassigned = null;
+	}
+
+	private RosterVersion(RosterVersion previous, DayVersion[] days, int staffCount) {
+		_version = previous._version + 1;
+		_shopName = previous._shopName;
+		_days = days;
+		_staffList = previous._staffList;
+		_staffCount = staffCount;
+		if (staffCount == previous._staffCount) {
+			_registeredStaff = previous._registeredStaff; //only changes when staff are registered.
+			if (days == previous._days) {
+				_unassignedStaff = previous._unassignedStaff;
+			}
+		}
+		UnassignedStaff unassigned = previous._unassignedStaff;
+		_earlierUnassigned = unassigned != null ? unassigned : previous._earlierUnassigned;
+	}
+
+	/**
+	 * Make the next version of the roster.
+	 * @param changedDays the new versions of the days that changed, which may be empty.
+	 * @param staffCount the number of staff registered in the new version.
+	 * @return the new version.
+	 */
+	RosterVersion next(DayVersion[] changedDays, int staffCount) {
+		DayVersion[] days = _days;
+		if (changedDays.length != 0) {
+			days = days.clone();
+			for (DayVersion day : changedDays) {
+				days[day._dayIndex] = day;
+			}
+		}
+		return new RosterVersion(this, days, staffCount);
+	}
+
+	/**
+	 * @return the number of versions published before this one.
+	 */
+	public long getVersion() {
+		return _version;
+	}
+
+	/**
+	 * @return the number of staff registered in this version.
+	 */
+	int getStaffCount() {
+		return _staffCount;
+	}
+
+	/**
+	 * Count the shifts of the week with a problem. Each day's counts are kept with the day, so they are only counted
+	 * again for the days that have changed.
+	 * @param problemType
+	 * @return the number of shifts with the problem.
+	 */
+	public int countProblems(ProblemType problemType) {
+		int count = 0;
+		for (DayVersion day : _days) {
+			count += day.countProblems(problemType);
+		}
+		return count;
+	}
+
+	/**
+	 * Get the roster for a day, in the same format as {@link ShiftManServer#getRosterForDay(String)}.
+	 * @param dayOfWeek
+	 * @return the roster, or an empty list if the day has no shifts.
+	 * @throws RosterException if the day is not valid.
+	 */
+	public List<String> getRosterForDay(String dayOfWeek) throws RosterException {
+		int dayIndex = WeekSchedule.dayIndex(dayOfWeek);
+		if (dayIndex < 0) {
+			throw new RosterException("ERROR: " + dayOfWeek + " is not a valid day.");
+		}
+		return getDayRoster(dayIndex);
+	}
+
+	/**
+	 * Get the summary of the week, in the same format as {@link ShiftManServer#displayRoster()}.
+	 * @return the summary.
+	 */
+	public String displayRoster() {
+		List<String> summary = getWeekSummary();
+		return summary.get(0) + summary.get(1);
+	}
+
+	/**
+	 * @return the names of the registered staff, in family name order.
+	 */
+	public List<String> getRegisteredStaff() {
+		return getStaffInfo(StaffFilter.REGISTERED);
+	}
+
+	/**
+	 * @return the names of the staff who work and manage no shifts, in family name order.
+	 */
+	public List<String> getUnassignedStaff() {
+		return getStaffInfo(StaffFilter.UNASSIGNED);
+	}
+
+	/**
+	 * Get the roster for a day, with the shop name first.
+	 * @param dayIndex
+	 * @return unmodifiable list of the day's roster, or an empty list if the day has no shifts.
+	 */
+	List<String> getDayRoster(int dayIndex) {
+		return _days[dayIndex].getRoster(_shopName);
+	}
+
+	/**
+	 * @return the shop name line and the summary of the week, as an unmodifiable list.
+	 */
+	List<String> getWeekSummary() {
+		List<String> summary = _weekSummary;
+		if (summary == null) {
+			StringBuilder info = new StringBuilder();
+			for (DayVersion day : _days) {
+				List<String> dayRoster = day.getLines();
+				if (!dayRoster.isEmpty()) { //If there is a day where it is not rostered on, the information for it is skipped.
+					info.append("DAY:").append(dayRoster.get(0)).append(' ').append(dayRoster.get(1));
+				}
+			}
+			List<String> lines = new ArrayList<String>(2);
+			lines.add("SHOP NAME: " + _shopName + " ");
+			lines.add(info.toString());
+			summary = Collections.unmodifiableList(lines);
+			_weekSummary = summary;
+		}
+		return summary;
+	}
+
+	/**
+	 * Get the names of the staff in the version.
+	 * @param filter the staff to include.
+	 * @return unmodifiable list of the names, in family name order.
+	 */
+	List<String> getStaffInfo(StaffFilter filter) {
+		switch (filter) {
+		case REGISTERED:
+			return getRegisteredStaffInfo();
+		case UNASSIGNED:
+			return getUnassignedStaffInfo();
+		default:
+			throw new UnsupportedOperationException("RosterVersion.getStaffInfo does not support " + filter);
+		}
+	}
+
+	private List<String> getRegisteredStaffInfo() {
+		List<String> staff = _registeredStaff;
+		if (staff == null) {
+			staff = Collections.unmodifiableList(_staffList.displayStaff(_staffCount, null));
+			_registeredStaff = staff;
+		}
+		return staff;
+	}
+
+	private List<String> getUnassignedStaffInfo() {
+		UnassignedStaff staff = _unassignedStaff;
+		if (staff == null) {
+			BitSet assigned = new BitSet(_staffCount);
+			for (DayVersion day : _days) {
+				assigned.or(day.getAssigned());
+			}
+			UnassignedStaff earlier = _earlierUnassigned;
+			if (earlier != null && earlier._staffCount == _staffCount && earlier._assigned.equals(assigned)) {
+				staff = earlier; //the same staff are registered and assigned, so the same staff are unassigned.
+			} else {
+				staff = new UnassignedStaff(_staffCount, assigned,
+						Collections.unmodifiableList(_staffList.displayStaff(_staffCount, assigned)));
+			}
+			_unassignedStaff = staff;
+		}
+		return staff._names;
+	}
+
+	/**
+	 * The staff unassigned in a version, with the registered and assigned staff they were found from.
+	 */
+	private static final class UnassignedStaff {
+		private final int _staffCount;
+		private final BitSet _assigned; //never changed once the unassigned staff are found.
+		private final List<String> _names;
+
+		UnassignedStaff(int staffCount, BitSet assigned, List<String> names) {
+			_staffCount = staffCount;
+			_assigned = assigned;
+			_names = names;
+		}
+	}
+
+	/**
+	 * An immutable version of a day: its working hours and shifts.
+	 */
+	static final class DayVersion {
+		private final int _dayIndex;
+		private final String _day;
+		private final Hours _workingHours; //null if they have not been set.
+		private final ShiftVersion[] _shifts; //in order of start time.
+		private volatile List<String> _lines;
+		private volatile List<String> _roster;
+		private volatile BitSet _assigned;
+		private volatile int[] _problems; //the number of shifts with each problem, by its ordinal.
+
+		DayVersion(int dayIndex, String day, Hours workingHours, ShiftVersion[] shifts) {
+			_dayIndex = dayIndex;
+			_day = day;
+			_workingHours = workingHours;
+			_shifts = shifts;
+		}
+
+		/**
+		 * @return the day and its working hours, then each shift, or an empty list if the day has no shifts.
+		 */
+		List<String> getLines() {
+			List<String> lines = _lines;
+			if (lines == null) {
+				if (_shifts.length == 0) {
+					lines = Collections.emptyList();
+				} else {
+					List<String> roster = new ArrayList<String>(_shifts.length + 1);
+					roster.add(_day + " " + _workingHours.toString());
+					for (ShiftVersion shift : _shifts) {
+						roster.add(shift.getLine());
+					}
+					lines = Collections.unmodifiableList(roster);
+				}
+				_lines = lines;
+			}
+			return lines;
+		}
+
+		/**
+		 * @param problemType
+		 * @return the number of shifts of the day with the problem.
+		 */
+		int countProblems(ProblemType problemType) {
+			int[] problems = _problems;
+			if (problems == null) {
+				problems = new int[PROBLEM_TYPES.length];
+				for (ShiftVersion shift : _shifts) {
+					for (ProblemType type : PROBLEM_TYPES) {
+						if (shift.hasProblem(type)) {
+							problems[type.ordinal()]++;
+						}
+					}
+				}
+				_problems = problems;
+			}
+			return problems[problemType.ordinal()];
+		}
+
+		/**
+		 * @return the ids of the staff working or managing a shift of the day, which must not be changed.
+		 */
+		BitSet getAssigned() {
+			BitSet assigned = _assigned;
+			if (assigned == null) {
+				assigned = new BitSet();
+				for (ShiftVersion shift : _shifts) {
+					if (shift._manager != null) {
+						assigned.set(shift._manager.getId());
+					}
+					for (Staff worker : shift._workers) {
+						assigned.set(worker.getId());
+					}
+				}
+				_assigned = assigned;
+			}
+			return assigned;
+		}
+
+		/**
+		 * @param shopName the name of the shop the day belongs to, which never changes.
+		 * @return the lines of the day with the shop name first, or an empty list if the day has no shifts.
+		 */
+		List<String> getRoster(String shopName) {
+			List<String> roster = _roster;
+			if (roster == null) {
+				List<String> lines = getLines();
+				if (lines.isEmpty()) {
+					roster = lines;
+				} else {
+					List<String> output = new ArrayList<String>(lines.size() + 1);
+					output.add(shopName);
+					output.addAll(lines);
+					roster = Collections.unmodifiableList(output);
+				}
+				_roster = roster;
+			}
+			return roster;
+		}
+	}
+
+	/**
+	 * An immutable version of a shift: its details and its staff.
+	 */
+	static final class ShiftVersion {
+		private final String _details;
+		private final int _minWorkers;
+		private final Staff _manager; //null if there is none.
+		private final Staff[] _workers; //in family name order.
+		private volatile String _line;
+
+		ShiftVersion(String details, int minWorkers, Staff manager, Staff[] workers) {
+			_details = details;
+			_minWorkers = minWorkers;
+			_manager = manager;
+			_workers = workers;
+		}
+
+		/**
+		 * @param problemType
+		 * @return true if the shift has the problem, as {@link ShiftStaff#staffProblem(ProblemType)} decides it.
+		 */
+		boolean hasProblem(ProblemType problemType) {
+			switch (problemType) {
+			case OVERSTAFFED:
+				return _workers.length > _minWorkers;
+			case UNDERSTAFFED:
+				return _workers.length < _minWorkers;
+			case WITHOUT_MANAGERS:
+				return _manager == null;
+			default:
+				throw new UnsupportedOperationException("ShiftVersion.hasProblem does not support " + problemType);
+			}
+		}
+
+		/**
+		 * @return the shift details, then the manager and then the workers.
+		 */
+		String getLine() {
+			String line = _line;
+			if (line == null) {
+				StringBuilder output = new StringBuilder();
+				output.append(_details).append(' ');
+				ShiftStaff.appendManager(output, _manager);
+				output.append(' ');
+				ShiftStaff.appendWorkers(output, Arrays.asList(_workers));
+				line = output.toString();
+				_line = line;
+			}
+			return line;
+		}
+	}
+}
@@ -9,17 +9,20 @@ public class ShiftHours extends Hours {
 		super(start, end);
 	}
 
-	public void rosterInTime(String workingHours) throws RosterException {
-		//convert into integer values.
-		int _startWH = Integer.parseInt(workingHours.substring(0,4));
-		int _endWH = Integer.parseInt(workingHours.substring(4,8));
+	ShiftHours(int packed) {
+		super(packed);
+	}
 
+	/**
+	 * Check the shift is within the working hours of the day.
+	 * @param workingHours the packed working hours of the day.
+	 */
+	public void rosterInTime(int workingHours) throws RosterException {
 		//If the start and the end times of the shift is not within the working hours of the day, throw exception.
-		if (Integer.parseInt(_startTime) < _startWH || Integer.parseInt(_startTime) > _endWH
-				|| Integer.parseInt(_endTime) > _endWH || Integer.parseInt(_endTime) < _startWH) {
+		if (_start < startOf(workingHours) || _end > endOf(workingHours)) {
 			throw new RosterException("ERROR: shift scheduled is not in working hours range.");
 		}
 
 	}
 
-}
\ No newline at end of file
+}
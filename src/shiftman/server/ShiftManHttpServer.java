@@ -0,0 +1,500 @@
+package shiftman.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An HTTP/JSON front end for a {@link ShiftMan}, using the JDK's built-in HTTP server.
+ *
+ * <p>Each operation of {@link ShiftMan} is posted to a path of its own name, such as {@code /assignStaff}, with its
+ * arguments as a JSON object named as in {@link ShiftMan}:
+ * <pre>
+ * POST /assignStaff {"dayOfWeek":"Monday","startTime":"09:00","endTime":"10:00","givenName":"A","familyName":"B","isManager":false}
+ * </pre>
+ * Operations that return a status answer {@code {"status":"..."}}, and operations that return a list answer
+ * {@code {"result":["...", ...]}}, with errors given exactly as {@link ShiftMan} gives them. Operations without
+ * arguments can also be sent as GET. An unknown operation answers 404, a method other than GET or POST answers 405, and
+ * a body that cannot be read, is longer than 64 KB, or gives {@code isManager} as anything but a JSON boolean answers
+ * 400.
+ *
+ * <p>Connections are kept alive between requests, and requests pipelined on a connection are answered in order. Each
+ * request is handled on a virtual thread where the runtime has them, or otherwise on a pooled thread.
+ *
+ * <p>Two settings of the JDK server apply to the whole process: whether Nagle's algorithm is turned off, without which
+ * small answers are held back for tens of milliseconds, and how many kept-alive connections may be idle before the rest
+ * are closed. The JDK reads them from the system properties {@code sun.net.httpserver.nodelay} and
+ * {@code sun.net.httpserver.maxIdleConnections} once, when its first server is made, and ignores later changes. They
+ * are therefore given with {@link #configure(boolean, int)}, which refuses them once a server has been created, rather
+ * than to each server. Without it, the first server turns Nagle's algorithm off unless the properties were already
+ * given, such as on the command line; {@link #isNoDelay()} and {@link #getMaxIdleConnections()} give the values in
+ * effect.
+ */
+public class ShiftManHttpServer {
+
+	/**
+	 * The idle connections kept by default, which is the JDK's own default.
+	 */
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 200;
+
+	private static final int MAX_BODY = 1 << 16; //longest request body accepted, in bytes.
+	private static final String NO_DELAY = "sun.net.httpserver.nodelay";
+	private static final String MAX_IDLE_CONNECTIONS = "sun.net.httpserver.maxIdleConnections";
+
+	private static boolean _created; //whether a server has been created, after which the settings can no longer change.
+
+	private final ShiftMan _shiftMan;
+	private final HttpServer _server;
+	private final ExecutorService _executor;
+
+	/**
+	 * Give the settings of the JDK server for the whole process. Must be called before the first server is created.
+	 * @param noDelay true to turn off Nagle's algorithm, so each answer is sent as soon as it is written.
+	 * @param maxIdleConnections the most kept-alive connections left open while idle. Clients that keep more
+	 * connections than this open have the rest closed between requests.
+	 * @throws IllegalStateException if a server has already been created, as the JDK would ignore the settings.
+	 */
+	public static synchronized void configure(boolean noDelay, int maxIdleConnections) {
+		if (maxIdleConnections < 0) {
+			throw new IllegalArgumentException("maxIdleConnections must not be negative: " + maxIdleConnections);
+		}
+		if (_created) {
+			throw new IllegalStateException("The HTTP server settings are read when the first server is created");
+		}
+		System.setProperty(NO_DELAY, Boolean.toString(noDelay));
+		System.setProperty(MAX_IDLE_CONNECTIONS, Integer.toString(maxIdleConnections));
+	}
+
+	/**
+	 * Bind the server. It does not answer requests until started. The first server created turns Nagle's algorithm
+	 * off, unless the settings were given first with {@link #configure(boolean, int)} or on the command line.
+	 * @param shiftMan the roster to serve.
+	 * @param address the address to listen on. Port 0 picks a free port.
+	 * @param backlog the most connections waiting to be accepted, or 0 for the system default.
+	 * @throws IOException if the address could not be bound.
+	 */
+	public ShiftManHttpServer(ShiftMan shiftMan, InetSocketAddress address, int backlog) throws IOException {
+		created();
+		_shiftMan = shiftMan;
+		_server = HttpServer.create(address, backlog);
+		_executor = newExecutor();
+		_server.setExecutor(_executor);
+		_server.createContext("/", new Handler());
+	}
+
+	public void start() {
+		_server.start();
+	}
+
+	/**
+	 * Stop accepting requests, and wait for those being answered to finish.
+	 * @param delaySeconds the longest to wait.
+	 */
+	public void stop(int delaySeconds) {
+		_server.stop(delaySeconds);
+		_executor.shutdown();
+	}
+
+	/**
+	 * @return whether Nagle's algorithm is turned off for the servers of this process.
+	 */
+	public static boolean isNoDelay() {
+		return Boolean.parseBoolean(System.getProperty(NO_DELAY));
+	}
+
+	/**
+	 * @return the most idle connections the servers of this process keep, or the JDK's default if none was given.
+	 */
+	public static int getMaxIdleConnections() {
+		try {
+			return Integer.parseInt(System.getProperty(MAX_IDLE_CONNECTIONS));
+		} catch (NumberFormatException exception) {
+			return DEFAULT_MAX_IDLE_CONNECTIONS; //as the JDK does for a value it cannot read.
+		}
+	}
+
+	/**
+	 * @return the address the server is listening on, with the port that was picked if port 0 was asked for.
+	 */
+	public InetSocketAddress getAddress() {
+		return _server.getAddress();
+	}
+
+	/**
+	 * Answer a request for an operation.
+	 * @param operation the name of the operation.
+	 * @param arguments the arguments of the operation, by name.
+	 * @return the JSON answer, or null if there is no such operation.
+	 * @throws IllegalArgumentException if an argument that is not a string has the wrong type.
+	 */
+	String call(String operation, Map<String, Object> arguments) {
+		switch (operation) {
+		case "newRoster":
+			return status(_shiftMan.newRoster(string(arguments, "shopName")));
+		case "setWorkingHours":
+			return status(_shiftMan.setWorkingHours(string(arguments, "dayOfWeek"), string(arguments, "startTime"),
+					string(arguments, "endTime")));
+		case "addShift":
+			return status(_shiftMan.addShift(string(arguments, "dayOfWeek"), string(arguments, "startTime"),
+					string(arguments, "endTime"), string(arguments, "minimumWorkers")));
+		case "registerStaff":
+			return status(_shiftMan.registerStaff(string(arguments, "givenName"), string(arguments, "familyName")));
+		case "assignStaff":
+			return status(_shiftMan.assignStaff(string(arguments, "dayOfWeek"), string(arguments, "startTime"),
+					string(arguments, "endTime"), string(arguments, "givenName"), string(arguments, "familyName"),
+					bool(arguments, "isManager")));
+		case "getRegisteredStaff":
+			return result(_shiftMan.getRegisteredStaff());
+		case "getUnassignedStaff":
+			return result(_shiftMan.getUnassignedStaff());
+		case "shiftsWithoutManagers":
+			return result(_shiftMan.shiftsWithoutManagers());
+		case "understaffedShifts":
+			return result(_shiftMan.understaffedShifts());
+		case "overstaffedShifts":
+			return result(_shiftMan.overstaffedShifts());
+		case "getRosterForDay":
+			return result(_shiftMan.getRosterForDay(string(arguments, "dayOfWeek")));
+		case "getRosterForWorker":
+			return result(_shiftMan.getRosterForWorker(string(arguments, "workerName")));
+		case "getShiftsManagedBy":
+			return result(_shiftMan.getShiftsManagedBy(string(arguments, "managerName")));
+		case "reportRosterIssues":
+			return status(_shiftMan.reportRosterIssues());
+		case "displayRoster":
+			return status(_shiftMan.displayRoster());
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Get a string argument.
+	 * @param arguments
+	 * @param name
+	 * @return the argument, or null if it was not given or is not a string.
+	 */
+	private static String string(Map<String, Object> arguments, String name) {
+		Object value = arguments.get(name);
+		if (!(value instanceof String)) {
+			return null;
+		}
+		return (String) value;
+	}
+
+	private static String status(String status) {
+		StringBuilder output = new StringBuilder(status.length() + 16);
+		output.append("{\"status\":");
+		Json.appendString(output, status);
+		return output.append('}').toString();
+	}
+
+	private static String result(List<String> result) {
+		StringBuilder output = new StringBuilder(64);
+		output.append("{\"result\":[");
+		for (int index = 0; index < result.size(); index++) {
+			if (index != 0) {
+				output.append(',');
+			}
+			Json.appendString(output, result.get(index));
+		}
+		return output.append("]}").toString();
+	}
+
+	/**
+	 * Get a boolean argument.
+	 * @param arguments
+	 * @param name
+	 * @return the argument.
+	 * @throws IllegalArgumentException if it was not given or is not a JSON boolean.
+	 */
+	private static boolean bool(Map<String, Object> arguments, String name) {
+		Object value = arguments.get(name);
+		if (!(value instanceof Boolean)) {
+			throw new IllegalArgumentException(name + " must be true or false.");
+		}
+		return (Boolean) value;
+	}
+
+	/**
+	 * Record that a server is being created, turning Nagle's algorithm off first if no settings were given.
+	 */
+	private static synchronized void created() {
+		if (!_created && System.getProperty(NO_DELAY) == null) {
+			System.setProperty(NO_DELAY, "true");
+		}
+		_created = true;
+	}
+
+	/**
+	 * Use a virtual thread for each request if the runtime has them. They are looked up by reflection so the server
+	 * still runs on runtimes without them.
+	 */
+	private static ExecutorService newExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException exception) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	private class Handler implements HttpHandler {
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				String method = exchange.getRequestMethod();
+				String operation = exchange.getRequestURI().getPath().substring(1);
+				int code;
+				String answer;
+				if (!method.equals("POST") && !method.equals("GET")) {
+					code = 405;
+					answer = error("method " + method + " is not supported.");
+				} else {
+					Map<String, Object> arguments;
+					try {
+						arguments = Json.parseObject(readBody(exchange.getRequestBody()));
+					} catch (IllegalArgumentException exception) {
+						arguments = null;
+					}
+					if (arguments == null) {
+						code = 400;
+						answer = error("request body is not a JSON object.");
+					} else {
+						try {
+							answer = call(operation, arguments);
+							code = answer == null ? 404 : 200;
+							if (answer == null) {
+								answer = error(operation + " is not an operation.");
+							}
+						} catch (IllegalArgumentException exception) {
+							code = 400;
+							answer = error(exception.getMessage());
+						}
+					}
+				}
+				byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+				exchange.sendResponseHeaders(code, body.length);
+				try (OutputStream output = exchange.getResponseBody()) {
+					output.write(body);
+				}
+			} finally {
+				exchange.close();
+			}
+		}
+
+		private String error(String message) {
+			StringBuilder output = new StringBuilder();
+			output.append("{\"error\":");
+			Json.appendString(output, "ERROR: " + message);
+			return output.append('}').toString();
+		}
+
+		private String readBody(InputStream input) throws IOException {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				body.write(buffer, 0, read);
+				if (body.size() > MAX_BODY) {
+					throw new IllegalArgumentException("body is too long");
+				}
+			}
+			return body.toString(StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Just enough JSON for the front end: flat objects of strings, booleans, numbers and nulls.
+	 */
+	static final class Json {
+
+		private Json() {
+		}
+
+		/**
+		 * Parse a flat JSON object. An empty body is read as an empty object.
+		 * @param text
+		 * @return the values of the object, by name. Numbers are kept as their text.
+		 * @throws IllegalArgumentException if the text is not a flat JSON object.
+		 */
+		static Map<String, Object> parseObject(String text) {
+			Map<String, Object> values = new HashMap<String, Object>();
+			int[] position = {skipSpace(text, 0)};
+			if (position[0] == text.length()) {
+				return values;
+			}
+			expect(text, position, '{');
+			if (peek(text, position) == '}') {
+				position[0]++;
+			} else {
+				while (true) {
+					String name = parseString(text, position);
+					expect(text, position, ':');
+					values.put(name, parseValue(text, position));
+					if (peek(text, position) == ',') {
+						position[0]++;
+						continue;
+					}
+					expect(text, position, '}');
+					break;
+				}
+			}
+			if (skipSpace(text, position[0]) != text.length()) {
+				throw new IllegalArgumentException("text after object");
+			}
+			return values;
+		}
+
+		/**
+		 * Write a string as a JSON string.
+		 * @param output
+		 * @param string
+		 */
+		static void appendString(StringBuilder output, String string) {
+			output.append('"');
+			for (int index = 0; index < string.length(); index++) {
+				char character = string.charAt(index);
+				switch (character) {
+				case '"':
+					output.append("\\\"");
+					break;
+				case '\\':
+					output.append("\\\\");
+					break;
+				case '\n':
+					output.append("\\n");
+					break;
+				case '\r':
+					output.append("\\r");
+					break;
+				case '\t':
+					output.append("\\t");
+					break;
+				default:
+					if (character < 0x20) {
+						output.append(String.format("\\u%04x", (int) character));
+					} else {
+						output.append(character);
+					}
+				}
+			}
+			output.append('"');
+		}
+
+		private static Object parseValue(String text, int[] position) {
+			char next = peek(text, position);
+			if (next == '"') {
+				return parseString(text, position);
+			}
+			int start = position[0];
+			while (position[0] < text.length() && ",}] \t\r\n".indexOf(text.charAt(position[0])) == -1) {
+				position[0]++;
+			}
+			String literal = text.substring(start, position[0]);
+			switch (literal) {
+			case "true":
+				return Boolean.TRUE;
+			case "false":
+				return Boolean.FALSE;
+			case "null":
+				return null;
+			default:
+				if (!literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+					throw new IllegalArgumentException("not a value: " + literal);
+				}
+				return literal;
+			}
+		}
+
+		private static String parseString(String text, int[] position) {
+			expect(text, position, '"');
+			StringBuilder string = new StringBuilder();
+			while (true) {
+				if (position[0] >= text.length()) {
+					throw new IllegalArgumentException("unterminated string");
+				}
+				char character = text.charAt(position[0]++);
+				if (character == '"') {
+					return string.toString();
+				}
+				if (character != '\\') {
+					string.append(character);
+					continue;
+				}
+				if (position[0] >= text.length()) {
+					throw new IllegalArgumentException("unterminated string");
+				}
+				char escaped = text.charAt(position[0]++);
+				switch (escaped) {
+				case 'b':
+					string.append('\b');
+					break;
+				case 'f':
+					string.append('\f');
+					break;
+				case 'n':
+					string.append('\n');
+					break;
+				case 'r':
+					string.append('\r');
+					break;
+				case 't':
+					string.append('\t');
+					break;
+				case 'u':
+					if (position[0] + 4 > text.length()) {
+						throw new IllegalArgumentException("bad escape");
+					}
+					try {
+						string.append((char) Integer.parseInt(text.substring(position[0], position[0] + 4), 16));
+					} catch (NumberFormatException exception) {
+						throw new IllegalArgumentException("bad escape");
+					}
+					position[0] += 4;
+					break;
+				default:
+					string.append(escaped); //quotes, backslashes and slashes stand for themselves.
+				}
+			}
+		}
+
+		private static void expect(String text, int[] position, char expected) {
+			if (peek(text, position) != expected) {
+				throw new IllegalArgumentException("expected " + expected);
+			}
+			position[0]++;
+		}
+
+		/**
+		 * Skip any space and get the next character.
+		 * @return the next character, or 0 at the end of the text.
+		 */
+		private static char peek(String text, int[] position) {
+			position[0] = skipSpace(text, position[0]);
+			return position[0] < text.length() ? text.charAt(position[0]) : 0;
+		}
+
+		private static int skipSpace(String text, int position) {
+			while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+				position++;
+			}
+			return position;
+		}
+	}
+}
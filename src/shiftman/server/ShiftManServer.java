@@ -1,192 +1,926 @@
 package shiftman.server;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**This class implements the ShiftMan interface.
+ * It is safe to call from many threads; see {@link Shop} for how the roster is locked.
+ * If it has a {@link RosterJournal}, every successful change is saved to it before the call returns. If the journal
+ * cannot be written, the calls waiting for their changes to be saved return an error although their changes were made,
+ * and every later change is refused without changing anything.
  */
 public class ShiftManServer implements ShiftMan { //check if emtpy string list returned
 
-	private Shop _shop;
+	//a batch entry with the wrong number of values, or a manager value other than "true" or "false".
+	private static final String BATCH_ENTRY_ERROR = "ERROR: batch entry given is not valid.";
+	//rejecting a request before a roster is created needs nothing from the request, so the error is made once.
+	private static final RosterException NO_ROSTER = new RosterException("ERROR: no roster has been created");
+
+	private final RosterJournal _journal;
+	private volatile Shop _shop;
+	//held while the roster is replaced or the journal compacted, so one of them is done at a time.
+	private final Object _replacing = new Object();
+	private final RosterMetrics _metrics = new RosterMetrics(() -> _shop);
+
+	public ShiftManServer() {
+		_journal = null;
+	}
+
+	/**
+	 * Create a server that saves every successful change to the journal. The roster is first rebuilt from the changes
+	 * already in the journal.
+	 * @param journal
+	 * @throws IOException if the journal could not be read.
+	 */
+	public ShiftManServer(RosterJournal journal) throws IOException {
+		_journal = journal;
+		journal.replay(this);
+		_metrics.reset(); //replayed changes are not requests.
+	}
 
 	@Override
 	public String newRoster(String shopName) {
+		return status(RosterOperation.NEW_ROSTER, current -> {
+			try {
+				checkValidInput(new String[]{shopName}, new String[]{"shop name"}); //Check if inputs are empty or null.
+				if (_journal != null) {
+					_journal.checkWritable();
+				}
+				Shop shop = new Shop(shopName, _journal);
+				replaceShop(shop, () -> {
+					if (_journal != null) {
+						_journal.append(RosterJournal.NEW_ROSTER, shopName);
+					}
+				});
+			} catch (RosterException exception) {
+				return exception.getMessage() + " New shop roster was not constructed.";
+			} catch (IOException exception) { //recording a new roster is only an append, which does not fail.
+				throw new IllegalStateException(exception);
+			}
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Replace the journal with the smallest set of changes that rebuilds the current roster.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String compactJournal() {
+		return status(RosterOperation.COMPACT_JOURNAL, shop -> {
+			checkRosterIsNull(shop);
+			if (_journal == null) {
+				throw new RosterException("ERROR: this server has no journal.");
+			}
+			try {
+				synchronized (_replacing) { //the snapshots kept for the journal are deleted, so none may be being kept.
+					_journal.compact(_shop); //the roster may have been replaced since it was checked.
+				}
+			} catch (IOException exception) {
+				return "ERROR: journal could not be compacted. " + exception.getMessage();
+			}
+			return "";
+		});
+	}
+
+	/**
+	 * Get the metrics of the server's requests. They can be read through {@link RosterMetrics#snapshot()}, or published
+	 * to JMX with {@link RosterMetrics#register(String)}.
+	 * @return the metrics, which are kept for as long as the server is, whichever roster it holds.
+	 */
+	public RosterMetrics getMetrics() {
+		return _metrics;
+	}
+
+	/**
+	 * Start a transaction of changes to the current roster. Changes are added to the transaction and then made all
+	 * together by {@link #commit(RosterTransaction)}.
+	 * @return a new transaction with no changes.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public RosterTransaction beginTransaction() throws RosterException {
+		return value(RosterOperation.BEGIN_TRANSACTION, shop -> {
+			checkRosterIsNull(shop);
+			return shop.beginTransaction();
+		});
+	}
+
+	/**
+	 * Make every change of a transaction, or none of them. Nothing is changed if the days or staff the transaction refers
+	 * to have changed since it first referred to them.
+	 * @param transaction a transaction started with {@link #beginTransaction()}.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String commit(RosterTransaction transaction) {
+		return status(RosterOperation.COMMIT, shop -> commitTransaction(transaction));
+	}
+
+	private String commitTransaction(RosterTransaction transaction) {
 		try {
-			checkValidInput(new String[]{shopName}, new String[]{"shop name"}); //Check if inputs are empty or null.
-			_shop = new Shop(shopName);
+			if (transaction.getShop() != _shop) {
+				throw new RosterException("ERROR: roster has been replaced since the transaction began. No changes were made.");
+			}
+			transaction.getShop().commit(transaction);
 		} catch (RosterException exception) {
-			return exception.getMessage() + " New shop roster was not constructed.";
+			return exception.getMessage();
+		}
+		return syncJournal("");
+	}
+
+	/**
+	 * Propose assignments that give every shift a manager and its minimum workers. Nothing is changed until the
+	 * solution is applied with {@link #applyAutoRoster(RosterSolution)}.
+	 * @param timeBudgetMillis roughly how long to spend improving the solution.
+	 * @return the proposed assignments.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public RosterSolution autoRoster(long timeBudgetMillis) throws RosterException {
+		return value(RosterOperation.AUTO_ROSTER, shop -> {
+			checkRosterIsNull(shop);
+			return new AutoRoster(shop).solve(timeBudgetMillis);
+		});
+	}
+
+	/**
+	 * Make the assignments of a solution, all together. Nothing is changed if any day has changed since the solution
+	 * read the roster.
+	 * @param solution a solution from {@link #autoRoster(long)}.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String applyAutoRoster(RosterSolution solution) {
+		return status(RosterOperation.APPLY_AUTO_ROSTER, shop -> {
+			if (solution.getShop() != shop) {
+				return "ERROR: roster has been replaced since the solution was found. No changes were made.";
+			}
+			return commitTransaction(solution.toTransaction());
+		});
+	}
+
+	/**
+	 * Save the current roster as a snapshot, which can later be loaded with {@link #loadSnapshot(Path)}.
+	 * @param path the file to write the snapshot to.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String saveSnapshot(Path path) {
+		return status(RosterOperation.SAVE_SNAPSHOT, shop -> {
+			checkRosterIsNull(shop);
+			try {
+				RosterSnapshot.write(shop, path);
+			} catch (IOException exception) {
+				return "ERROR: snapshot could not be saved. " + exception.getMessage();
+			}
+			return "";
+		});
+	}
+
+	/**
+	 * Replace the roster with one loaded from a snapshot. The staff and days of the roster are only read from the snapshot
+	 * when they are first used. If the server has a journal, the snapshot is kept beside it and the load is recorded as
+	 * a single record, so nothing more is read until the journal is next compacted.
+	 * @param path the snapshot file.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String loadSnapshot(Path path) {
+		return status(RosterOperation.LOAD_SNAPSHOT, current -> {
+			try {
+				synchronized (_replacing) { //a compaction would delete the kept snapshot before the load is recorded.
+					Path snapshot = path;
+					if (_journal != null) {
+						_journal.checkWritable();
+						snapshot = _journal.keepSnapshot(path);
+					}
+					Shop shop = openSnapshot(snapshot, snapshot != path);
+					String fileName = snapshot.getFileName().toString();
+					replaceShop(shop, () -> {
+						if (_journal != null) {
+							_journal.append(RosterJournal.LOAD_SNAPSHOT, fileName);
+						}
+					});
+				}
+			} catch (IOException exception) {
+				return "ERROR: snapshot could not be loaded. " + exception.getMessage();
+			}
+			return "";
+		});
+	}
+
+	/**
+	 * Open a shop from a snapshot.
+	 * @param snapshot
+	 * @param kept whether the snapshot was kept for the journal, in which case it is deleted if it cannot be opened.
+	 * @return the shop.
+	 * @throws IOException
+	 */
+	private Shop openSnapshot(Path snapshot, boolean kept) throws IOException {
+		try {
+			return new Shop(RosterSnapshot.open(snapshot), _journal);
+		} catch (IOException exception) {
+			if (kept) {
+				Files.deleteIfExists(snapshot);
+			}
+			throw exception;
 		}
-		return "";
 	}
 
 	@Override
 	public String setWorkingHours(String dayOfWeek, String startTime, String endTime) {
-		try {
+		return status(RosterOperation.SET_WORKING_HOURS, shop -> {
 			checkValidInput(new String[] {dayOfWeek, startTime, endTime}, new String[] {"day", "working hours start time", "working hours end time"});
-			checkRosterIsNull(); //Check if the private variable _shop is null; if null, no roster has been created yet.
+			checkRosterIsNull(shop); //Check if the shop is null; if null, no roster has been created yet.
 
-			_shop.manageWeekSchedule(dayOfWeek).setHours(startTime, endTime);
-		} catch (RosterException exception){
-			return exception.getMessage();
-		}
-
-		return "";
+			shop.setWorkingHours(dayOfWeek, startTime, endTime);
+			return syncJournal("");
+		});
 	}
 
 	@Override
 	public String addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
-		try {
-			checkValidInput(new String[] {dayOfWeek, startTime, endTime, minimumWorkers}, new String[] {"day", "shift start time", "shift end time", "minimum worker value"});
-			checkRosterIsNull();
-
-			WorkDay.Shift shift = _shop.manageWeekSchedule(dayOfWeek).new Shift(startTime, endTime, minimumWorkers); //create new shift in the specified day.
-			_shop.manageWeekSchedule(dayOfWeek).addShift(shift); //schedule in shift.
-		} catch (RosterException exception) {
-			return exception.getMessage();
-		}
-		return "";
+		return status(RosterOperation.ADD_SHIFT, shop -> syncJournal(addShift(shop, dayOfWeek, startTime, endTime, minimumWorkers)));
 	}
 
 	@Override
 	public String registerStaff(String givenname, String familyName) {
-		try {
-			checkValidInput(new String[] {givenname, familyName}, new String[] {"first name", "last name"});
-			checkRosterIsNull();
-
-			Staff staff = new Staff(givenname, familyName); //create staff.
-			_shop.registerStaffToShop(staff); //register staff.
-		} catch (RosterException exception) {
-			return exception.getMessage();
-		}
-		return "";
+		return status(RosterOperation.REGISTER_STAFF, shop -> syncJournal(registerStaff(shop, givenname, familyName)));
 	}
 
 	@Override
 	public String assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName,
 			boolean isManager) {
-		Staff staff;
-		try {
-			checkValidInput(new String[] {dayOfWeek, startTime, endTime, givenName, familyName}, new String[]{"day", "shift start time", "shift end time", "first name", "last name"});
-			checkRosterIsNull();
+		return status(RosterOperation.ASSIGN_STAFF,
+				shop -> syncJournal(assignStaff(shop, dayOfWeek, startTime, endTime, givenName, familyName, isManager, null)));
+	}
 
-			staff = _shop.manageStaffList(givenName, familyName); //retrieve specific staff to assign.
-			_shop.manageWeekSchedule(dayOfWeek).assignStaff(staff, startTime, endTime, isManager);
-		} catch (RosterException exception) {
-			return exception.getMessage();
-		}
-		return "";
+	/**
+	 * Subscribe to the changes made to the roster from now on. Only the current roster's changes are given: a roster
+	 * created or loaded later has a feed of its own.
+	 * @param policy what to do when the subscriber falls too far behind.
+	 * @param listener called with each change, on a thread of the subscription's own.
+	 * @return the subscription, to be closed when no more changes are wanted.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public RosterEventFeed.Subscription subscribe(RosterEventFeed.Policy policy, RosterEventListener listener)
+			throws RosterException {
+		return value(RosterOperation.SUBSCRIBE, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getEventFeed().subscribe(policy, listener);
+		});
+	}
+
+	/**
+	 * Set the rostering horizon: a number of dated weeks that start out the same as the roster's week, and can then be
+	 * changed a date at a time. Any earlier horizon is replaced.
+	 * @param firstDate any date in the first week, in the format yyyy-mm-dd.
+	 * @param weeks the number of weeks.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String setHorizon(String firstDate, int weeks) {
+		return status(RosterOperation.SET_HORIZON, shop -> {
+			checkValidInput(new String[] {firstDate}, new String[] {"date"});
+			checkRosterIsNull(shop);
+			shop.setHorizon(parseDate(firstDate), weeks);
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Drop the first week of the rostering horizon and add a new week after the last.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String rollHorizonForward() {
+		return status(RosterOperation.ROLL_HORIZON_FORWARD, shop -> {
+			checkRosterIsNull(shop);
+			shop.rollHorizonForward();
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Set the working hours of one date in the rostering horizon, as by {@link #setWorkingHours(String, String, String)}.
+	 * @param date the date, in the format yyyy-mm-dd.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String setWorkingHoursOn(String date, String startTime, String endTime) {
+		return status(RosterOperation.SET_WORKING_HOURS_ON, shop -> {
+			checkValidInput(new String[] {date, startTime, endTime}, new String[] {"date", "working hours start time", "working hours end time"});
+			checkRosterIsNull(shop);
+			shop.setWorkingHours(parseDate(date), startTime, endTime);
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Add a shift to one date in the rostering horizon, as by {@link #addShift(String, String, String, String)}.
+	 * @param date the date, in the format yyyy-mm-dd.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String addShiftOn(String date, String startTime, String endTime, String minimumWorkers) {
+		return status(RosterOperation.ADD_SHIFT_ON, shop -> {
+			checkValidInput(new String[] {date, startTime, endTime, minimumWorkers}, new String[] {"date", "shift start time", "shift end time", "minimum worker value"});
+			checkRosterIsNull(shop);
+			shop.addShift(parseDate(date), startTime, endTime, minimumWorkers);
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Assign a staff member to a shift on one date in the rostering horizon, as by
+	 * {@link #assignStaff(String, String, String, String, String, boolean)}.
+	 * @param date the date, in the format yyyy-mm-dd.
+	 * @return The status of the request as described in the notes of {@link ShiftMan}.
+	 */
+	public String assignStaffOn(String date, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager) {
+		return status(RosterOperation.ASSIGN_STAFF_ON, shop -> {
+			checkValidInput(new String[] {date, startTime, endTime, givenName, familyName}, new String[]{"date", "shift start time", "shift end time", "first name", "last name"});
+			checkRosterIsNull(shop);
+			shop.assignStaff(parseDate(date), startTime, endTime, givenName, familyName, isManager);
+			return syncJournal("");
+		});
+	}
+
+	/**
+	 * Give a date in the rostering horizon a day of its own with nothing on it, as a compacted journal does before
+	 * rebuilding a day that was changed from the template.
+	 * Only a journal being replayed does this, so it is not a request.
+	 * @param date the date, in the format yyyy-mm-dd.
+	 * @throws RosterException if there is no roster or the date is not in its horizon.
+	 */
+	void clearDate(String date) throws RosterException {
+		Shop shop = _shop;
+		checkRosterIsNull(shop);
+		shop.clearDatedDay(parseDate(date));
+	}
+
+	/**
+	 * Get the roster for one date in the rostering horizon, in the same format as {@link #getRosterForDay(String)}.
+	 * @param date the date, in the format yyyy-mm-dd.
+	 * @return the roster, or an error as described in the notes of {@link ShiftMan}.
+	 */
+	public List<String> getRosterForDate(String date) {
+		return lines(RosterOperation.GET_ROSTER_FOR_DATE, shop -> {
+			checkValidInput(new String[] {date}, new String[] {"date"});
+			checkRosterIsNull(shop);
+			return shop.getDatedRoster(parseDate(date));
+		});
+	}
+
+	/**
+	 * Register a batch of staff members. Each entry is registered as by {@link #registerStaff(String, String)}.
+	 * The staff list is locked once for the whole batch.
+	 * @param staffNames each entry holds the given name and family name of a staff member, in that order.
+	 * @return the status of each registration, in the same order as the entries.
+	 */
+	public List<String> registerStaffBatch(List<String[]> staffNames) {
+		return batch(RosterOperation.REGISTER_STAFF_BATCH, shop -> {
+			List<String> statuses = new ArrayList<String>(staffNames.size());
+			if (shop != null) {
+				shop.lockStaff(true);
+			}
+			try {
+				for (String[] names : staffNames) {
+					if (names == null || names.length != 2) {
+						statuses.add(BATCH_ENTRY_ERROR);
+					} else {
+						statuses.add(registerStaff(shop, names[0], names[1]));
+					}
+				}
+			} finally {
+				if (shop != null) {
+					shop.unlockStaff(true);
+				}
+			}
+			return syncJournal(statuses);
+		});
+	}
+
+	/**
+	 * Add a batch of shifts. Each entry is added as by {@link #addShift(String, String, String, String)}.
+	 * Every day is locked once for the whole batch.
+	 * @param shifts each entry holds the day, start time, end time and minimum workers of a shift, in that order.
+	 * @return the status of each shift, in the same order as the entries.
+	 */
+	public List<String> addShiftsBatch(List<String[]> shifts) {
+		return batch(RosterOperation.ADD_SHIFTS_BATCH, shop -> {
+			List<String> statuses = new ArrayList<String>(shifts.size());
+			if (shop != null) {
+				shop.lockWeek(true);
+			}
+			try {
+				for (String[] shift : shifts) {
+					if (shift == null || shift.length != 4) {
+						statuses.add(BATCH_ENTRY_ERROR);
+					} else {
+						statuses.add(addShift(shop, shift[0], shift[1], shift[2], shift[3]));
+					}
+				}
+			} finally {
+				if (shop != null) {
+					shop.unlockWeek(true);
+				}
+			}
+			return syncJournal(statuses);
+		});
+	}
+
+	/**
+	 * Assign a batch of staff to shifts. Each entry is assigned as by
+	 * {@link #assignStaff(String, String, String, String, String, boolean)}. The roster is locked once for the whole batch.
+	 * @param assignments each entry holds the day, start time, end time, given name, family name and "true" if the
+	 * staff member is to be the manager or "false" if not, in that order.
+	 * @return the status of each assignment, in the same order as the entries.
+	 */
+	public List<String> assignStaffBatch(List<String[]> assignments) {
+		return batch(RosterOperation.ASSIGN_STAFF_BATCH, shop -> {
+			List<String> statuses = new ArrayList<String>(assignments.size());
+			if (shop != null) {
+				shop.lockStaff(false);
+				shop.lockWeek(true);
+			}
+			Shop.AssignmentBatch batch = new Shop.AssignmentBatch(); //sorts and publishes the changed shifts once.
+			try {
+				for (String[] assignment : assignments) {
+					if (assignment == null || assignment.length != 6
+							|| !("true".equals(assignment[5]) || "false".equals(assignment[5]))) {
+						statuses.add(BATCH_ENTRY_ERROR);
+					} else {
+						statuses.add(assignStaff(shop, assignment[0], assignment[1], assignment[2], assignment[3], assignment[4],
+								assignment[5].equals("true"), batch));
+					}
+				}
+			} finally {
+				if (shop != null) {
+					shop.finishBatch(batch);
+					shop.unlockWeek(true);
+					shop.unlockStaff(false);
+				}
+			}
+			return syncJournal(statuses);
+		});
 	}
 
 	@Override
 	public List<String> getRegisteredStaff() {
-		try {
-			checkRosterIsNull();
-			return _shop.getStaffInfo("registered"); //get all registered staff information.
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+		return lines(RosterOperation.GET_REGISTERED_STAFF, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getStaffInfo(StaffFilter.REGISTERED); //get all registered staff information.
+		});
 	}
 
 	@Override
 	public List<String> getUnassignedStaff() {
-		try {
-			checkRosterIsNull();
-			return _shop.getStaffInfo("unassigned");
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+		return lines(RosterOperation.GET_UNASSIGNED_STAFF, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getStaffInfo(StaffFilter.UNASSIGNED);
+		});
 	}
 
 	@Override
 	public List<String> shiftsWithoutManagers() {
-		try {
-			checkRosterIsNull();
-			return _shop.investigateWeekSchedule("without managers"); //investigate the week schedule and retrieve problems.
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+		return lines(RosterOperation.SHIFTS_WITHOUT_MANAGERS, shop -> {
+			checkRosterIsNull(shop);
+			return shop.investigateWeekSchedule(ProblemType.WITHOUT_MANAGERS); //investigate the week schedule and retrieve problems.
+		});
 	}
 
 	@Override
 	public List<String> understaffedShifts() {
-		try {
-			checkRosterIsNull();
-			return _shop.investigateWeekSchedule("understaffed");
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+		return lines(RosterOperation.UNDERSTAFFED_SHIFTS, shop -> {
+			checkRosterIsNull(shop);
+			return shop.investigateWeekSchedule(ProblemType.UNDERSTAFFED);
+		});
 	}
 
 	@Override
 	public List<String> overstaffedShifts() {
-		try {
-			checkRosterIsNull();
-			return _shop.investigateWeekSchedule("overstaffed");
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+		return lines(RosterOperation.OVERSTAFFED_SHIFTS, shop -> {
+			checkRosterIsNull(shop);
+			return shop.investigateWeekSchedule(ProblemType.OVERSTAFFED);
+		});
 	}
 
 	@Override
 	public List<String> getRosterForDay(String dayOfWeek) {
-		try {
+		return lines(RosterOperation.GET_ROSTER_FOR_DAY, shop -> {
 			checkValidInput(new String[] {dayOfWeek}, new String[] {"day"});
-			checkRosterIsNull();
+			checkRosterIsNull(shop);
 
-			return _shop.getRoster("roster for day", dayOfWeek); //retrieve roster for the specific day.
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+			return shop.getRoster(RosterType.DAY, dayOfWeek); //retrieve roster for the specific day.
+		});
 
 	}
 
 	@Override
 	public List<String> getRosterForWorker(String workerName) {
-		try {
+		return lines(RosterOperation.GET_ROSTER_FOR_WORKER, shop -> {
 			checkValidInput(new String[] {workerName}, new String[] {"worker name"});
-			checkRosterIsNull();
+			checkRosterIsNull(shop);
 
-			return _shop.getRoster("roster for worker", workerName);
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+			return shop.getRoster(RosterType.WORKER, workerName);
+		});
 	}
 
 	@Override
 	public List<String> getShiftsManagedBy(String managerName) {
-		try {
+		return lines(RosterOperation.GET_SHIFTS_MANAGED_BY, shop -> {
 			checkValidInput(new String[] {managerName}, new String[] {"manager name"});
-			checkRosterIsNull();
+			checkRosterIsNull(shop);
 
-			return _shop.getRoster("roster for manager", managerName);
-		} catch (RosterException exception) {
-			return createExceptionList(exception.getMessage());
-		}
+			return shop.getRoster(RosterType.MANAGER, managerName);
+		});
 	}
 
 	@Override
 	public String reportRosterIssues() {
+		return status(RosterOperation.REPORT_ROSTER_ISSUES, shop -> {
+			checkRosterIsNull(shop);
+			shop.lockWeek(false); //count every problem from the same roster.
+			try {
+				int overstaffed = shop.countWeekScheduleProblems(ProblemType.OVERSTAFFED); //Count all roster shift problems.
+				int understaffed = shop.countWeekScheduleProblems(ProblemType.UNDERSTAFFED);
+				int withoutManagers = shop.countWeekScheduleProblems(ProblemType.WITHOUT_MANAGERS);
+				return "There are " + overstaffed + " overstaffed shifts, " + understaffed + " understaffed shifts, " + withoutManagers + " shifts without managers.";
+			} finally {
+				shop.unlockWeek(false);
+			}
+		});
+	}
+
+	@Override
+	public String displayRoster() {
+		return status(RosterOperation.DISPLAY_ROSTER, shop -> {
+			checkRosterIsNull(shop);
+			List<String> summary = shop.getRoster(RosterType.WEEK_SUMMARY, "week");
+			return summary.get(0) + summary.get(1); //return summary formatted as a single string.
+		});
+	}
+
+	/**
+	 * Get the shifts of a day as views, for callers that want the data rather than formatted strings.
+	 * @param dayOfWeek The day of the week.
+	 * @return the shifts, in order of start time.
+	 * @throws RosterException if the day is invalid or no roster has been created.
+	 */
+	public List<ShiftView> getShiftViewsForDay(String dayOfWeek) throws RosterException {
+		return value(RosterOperation.GET_SHIFT_VIEWS_FOR_DAY, shop -> {
+			checkValidInput(new String[] {dayOfWeek}, new String[] {"day"});
+			checkRosterIsNull(shop);
+			return shop.getDayShiftViews(dayOfWeek);
+		});
+	}
+
+	/**
+	 * Get the staffing coverage of a day: how many staff and managers are on the floor at each minute, where it drops
+	 * below a number of staff and where the working hours have no shift.
+	 * @param dayOfWeek The day of the week.
+	 * @return the coverage of the day.
+	 * @throws RosterException if the day is invalid or no roster has been created.
+	 */
+	public DayCoverage getCoverageForDay(String dayOfWeek) throws RosterException {
+		return value(RosterOperation.GET_COVERAGE_FOR_DAY, shop -> {
+			checkValidInput(new String[] {dayOfWeek}, new String[] {"day"});
+			checkRosterIsNull(shop);
+			return shop.getDayCoverage(dayOfWeek);
+		});
+	}
+
+	/**
+	 * Get the shifts a staff member works or manages as views.
+	 * @param staffName The name of the staff member in format: given name" "family name
+	 * @param role whether to get the shifts the staff member manages or works.
+	 * @return the shifts, in order of day of the week and then start time.
+	 * @throws RosterException if the staff member is not registered or no roster has been created.
+	 */
+	public List<ShiftView> getShiftViewsForStaff(String staffName, StaffRole role) throws RosterException {
+		return value(RosterOperation.GET_SHIFT_VIEWS_FOR_STAFF, shop -> {
+			checkValidInput(new String[] {staffName}, new String[] {"staff name"});
+			checkRosterIsNull(shop);
+			return shop.getStaffShiftViews(staffName, role);
+		});
+	}
+
+	/**
+	 * Get the shifts with a problem as views.
+	 * @param problemType the problem to look for.
+	 * @return the shifts, in order of day of the week and then start time.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public List<ShiftView> getProblemShiftViews(ProblemType problemType) throws RosterException {
+		return value(RosterOperation.GET_PROBLEM_SHIFT_VIEWS, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getProblemShiftViews(problemType);
+		});
+	}
+
+	/**
+	 * Get staff as views.
+	 * @param filter whether to get all registered staff or only unassigned staff.
+	 * @return the staff, sorted by family name.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public List<StaffView> getStaffViews(StaffFilter filter) throws RosterException {
+		return value(RosterOperation.GET_STAFF_VIEWS, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getStaffViews(filter);
+		});
+	}
+
+	/**
+	 * Get the workload of a staff member: the shifts and minutes they work and manage, in all and on each day.
+	 * @param staffName The name of the staff member in format: given name" "family name
+	 * @return the workload.
+	 * @throws RosterException if the staff member is not registered or no roster has been created.
+	 */
+	public Workload getWorkload(String staffName) throws RosterException {
+		return value(RosterOperation.GET_WORKLOAD, shop -> {
+			checkValidInput(new String[] {staffName}, new String[] {"staff name"});
+			checkRosterIsNull(shop);
+			return shop.getWorkload(staffName);
+		});
+	}
+
+	/**
+	 * Get the workloads of the staff who work and manage the most minutes.
+	 * @param limit the most staff to include.
+	 * @return the workloads, most minutes first.
+	 * @throws RosterException if the limit is not valid or no roster has been created.
+	 */
+	public List<Workload> getMostLoadedStaff(int limit) throws RosterException {
+		return getWorkloads(RosterOperation.GET_MOST_LOADED_STAFF, true, limit);
+	}
+
+	/**
+	 * Get the workloads of the staff who work and manage the fewest minutes.
+	 * @param limit the most staff to include.
+	 * @return the workloads, fewest minutes first.
+	 * @throws RosterException if the limit is not valid or no roster has been created.
+	 */
+	public List<Workload> getLeastLoadedStaff(int limit) throws RosterException {
+		return getWorkloads(RosterOperation.GET_LEAST_LOADED_STAFF, false, limit);
+	}
+
+	private List<Workload> getWorkloads(RosterOperation operation, boolean mostLoaded, int limit) throws RosterException {
+		return value(operation, shop -> {
+			checkRosterIsNull(shop);
+			if (limit <= 0) {
+				throw new RosterException("ERROR: staff limit given is not valid.");
+			}
+			return shop.getWorkloads(mostLoaded, limit);
+		});
+	}
+
+	/**
+	 * Get a page of the registered staff. Pages are in the same order as {@link #getRegisteredStaff()}.
+	 * @param after the last name on the previous page, or null for the first page.
+	 * @param limit the most staff to include on the page.
+	 * @return the names of the staff on the page, or an error as described in the notes of {@link ShiftMan}.
+	 */
+	public List<String> getRegisteredStaff(String after, int limit) {
+		return getStaffPage(StaffFilter.REGISTERED, after, limit);
+	}
+
+	/**
+	 * Get a page of the unassigned staff. Pages are in the same order as {@link #getUnassignedStaff()}.
+	 * @param after the last name on the previous page, or null for the first page.
+	 * @param limit the most staff to include on the page.
+	 * @return the names of the staff on the page, or an error as described in the notes of {@link ShiftMan}.
+	 */
+	public List<String> getUnassignedStaff(String after, int limit) {
+		return getStaffPage(StaffFilter.UNASSIGNED, after, limit);
+	}
+
+	/**
+	 * Stream the staff as views, without locking the roster while the stream is used.
+	 * @param filter whether to stream all registered staff or only unassigned staff.
+	 * @return the staff, sorted by family name.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public Stream<StaffView> streamStaff(StaffFilter filter) throws RosterException {
+		return value(RosterOperation.STREAM_STAFF, shop -> {
+			checkRosterIsNull(shop);
+			return shop.streamStaff(filter);
+		});
+	}
+
+	/**
+	 * Pin the latest version of the roster, so that several reports can be read from the same roster. Reading from it
+	 * takes no locks, so it never holds up changes, which go into later versions.
+	 * @return the version.
+	 * @throws RosterException if no roster has been created.
+	 */
+	public RosterVersion pinRoster() throws RosterException {
+		return value(RosterOperation.PIN_ROSTER, shop -> {
+			checkRosterIsNull(shop);
+			return shop.getRosterVersion();
+		});
+	}
+
+	private List<String> getStaffPage(StaffFilter filter, String after, int limit) {
+		return lines(RosterOperation.GET_STAFF_PAGE, shop -> {
+			checkRosterIsNull(shop);
+			if (limit <= 0) {
+				throw new RosterException("ERROR: page limit given is not valid.");
+			}
+			return shop.getStaffInfo(filter, after, limit);
+		});
+	}
+
+	/**
+	 * Add a shift to the given shop.
+	 * @return The status of the request.
+	 */
+	private String addShift(Shop shop, String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
 		try {
-			checkRosterIsNull();
-			int overstaffed = overstaffedShifts().size(); //Retrieve all roster shift problems.
-			int understaffed = understaffedShifts().size();
-			int withoutManagers = shiftsWithoutManagers().size();
-			return "There are " + overstaffed + " overstaffed shifts, " + understaffed + " understaffed shifts, " + withoutManagers + " shifts without managers.";
+			checkValidInput(new String[] {dayOfWeek, startTime, endTime, minimumWorkers}, new String[] {"day", "shift start time", "shift end time", "minimum worker value"});
+			checkRosterIsNull(shop);
+
+			shop.addShift(dayOfWeek, startTime, endTime, minimumWorkers);
 		} catch (RosterException exception) {
 			return exception.getMessage();
 		}
+		return "";
 	}
 
-	@Override
-	public String displayRoster() {
+	/**
+	 * Register a staff member to the given shop.
+	 * @return The status of the request.
+	 */
+	private String registerStaff(Shop shop, String givenname, String familyName) {
 		try {
-			checkRosterIsNull();
-			return (_shop.getRoster("week roster summary", "week")).get(0)
-					+ (_shop.getRoster("week roster summary", "week")).get(1); //return summary formatted as a single string.
+			checkValidInput(new String[] {givenname, familyName}, new String[] {"first name", "last name"});
+			checkRosterIsNull(shop);
+
+			Staff staff = new Staff(givenname, familyName); //create staff.
+			shop.registerStaffToShop(staff); //register staff.
+		} catch (RosterException exception) {
+			return exception.getMessage();
+		}
+		return "";
+	}
+
+	/**
+	 * Assign a staff member to a shift of the given shop.
+	 * @return The status of the request.
+	 */
+	private String assignStaff(Shop shop, String dayOfWeek, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager, Shop.AssignmentBatch batch) {
+		try {
+			checkValidInput(new String[] {dayOfWeek, startTime, endTime, givenName, familyName}, new String[]{"day", "shift start time", "shift end time", "first name", "last name"});
+			checkRosterIsNull(shop);
+
+			shop.assignStaff(dayOfWeek, startTime, endTime, givenName, familyName, isManager, batch);
 		} catch (RosterException exception) {
 			return exception.getMessage();
 		}
+		return "";
+	}
+
+	/**
+	 * Replace the roster. The current roster is retired first, so every change made to it is recorded in the journal
+	 * before the replacement is, and any change that reaches it afterwards is refused. The new roster is only handed out
+	 * once the replacement is recorded, so none of its changes are recorded before it.
+	 * @param shop the new roster.
+	 * @param record records the replacement in the journal, if there is one.
+	 * @throws IOException if the replacement could not be recorded, in which case the current roster is kept.
+	 */
+	private void replaceShop(Shop shop, Shop.Replacement record) throws IOException {
+		synchronized (_replacing) {
+			Shop current = _shop;
+			if (current == null) {
+				record.replace();
+				_shop = shop;
+			} else {
+				current.retire(() -> {
+					record.replace();
+					_shop = shop;
+				});
+			}
+		}
+	}
+
+	/**
+	 * Wait for a successful change to be saved to the journal, if there is one.
+	 * @param status the status of the change.
+	 * @return the status of the change, or an error if it could not be saved.
+	 */
+	private String syncJournal(String status) {
+		if (_journal == null || !status.isEmpty()) {
+			return status;
+		}
+		try {
+			_journal.sync();
+		} catch (IOException exception) {
+			return "ERROR: change was made but could not be saved to the journal. " + exception.getMessage();
+		}
+		return status;
+	}
+
+	/**
+	 * Wait for the successful changes of a batch to be saved to the journal, with a single sync for the whole batch.
+	 * @param statuses the status of each change.
+	 * @return the statuses, with an error for each successful change if they could not be saved.
+	 */
+	private List<String> syncJournal(List<String> statuses) {
+		String saved = syncJournal("");
+		if (!saved.isEmpty()) {
+			for (int entry = 0; entry < statuses.size(); entry++) {
+				if (statuses.get(entry).isEmpty()) {
+					statuses.set(entry, saved);
+				}
+			}
+		}
+		return statuses;
+	}
+
+	/**
+	 * A request of the server, made of the shop that is current when the request begins.
+	 * @param <T> what the request returns.
+	 */
+	private interface Request<T> {
+		/**
+		 * @param shop the current shop, or null if no roster has been created.
+		 */
+		T run(Shop shop) throws RosterException;
+	}
+
+	/**
+	 * Make a request that returns a status, timing it and counting it in the metrics.
+	 * @param operation
+	 * @param request returns the status, or throws an error whose message is returned instead.
+	 * @return the status.
+	 */
+	private String status(RosterOperation operation, Request<String> request) {
+		long start = System.nanoTime();
+		String status;
+		try {
+			status = request.run(_shop);
+		} catch (RosterException exception) {
+			status = exception.getMessage();
+		}
+		return _metrics.record(operation, start, status);
+	}
+
+	/**
+	 * Make a request that returns lines, timing it and counting it in the metrics.
+	 * @param operation
+	 * @param request returns the lines, or throws an error whose message is returned as the only line instead.
+	 * @return the lines.
+	 */
+	private List<String> lines(RosterOperation operation, Request<List<String>> request) {
+		long start = System.nanoTime();
+		List<String> lines;
+		try {
+			lines = request.run(_shop);
+		} catch (RosterException exception) {
+			lines = createExceptionList(exception.getMessage());
+		}
+		return _metrics.record(operation, start, lines);
+	}
+
+	/**
+	 * Make a request that returns a value, timing it and counting it in the metrics.
+	 * @param operation
+	 * @param request
+	 * @return the value.
+	 * @throws RosterException the error of the request, once it is counted.
+	 */
+	private <T> T value(RosterOperation operation, Request<T> request) throws RosterException {
+		long start = System.nanoTime();
+		try {
+			return _metrics.recordValue(operation, start, request.run(_shop));
+		} catch (RosterException exception) {
+			throw _metrics.recordException(operation, start, exception);
+		}
+	}
+
+	/**
+	 * Make a batch request, timing it and counting an error for each entry that failed.
+	 * @param operation
+	 * @param request returns the status of each entry, and reports no error of its own.
+	 * @return the statuses.
+	 */
+	private List<String> batch(RosterOperation operation, Function<Shop, List<String>> request) {
+		long start = System.nanoTime();
+		return _metrics.recordBatch(operation, start, request.apply(_shop));
+	}
+
+	/**
+	 * Parse a date of the rostering horizon.
+	 * @param date in the format yyyy-mm-dd.
+	 * @return the date.
+	 * @throws RosterException if the date is not valid.
+	 */
+	private static LocalDate parseDate(String date) throws RosterException {
+		try {
+			return LocalDate.parse(date);
+		} catch (DateTimeParseException exception) {
+			throw new RosterException("ERROR: date given is not valid.");
+		}
 	}
 
 	/**
@@ -195,7 +929,7 @@ public class ShiftManServer implements ShiftMan { //check if emtpy string list r
 	 * @param inputType Each string input's original parameter name, in respective to the check input.
 	 * @throws RosterException
 	 */
-	private void checkValidInput(String[] check, String[] inputType) throws RosterException {
+	static void checkValidInput(String[] check, String[] inputType) throws RosterException {
 		int currentType = 0;
 		for (String string : check) {
 			if (string == null || string.isEmpty()) {
@@ -206,12 +940,13 @@ public class ShiftManServer implements ShiftMan { //check if emtpy string list r
 	}
 
 	/**Checks if the roster is null (_shop variable).
+	 * @param shop the shop read from _shop by the caller.
 	 * @throws RosterException
 	 * @author Jennifer Lowe
 	 */
-	private void checkRosterIsNull() throws RosterException {
-		if (_shop == null) {
-			throw new RosterException("ERROR: no roster has been created");
+	private void checkRosterIsNull(Shop shop) throws RosterException {
+		if (shop == null) {
+			throw NO_ROSTER;
 		}
 	}
 
@@ -1,20 +1,30 @@
 package shiftman.server;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * The staff of the specific shift.
  * It handles the rostering of works and managers, problems and the display of the staff.
+ * Changes are synchronized so that checking for a manager and setting one happen together.
+ * The workers are kept in family name order for display, and their staff ids in a separate set, so checking whether
+ * someone is already assigned does not compare names or walk the workers. A batch of assignments adds its workers
+ * unsorted and sorts them once at the end, rather than moving the workers along for each one.
  */
 public class ShiftStaff {
-	private List<Staff> _shiftWorkers = new ArrayList<Staff>();
+	private final List<Staff> _shiftWorkers = new ArrayList<Staff>(); //workers in family name order.
+	private final IdSet _workerIds; //staff ids of the workers.
 	private Staff _manager;
 	private int _minWorkers;
+	private boolean _unsorted; //workers were added by a batch and are not yet in order.
 
 	ShiftStaff(int minWorkers){
+		this(minWorkers, new IdSet());
+	}
+
+	private ShiftStaff(int minWorkers, IdSet workerIds) {
 		_minWorkers = minWorkers;
+		_workerIds = workerIds;
 	}
 
 	/**
@@ -23,50 +33,163 @@ public class ShiftStaff {
 	 * @param staff
 	 * @throws RosterException
 	 */
-	public void addWorker(WorkDay.Shift shift, Staff staff) throws RosterException {
+	public synchronized void addWorker(WorkDay.Shift shift, Staff staff) throws RosterException {
+		addWorker(shift, staff, true);
+	}
+
+	/**
+	 * Assigns the worker to the shift, either in order or at the end of the workers for {@link #sortWorkers()} to sort.
+	 * @param shift
+	 * @param staff
+	 * @param sort false if the worker is assigned by a batch, which sorts the workers once it is done.
+	 * @throws RosterException
+	 */
+	synchronized void addWorker(WorkDay.Shift shift, Staff staff, boolean sort) throws RosterException {
 
 		checkAlreadyAssignedWith(staff); //check whether the staff has already been rostered on for this shift.
 
-		_shiftWorkers.add(staff);
-		Collections.sort(_shiftWorkers);
+		_workerIds.add(staff.getId());
+		if (sort && !_unsorted) {
+			_shiftWorkers.add(insertionPoint(staff), staff);
+		} else {
+			_shiftWorkers.add(staff);
+			_unsorted = true;
+		}
 		staff.updateShifts(shift);
+		shift.staffChanged();
 
 	}
 
+	/**
+	 * Put the workers added by a batch into family name order. The sort is stable, so workers that compare equal stay
+	 * in the order they were assigned, as they would had each been inserted in order.
+	 */
+	synchronized void sortWorkers() {
+		if (_unsorted) {
+			_shiftWorkers.sort(null);
+			_unsorted = false;
+		}
+	}
+
 	/**
 	 * Assigns the manager to the shift, adds into list.
 	 * @param shift
 	 * @param staff
 	 * @throws RosterException
 	 */
-	public void addManager(WorkDay.Shift shift, Staff staff) throws RosterException {
+	public synchronized void addManager(WorkDay.Shift shift, Staff staff) throws RosterException {
 
 		checkAlreadyAssignedWith(staff);
 
 		if (_manager == null) { //If manager is null, there is no manager assigned. Otherwise, there is already a manager.
 			_manager = staff;
 			staff.updateManaging(shift);
+			shift.staffChanged();
 		} else {
-			throw new RosterException("ERROR: this shift already has " + _manager.getName("firstlast") + " managing.");
+			throw new RosterException("ERROR: this shift already has " + _manager.getName(NameType.FIRST_LAST) + " managing.");
+		}
+	}
+
+	/**
+	 * Remove a worker from the shift, such as when a transaction is rolled back.
+	 * @param shift
+	 * @param staff a worker of the shift.
+	 */
+	synchronized void removeWorker(WorkDay.Shift shift, Staff staff) {
+		if (_workerIds.remove(staff.getId())) {
+			_shiftWorkers.remove(staff);
+			staff.removeShift(shift);
+			shift.staffChanged();
+		}
+	}
+
+	/**
+	 * Remove the manager from the shift, such as when a transaction is rolled back.
+	 * @param shift
+	 * @param staff the manager of the shift.
+	 */
+	synchronized void removeManager(WorkDay.Shift shift, Staff staff) {
+		if (_manager == staff) {
+			_manager = null;
+			staff.removeManaging(shift);
+			shift.staffChanged();
+		}
+	}
+
+	/**
+	 * Restore the staff of the shift, such as from a snapshot, without checking them again. The shift must have no staff yet.
+	 * @param shift
+	 * @param manager the manager, or null if there is none.
+	 * @param workers the workers, already in family name order.
+	 */
+	synchronized void restore(WorkDay.Shift shift, Staff manager, List<Staff> workers) {
+		_manager = manager;
+		if (manager != null) {
+			manager.updateManaging(shift);
+		}
+		_shiftWorkers.addAll(workers);
+		for (Staff staff : workers) {
+			_workerIds.add(staff.getId());
+			staff.updateShifts(shift);
+		}
+		shift.staffChanged();
+	}
+
+	/**
+	 * Copy the staff of the shift, for a copy of the shift on another date. The staff members' own shifts are not
+	 * changed, as they only list the shifts of the template week.
+	 * @return the copy.
+	 */
+	synchronized ShiftStaff copy() {
+		ShiftStaff copy = new ShiftStaff(_minWorkers, new IdSet(_workerIds));
+		copy._manager = _manager;
+		copy._shiftWorkers.addAll(_shiftWorkers);
+		return copy;
+	}
+
+	/**
+	 * Make an immutable version of the shift's staff, for a {@link RosterVersion}.
+	 * @param details the details of the shift.
+	 * @return the version.
+	 */
+	synchronized RosterVersion.ShiftVersion toVersion(String details) {
+		return new RosterVersion.ShiftVersion(details, _minWorkers, _manager,
+				_shiftWorkers.toArray(new Staff[_shiftWorkers.size()]));
+	}
+
+	/**
+	 * Find where a new worker goes in family name order, after any workers that compare equal to them.
+	 * @param staff
+	 * @return the index to insert the worker at.
+	 */
+	private int insertionPoint(Staff staff) {
+		int low = 0, high = _shiftWorkers.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (_shiftWorkers.get(middle).compareTo(staff) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
 		}
+		return low;
 	}
 
 	/**
 	 * Private method to check whether the staff that is about to be assigned is already assigned in the shift.
+	 * Staff are matched by their staff id, as each registered staff member has their own.
 	 * @param staff
 	 * @throws RosterException
 	 */
 	private void checkAlreadyAssignedWith(Staff staff) throws RosterException {
 
-		for (Staff staffCompare : _shiftWorkers) {
-			if (staffCompare.getName("firstlast").equals(staff.getName("firstlast"))) {
-				throw new RosterException("ERROR: this shift already has " + staff.getName("firstlast") + " assigned as a worker.");
-			}
+		if (_workerIds.contains(staff.getId())) {
+			throw new RosterException("ERROR: this shift already has " + staff.getName(NameType.FIRST_LAST) + " assigned as a worker.");
 		}
 
 		if (_manager != null) { //If manager is null, then there is no need to check as there is no manager for this shift at that time.
-			if (_manager.getName("firstlast").equals(staff.getName("firstlast"))) {
-				throw new RosterException("ERROR: this shift already has " + staff.getName("firstlast") + " assigned as a manager.");
+			if (_manager.getId() == staff.getId()) {
+				throw new RosterException("ERROR: this shift already has " + staff.getName(NameType.FIRST_LAST) + " assigned as a manager.");
 			}
 		}
 	}
@@ -77,55 +200,127 @@ public class ShiftStaff {
 	 * @return string of the specified staff of the shift.
 	 */
 	public String displayShiftStaff(String staffType) {
-		switch (staffType) {
-		case "manager":
-			if (_manager == null) {
-				return "[No manager assigned]";
-			}
-			//If there is a manager, return the manager name.
-			return " Manager:" + _manager.getName("last") + ", " + _manager.getName("first");
-		case "workers":
-			if (_shiftWorkers.isEmpty()) {
-				return "[No workers assigned]";
-			}
-			//If there are workers assigned, iterate through each worker and add it to the output.
-			String workerList = "";
-			int current = 0;
-			for (Staff staff : _shiftWorkers) {
-				if (current != _shiftWorkers.size() - 1) {
-					workerList = workerList + staff.getName("firstlast") + ", ";
-				} else {
-					workerList = workerList + staff.getName("firstlast"); //Don't add a comma at the end if it is end of the workers list.
-				}
-				current++;
-			}
-			return "[" + workerList + "]";
+		return displayShiftStaff(StaffRole.fromString(staffType));
+	}
+
+	/**
+	 * Display the specified staff of the shift.
+	 * @param role the staff to display.
+	 * @return string of the specified staff of the shift.
+	 */
+	public String displayShiftStaff(StaffRole role) {
+		StringBuilder output = new StringBuilder();
+		appendShiftStaff(output, role);
+		return output.toString();
+	}
+
+	/**
+	 * Write the specified staff of the shift, in the same format as {@link #displayShiftStaff(StaffRole)}.
+	 * @param output where the staff are written to.
+	 * @param role the staff to write.
+	 */
+	public synchronized void appendShiftStaff(StringBuilder output, StaffRole role) {
+		switch (role) {
+		case MANAGER:
+			appendManager(output, _manager);
+			break;
+		case WORKERS:
+			appendWorkers(output, _shiftWorkers);
+			break;
 		default:
-			throw new UnsupportedOperationException("WorkDay.Shift.getShiftStaff can only accept arguments \"manager\" or \"workers\"");
+			throw new UnsupportedOperationException("ShiftStaff.appendShiftStaff does not support " + role);
+		}
+	}
+
+	/**
+	 * Write the manager of a shift, in the same format as {@link #displayShiftStaff(StaffRole)}.
+	 * @param output where the manager is written to.
+	 * @param manager the manager, or null if there is none.
+	 */
+	static void appendManager(StringBuilder output, Staff manager) {
+		if (manager == null) {
+			output.append("[No manager assigned]");
+		} else {
+			//If there is a manager, add the manager name.
+			output.append(" Manager:").append(manager.getRosterName());
+		}
+	}
+
+	/**
+	 * Write the workers of a shift, in the same format as {@link #displayShiftStaff(StaffRole)}.
+	 * @param output where the workers are written to.
+	 * @param workers the workers, in family name order.
+	 */
+	static void appendWorkers(StringBuilder output, List<Staff> workers) {
+		if (workers.isEmpty()) {
+			output.append("[No workers assigned]");
+			return;
+		}
+		//If there are workers assigned, iterate through each worker and add it to the output.
+		output.append('[');
+		for (int current = 0; current < workers.size(); current++) {
+			if (current != 0) {
+				output.append(", "); //Only separate workers, so there is no comma at the end of the list.
+			}
+			output.append(workers.get(current).getName(NameType.FIRST_LAST));
 		}
+		output.append(']');
+	}
+
+	/**
+	 * @return the number of workers of the shift, not counting its manager.
+	 */
+	synchronized int countWorkers() {
+		return _shiftWorkers.size();
+	}
+
+	/**
+	 * @return 1 if the shift has a manager, otherwise 0.
+	 */
+	synchronized int countManagers() {
+		return _manager == null ? 0 : 1;
 	}
 
 	/**
 	 * Retrieve all the problems of the staff in the current shift. Checks against the shift's specified minimum workers.
-	 * @param problemType can only take arguments of "overstaffed" or "understaffed"
+	 * @param problemType can only take arguments of "without managers", "overstaffed" or "understaffed"
 	 * @return
 	 */
 	public boolean staffProblem(String problemType) {
+		return staffProblem(ProblemType.fromString(problemType));
+	}
+
+	/**
+	 * Check whether the staff of the current shift have the specified problem.
+	 * @param problemType the problem to check for.
+	 * @return true if the shift has the problem.
+	 */
+	public synchronized boolean staffProblem(ProblemType problemType) {
 		switch (problemType) {
-		case "overstaffed":
-			if (_shiftWorkers.size() > _minWorkers) {
-				return true;
-			}
-			break;
-		case "understaffed":
-			if (_shiftWorkers.size() < _minWorkers) {
-				return true;
-			}
-			break;
+		case OVERSTAFFED:
+			return _shiftWorkers.size() > _minWorkers;
+		case UNDERSTAFFED:
+			return _shiftWorkers.size() < _minWorkers;
+		case WITHOUT_MANAGERS:
+			return _manager == null;
 		default:
-			throw new UnsupportedOperationException("WorkDay.Shift.shiftHasProblems can only accept arguments \"overstaffed\" or \"understaffed\"");
+			throw new UnsupportedOperationException("ShiftStaff.staffProblem does not support " + problemType);
+		}
+	}
+
+	/**
+	 * Get a view of the shift staff.
+	 * @param shift the shift the staff are for.
+	 * @param description the shift description.
+	 * @return the view of the shift and its staff.
+	 */
+	synchronized ShiftView getView(WorkDay.Shift shift, String description) {
+		List<StaffView> workers = new ArrayList<StaffView>(_shiftWorkers.size());
+		for (Staff staff : _shiftWorkers) {
+			workers.add(staff.getView());
 		}
-		return false;
+		return new ShiftView(shift.getWorkDay().toString(), shift.getWorkDay().getDayIndex(), shift.getStart(), shift.getEnd(),
+				_minWorkers, description, _manager == null ? null : _manager.getView(), workers);
 	}
 
 }
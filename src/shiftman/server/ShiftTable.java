@@ -0,0 +1,69 @@
+package shiftman.server;
+
+import java.util.Arrays;
+
+/**
+ * Gives every shift of a week a dense int id, so that shifts can be referred to by id and looked up again in constant
+ * time. Ids are given out in the order shifts are added. The id of a shift that is removed, such as by a transaction
+ * that is rolled back, is given to the next shift added, so failed changes do not grow the table.
+ *
+ * <p>Days add shifts under their own locks, so ids are given out while holding the table's monitor. Lookups do not lock:
+ * a shift's id is only handed out after the shift is stored, and the array is only replaced with a complete copy.
+ */
+class ShiftTable {
+
+	private volatile WorkDay.Shift[] _shifts = new WorkDay.Shift[64];
+	private int _size;
+	private int[] _released = new int[4]; //ids of removed shifts, to give out again.
+	private int _releasedCount;
+
+	/**
+	 * Give the shift the next id.
+	 * @param shift
+	 * @return the id of the shift.
+	 */
+	synchronized int add(WorkDay.Shift shift) {
+		WorkDay.Shift[] shifts = _shifts;
+		if (_releasedCount != 0) {
+			int id = _released[--_releasedCount];
+			shifts[id] = shift;
+			_shifts = shifts; //publishes the shift.
+			return id;
+		}
+		if (_size == shifts.length) {
+			shifts = Arrays.copyOf(shifts, _size * 2);
+		}
+		shifts[_size] = shift;
+		_shifts = shifts; //publishes the shift along with any new array.
+		return _size++;
+	}
+
+	/**
+	 * Release the id of a shift that has been removed from its day, to be given to the next shift added. Nothing may
+	 * still refer to the shift by its id.
+	 * @param shift
+	 */
+	synchronized void remove(WorkDay.Shift shift) {
+		int id = shift.getId();
+		_shifts[id] = null;
+		if (_releasedCount == _released.length) {
+			_released = Arrays.copyOf(_released, _releasedCount * 2);
+		}
+		_released[_releasedCount++] = id;
+	}
+
+	/**
+	 * @return the number of ids in use.
+	 */
+	synchronized int size() {
+		return _size - _releasedCount;
+	}
+
+	/**
+	 * @param id
+	 * @return the shift with the id.
+	 */
+	WorkDay.Shift get(int id) {
+		return _shifts[id];
+	}
+}
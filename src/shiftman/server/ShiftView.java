@@ -0,0 +1,80 @@
+package shiftman.server;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only view of a shift and its staff at the time the view was made, for callers that want the data rather than
+ * formatted strings.
+ */
+public final class ShiftView {
+
+	private final String _day;
+	private final int _dayIndex, _start, _end, _minWorkers;
+	private final String _description;
+	private final StaffView _manager;
+	private final List<StaffView> _workers;
+
+	ShiftView(String day, int dayIndex, int start, int end, int minWorkers, String description, StaffView manager,
+			List<StaffView> workers) {
+		_day = day;
+		_dayIndex = dayIndex;
+		_start = start;
+		_end = end;
+		_minWorkers = minWorkers;
+		_description = description;
+		_manager = manager;
+		_workers = Collections.unmodifiableList(workers);
+	}
+
+	public String getDay() {
+		return _day;
+	}
+
+	/**
+	 * @return the position of the day in the week, starting from 0 for Monday.
+	 */
+	public int getDayIndex() {
+		return _dayIndex;
+	}
+
+	/**
+	 * @return start minute of the day.
+	 */
+	public int getStart() {
+		return _start;
+	}
+
+	/**
+	 * @return end minute of the day.
+	 */
+	public int getEnd() {
+		return _end;
+	}
+
+	public int getMinWorkers() {
+		return _minWorkers;
+	}
+
+	/**
+	 * @return the manager of the shift, or null if there is none.
+	 */
+	public StaffView getManager() {
+		return _manager;
+	}
+
+	/**
+	 * @return the workers of the shift, sorted by family name.
+	 */
+	public List<StaffView> getWorkers() {
+		return _workers;
+	}
+
+	/**
+	 * @return the shift description in the format dayofweek[starttime-endtime].
+	 */
+	@Override
+	public String toString() {
+		return _description;
+	}
+}
@@ -1,23 +1,97 @@
 package shiftman.server;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**This class is where general management of the shop occurs, i.e. the main driver of the system. This includes managing the schedule,
  * the staff list and getting rosters. It also investigates the shop roster for any errors.
+ * 
+ * <p>The shop is safe to use from many threads. Each work day has its own read/write lock, and the staff list has another.
+ * When both are needed, the staff lock is always taken first, then the day locks in week order.
  *
+ * <p>A shop loaded from a {@link RosterSnapshot} reads each day from it the first time the day is used, which is whenever
+ * the week is locked or the day is looked up. Loading a day only creates the staff on its shifts. Other staff are found
+ * in the snapshot by name when they are first looked up, and the whole staff list is only read when the staff are first
+ * listed. Days are loaded while holding the snapshot's monitor and the day's write lock, which no thread using the shop
+ * can hold until it is loaded. The staff are listed while holding the staff write lock and then the snapshot's monitor.
+ *
+ * <p>The shop's week is also the template for the dated weeks of its {@link RosterHorizon}. Changes to the horizon and
+ * its dated weeks are recorded in the journal, and changes to dated days are published with their date, but neither
+ * is held in snapshots or in versions: a dated day is read under its own lock.
+ *
+ * <p>Each successful change to the week or staff list is published to the shop's {@link RosterEventFeed} while its locks
+ * are still held, so the changes to a day are published in the order they were made. Changes loaded from a snapshot
+ * and changes undone when a transaction fails are not published.
+ *
+ * <p>Each successful change, and each part loaded from a snapshot, also makes a new {@link RosterVersion} of the week and
+ * staff list, which replaces the last in a single atomic swap while the locks of the change are still held. The day and
+ * week rosters and staff lists are read from the latest version without taking any lock, so reports never hold up
+ * changes, and a transaction's changes to several days are seen all together or not at all.
  */
 public class Shop {
 
-	private String _shopName;
-	private WeekSchedule _weekSchedule;
-	private ShopStaffList _staffList;
+	private static final WorkDay[] NO_DAYS = new WorkDay[0];
+	//a change that reaches a replaced shop needs nothing from the change to be refused, so the error is made once.
+	private static final RosterException REPLACED = new RosterException(
+			"ERROR: roster has been replaced since the change began. No changes were made.");
+
+	private final String _shopName;
+	private final WeekSchedule _weekSchedule;
+	private final ShopStaffList _staffList;
+	private final RosterJournal _journal; //where successful changes are recorded, or null.
+	private final RosterSnapshot _snapshot; //where the staff and days are loaded from, or null.
+	private final Staff[] _snapshotStaff; //the staff loaded from the snapshot so far, by staff id.
+	private volatile boolean _loadedStaff; //whether every staff member of the snapshot has been listed.
+	private volatile int _loadedDays; //bit for each day index already loaded from the snapshot.
+	private final RosterHorizon _horizon; //dated weeks rostered from the week schedule.
+	private final RosterEventFeed _events = new RosterEventFeed(); //where successful changes are published.
+	private final ReentrantReadWriteLock _staffLock = new ReentrantReadWriteLock(); //guards the staff list.
+	private final AtomicReference<RosterVersion> _version; //the latest version of the roster, read by reports.
+	private volatile boolean _retired; //whether the shop has been replaced, after which it refuses every change.
 
 	public Shop(String shopName) {
+		this(shopName, null);
+	}
+
+	/**
+	 * @param shopName
+	 * @param journal the journal to record every successful change in, or null to not record changes.
+	 */
+	public Shop(String shopName, RosterJournal journal) {
 		_shopName = shopName;
 		_weekSchedule = new WeekSchedule();
 		_staffList = new ShopStaffList();
+		_journal = journal;
+		_snapshot = null;
+		_snapshotStaff = null;
+		_horizon = new RosterHorizon(_weekSchedule._daysList);
+		_version = new AtomicReference<RosterVersion>(new RosterVersion(_shopName, _weekSchedule._daysList, _staffList));
+	}
+
+	/**
+	 * Create a shop from a snapshot. Nothing but the shop name is read until it is needed.
+	 * @param snapshot
+	 * @param journal the journal to record every successful change in, or null to not record changes.
+	 */
+	public Shop(RosterSnapshot snapshot, RosterJournal journal) {
+		_shopName = snapshot.getShopName();
+		_weekSchedule = new WeekSchedule();
+		_snapshotStaff = new Staff[snapshot.getStaffCount()];
+		_staffList = new ShopStaffList(snapshot, _snapshotStaff);
+		_journal = journal;
+		_snapshot = snapshot;
+		_horizon = new RosterHorizon(_weekSchedule._daysList);
+		_version = new AtomicReference<RosterVersion>(new RosterVersion(_shopName, _weekSchedule._daysList, _staffList));
 	}
 
 	/**
@@ -26,7 +100,482 @@ public class Shop {
 	 * @throws RosterException
 	 */
 	public void registerStaffToShop(Staff staff) throws RosterException {
-		_staffList.registerStaff(staff); //register into the staff list.
+		lockStaff(true);
+		try {
+			checkWritable();
+			_staffList.registerStaff(staff); //register into the staff list.
+			publishVersion(NO_DAYS, true);
+			_events.publishStaffRegistered(staff);
+			if (_journal != null) {
+				_journal.append(RosterJournal.REGISTER_STAFF, staff.getName(NameType.FIRST), staff.getName(NameType.LAST));
+			}
+		} finally {
+			unlockStaff(true);
+		}
+	}
+
+	/**
+	 * Set the working hours of a day.
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @throws RosterException
+	 */
+	public void setWorkingHours(String dayOfWeek, String startTime, String endTime) throws RosterException {
+		WorkDay workDay = manageWeekSchedule(dayOfWeek);
+		workDay.writeLock().lock();
+		try {
+			checkWritable();
+			workDay.setHours(startTime, endTime);
+			publishVersion(new WorkDay[] {workDay}, false);
+			_events.publishWorkingHours(workDay, workDay.getWorkingHours());
+			if (_journal != null) {
+				_journal.append(RosterJournal.SET_WORKING_HOURS, dayOfWeek, startTime, endTime);
+			}
+		} finally {
+			workDay.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add a new shift to a day.
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param minimumWorkers
+	 * @throws RosterException
+	 */
+	public void addShift(String dayOfWeek, String startTime, String endTime, String minimumWorkers) throws RosterException {
+		WorkDay workDay = manageWeekSchedule(dayOfWeek);
+		workDay.writeLock().lock();
+		try {
+			checkWritable();
+			WorkDay.Shift shift = workDay.new Shift(startTime, endTime, minimumWorkers); //create new shift in the specified day.
+			workDay.addShift(shift); //schedule in shift.
+			publishVersion(new WorkDay[] {workDay}, false);
+			_events.publishShiftAdded(shift, Integer.parseInt(minimumWorkers));
+			if (_journal != null) {
+				_journal.append(RosterJournal.ADD_SHIFT, dayOfWeek, startTime, endTime, minimumWorkers);
+			}
+		} finally {
+			workDay.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the feed the shop's changes are published to.
+	 */
+	public RosterEventFeed getEventFeed() {
+		return _events;
+	}
+
+	/**
+	 * @return the dated weeks rostered from the shop's week.
+	 */
+	public RosterHorizon getHorizon() {
+		return _horizon;
+	}
+
+	/**
+	 * Set the rostering horizon, replacing any earlier one.
+	 * @param firstDay any day of the first week.
+	 * @param weeks the number of weeks.
+	 * @throws RosterException
+	 */
+	public void setHorizon(LocalDate firstDay, int weeks) throws RosterException {
+		lockStaff(false); //a shop is retired holding the staff lock for changes, so it cannot be retired part way through.
+		try {
+			synchronized (_horizon) {
+				checkWritable();
+				_horizon.setHorizon(firstDay, weeks);
+				if (_journal != null) {
+					_journal.append(RosterJournal.SET_HORIZON, firstDay.toString(), Integer.toString(weeks));
+				}
+			}
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Drop the first week of the rostering horizon and add a week after the last.
+	 * @throws RosterException
+	 */
+	public void rollHorizonForward() throws RosterException {
+		lockStaff(false);
+		try {
+			synchronized (_horizon) {
+				checkWritable();
+				_horizon.rollForward();
+				if (_journal != null) {
+					_journal.append(RosterJournal.ROLL_HORIZON);
+				}
+			}
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Set the working hours of a date in the rostering horizon. Only that date is changed, not the template week.
+	 * @param date
+	 * @param startTime
+	 * @param endTime
+	 * @throws RosterException
+	 */
+	public void setWorkingHours(LocalDate date, String startTime, String endTime) throws RosterException {
+		changeDatedDay(date, workDay -> {
+			workDay.setHours(startTime, endTime);
+			_events.publishWorkingHours(workDay, workDay.getWorkingHours());
+			if (_journal != null) {
+				_journal.append(RosterJournal.SET_WORKING_HOURS_ON, date.toString(), startTime, endTime);
+			}
+		});
+	}
+
+	/**
+	 * Add a new shift to a date in the rostering horizon. Only that date is changed, not the template week.
+	 * @param date
+	 * @param startTime
+	 * @param endTime
+	 * @param minimumWorkers
+	 * @throws RosterException
+	 */
+	public void addShift(LocalDate date, String startTime, String endTime, String minimumWorkers) throws RosterException {
+		changeDatedDay(date, workDay -> {
+			WorkDay.Shift shift = workDay.new Shift(startTime, endTime, minimumWorkers);
+			workDay.addShift(shift);
+			_events.publishShiftAdded(shift, Integer.parseInt(minimumWorkers));
+			if (_journal != null) {
+				_journal.append(RosterJournal.ADD_SHIFT_ON, date.toString(), startTime, endTime, minimumWorkers);
+			}
+		});
+	}
+
+	/**
+	 * Assign a registered staff member to a shift on a date in the rostering horizon. Only that date is changed, not
+	 * the template week.
+	 * @param date
+	 * @param startTime
+	 * @param endTime
+	 * @param givenName
+	 * @param familyName
+	 * @param isManager
+	 * @throws RosterException
+	 */
+	public void assignStaff(LocalDate date, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager) throws RosterException {
+		changeDatedDay(date, workDay -> {
+			Staff staff = manageStaffList(givenName, familyName);
+			WorkDay.Shift shift = workDay.assignStaff(staff, startTime, endTime, isManager);
+			_events.publishStaffAssigned(shift, staff, isManager);
+			if (_journal != null) {
+				_journal.append(isManager ? RosterJournal.ASSIGN_MANAGER_ON : RosterJournal.ASSIGN_STAFF_ON, date.toString(),
+						startTime, endTime, givenName, familyName);
+			}
+		});
+	}
+
+	/**
+	 * Give a date in the rostering horizon a day of its own with no working hours or shifts, as a compacted journal
+	 * does before rebuilding a day that was changed from the template.
+	 * @param date
+	 * @throws RosterException
+	 */
+	void clearDatedDay(LocalDate date) throws RosterException {
+		lockStaff(false);
+		try {
+			synchronized (_horizon) {
+				checkWritable();
+				_horizon.clearWorkDay(date);
+				if (_journal != null) {
+					_journal.append(RosterJournal.CLEAR_DATE, date.toString());
+				}
+			}
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Get the roster for a date in the rostering horizon, with the shop name first.
+	 * @param date
+	 * @return the roster in the same format as the roster for a day, or an empty list if the date has no shifts.
+	 * @throws RosterException
+	 */
+	public List<String> getDatedRoster(LocalDate date) throws RosterException {
+		loadDay(_weekSchedule._daysList.get(date.getDayOfWeek().getValue() - 1)); //the date may share the template's day.
+		WorkDay workDay = _horizon.getWorkDay(date);
+		workDay.readLock().lock();
+		try {
+			return workDay.toVersion().getRoster(_shopName); //rendered once for each version of the day.
+		} finally {
+			workDay.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Change the day of a date in the rostering horizon. The staff list is locked for reading, which keeps the shop from
+	 * being retired, and the horizon is locked so the change is recorded in order with the horizon being set or rolled
+	 * forward. The date is only given its own copy of the template's day if the change succeeds.
+	 * @param date
+	 * @param change the change, which is made with the date's day locked for changes.
+	 * @throws RosterException
+	 */
+	private void changeDatedDay(LocalDate date, DatedChange change) throws RosterException {
+		loadDay(_weekSchedule._daysList.get(date.getDayOfWeek().getValue() - 1)); //loaded so it can be copied.
+		lockStaff(false);
+		try {
+			synchronized (_horizon) {
+				checkWritable();
+				WorkDay workDay = _horizon.changeWorkDay(date);
+				workDay.writeLock().lock();
+				try {
+					change.change(workDay);
+					_horizon.keepWorkDay(workDay);
+				} finally {
+					workDay.writeLock().unlock();
+				}
+			}
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * A change to the day of a date in the rostering horizon.
+	 */
+	private interface DatedChange {
+		void change(WorkDay workDay) throws RosterException;
+	}
+
+	/**
+	 * Assign a registered staff member to a shift.
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param givenName
+	 * @param familyName
+	 * @param isManager
+	 * @return the shift the staff member was assigned to.
+	 * @throws RosterException
+	 */
+	public WorkDay.Shift assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager) throws RosterException {
+		return assignStaff(dayOfWeek, startTime, endTime, givenName, familyName, isManager, null);
+	}
+
+	/**
+	 * Assign a registered staff member to a shift, as part of a batch if one is given. The workers of a batch's shifts
+	 * are left unsorted and its days are not published until the batch is finished by {@link #finishBatch(AssignmentBatch)}.
+	 * @param dayOfWeek
+	 * @param startTime
+	 * @param endTime
+	 * @param givenName
+	 * @param familyName
+	 * @param isManager
+	 * @param batch the batch the assignment is part of, whose caller must hold the week's write locks, or null.
+	 * @return the shift the staff member was assigned to.
+	 * @throws RosterException
+	 */
+	WorkDay.Shift assignStaff(String dayOfWeek, String startTime, String endTime, String givenName, String familyName,
+			boolean isManager, AssignmentBatch batch) throws RosterException {
+		WorkDay workDay = manageWeekSchedule(dayOfWeek);
+		lockStaff(false);
+		try {
+			Staff staff = manageStaffList(givenName, familyName); //retrieve specific staff to assign.
+			workDay.writeLock().lock();
+			try {
+				checkWritable();
+				WorkDay.Shift shift = workDay.assignStaff(staff, startTime, endTime, isManager, batch == null);
+				_staffList.updateAssigned(staff);
+				if (batch == null) {
+					publishVersion(new WorkDay[] {workDay}, false);
+				} else {
+					batch.add(workDay, shift);
+				}
+				_events.publishStaffAssigned(shift, staff, isManager);
+				if (_journal != null) {
+					_journal.append(isManager ? RosterJournal.ASSIGN_MANAGER : RosterJournal.ASSIGN_STAFF, dayOfWeek, startTime,
+							endTime, givenName, familyName);
+				}
+				return shift;
+			} finally {
+				workDay.writeLock().unlock();
+			}
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Finish a batch of assignments: sort the workers of each shift it assigned staff to, then publish every day it
+	 * changed in one version. Must be called before the week's write locks taken for the batch are released.
+	 * @param batch the batch, which may be empty.
+	 */
+	void finishBatch(AssignmentBatch batch) {
+		for (WorkDay.Shift shift : batch._shifts) {
+			shift.sortStaff();
+		}
+		List<WorkDay> changedDays = new ArrayList<WorkDay>();
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			if ((batch._days & 1 << workDay.getDayIndex()) != 0) {
+				changedDays.add(workDay);
+			}
+		}
+		if (!changedDays.isEmpty()) {
+			publishVersion(changedDays.toArray(new WorkDay[changedDays.size()]), false);
+		}
+	}
+
+	/**
+	 * Start a transaction of changes to the shop.
+	 * @return a new transaction with no changes.
+	 */
+	public RosterTransaction beginTransaction() {
+		return new RosterTransaction(this);
+	}
+
+	/**
+	 * Make every change of a transaction, or none of them. The staff list and the days the transaction refers to are
+	 * locked while the versions it recorded are checked and the changes are made. If a change fails, the changes made
+	 * before it are undone in reverse order before the locks are released.
+	 * @param transaction a transaction started on this shop.
+	 * @throws RosterException if the roster has changed since the transaction recorded it, or a change failed.
+	 */
+	public void commit(RosterTransaction transaction) throws RosterException {
+		boolean registers = false;
+		for (RosterTransaction.Operation operation : transaction.getOperations()) {
+			registers |= operation._operation == RosterJournal.REGISTER_STAFF;
+		}
+		boolean[] dayLocked = new boolean[_weekSchedule._daysList.size()];
+		for (WorkDay workDay : transaction.getWorkDays()) {
+			dayLocked[workDay.getDayIndex()] = true;
+		}
+
+		lockStaff(registers);
+		for (int dayIndex = 0; dayIndex < dayLocked.length; dayIndex++) { //days are locked in week order.
+			if (dayLocked[dayIndex]) {
+				_weekSchedule._daysList.get(dayIndex).writeLock().lock();
+			}
+		}
+		try {
+			transaction.markCommitted();
+			checkWritable();
+			if (!transaction.isCurrent()) {
+				throw new RosterException("ERROR: roster has changed since the transaction began. No changes were made.");
+			}
+
+			Deque<Runnable> undo = new ArrayDeque<Runnable>();
+			List<Runnable> publish = new ArrayList<Runnable>(transaction.size()); //changes are only published once all are made.
+			boolean applied = false;
+			int operationNumber = 0;
+			try {
+				for (RosterTransaction.Operation operation : transaction.getOperations()) {
+					operationNumber++;
+					apply(operation, undo, publish);
+				}
+				applied = true;
+			} catch (RosterException exception) {
+				throw new RosterException(exception.getMessage() + " Change " + operationNumber
+						+ " of the transaction failed, so no changes were made.");
+			} finally {
+				if (!applied) {
+					while (!undo.isEmpty()) {
+						undo.pop().run();
+					}
+				}
+			}
+
+			List<WorkDay> changedDays = new ArrayList<WorkDay>();
+			for (WorkDay workDay : transaction.getWorkDays()) {
+				if (transaction.hasChanged(workDay)) { //a day is recorded by every change to it, but need not be changed.
+					changedDays.add(workDay);
+				}
+			}
+			if (!changedDays.isEmpty() || registers) {
+				publishVersion(changedDays.toArray(new WorkDay[changedDays.size()]), registers); //every change at once.
+			}
+			for (Runnable change : publish) {
+				change.run();
+			}
+			if (_journal != null) {
+				_journal.appendTransaction(transaction.getOperations());
+			}
+		} finally {
+			for (int dayIndex = dayLocked.length - 1; dayIndex >= 0; dayIndex--) {
+				if (dayLocked[dayIndex]) {
+					_weekSchedule._daysList.get(dayIndex).writeLock().unlock();
+				}
+			}
+			unlockStaff(registers);
+		}
+	}
+
+	/**
+	 * Make a change of a transaction, and record how to undo it. The staff list and the day of the change must be locked,
+	 * which they are as the transaction recorded every day its changes refer to.
+	 * @param operation
+	 * @param undo where the undoing of the change is pushed.
+	 * @param publish where the publishing of the change is added.
+	 * @throws RosterException
+	 */
+	private void apply(RosterTransaction.Operation operation, Deque<Runnable> undo, List<Runnable> publish)
+			throws RosterException {
+		String[] values = operation._values;
+		switch (operation._operation) {
+		case RosterJournal.SET_WORKING_HOURS: {
+			WorkDay workDay = _weekSchedule.getWorkDay(values[0]);
+			Hours workingHours = workDay.getWorkingHours();
+			workDay.setHours(values[1], values[2]);
+			undo.push(() -> workDay.setHours(workingHours));
+			Hours setHours = workDay.getWorkingHours();
+			publish.add(() -> _events.publishWorkingHours(workDay, setHours));
+			break;
+		}
+		case RosterJournal.ADD_SHIFT: {
+			WorkDay workDay = _weekSchedule.getWorkDay(values[0]);
+			WorkDay.Shift shift = workDay.new Shift(values[1], values[2], values[3]);
+			workDay.addShift(shift);
+			undo.push(() -> workDay.removeShift(shift));
+			publish.add(() -> _events.publishShiftAdded(shift, Integer.parseInt(values[3])));
+			break;
+		}
+		case RosterJournal.REGISTER_STAFF: {
+			Staff staff = new Staff(values[0], values[1]);
+			_staffList.registerStaff(staff);
+			undo.push(() -> _staffList.unregisterStaff(staff));
+			publish.add(() -> _events.publishStaffRegistered(staff));
+			break;
+		}
+		default: {
+			boolean isManager = operation._operation == RosterJournal.ASSIGN_MANAGER;
+			WorkDay workDay = _weekSchedule.getWorkDay(values[0]);
+			Staff staff = manageStaffList(values[3], values[4]);
+			WorkDay.Shift shift = workDay.assignStaff(staff, values[1], values[2], isManager);
+			_staffList.updateAssigned(staff);
+			undo.push(() -> {
+				workDay.unassignStaff(shift, staff, isManager);
+				_staffList.updateAssigned(staff);
+			});
+			publish.add(() -> _events.publishStaffAssigned(shift, staff, isManager));
+			break;
+		}
+		}
+	}
+
+	/**
+	 * Find a registered staff member.
+	 * @param staffName the name of the staff member in the format "given family".
+	 * @return the staff member, or null if they are not registered.
+	 */
+	Staff findStaff(String staffName) {
+		lockStaff(false);
+		try {
+			return _staffList.findStaff(staffName);
+		} finally {
+			unlockStaff(false);
+		}
 	}
 
 	/**
@@ -38,31 +587,44 @@ public class Shop {
 	 * @throws RosterException
 	 */
 	public List<String> getRoster(String rosterType, String rosterSpecific) throws RosterException {
-		List<String> rosterOutput = new ArrayList<String>();
+		return getRoster(RosterType.fromString(rosterType), rosterSpecific);
+	}
 
+	/**
+	 * Get a specified roster.
+	 * @param rosterType the type of roster to get.
+	 * @param rosterSpecific the specific day/worker/manager to get the roster for.
+	 * @return arraylist of string of the specified roster type.
+	 * @throws RosterException
+	 */
+	public List<String> getRoster(RosterType rosterType, String rosterSpecific) throws RosterException {
 		switch (rosterType) {
-		case "roster for day":
-			rosterOutput.add(_shopName);
+		case DAY:
+			WorkDay workDay = _weekSchedule.getWorkDay(rosterSpecific); //checks the day is valid.
+			loadDay(workDay); //only the day is needed, not the staff list or the other days.
+			return _version.get().getDayRoster(workDay.getDayIndex());
+		case WORKER:
+			lockStaff(false);
+			lockWeek(false); //the staff member's shifts can be on any day.
 			try {
-				rosterOutput.addAll(manageWeekSchedule(rosterSpecific).getDayRoster());
-			} catch (RosterException exception) {
-				if ((exception.getMessage()).equals("no day")) { //if getting a specific day is not possible, catch a specific exception.
-					return Collections.emptyList(); //return empty list.
-				} else {
-					throw new RosterException(exception.getMessage());
-				}
+				return _staffList.getShiftsAssignedBy(rosterSpecific); //get shifts assigned by work name.
+			} finally {
+				unlockWeek(false);
+				unlockStaff(false);
+			}
+		case MANAGER:
+			lockStaff(false);
+			lockWeek(false);
+			try {
+				return _staffList.getShiftsManagedBy(rosterSpecific); //get shifts of a specified manager.
+			} finally {
+				unlockWeek(false);
+				unlockStaff(false);
 			}
-			return rosterOutput;
-		case "roster for worker":
-			return _staffList.getShiftsAssignedBy(rosterSpecific); //get shifts assigned by work name.
-		case "roster for manager":
-			return _staffList.getShiftsManagedBy(rosterSpecific); //get shifts of a specified manager.
-		case "week roster summary":
-			rosterOutput.add("SHOP NAME: " + _shopName + " ");
-			rosterOutput.add(_weekSchedule.weekSummary()); //add summary of the week schedule.
-			return rosterOutput;
+		case WEEK_SUMMARY:
+			return getRosterVersion().getWeekSummary(); //summarised once for each version of the week.
 		default:
-			throw new UnsupportedOperationException("shop.getRoster must take a type string of \"roster for day\", \"roster for worker\" or \"roster for manager\"");
+			throw new UnsupportedOperationException("Shop.getRoster does not support " + rosterType);
 		}
 	}
 
@@ -72,13 +634,195 @@ public class Shop {
 	 * @return arraylist of string with all relevant staff.
 	 */
 	public List<String> getStaffInfo(String staffSpecific){
-		switch (staffSpecific) {
-		case "registered":
-			return _staffList.displayAllStaff(); //Display all registered staff.
-		case "unassigned":
-			return _staffList.displayUnassignedStaff(); //Display unassigned.
-		default:
-			throw new UnsupportedOperationException("Shop.getStaffInfo must take string arguments of either \"registered\" or \"unassigned\"");
+		return getStaffInfo(StaffFilter.fromString(staffSpecific));
+	}
+
+	/**
+	 * Get information about all staff (that is, in the staff list). 
+	 * @param filter the staff to include.
+	 * @return arraylist of string with all relevant staff.
+	 */
+	public List<String> getStaffInfo(StaffFilter filter){
+		return getRosterVersion().getStaffInfo(filter); //the staff and their assignments as of the same version.
+	}
+
+	/**
+	 * Get the latest version of the roster, to read from without locking. The staff list and every day are loaded from
+	 * the snapshot first, if they have not been already.
+	 * @return the version.
+	 */
+	public RosterVersion getRosterVersion() {
+		loadStaff();
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			loadDay(workDay);
+		}
+		return _version.get();
+	}
+
+	/**
+	 * Publish a new version of the roster. The locks of the change must still be held, so that each day's versions are
+	 * published in the order its changes were made.
+	 * @param changedDays the days that changed, which must be locked for writing.
+	 * @param staffChanged whether staff were registered, in which case the staff list must be locked for writing.
+	 */
+	private void publishVersion(WorkDay[] changedDays, boolean staffChanged) {
+		RosterVersion.DayVersion[] days = new RosterVersion.DayVersion[changedDays.length];
+		for (int index = 0; index < changedDays.length; index++) {
+			days[index] = changedDays[index].toVersion();
+		}
+		int staffCount = staffChanged ? _staffList.countStaff() : -1;
+		RosterVersion current, next;
+		do { //only changes to other days can publish in between, so this rarely retries.
+			current = _version.get();
+			next = current.next(days, staffCount < 0 ? current.getStaffCount() : staffCount);
+		} while (!_version.compareAndSet(current, next));
+	}
+
+	/**
+	 * Get a page of information about the staff in the staff list.
+	 * @param filter the staff to include.
+	 * @param after the name of the last staff member on the previous page, in the format "given family", or null for
+	 * the first page.
+	 * @param limit the most staff to include.
+	 * @return arraylist of string of the staff on the page, sorted by family name.
+	 * @throws RosterException if there is no staff member with the name given as the previous page's last.
+	 */
+	public List<String> getStaffInfo(StaffFilter filter, String after, int limit) throws RosterException {
+		lockAllStaff(false);
+		lockWeek(false); //assignments can change on any day.
+		try {
+			return _staffList.displayStaff(filter, after, limit);
+		} finally {
+			unlockWeek(false);
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Stream views of the staff in the staff list, sorted by family name. Nothing is locked while the stream is used,
+	 * so it reflects some but not necessarily all changes made at the same time.
+	 * @param filter the staff to include.
+	 * @return the staff, sorted by family name.
+	 */
+	public Stream<StaffView> streamStaff(StaffFilter filter) {
+		loadStaff();
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			loadDay(workDay); //whether staff are assigned depends on every day.
+		}
+		return _staffList.streamStaff(filter);
+	}
+
+	/**
+	 * Get views of the staff in the staff list.
+	 * @param filter the staff to include.
+	 * @return the staff, sorted by family name.
+	 */
+	public List<StaffView> getStaffViews(StaffFilter filter) {
+		lockAllStaff(false);
+		lockWeek(false);
+		try {
+			return _staffList.getStaffViews(filter);
+		} finally {
+			unlockWeek(false);
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Get the workloads of the most or least loaded staff.
+	 * @param mostLoaded true for the staff with the most minutes first, false for the least first.
+	 * @param limit the most staff to include.
+	 * @return the workloads, ordered by total minutes.
+	 */
+	public List<Workload> getWorkloads(boolean mostLoaded, int limit) {
+		lockAllStaff(false);
+		lockWeek(false); //workloads depend on every day.
+		try {
+			return _staffList.getWorkloads(mostLoaded, limit);
+		} finally {
+			unlockWeek(false);
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Get the workload of a staff member.
+	 * @param staffName the name of the staff member in the format "given family".
+	 * @return the workload.
+	 * @throws RosterException
+	 */
+	public Workload getWorkload(String staffName) throws RosterException {
+		lockStaff(false);
+		lockWeek(false);
+		try {
+			return _staffList.getStaff(staffName).getWorkload();
+		} finally {
+			unlockWeek(false);
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Get views of the shifts a staff member works or manages.
+	 * @param staffName the name of the staff member in the format "given family".
+	 * @param role the role the staff member has on the shifts.
+	 * @return the shifts, in order of day of the week and then start time.
+	 * @throws RosterException
+	 */
+	public List<ShiftView> getStaffShiftViews(String staffName, StaffRole role) throws RosterException {
+		lockStaff(false);
+		lockWeek(false);
+		try {
+			return _staffList.getStaff(staffName).getShiftViews(role);
+		} finally {
+			unlockWeek(false);
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Get views of the shifts of a day.
+	 * @param dayOfWeek
+	 * @return the shifts, in order of start time.
+	 * @throws RosterException
+	 */
+	public List<ShiftView> getDayShiftViews(String dayOfWeek) throws RosterException {
+		WorkDay workDay = manageWeekSchedule(dayOfWeek);
+		workDay.readLock().lock();
+		try {
+			return workDay.getShiftViews();
+		} finally {
+			workDay.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get the staffing coverage of a day of the week.
+	 * @param dayOfWeek
+	 * @return the coverage of the day.
+	 * @throws RosterException if the day is not valid.
+	 */
+	public DayCoverage getDayCoverage(String dayOfWeek) throws RosterException {
+		WorkDay workDay = manageWeekSchedule(dayOfWeek);
+		workDay.readLock().lock();
+		try {
+			return workDay.getCoverage();
+		} finally {
+			workDay.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Get views of the shifts with a specific problem.
+	 * @param problemType the problem to look for.
+	 * @return the shifts, in order of day of the week and then start time.
+	 */
+	public List<ShiftView> getProblemShiftViews(ProblemType problemType) {
+		lockWeek(false);
+		try {
+			return _weekSchedule.getProblemViews(problemType);
+		} finally {
+			unlockWeek(false);
 		}
 	}
 
@@ -89,7 +833,64 @@ public class Shop {
 	 * @return arraylist of string containing all shifts with the specific problem.
 	 */
 	public List<String> investigateWeekSchedule(String problemType) {
-		return _weekSchedule.getProblems(problemType);
+		return investigateWeekSchedule(ProblemType.fromString(problemType));
+	}
+
+	/**
+	 * Investigates a specific problem with any current roster. 
+	 * @param problemType the problem to look for.
+	 * @return arraylist of string containing all shifts with the specific problem.
+	 */
+	public List<String> investigateWeekSchedule(ProblemType problemType) {
+		lockWeek(false);
+		try {
+			return _weekSchedule.getProblems(problemType);
+		} finally {
+			unlockWeek(false);
+		}
+	}
+
+	/**
+	 * Count the shifts with a specific problem with any current roster.
+	 * @param problemType the problem to look for.
+	 * @return the number of shifts with the problem.
+	 */
+	public int countWeekScheduleProblems(ProblemType problemType) {
+		lockWeek(false);
+		try {
+			return _weekSchedule.countProblems(problemType);
+		} finally {
+			unlockWeek(false);
+		}
+	}
+
+	/**
+	 * @return the number of staff registered into the roster.
+	 */
+	public int countStaff() {
+		lockStaff(false);
+		try {
+			return _staffList.countStaff();
+		} finally {
+			unlockStaff(false);
+		}
+	}
+
+	/**
+	 * Count the shifts of each day of the week.
+	 * @return the number of shifts, by day index.
+	 */
+	public int[] countShifts() {
+		int[] shifts = new int[_weekSchedule._daysList.size()];
+		lockWeek(false);
+		try {
+			for (WorkDay workDay : _weekSchedule._daysList) {
+				shifts[workDay.getDayIndex()] = workDay.countShifts();
+			}
+		} finally {
+			unlockWeek(false);
+		}
+		return shifts;
 	}
 
 	/**
@@ -99,7 +900,9 @@ public class Shop {
 	 * @throws RosterException
 	 */
 	public WorkDay manageWeekSchedule(String dayOfWeek) throws RosterException {
-		return _weekSchedule.getWorkDay(dayOfWeek);
+		WorkDay workDay = _weekSchedule.getWorkDay(dayOfWeek);
+		loadDay(workDay);
+		return workDay;
 	}
 
 	/**
@@ -113,6 +916,179 @@ public class Shop {
 		return _staffList.getStaff(givenName + " " + familyName);
 	}
 
+	/**
+	 * @return the days of the week, in order. The days must be locked before they are used.
+	 */
+	public List<WorkDay> getWorkDays() {
+		return Collections.unmodifiableList(_weekSchedule._daysList);
+	}
+
+	/**
+	 * Replace the shop. Changes already under way are let finish, then the replacement is made while the staff list and
+	 * every day are locked, so no change can be made to the shop between them. Once the replacement is made, the shop
+	 * refuses every change. The snapshot is not loaded just to lock the shop.
+	 * @param replacement makes the replacement, e.g. recording it in the journal and handing out the new shop.
+	 * @throws IOException if the replacement could not be made, in which case the shop is still in use.
+	 */
+	void retire(Replacement replacement) throws IOException {
+		_staffLock.writeLock().lock();
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			workDay.writeLock().lock();
+		}
+		try {
+			replacement.replace();
+			_retired = true;
+		} finally {
+			for (WorkDay workDay : _weekSchedule._daysList) {
+				workDay.writeLock().unlock();
+			}
+			_staffLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The shifts and days changed by a batch of assignments, which are sorted and published once the batch is finished.
+	 */
+	static final class AssignmentBatch {
+		private final Set<WorkDay.Shift> _shifts = Collections.newSetFromMap(new IdentityHashMap<WorkDay.Shift, Boolean>());
+		private int _days; //bit for each day index changed.
+
+		private void add(WorkDay workDay, WorkDay.Shift shift) {
+			_shifts.add(shift);
+			_days |= 1 << workDay.getDayIndex();
+		}
+	}
+
+	/**
+	 * Makes the replacement of a shop.
+	 */
+	interface Replacement {
+		void replace() throws IOException;
+	}
+
+	/**
+	 * Check that a change can be made, which must be done while holding the locks of the change and before anything is
+	 * changed. A replaced shop takes no more changes, so none are recorded in the journal after the replacement, and no
+	 * changes are made once the journal can no longer record them.
+	 * @throws RosterException
+	 */
+	private void checkWritable() throws RosterException {
+		if (_retired) {
+			throw REPLACED;
+		}
+		if (_journal != null) {
+			_journal.checkWritable();
+		}
+	}
+
+	/**
+	 * Lock the staff list. Staff are found by name whether or not the staff list has been read from the snapshot, but
+	 * to list the staff use {@link #lockAllStaff(boolean)}.
+	 * @param write true to lock for changes, false to lock for reading.
+	 */
+	public void lockStaff(boolean write) {
+		if (write) {
+			_staffLock.writeLock().lock();
+		} else {
+			_staffLock.readLock().lock();
+		}
+	}
+
+	/**
+	 * Lock the staff list, having first read every staff member from the snapshot, so the staff can be listed. Must not
+	 * be called holding the staff lock unless the staff have already been listed.
+	 * @param write true to lock for changes, false to lock for reading.
+	 */
+	public void lockAllStaff(boolean write) {
+		loadStaff();
+		lockStaff(write);
+	}
+
+	/**
+	 * Unlock the staff list.
+	 * @param write must match the value given to {@link #lockStaff(boolean)} or {@link #lockAllStaff(boolean)}.
+	 */
+	public void unlockStaff(boolean write) {
+		if (write) {
+			_staffLock.writeLock().unlock();
+		} else {
+			_staffLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Lock every day of the week, in week order.
+	 * @param write true to lock for changes, false to lock for reading.
+	 */
+	public void lockWeek(boolean write) {
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			loadDay(workDay);
+		}
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			(write ? workDay.writeLock() : workDay.readLock()).lock();
+		}
+	}
+
+	/**
+	 * Unlock every day of the week.
+	 * @param write must match the value given to {@link #lockWeek(boolean)}.
+	 */
+	public void unlockWeek(boolean write) {
+		for (WorkDay workDay : _weekSchedule._daysList) {
+			(write ? workDay.writeLock() : workDay.readLock()).unlock();
+		}
+	}
+
+	/**
+	 * List every staff member of the snapshot, if the shop has one and they are not listed yet.
+	 */
+	private void loadStaff() {
+		if (_snapshot == null || _loadedStaff) {
+			return;
+		}
+		_staffLock.writeLock().lock();
+		try {
+			if (!_loadedStaff) {
+				_staffList.listSnapshotStaff();
+				publishVersion(NO_DAYS, true);
+				_loadedStaff = true;
+			}
+		} finally {
+			_staffLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Load a day from the snapshot, if the shop has one and the day is not loaded yet.
+	 * @param workDay
+	 */
+	private void loadDay(WorkDay workDay) {
+		int dayBit = 1 << workDay.getDayIndex();
+		if (_snapshot == null || (_loadedDays & dayBit) != 0) {
+			return;
+		}
+		synchronized (_snapshot) {
+			if ((_loadedDays & dayBit) == 0) {
+				workDay.writeLock().lock();
+				try {
+					_snapshot.loadDay(workDay, _snapshotStaff);
+					for (ShiftView shift : workDay.getShiftViews()) { //listed staff may now have shifts.
+						if (shift.getManager() != null) {
+							_staffList.updateAssigned(_snapshotStaff[shift.getManager().getId()]);
+						}
+						for (StaffView worker : shift.getWorkers()) {
+							_staffList.updateAssigned(_snapshotStaff[worker.getId()]);
+						}
+					}
+					publishVersion(new WorkDay[] {workDay}, false);
+				} finally {
+					workDay.writeLock().unlock();
+				}
+				_loadedDays |= dayBit;
+			}
+		}
+	}
+
 	@Override
 	public String toString() {
 		return _shopName; //return the name of the shop.
@@ -0,0 +1,125 @@
+package shiftman.server;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the rosters of many shops in one process, keyed by shop name. Every ShiftMan operation takes the name of the shop
+ * it is for and is passed on to that shop's own ShiftManServer.
+ * 
+ * <p>Shops are held in a single concurrent map, whose reads take no lock and whose updates only lock one bin of the
+ * map. Every shop has its own locks, so operations on different shops never wait for each other. Operations on a shop
+ * that has not been created report that no roster has been created.
+ */
+public class ShopRegistry {
+
+	private final ConcurrentHashMap<String, ShiftManServer> _shops = new ConcurrentHashMap<String, ShiftManServer>();
+	//answers for shops that have no roster. Each registry has its own, so its metrics go when the registry does.
+	private final ShiftManServer _noRoster = new ShiftManServer();
+
+	/**
+	 * Start a new roster for the shop with the supplied name, replacing any roster it already has.
+	 * @param shopName The name of the shop the roster is for.
+	 * @return The status of the request, as for {@link ShiftMan#newRoster(String)}.
+	 */
+	public String newRoster(String shopName) {
+		ShiftManServer server = new ShiftManServer();
+		String status = server.newRoster(shopName);
+		if (status.isEmpty()) {
+			_shops.put(shopName, server);
+		}
+		return status;
+	}
+
+	/**
+	 * Remove the roster of a shop.
+	 * @param shopName The name of the shop.
+	 * @return true if the shop had a roster.
+	 */
+	public boolean removeRoster(String shopName) {
+		return shopName != null && _shops.remove(shopName) != null;
+	}
+
+	/**
+	 * Get the server for a shop, to call several operations on it directly.
+	 * @param shopName The name of the shop.
+	 * @return the shop's server, or null if the shop has no roster.
+	 */
+	public ShiftManServer getShop(String shopName) {
+		return shopName == null ? null : _shops.get(shopName);
+	}
+
+	/**
+	 * @return the number of shops with a roster.
+	 */
+	public int size() {
+		return _shops.size();
+	}
+
+	public String setWorkingHours(String shopName, String dayOfWeek, String startTime, String endTime) {
+		return route(shopName).setWorkingHours(dayOfWeek, startTime, endTime);
+	}
+
+	public String addShift(String shopName, String dayOfWeek, String startTime, String endTime, String minimumWorkers) {
+		return route(shopName).addShift(dayOfWeek, startTime, endTime, minimumWorkers);
+	}
+
+	public String registerStaff(String shopName, String givenname, String familyName) {
+		return route(shopName).registerStaff(givenname, familyName);
+	}
+
+	public String assignStaff(String shopName, String dayOfWeek, String startTime, String endTime, String givenName,
+			String familyName, boolean isManager) {
+		return route(shopName).assignStaff(dayOfWeek, startTime, endTime, givenName, familyName, isManager);
+	}
+
+	public List<String> getRegisteredStaff(String shopName) {
+		return route(shopName).getRegisteredStaff();
+	}
+
+	public List<String> getUnassignedStaff(String shopName) {
+		return route(shopName).getUnassignedStaff();
+	}
+
+	public List<String> shiftsWithoutManagers(String shopName) {
+		return route(shopName).shiftsWithoutManagers();
+	}
+
+	public List<String> understaffedShifts(String shopName) {
+		return route(shopName).understaffedShifts();
+	}
+
+	public List<String> overstaffedShifts(String shopName) {
+		return route(shopName).overstaffedShifts();
+	}
+
+	public List<String> getRosterForDay(String shopName, String dayOfWeek) {
+		return route(shopName).getRosterForDay(dayOfWeek);
+	}
+
+	public List<String> getRosterForWorker(String shopName, String workerName) {
+		return route(shopName).getRosterForWorker(workerName);
+	}
+
+	public List<String> getShiftsManagedBy(String shopName, String managerName) {
+		return route(shopName).getShiftsManagedBy(managerName);
+	}
+
+	public String reportRosterIssues(String shopName) {
+		return route(shopName).reportRosterIssues();
+	}
+
+	public String displayRoster(String shopName) {
+		return route(shopName).displayRoster();
+	}
+
+	/**
+	 * Find the server an operation for a shop should go to.
+	 * @param shopName
+	 * @return the shop's server, or a server with no roster if the shop has none.
+	 */
+	private ShiftMan route(String shopName) {
+		ShiftMan server = getShop(shopName);
+		return server == null ? _noRoster : server;
+	}
+}
@@ -1,14 +1,78 @@
 package shiftman.server;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
 
 /**
  * Staff lift for the shop. General management for the staff list.
+ * Staff are indexed by their case-folded name for lookups, and kept in family name order for display.
+ * The staff without any shifts are kept in a second set, updated as staff are assigned, so they can be listed without
+ * checking every staff member. Both sets are concurrent, so they can be paged through or streamed while staff are
+ * registered and assigned. A concurrent map keeps every staff member in order of how many minutes they work and manage,
+ * so the most and least loaded staff can be found without totalling everyone's shifts. A staff member is re-placed in
+ * it by removing them and putting them back under their new minutes, so staff assigned on different days at once do not
+ * wait for each other.
+ *
+ * <p>A staff list loaded from a {@link RosterSnapshot} finds each snapshot staff member by name in the snapshot the first
+ * time they are looked up. The snapshot staff are only added to the sets once they are all listed, with
+ * {@link #listSnapshotStaff()}, which is done before the staff are first listed. Until then the sets only hold the staff
+ * registered since the snapshot was loaded.
  */
 public class ShopStaffList {
-	private List<Staff> _staffList = new ArrayList<Staff>();
+
+	/**
+	 * Orders staff by family name. Two different staff can only compare equal if their names are split differently between
+	 * given and family name, so ties are broken on the full name to keep them both in the set.
+	 */
+	private static final Comparator<Staff> FAMILY_NAME_ORDER = new Comparator<Staff>() {
+		@Override
+		public int compare(Staff staff, Staff compare) {
+			int comparison = staff.compareTo(compare);
+			if (comparison != 0) {
+				return comparison;
+			}
+			return (staff.getName(NameType.FIRST_LAST)).compareTo(compare.getName(NameType.FIRST_LAST));
+		}
+	};
+
+	//staff keyed by case-folded full name. Concurrent, as snapshot staff are added when looked up with the list read-locked.
+	private final Map<String, Staff> _staffIndex = new ConcurrentHashMap<String, Staff>();
+	//staff sorted by family name.
+	private final NavigableSet<Staff> _staffList = new ConcurrentSkipListSet<Staff>(FAMILY_NAME_ORDER);
+	//staff not working or managing any shift, sorted by family name.
+	private final NavigableSet<Staff> _unassignedStaff = new ConcurrentSkipListSet<Staff>(FAMILY_NAME_ORDER);
+	//staff keyed by their total minutes as last placed, then staff id. See workloadKey.
+	private final ConcurrentSkipListMap<Long, Staff> _workloadOrder = new ConcurrentSkipListMap<Long, Staff>();
+	private final RosterSnapshot _snapshot; //where staff not yet in the index are looked up, or null.
+	private final Staff[] _snapshotStaff; //the staff created from the snapshot so far, by staff id.
+	private volatile boolean _listed; //whether every snapshot staff member is in the index and the sets.
+	private int _staffCount; //the number of staff registered, including snapshot staff not yet created.
+
+	public ShopStaffList() {
+		_snapshot = null;
+		_snapshotStaff = new Staff[0];
+		_listed = true;
+	}
+
+	/**
+	 * Create the staff list of a snapshot, without reading any of its staff.
+	 * @param snapshot
+	 * @param snapshotStaff the staff created from the snapshot so far, by staff id, shared with the loading of days.
+	 */
+	ShopStaffList(RosterSnapshot snapshot, Staff[] snapshotStaff) {
+		_snapshot = snapshot;
+		_snapshotStaff = snapshotStaff;
+		_staffCount = snapshotStaff.length;
+	}
 
 	/**
 	 * Register staff into the shop staff list.
@@ -16,14 +80,115 @@ public class ShopStaffList {
 	 * @throws RosterException
 	 */
 	public void registerStaff(Staff staff) throws RosterException {
-		for (Staff staffCompare : _staffList) {
-			//checks for already registered staff member. Names are case insensitive.
-			if ((staff.getName("firstlast")).equalsIgnoreCase(staffCompare.getName("firstlast"))) {
-				throw new RosterException("ERROR: " + staff.getName("firstlast") + "already registered.");
+		String key = foldName(staff.getName(NameType.FIRST_LAST));
+
+		//checks for already registered staff member. Names are case insensitive.
+		if (lookup(key) != null) {
+			throw new RosterException("ERROR: " + staff.getName(NameType.FIRST_LAST) + "already registered.");
+		}
+		staff.setId(_staffCount++); //ids are dense, as staff are never removed.
+		_staffIndex.put(key, staff);
+		_staffList.add(staff); //inserted in family name order.
+		updateAssigned(staff);
+	}
+
+	/**
+	 * Remove a staff member that has no shifts from the staff list, such as when a transaction is rolled back. Only the
+	 * most recently registered staff member can be removed, so that staff ids stay dense.
+	 * @param staff
+	 */
+	void unregisterStaff(Staff staff) {
+		_staffCount--;
+		_staffIndex.remove(foldName(staff.getName(NameType.FIRST_LAST)));
+		_staffList.remove(staff);
+		synchronized (staff) {
+			_unassignedStaff.remove(staff);
+			_workloadOrder.remove(workloadKey(staff.getIndexedMinutes(), staff));
+		}
+	}
+
+	/**
+	 * Update whether the staff member is listed as unassigned, and their place in the workload order. Called whenever the
+	 * staff member's shifts change. Snapshot staff are only placed once they are all listed.
+	 * @param staff a registered staff member.
+	 */
+	public void updateAssigned(Staff staff) {
+		if (!_listed && staff.getId() < _snapshotStaff.length) {
+			return;
+		}
+		synchronized (staff) { //a staff member can be assigned on several days at once, but is re-placed by one at a time.
+			//checked under the same monitor, so a rollback on one day cannot leave them listed by an assignment on another.
+			if (staff.isAssigned()) {
+				_unassignedStaff.remove(staff);
+			} else {
+				_unassignedStaff.add(staff);
+			}
+			_workloadOrder.remove(workloadKey(staff.getIndexedMinutes(), staff)); //found by the minutes it was placed with.
+			int minutes = staff.getTotalMinutes();
+			staff.setIndexedMinutes(minutes);
+			_workloadOrder.put(workloadKey(minutes, staff), staff);
+		}
+	}
+
+	/**
+	 * The key of a staff member in the workload order, which orders staff by total minutes with ties broken by staff id.
+	 * @param minutes the staff member's total minutes, which are never negative.
+	 * @param staff
+	 * @return the key.
+	 */
+	private static long workloadKey(int minutes, Staff staff) {
+		return (long) minutes << 32 | staff.getId();
+	}
+
+	/**
+	 * Get the workloads of the most or least loaded staff. The staff list and every day must be locked for reading, so
+	 * no one is re-placed while the order is read.
+	 * @param mostLoaded true for the staff with the most minutes first, false for the least first.
+	 * @param limit the most staff to include.
+	 * @return the workloads, ordered by total minutes. Staff with the same minutes are in the order they were registered,
+	 * or the reverse for the most loaded.
+	 */
+	public List<Workload> getWorkloads(boolean mostLoaded, int limit) {
+		List<Workload> output = new ArrayList<Workload>(Math.min(limit, _staffCount));
+		for (Staff staff : (mostLoaded ? _workloadOrder.descendingMap() : _workloadOrder).values()) {
+			if (output.size() == limit) {
+				break;
+			}
+			output.add(staff.getWorkload());
+		}
+		return output;
+	}
+
+	/**
+	 * @return the number of staff registered. The staff list must be locked.
+	 */
+	public int countStaff() {
+		return _staffCount;
+	}
+
+	/**
+	 * Add every snapshot staff member to the index and the sets, creating those not created yet, so the staff can be
+	 * listed. The staff list must be locked for changes.
+	 */
+	void listSnapshotStaff() {
+		if (_listed) {
+			return;
+		}
+		synchronized (_snapshot) { //staff are created from the snapshot holding its monitor.
+			for (int id = 0; id < _snapshotStaff.length; id++) {
+				Staff staff = _snapshot.staff(_snapshotStaff, id);
+				Staff indexed = _staffIndex.putIfAbsent(foldName(staff.getName(NameType.FIRST_LAST)), staff);
+				if (indexed != null && indexed != staff) {
+					throw new IllegalStateException("Roster snapshot is corrupt: " + staff.getName(NameType.FIRST_LAST)
+							+ " is registered twice.");
+				}
+				_staffList.add(staff);
+			}
+			_listed = true;
+			for (int id = 0; id < _snapshotStaff.length; id++) {
+				updateAssigned(_snapshotStaff[id]);
 			}
 		}
-		_staffList.add(staff);
-		Collections.sort(_staffList); //sort staff list by family name.
 	}
 
 	/**
@@ -33,18 +198,29 @@ public class ShopStaffList {
 	 * @throws RosterException
 	 */
 	public Staff getStaff(String staffName) throws RosterException {
-		int current = 0;
-
-		for (Staff staffCompare : _staffList) {
-			if (staffName.equals(staffCompare.getName("firstlast"))) {
-				return _staffList.get(current);
-			}
-			current++;
+		Staff staff = findStaff(staffName);
+		if (staff != null) {
+			return staff;
 		}
 
 		throw new RosterException("ERROR: cannot assign " + staffName + ", because they have not been registered into the roster yet.");
 	}
 
+	/**
+	 * Find a registered staff member, without the cost of an error if they are not registered.
+	 * @param staffName the name of the staff member in the format "given family".
+	 * @return the staff member, or null if they are not registered.
+	 */
+	Staff findStaff(String staffName) {
+		Staff staff = lookup(foldName(staffName));
+
+		//The index ignores case, but the name must still match exactly.
+		if (staff != null && staffName.equals(staff.getName(NameType.FIRST_LAST))) {
+			return staff;
+		}
+		return null;
+	}
+
 	/**
 	 * Get shifts assigned by the specified staff. It will then get the relevant staff to retrieve the information from.
 	 * @param staffName
@@ -72,35 +248,133 @@ public class ShopStaffList {
 	}
 
 	/**
-	 * Get all the staff that are unassigned in the shop staff list.
-	 * @return arraylist of string of all the staff that are unassigned.
+	 * Display a page of the staff in the shop staff list.
+	 * @param filter which staff to include.
+	 * @param after the name of the last staff member on the previous page, in the format "given family", or null for
+	 * the first page.
+	 * @param limit the most staff to include.
+	 * @return arraylist of string of the staff on the page, in family name order.
+	 * @throws RosterException if there is no staff member with the name given as the previous page's last.
 	 */
-	public List<String> displayUnassignedStaff() {
-		List<String> output = new ArrayList<String>();
+	public List<String> displayStaff(StaffFilter filter, String after, int limit) throws RosterException {
+		List<String> output = new ArrayList<String>(Math.min(limit, _staffList.size()));
 
-		for (Staff staff : _staffList) {
-			//If the staff is neither assigned shifts nor assigned to shifts to manage, add to the list.
-			if (staff.getShiftList().isEmpty() && staff.getManagingShifts().isEmpty()) {
-				output.add(staff.getName("firstlast"));
+		for (Staff staff : page(filter, after)) {
+			if (output.size() == limit) {
+				break;
 			}
+			output.add(staff.getName(NameType.FIRST_LAST));
 		}
 
 		return output;
 	}
 
 	/**
-	 * Display all registered staff in the shop staff list.
-	 * @return arraylist of string of all the shop staff members.
+	 * Display the staff registered as of a version of the roster, without locking the staff list. Staff registered since
+	 * then are skipped by their id, as ids are given in order of registration.
+	 * @param staffCount the number of staff registered in the version.
+	 * @param assigned the ids of the staff with shifts in the version, to skip, or null to include every staff member.
+	 * @return arraylist of string of the staff, in family name order.
 	 */
-	public List<String> displayAllStaff() {
-
-		List<String> output = new ArrayList<String>();
+	List<String> displayStaff(int staffCount, BitSet assigned) {
+		List<String> output = new ArrayList<String>(staffCount);
 
 		for (Staff staff : _staffList) {
-			output.add(staff.getName("firstlast")); //Add to list the staff name.
+			int id = staff.getId();
+			if (id < staffCount && (assigned == null || !assigned.get(id))) {
+				output.add(staff.getName(NameType.FIRST_LAST));
+			}
 		}
 
 		return output;
 	}
 
+	/**
+	 * Get views of the staff in the shop staff list.
+	 * @param filter which staff to include.
+	 * @return the staff, sorted by family name.
+	 */
+	public List<StaffView> getStaffViews(StaffFilter filter) {
+		NavigableSet<Staff> staffList = staffOf(filter);
+		List<StaffView> views = new ArrayList<StaffView>(staffList.size());
+		for (Staff staff : staffList) {
+			views.add(staff.getView());
+		}
+		return views;
+	}
+
+	/**
+	 * Stream views of the staff in the shop staff list, in family name order. The stream does not need the staff list
+	 * to be locked. It is weakly consistent: it reflects some but not necessarily all changes made while it is used.
+	 * @param filter which staff to include.
+	 * @return the staff, sorted by family name.
+	 */
+	public Stream<StaffView> streamStaff(StaffFilter filter) {
+		return staffOf(filter).stream().map(Staff::getView);
+	}
+
+	/**
+	 * @param filter which staff to include.
+	 * @return the set of the staff, in family name order.
+	 */
+	private NavigableSet<Staff> staffOf(StaffFilter filter) {
+		switch (filter) {
+		case REGISTERED:
+			return _staffList;
+		case UNASSIGNED:
+			return _unassignedStaff;
+		default:
+			throw new UnsupportedOperationException("ShopStaffList does not support " + filter);
+		}
+	}
+
+	/**
+	 * Get the staff after a page's last staff member.
+	 * @param filter which staff to include.
+	 * @param after the name of the last staff member on the previous page, or null for the first page.
+	 * @return the staff after the given staff member, in family name order.
+	 * @throws RosterException if there is no staff member with the given name.
+	 */
+	private NavigableSet<Staff> page(StaffFilter filter, String after) throws RosterException {
+		NavigableSet<Staff> staffList = staffOf(filter);
+		if (after == null) {
+			return staffList;
+		}
+		Staff last = _staffIndex.get(foldName(after));
+		if (last == null || !after.equals(last.getName(NameType.FIRST_LAST))) {
+			throw new RosterException("ERROR: " + after + " is not a registered staff member to list staff after.");
+		}
+		return staffList.tailSet(last, false); //the last staff member may have since been assigned, so need not be in the set.
+	}
+
+	/**
+	 * Find a staff member by their case-folded name, creating them from the snapshot if they have not been created yet.
+	 * @param key the case-folded name.
+	 * @return the staff member, or null if they are not registered.
+	 */
+	private Staff lookup(String key) {
+		Staff staff = _staffIndex.get(key);
+		if (staff != null || _listed) {
+			return staff;
+		}
+		synchronized (_snapshot) { //the staff member may be created by a day being loaded at the same time.
+			int id = _snapshot.findStaff(key);
+			if (id < 0) {
+				return null;
+			}
+			staff = _snapshot.staff(_snapshotStaff, id);
+			_staffIndex.put(key, staff);
+			return staff;
+		}
+	}
+
+	/**
+	 * Fold a staff name so that names differing only by case share the same key.
+	 * @param staffName
+	 * @return the case-folded name.
+	 */
+	static String foldName(String staffName) {
+		return staffName.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+	}
+
 }
@@ -1,100 +1,263 @@
 package shiftman.server;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * The staff and all its information to do with the staff inside it.
  * Describes the shifts of the staff and any shifts they are managing.
+ * A staff member can be assigned shifts on different days at the same time, so their shift lists are synchronized.
+ * The shifts are kept as shift ids in the order of the shifts, so adding one is a binary search rather than a sort.
+ * The minutes the staff member works and manages are totalled as shifts are added, so their workload never needs the
+ * shifts to be counted again. Only the shifts of the shop's template week are listed and totalled; shifts on the dated
+ * weeks of a {@link RosterHorizon} are not.
  */
 public class Staff implements Comparable<Staff> {
 
-	private String _lastName, _firstName;
-	private final List<WorkDay.Shift> _shiftsAssigned = new ArrayList<WorkDay.Shift>(); //shifts assigned to the staff member.
-	private final List<WorkDay.Shift> _shiftsManaging = new ArrayList<WorkDay.Shift>(); //shifts managed by the staff member.
+	private final String _lastName, _firstName;
+	//Names in the formats used for display and sorting, built once as they never change.
+	private final String _firstLastName, _lastFirstName, _rosterName;
+	private final StaffView _view = new StaffView(this);
+	private int _id = -1; //dense id given when the staff member is registered to a shop.
+	private ShiftTable _shiftTable; //where the ids of the staff member's shifts are looked up.
+	private final ShiftIds _shiftsAssigned = new ShiftIds(); //shifts assigned to the staff member.
+	private final ShiftIds _shiftsManaging = new ShiftIds(); //shifts managed by the staff member.
+	private volatile long _version; //changed whenever the staff member's shifts change.
+	private int _workerMinutes, _managerMinutes;
+	private final int[] _dayMinutes = new int[7]; //minutes worked or managed on each day of the week.
+	private int _indexedMinutes; //total minutes as last placed in the shop's workload order.
 
 	public Staff(String firstName, String lastName) {
 		_lastName = lastName;
 		_firstName = firstName;
+		_firstLastName = firstName + " " + lastName;
+		_lastFirstName = lastName + " " + firstName;
+		_rosterName = lastName + ", " + firstName;
 	}
 
 	/**
 	 * Add in a shift that the staff is working for.
 	 * @param shift
 	 */
-	public void updateShifts(WorkDay.Shift shift) {
-		_shiftsAssigned.add(shift);
-		Collections.sort(_shiftsAssigned);
+	public synchronized void updateShifts(WorkDay.Shift shift) {
+		if (shift.getWorkDay().getDate() != null) {
+			return; //only the shifts of the template week are listed, not those of dated weeks.
+		}
+		_shiftTable = shift.getShiftTable();
+		_shiftsAssigned.add(shift, _shiftTable);
+		_workerMinutes += addMinutes(shift, 1);
+		_version++;
 	}
 
 	/**
 	 * Add in a shift that the staff is managing for.
 	 * @param shift
 	 */
-	public void updateManaging(WorkDay.Shift shift) {
-		_shiftsManaging.add(shift);
-		Collections.sort(_shiftsManaging);
+	public synchronized void updateManaging(WorkDay.Shift shift) {
+		if (shift.getWorkDay().getDate() != null) {
+			return; //only the shifts of the template week are listed, not those of dated weeks.
+		}
+		_shiftTable = shift.getShiftTable();
+		_shiftsManaging.add(shift, _shiftTable);
+		_managerMinutes += addMinutes(shift, 1);
+		_version++;
 	}
 
 	/**
-	 * Get a list of all shifts the staff is managing for.
-	 * @return
+	 * Remove a shift that the staff is working for, such as when a transaction is rolled back.
+	 * @param shift
 	 */
-	public List<String> getManagingShifts(){
-		if (_shiftsManaging.isEmpty()) {
-			return Collections.emptyList(); //no relevant shifts will return an empty list.
+	synchronized void removeShift(WorkDay.Shift shift) {
+		if (shift.getWorkDay().getDate() != null) {
+			return; //only the shifts of the template week are listed, not those of dated weeks.
 		}
+		_shiftsAssigned.remove(shift);
+		_workerMinutes += addMinutes(shift, -1);
+		_version++;
+	}
 
-		List<String> output = new ArrayList<String>();
-		output.add(this.getName("last") + ", " + this.getName("first"));
-		for (WorkDay.Shift shift : _shiftsManaging) { //iterate through shifts managing.
-			output.add(shift.getShiftDetails());
+	/**
+	 * Remove a shift that the staff is managing for, such as when a transaction is rolled back.
+	 * @param shift
+	 */
+	synchronized void removeManaging(WorkDay.Shift shift) {
+		if (shift.getWorkDay().getDate() != null) {
+			return; //only the shifts of the template week are listed, not those of dated weeks.
 		}
-		return output;
+		_shiftsManaging.remove(shift);
+		_managerMinutes += addMinutes(shift, -1);
+		_version++;
+	}
+
+	/**
+	 * Add the minutes of a shift to its day's total.
+	 * @param shift
+	 * @param sign 1 when the shift is added, -1 when it is removed.
+	 * @return the minutes added.
+	 */
+	private int addMinutes(WorkDay.Shift shift, int sign) {
+		int minutes = sign * (shift.getEnd() - shift.getStart());
+		_dayMinutes[shift.getWorkDay().getDayIndex()] += minutes;
+		return minutes;
+	}
+
+	/**
+	 * @return the minutes of every shift the staff member works or manages.
+	 */
+	public synchronized int getTotalMinutes() {
+		return _workerMinutes + _managerMinutes;
+	}
+
+	/**
+	 * Get the workload of the staff member as it is now.
+	 * @return the workload.
+	 */
+	public synchronized Workload getWorkload() {
+		return new Workload(_view, _workerMinutes, _managerMinutes, _shiftsAssigned._size, _shiftsManaging._size,
+				_dayMinutes.clone());
+	}
+
+	/**
+	 * The total minutes of the staff member when they were last placed in the shop's workload order. Only changed by
+	 * the staff list while it holds the staff member's monitor, so the key they were placed under is always known.
+	 */
+	int getIndexedMinutes() {
+		return _indexedMinutes;
+	}
+
+	void setIndexedMinutes(int minutes) {
+		_indexedMinutes = minutes;
+	}
+
+	/**
+	 * Get the version of the staff member. It changes whenever the shifts they work or manage change.
+	 * @return the version of the staff member.
+	 */
+	public long getVersion() {
+		return _version;
+	}
+
+	/**
+	 * Get a list of all shifts the staff is managing for.
+	 * @return
+	 */
+	public synchronized List<String> getManagingShifts(){
+		return getShiftDetails(_shiftsManaging);
 	}
 
 	/**
 	 * Get a list of all shifts the staff is working for.
 	 * @return arraylist of all shifts the staff is assigned to.
 	 */
-	public List<String> getShiftList(){
-		if (_shiftsAssigned.isEmpty()) {
-			return Collections.emptyList();
+	public synchronized List<String> getShiftList(){
+		return getShiftDetails(_shiftsAssigned);
+	}
+
+	private List<String> getShiftDetails(ShiftIds shifts) {
+		if (shifts._size == 0) {
+			return Collections.emptyList(); //no relevant shifts will return an empty list.
 		}
 
-		List<String> output = new ArrayList<String>();
-		output.add(this.getName("last") + ", " + this.getName("first"));
-		for (WorkDay.Shift shift: _shiftsAssigned) { //iterate through shifts assigned.
-			output.add(shift.getShiftDetails());
+		List<String> output = new ArrayList<String>(shifts._size + 1);
+		output.add(_rosterName);
+		for (int index = 0; index < shifts._size; index++) { //iterate through the shifts in order.
+			output.add(_shiftTable.get(shifts._ids[index]).getShiftDetails());
 		}
 		return output;
 	}
 
+	/**
+	 * @return true if the staff is working or managing any shift.
+	 */
+	public synchronized boolean isAssigned() {
+		return _shiftsAssigned._size != 0 || _shiftsManaging._size != 0;
+	}
+
+	/**
+	 * Get views of the shifts the staff is working or managing.
+	 * @param role the role the staff has on the shifts.
+	 * @return the shifts, in order of day of the week and then start time.
+	 */
+	public synchronized List<ShiftView> getShiftViews(StaffRole role) {
+		ShiftIds shifts;
+		switch (role) {
+		case MANAGER:
+			shifts = _shiftsManaging;
+			break;
+		case WORKERS:
+			shifts = _shiftsAssigned;
+			break;
+		default:
+			throw new UnsupportedOperationException("Staff.getShiftViews does not support " + role);
+		}
+		List<ShiftView> views = new ArrayList<ShiftView>(shifts._size);
+		for (int index = 0; index < shifts._size; index++) {
+			views.add(_shiftTable.get(shifts._ids[index]).getView());
+		}
+		return views;
+	}
+
+	/**
+	 * @return the id given to the staff member when they were registered, or -1 if they are not registered.
+	 */
+	public int getId() {
+		return _id;
+	}
+
+	void setId(int id) {
+		_id = id;
+	}
+
 	/**
 	 * Get the name of the staff member.
 	 * @param nameType the specific name of the staff member.
 	 * @return the name of the staff member.
 	 */
 	public String getName(String nameType) {
+		return getName(NameType.fromString(nameType));
+	}
+
+	/**
+	 * Get the name of the staff member.
+	 * @param nameType the specific name of the staff member.
+	 * @return the name of the staff member.
+	 */
+	public String getName(NameType nameType) {
 		switch (nameType) {
-		case "firstlast":
-			return _firstName + " " + _lastName;
-		case "lastfirst":
-			return _lastName + " " + _firstName;
-		case "first":
+		case FIRST_LAST:
+			return _firstLastName;
+		case LAST_FIRST:
+			return _lastFirstName;
+		case FIRST:
 			return _firstName;
-		case "last":
+		case LAST:
 			return _lastName;
 		default:
-			throw new UnsupportedOperationException("Staff.getName supports only strings of \"firstlast\", \"lastfirst\", \"first\" and \"last\"");
+			throw new UnsupportedOperationException("Staff.getName does not support " + nameType);
 		}
 	}
 
+	/**
+	 * @return the read-only view of the staff member.
+	 */
+	public StaffView getView() {
+		return _view;
+	}
+
+	/**
+	 * Get the name of the staff member as shown in rosters, family name first.
+	 * @return the name in the format "last, first".
+	 */
+	public String getRosterName() {
+		return _rosterName;
+	}
+
 	@Override
 	public int compareTo(Staff compare) {
 
-		int comparison = (this.getName("lastfirst")).compareTo(compare.getName("lastfirst")); //name of the staff.
+		int comparison = _lastFirstName.compareTo(compare._lastFirstName); //name of the staff.
 		if (comparison == 0) {
 			return 0;
 		} else if (comparison > 0) {
@@ -104,4 +267,42 @@ public class Staff implements Comparable<Staff> {
 		}
 	}
 
+	/**
+	 * Ids of shifts, kept in the order of the shifts: by day of the week, then start time.
+	 */
+	private static class ShiftIds {
+		private static final int[] NO_IDS = new int[0];
+
+		private int[] _ids = NO_IDS;
+		private int _size;
+
+		void add(WorkDay.Shift shift, ShiftTable shiftTable) {
+			int low = 0, high = _size;
+			while (low < high) { //find the first shift that comes after the new one.
+				int middle = (low + high) >>> 1;
+				if (shiftTable.get(_ids[middle]).compareTo(shift) <= 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			if (_size == _ids.length) {
+				_ids = Arrays.copyOf(_ids, Math.max(4, _size * 2));
+			}
+			System.arraycopy(_ids, low, _ids, low + 1, _size - low);
+			_ids[low] = shift.getId();
+			_size++;
+		}
+
+		void remove(WorkDay.Shift shift) {
+			for (int index = 0; index < _size; index++) {
+				if (_ids[index] == shift.getId()) {
+					System.arraycopy(_ids, index + 1, _ids, index, _size - index - 1);
+					_size--;
+					return;
+				}
+			}
+		}
+	}
+
 }
@@ -0,0 +1,36 @@
+package shiftman.server;
+
+/**
+ * Which of the shop's staff to list.
+ */
+public enum StaffFilter {
+	REGISTERED("registered"),
+	UNASSIGNED("unassigned");
+
+	private final String _name;
+
+	private StaffFilter(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Get the staff filter for one of the strings used by the string based methods.
+	 * @param staffSpecific can only be "registered" or "unassigned".
+	 * @return the staff filter.
+	 */
+	public static StaffFilter fromString(String staffSpecific) {
+		switch (staffSpecific) {
+		case "registered":
+			return REGISTERED;
+		case "unassigned":
+			return UNASSIGNED;
+		default:
+			throw new UnsupportedOperationException("Shop.getStaffInfo must take string arguments of either \"registered\" or \"unassigned\"");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
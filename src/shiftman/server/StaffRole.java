@@ -0,0 +1,36 @@
+package shiftman.server;
+
+/**
+ * The roles staff can have on a shift.
+ */
+public enum StaffRole {
+	MANAGER("manager"),
+	WORKERS("workers");
+
+	private final String _name;
+
+	private StaffRole(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Get the staff role for one of the strings used by the string based methods.
+	 * @param staffType can only be "manager" or "workers".
+	 * @return the staff role.
+	 */
+	public static StaffRole fromString(String staffType) {
+		switch (staffType) {
+		case "manager":
+			return MANAGER;
+		case "workers":
+			return WORKERS;
+		default:
+			throw new UnsupportedOperationException("WorkDay.Shift.getShiftStaff can only accept arguments \"manager\" or \"workers\"");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return _name;
+	}
+}
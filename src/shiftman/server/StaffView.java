@@ -0,0 +1,43 @@
+package shiftman.server;
+
+/**
+ * A read-only view of a staff member's name, for callers that want the data rather than formatted strings.
+ * Each staff member has a single view, which is shared and never changes.
+ */
+public final class StaffView {
+
+	private final Staff _staff;
+
+	StaffView(Staff staff) {
+		_staff = staff;
+	}
+
+	/**
+	 * @return the id the staff member was given when registered.
+	 */
+	public int getId() {
+		return _staff.getId();
+	}
+
+	public String getGivenName() {
+		return _staff.getName(NameType.FIRST);
+	}
+
+	public String getFamilyName() {
+		return _staff.getName(NameType.LAST);
+	}
+
+	/**
+	 * Get the name of the staff member.
+	 * @param nameType the format of the name.
+	 * @return the name of the staff member.
+	 */
+	public String getName(NameType nameType) {
+		return _staff.getName(nameType);
+	}
+
+	@Override
+	public String toString() {
+		return _staff.getName(NameType.FIRST_LAST);
+	}
+}
@@ -10,10 +10,11 @@ public class WeekSchedule {
 
 	public final List<WorkDay> _daysList = new ArrayList<WorkDay>(); //list of all the days.
 	private final String[] _days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+	private final ShiftTable _shiftTable = new ShiftTable(); //ids of the shifts of every day.
 
 	public WeekSchedule() {
-		for (String day : _days) {
-			_daysList.add(new WorkDay(day)); //Add the weekdays into the week schedule.
+		for (int dayIndex = 0; dayIndex < _days.length; dayIndex++) {
+			_daysList.add(new WorkDay(_days[dayIndex], dayIndex, _shiftTable)); //Add the weekdays into the week schedule.
 		}
 	}
 
@@ -24,15 +25,37 @@ public class WeekSchedule {
 	 * @throws RosterException
 	 */
 	public WorkDay getWorkDay(String workDay) throws RosterException{
-		int _currentidx = 0;
+		int dayIndex = dayIndex(workDay);
+		if (dayIndex < 0) {
+			throw new RosterException("ERROR: " + workDay + " is not a valid day.");
+		}
+		return _daysList.get(dayIndex);
+	}
 
-		for (String day : _days) {
-			if (workDay == day) {
-				return _daysList.get(_currentidx);
-			}
-			_currentidx++;
+	/**
+	 * Find the position of a day in the week, by its hash rather than by comparing it with each day in turn.
+	 * @param workDay the name of the day, which must match exactly, such as "Monday".
+	 * @return the position of the day, starting from 0 for Monday, or -1 if it is not a day.
+	 */
+	static int dayIndex(String workDay) {
+		switch (workDay) {
+		case "Monday":
+			return 0;
+		case "Tuesday":
+			return 1;
+		case "Wednesday":
+			return 2;
+		case "Thursday":
+			return 3;
+		case "Friday":
+			return 4;
+		case "Saturday":
+			return 5;
+		case "Sunday":
+			return 6;
+		default:
+			return -1;
 		}
-		throw new RosterException("ERROR: " + workDay + " is not a valid day.");
 	}
 
 	/**Get problems of all work days in the week schedule.
@@ -41,8 +64,17 @@ public class WeekSchedule {
 	 * @return arraylist of string of all relevant shifts that have problems for the entire week.
 	 */
 	public List<String> getProblems(String problemType) {
+		return getProblems(ProblemType.fromString(problemType));
+	}
 
-		List<String> problems = new ArrayList<String>();
+	/**Get problems of all work days in the week schedule.
+	 * 
+	 * @param problemType the problem to look for.
+	 * @return arraylist of string of all relevant shifts that have problems for the entire week.
+	 */
+	public List<String> getProblems(ProblemType problemType) {
+
+		List<String> problems = new ArrayList<String>(countProblems(problemType));
 		for (WorkDay workDay : _daysList) { //A day will be empty if it has no problems because it will have no shifts.
 			problems.addAll(workDay.problems(problemType));
 		}
@@ -51,19 +83,29 @@ public class WeekSchedule {
 	}
 
 	/**
-	 * Get a summary of the week.
-	 * @return a string of the summary of the week.
+	 * Get views of the shifts with the specified problem over the entire week.
+	 * @param problemType the problem to look for.
+	 * @return the shifts, in order of day of the week and then start time.
+	 */
+	public List<ShiftView> getProblemViews(ProblemType problemType) {
+		List<ShiftView> problems = new ArrayList<ShiftView>(countProblems(problemType));
+		for (WorkDay workDay : _daysList) {
+			problems.addAll(workDay.problemViews(problemType));
+		}
+		return problems;
+	}
+
+	/**
+	 * Count the shifts with the specified problem over the entire week.
+	 * @param problemType the problem to look for.
+	 * @return the number of shifts with the problem.
 	 */
-	public String weekSummary() {
-		String info = "";
+	public int countProblems(ProblemType problemType) {
+		int count = 0;
 		for (WorkDay workDay : _daysList) {
-			try {
-				info = info + "DAY:" + workDay.getDayRoster().get(0) + " " + workDay.getDayRoster().get(1);
-			} catch (RosterException exception){
-				info = info + ""; //If there is a day where it is not rostered on, the information for it is skipped.
-			}
+			count += workDay.countProblems(problemType);
 		}
-		return info;
+		return count;
 	}
 
 }
@@ -1,7 +1,11 @@
 package shiftman.server;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class encapsulates the information of a working day. It encloses the inner class Shift.
@@ -12,11 +16,59 @@ import java.util.List;
 public class WorkDay {
 
 	private final DayShiftList _shiftList = new DayShiftList();
+	private final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock(); //guards the day and its shifts.
 	private Hours _workingHours;
 	private String _day;
+	private int _dayIndex; //position of the day in the week.
+	private final ShiftTable _shiftTable; //gives the day's shifts their ids.
+	private final LocalDate _date; //the date of a day copied into a rostering horizon, or null for the template week.
+	private volatile long _version; //changed whenever anything shown in the day's roster changes.
+	private volatile RosterVersion.DayVersion _dayVersion; //the day's last version, or null if the day has since changed.
+	private volatile DayCoverage _coverage; //the day's coverage as last computed.
 
-	public WorkDay(String day) {
+	/**
+	 * @param day
+	 * @param dayIndex
+	 * @param shiftTable gives shifts their ids, shared by every day of the week. Staff look their shifts up in it, so it
+	 * must be the table of the shop the day belongs to.
+	 */
+	WorkDay(String day, int dayIndex, ShiftTable shiftTable) {
+		this(day, dayIndex, shiftTable, null);
+	}
+
+	private WorkDay(String day, int dayIndex, ShiftTable shiftTable, LocalDate date) {
 		this._day = day;
+		this._dayIndex = dayIndex;
+		this._shiftTable = shiftTable;
+		this._date = date;
+	}
+
+	/**
+	 * @param date a date in a rostering horizon.
+	 * @return a day for the date in the same place in the week, with its own lock and shift ids, and no working hours
+	 * or shifts.
+	 */
+	WorkDay forDate(LocalDate date) {
+		return new WorkDay(_day, _dayIndex, new ShiftTable(), date);
+	}
+
+	/**
+	 * Copy the day, its working hours and its shifts with their staff, for a date in a rostering horizon. The day must be
+	 * locked for reading. The copy has its own lock and shift ids, and changing it never changes this day.
+	 * @param date the date the copy is for.
+	 * @return the copy.
+	 */
+	WorkDay copy(LocalDate date) {
+		WorkDay copy = forDate(date);
+		copy._workingHours = _workingHours;
+		for (Shift shift : _shiftList.getShifts()) {
+			try {
+				copy.addShift(copy.new Shift(shift));
+			} catch (RosterException exception) {
+				throw new IllegalStateException(exception.getMessage()); //the shifts did not overlap here, so cannot there.
+			}
+		}
+		return copy;
 	}
 
 	/**
@@ -27,8 +79,27 @@ public class WorkDay {
 	 */
 	public void setHours(String startTime, String endTime) throws RosterException {
 		Hours trial = new WorkingHours(startTime, endTime); //Create a new object for this working day's working hours.
-		trial.rosterInTime("0000"); //roster in the time.
+		trial.rosterInTime(0); //roster in the time, excluding midnight.
 		_workingHours = trial; //if it clears rosterInTime checks, the working day will be finalised.
+		changed();
+	}
+
+	/**
+	 * Set working hours that have already been checked, such as hours restored from a snapshot.
+	 * @param packed the start and end minutes packed into an int.
+	 */
+	void restoreHours(int packed) {
+		_workingHours = new WorkingHours(packed);
+		changed();
+	}
+
+	/**
+	 * Set the working hours back to what they were, such as when a transaction is rolled back.
+	 * @param workingHours the earlier working hours, or null if they were not set.
+	 */
+	void setHours(Hours workingHours) {
+		_workingHours = workingHours;
+		changed();
 	}
 
 	/**
@@ -38,6 +109,8 @@ public class WorkDay {
 	 */
 	public void addShift(Shift shift) throws RosterException {
 		_shiftList.rosterInShift(shift);
+		shift._id = _shiftTable.add(shift);
+		changed();
 	}
 
 	/**
@@ -46,31 +119,167 @@ public class WorkDay {
 	 * @param startTime
 	 * @param endTime
 	 * @param isManager
+	 * @return the shift the staff was assigned to.
 	 * @throws RosterException
 	 */
-	public void assignStaff(Staff staffToBeAssigned, String startTime, String endTime, boolean isManager) throws RosterException {
-		Shift shift = _shiftList.getShift(startTime, endTime); //retrieve the relevant shift.
-		shift.addStaffToShift(staffToBeAssigned, isManager); //add the staff to this shift.
+	public Shift assignStaff(Staff staffToBeAssigned, String startTime, String endTime, boolean isManager) throws RosterException {
+		return assignStaff(staffToBeAssigned, startTime, endTime, isManager, true);
 	}
 
 	/**
-	 * Get the working day's roster. This includes the current day, working hours, and the shifts. If there are no working hours
-	 * set, i.e. the day is not rostered on, it will throw a specific exception that will be caught before ShiftManServer.
-	 * @return arraylist of the working day's roster, with the current day, working hours and the shifts (workers, manager, shift time).
+	 * Assign a staff to a shift to this day.
+	 * @param staffToBeAssigned the staff member to be assigned.
+	 * @param startTime
+	 * @param endTime
+	 * @param isManager
+	 * @param sort false if the staff member is assigned by a batch, which sorts the shift's workers once it is done.
+	 * @return the shift the staff was assigned to.
 	 * @throws RosterException
 	 */
-	public List<String> getDayRoster() throws RosterException {
-		if (_shiftList.getAllShiftDetails().isEmpty()) {
-			//if working hours have not been set or there're no shifts, throw a specific exception that will later be caught before ShiftManServer.
-			throw new RosterException("no day");
+	Shift assignStaff(Staff staffToBeAssigned, String startTime, String endTime, boolean isManager, boolean sort)
+			throws RosterException {
+		Shift shift = _shiftList.getShift(startTime, endTime); //retrieve the relevant shift.
+		shift.addStaffToShift(staffToBeAssigned, isManager, sort); //add the staff to this shift.
+		shiftStaffChanged(shift, 1, isManager ? 1 : 0);
+		return shift;
+	}
+
+	/**
+	 * Remove a shift from this day, such as when a transaction is rolled back. The shift must have no staff, and its id
+	 * is given to the next shift added.
+	 * @param shift
+	 */
+	void removeShift(Shift shift) {
+		_shiftList.removeShift(shift);
+		_shiftTable.remove(shift);
+		shift._id = -1;
+		changed();
+	}
+
+	/**
+	 * Remove a staff member from a shift of this day, such as when a transaction is rolled back.
+	 * @param shift
+	 * @param staff
+	 * @param isManager whether the staff member was assigned as the manager.
+	 */
+	void unassignStaff(Shift shift, Staff staff, boolean isManager) {
+		if (isManager) {
+			shift._shiftStaff.removeManager(shift, staff);
+		} else {
+			shift._shiftStaff.removeWorker(shift, staff);
 		}
-		List<String> roster = new ArrayList<String>();
-		roster.add(_day + " " + _workingHours.toString().substring(0,2) + ":" + _workingHours.toString().substring(2,4) + "-"
-				+ _workingHours.toString().substring(4,6) + ":" + _workingHours.toString().substring(6,8)); //add the day and the working hours info.
+		shiftStaffChanged(shift, -1, isManager ? -1 : 0);
+	}
 
-		roster.addAll(_shiftList.getAllShiftDetails()); //add shift details.
-		return roster;
+	/**
+	 * Move the day to its next version after the staff of one of its shifts have changed. If the coverage of the day was
+	 * current, only the steps of that shift are changed, rather than sweeping the whole day again.
+	 * @param shift
+	 * @param headcountChange the change in the staff of the shift.
+	 * @param managerChange the change in the managers of the shift.
+	 */
+	private void shiftStaffChanged(Shift shift, int headcountChange, int managerChange) {
+		long version = _version;
+		DayCoverage coverage = _coverage;
+		_version = version + 1;
+		_dayVersion = null;
+		if (coverage != null && coverage.isCurrent(version)) {
+			_coverage = coverage.withStaffChange(version + 1, shift.packed(), headcountChange, managerChange);
+		}
+	}
 
+	/**
+	 * Move the day to its next version, after anything shown in its roster has changed.
+	 */
+	private void changed() {
+		_version++;
+		_dayVersion = null;
+	}
+
+	/**
+	 * Make an immutable version of the day, for a {@link RosterVersion}. The version is kept until the day changes, so
+	 * what is rendered from it is only rendered once. Shifts whose staff have not changed since the last version keep
+	 * their version of the shift. The day must be locked.
+	 * @return the version.
+	 */
+	RosterVersion.DayVersion toVersion() {
+		RosterVersion.DayVersion dayVersion = _dayVersion;
+		if (dayVersion == null) {
+			Collection<Shift> shifts = _shiftList.getShifts();
+			RosterVersion.ShiftVersion[] versions = new RosterVersion.ShiftVersion[shifts.size()];
+			int index = 0;
+			for (Shift shift : shifts) {
+				versions[index++] = shift.toVersion();
+			}
+			dayVersion = new RosterVersion.DayVersion(_dayIndex, _day, _workingHours, versions);
+			_dayVersion = dayVersion;
+		}
+		return dayVersion;
+	}
+
+	/**
+	 * Get the working day's roster. This includes the current day, working hours, and the shifts. It is read from the
+	 * day's current version, so it is only rendered again once the day changes. The day must be locked for reading.
+	 * @return arraylist of the working day's roster, with the current day, working hours and the shifts (workers, manager, shift time),
+	 * or an empty list if the day is not rostered on, i.e. it has no shifts.
+	 */
+	public List<String> getDayRoster() {
+		return toVersion().getLines();
+	}
+
+	/**
+	 * Get the staffing coverage of the working day: how many staff and managers are on the floor at each minute. It is
+	 * swept again only when the working hours or shifts change. When the staff of a shift change, only the steps of that
+	 * shift are changed. The day must be locked for reading.
+	 * @return the coverage of the day.
+	 */
+	public DayCoverage getCoverage() {
+		DayCoverage coverage = _coverage;
+		long version = _version;
+		if (coverage == null || !coverage.isCurrent(version)) {
+			Collection<Shift> shifts = _shiftList.getShifts();
+			int[] hours = new int[shifts.size()], headcounts = new int[shifts.size()], managers = new int[shifts.size()];
+			int count = 0;
+			for (Shift shift : shifts) {
+				hours[count] = shift.packed();
+				managers[count] = shift._shiftStaff.countManagers();
+				headcounts[count] = shift._shiftStaff.countWorkers() + managers[count];
+				count++;
+			}
+			coverage = DayCoverage.sweep(version, _workingHours, hours, headcounts, managers, count);
+			_coverage = coverage;
+		}
+		return coverage;
+	}
+
+	/**
+	 * @return the working hours of the day, or null if they have not been set.
+	 */
+	public Hours getWorkingHours() {
+		return _workingHours;
+	}
+
+	/**
+	 * Get the version of the day. It changes whenever the working hours, shifts or shift staff of the day change, so it can
+	 * be used to tell whether anything rendered from the day is still current.
+	 * @return the version of the day.
+	 */
+	public long getVersion() {
+		return _version;
+	}
+
+	/**
+	 * @return the date of the day if it was copied into a rostering horizon, or null if it is a day of the template week.
+	 */
+	public LocalDate getDate() {
+		return _date;
+	}
+
+	/**
+	 * @return the position of the day in the week, starting from 0 for Monday.
+	 */
+	public int getDayIndex() {
+		return _dayIndex;
 	}
 
 	/**
@@ -79,17 +288,71 @@ public class WorkDay {
 	 * @return arraylist of string that includes all shifts that corresponds to the shift problem.
 	 */
 	public List<String> problems(String problemType){
-		switch (problemType) {
-		case "without managers":
-			return _shiftList.getAllShiftsWithProblems(problemType);
-		case "overstaffed":
-			return _shiftList.getAllShiftsWithProblems(problemType);
-		case "understaffed":
-			return _shiftList.getAllShiftsWithProblems(problemType);
-		default:
-			//throw an unchecked exception if programmer decides to use another problemType input.
-			throw new UnsupportedOperationException("WorkDay.problems can only accept arguments \"without managers\" or \"overstaffed\" or \"understaffed\"");
+		return problems(ProblemType.fromString(problemType));
+	}
+
+	/**
+	 * Investigates the working day and its shift problems.
+	 * @param problemType the problem to look for.
+	 * @return arraylist of string that includes all shifts that corresponds to the shift problem.
+	 */
+	public List<String> problems(ProblemType problemType){
+		return _shiftList.getAllShiftsWithProblems(problemType);
+	}
+
+	/**
+	 * Get views of the shifts of the working day with the specified problem.
+	 * @param problemType the problem to look for.
+	 * @return the shifts with the problem, in order of start time.
+	 */
+	public List<ShiftView> problemViews(ProblemType problemType) {
+		return getViews(_shiftList.getShiftsWithProblems(problemType));
+	}
+
+	/**
+	 * Count the shifts of the working day with the specified problem.
+	 * @param problemType the problem to look for.
+	 * @return the number of shifts with the problem.
+	 */
+	public int countProblems(ProblemType problemType) {
+		return _shiftList.countShiftsWithProblems(problemType);
+	}
+
+	/**
+	 * @return the number of shifts in the working day.
+	 */
+	public int countShifts() {
+		return _shiftList.getShifts().size();
+	}
+
+	/**
+	 * Get views of all the shifts of the working day.
+	 * @return the shifts, in order of start time.
+	 */
+	public List<ShiftView> getShiftViews() {
+		return getViews(_shiftList.getShifts());
+	}
+
+	private List<ShiftView> getViews(Collection<Shift> shifts) {
+		List<ShiftView> views = new ArrayList<ShiftView>(shifts.size());
+		for (Shift shift : shifts) {
+			views.add(shift.getView());
 		}
+		return views;
+	}
+
+	/**
+	 * @return the lock to hold while reading the day.
+	 */
+	public Lock readLock() {
+		return _lock.readLock();
+	}
+
+	/**
+	 * @return the lock to hold while changing the day.
+	 */
+	public Lock writeLock() {
+		return _lock.writeLock();
 	}
 
 	@Override
@@ -104,13 +367,51 @@ public class WorkDay {
 	public class Shift implements Comparable<Shift>{
 
 		private ShiftStaff _shiftStaff;
+		private int _id = -1; //dense id given when the shift is added to its day.
 		private Hours _shiftHours;
+		private String _shiftDetails; //the day and hours of the shift, which never change once it is created.
+		private RosterVersion.ShiftVersion _shiftVersion; //the shift's last version, or null if its staff have since changed.
 
 		public Shift(String startTime, String endTime, String minWorkers) throws RosterException {
 			_shiftStaff = new ShiftStaff(Integer.parseInt(minWorkers));
 			Hours trial = new ShiftHours (startTime, endTime); //propose new hours for the shift.
-			trial.rosterInTime(_workingHours.toString()); //roster in the hours for the shift.
+			if (_workingHours == null) { //the day has no working hours for the shift to be in.
+				throw new RosterException("ERROR: shift scheduled is not in working hours range.");
+			}
+			trial.rosterInTime(_workingHours.packed()); //roster in the hours for the shift.
 			_shiftHours = trial; //if it passes rosterInTime checks, it can then finalise hours for the shift.
+			_shiftDetails = _day + "[" + _shiftHours.toString() + "]";
+		}
+
+		/**
+		 * Create a shift with hours that have already been checked, such as a shift restored from a snapshot.
+		 * @param packed the start and end minutes packed into an int.
+		 * @param minWorkers
+		 */
+		Shift(int packed, int minWorkers) {
+			_shiftStaff = new ShiftStaff(minWorkers);
+			_shiftHours = new ShiftHours(packed);
+			_shiftDetails = _day + "[" + _shiftHours.toString() + "]";
+		}
+
+		/**
+		 * Copy a shift of another day, with its staff.
+		 * @param shift the shift to copy.
+		 */
+		private Shift(Shift shift) {
+			_shiftStaff = shift._shiftStaff.copy();
+			_shiftHours = shift._shiftHours;
+			_shiftDetails = shift._shiftDetails;
+		}
+
+		/**
+		 * Restore the staff of the shift, such as from a snapshot. The shift must have no staff yet.
+		 * @param manager the manager, or null if there is none.
+		 * @param workers the workers, already in family name order.
+		 */
+		void restoreStaff(Staff manager, List<Staff> workers) {
+			_shiftStaff.restore(this, manager, workers);
+			changed();
 		}
 
 		/**
@@ -120,20 +421,50 @@ public class WorkDay {
 		 * @throws RosterException
 		 */
 		public void addStaffToShift(Staff staff, boolean isManager) throws RosterException {
+			addStaffToShift(staff, isManager, true);
+		}
+
+		/**
+		 * Add staff for the shift.
+		 * @param staff
+		 * @param isManager
+		 * @param sort false if the staff member is added by a batch, which calls {@link #sortStaff()} once it is done.
+		 * @throws RosterException
+		 */
+		void addStaffToShift(Staff staff, boolean isManager, boolean sort) throws RosterException {
 			if (isManager == true) {
 				_shiftStaff.addManager(this, staff);
 			} else {
-				_shiftStaff.addWorker(this, staff); //if the staff isn't a manager, add it as a worker instead.
+				_shiftStaff.addWorker(this, staff, sort); //if the staff isn't a manager, add it as a worker instead.
 			}
 		}
 
+		/**
+		 * Put the workers added by a batch into order.
+		 */
+		void sortStaff() {
+			_shiftStaff.sortWorkers();
+			_shiftVersion = null;
+			_dayVersion = null;
+		}
+
 		/**
 		 * Get shift details, which is the working day and the shift hours.
 		 * @return a string of the shift details.
 		 */
 		public String getShiftDetails() {
-			return _day + "[" + _shiftHours.toString().substring(0,2) + ":" + _shiftHours.toString().substring(2,4) + "-"
-					+ _shiftHours.toString().substring(4,6) + ":" + _shiftHours.toString().substring(6,8) + "]";
+			return _shiftDetails;
+		}
+
+		/**
+		 * Write the full details of the shift: the shift details, then the manager and then the workers.
+		 * @param output where the details are written to.
+		 */
+		public void appendShiftRoster(StringBuilder output) {
+			output.append(_shiftDetails).append(' ');
+			_shiftStaff.appendShiftStaff(output, StaffRole.MANAGER);
+			output.append(' ');
+			_shiftStaff.appendShiftStaff(output, StaffRole.WORKERS);
 		}
 
 		/**
@@ -146,6 +477,41 @@ public class WorkDay {
 
 		}
 
+		/**
+		 * Get shift staff.
+		 * @param role the staff to get.
+		 * @return a string of the staff in the shift.
+		 */
+		public String getShiftStaff(StaffRole role) {
+			return _shiftStaff.displayShiftStaff(role);
+		}
+
+		/**
+		 * @return a view of the shift and its current staff.
+		 */
+		public ShiftView getView() {
+			return _shiftStaff.getView(this, _shiftDetails);
+		}
+
+		/**
+		 * @return an immutable version of the shift and its staff, reused until the staff change.
+		 */
+		RosterVersion.ShiftVersion toVersion() {
+			if (_shiftVersion == null) {
+				_shiftVersion = _shiftStaff.toVersion(_shiftDetails);
+			}
+			return _shiftVersion;
+		}
+
+		/**
+		 * Called by the shift staff whenever staff are added, to keep the day's problem sets up to date.
+		 */
+		void staffChanged() {
+			_shiftList.updateProblems(this);
+			_shiftVersion = null;
+			_dayVersion = null;
+		}
+
 		/**
 		 * Check whether the working day has the specified problem.
 		 * @param problemType Can only take in arguments "understaffed" or "overstaffed"
@@ -155,24 +521,82 @@ public class WorkDay {
 			return _shiftStaff.staffProblem(problemType);
 		}
 
+		/**
+		 * Check whether the shift has the specified problem.
+		 * @param problemType the problem to check for.
+		 * @return true if the shift has the problem.
+		 */
+		public boolean hasProblems(ProblemType problemType) {
+			return _shiftStaff.staffProblem(problemType);
+		}
+
+		/**
+		 * @return start minute of the shift.
+		 */
+		public int getStart() {
+			return _shiftHours.getStart();
+		}
+
+		/**
+		 * @return end minute of the shift.
+		 */
+		public int getEnd() {
+			return _shiftHours.getEnd();
+		}
+
+		/**
+		 * @return the start and end minutes of the shift packed into an int.
+		 */
+		public int packed() {
+			return _shiftHours.packed();
+		}
+
+		/**
+		 * Check whether the shift overlaps with the given times.
+		 * @param start start minute of the day.
+		 * @param end end minute of the day.
+		 * @return true if the shift overlaps.
+		 */
+		public boolean overlaps(int start, int end) {
+			return _shiftHours.overlaps(start, end);
+		}
+
 		@Override
 		public String toString() {
 			return _shiftHours.toString();
 		}
 
+		/**
+		 * Shifts are ordered by the day of the week, then by start time.
+		 */
 		@Override
 		public int compareTo(Shift compare) {
-			//Get start times.
-			int thisTime = Integer.parseInt(this.toString().substring(0,4)) + Integer.parseInt(this.toString().substring(4,8));
-			int compareTime = Integer.parseInt(compare.toString().substring(0,4)) + Integer.parseInt(compare.toString().substring(4,8));
-
-			if (thisTime == compareTime) {
-				return 0;
-			} else if (thisTime > compareTime) {
-				return 1;
-			} else {
-				return -1;
+			int comparison = Integer.compare(_dayIndex, compare.getWorkDay().getDayIndex());
+			if (comparison != 0) {
+				return comparison;
 			}
+			return Hours.START_ORDER.compare(_shiftHours, compare._shiftHours);
+		}
+
+		/**
+		 * @return the id given to the shift when it was added to its day, or -1 if it has not been added.
+		 */
+		public int getId() {
+			return _id;
+		}
+
+		/**
+		 * @return the table the shift's id is looked up in.
+		 */
+		ShiftTable getShiftTable() {
+			return _shiftTable;
+		}
+
+		/**
+		 * @return the working day the shift is on.
+		 */
+		public WorkDay getWorkDay() {
+			return WorkDay.this;
 		}
 
 	}
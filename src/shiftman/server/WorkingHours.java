@@ -9,19 +9,20 @@ public class WorkingHours extends Hours {
 		super(start, end);
 	}
 
+	WorkingHours(int packed) {
+		super(packed);
+	}
+
 	/**
 	 * To roster in the time for the working hours of the working day. Excludes the specified excluded time,
 	 * can be changed in case the time to exclude is not midnight.
-	 * @param exludeTime the time to exclude when checking the working hours. E.g. if excludeTime is midnight,
+	 * @param excludeTime the minute of the day to exclude when checking the working hours. E.g. if excludeTime is midnight,
 	 * working hours must not exceed or include this specific time.
 	 */
-	public void rosterInTime(String excludeTime) throws RosterException{
-
-		int _excludeTime = Integer.parseInt(excludeTime);
+	public void rosterInTime(int excludeTime) throws RosterException{
 
 		//Proposed working hours must not have excludeTime in its range or have either the start or end time include excludeTime.
-		if ((Integer.parseInt(_startTime) < _excludeTime && Integer.parseInt(_endTime) > _excludeTime)
-				|| Integer.parseInt(_endTime) == _excludeTime || Integer.parseInt(_startTime) == _excludeTime) {
+		if ((_start < excludeTime && _end > excludeTime) || _end == excludeTime || _start == excludeTime) {
 			throw new RosterException("ERROR: opening hours cannot include nor exceed midnight.");
 		}
 	}
@@ -0,0 +1,76 @@
+package shiftman.server;
+
+/**
+ * How much a staff member works and manages in the week, as it was when the workload was taken.
+ * Workloads are kept up to date as shifts are assigned, so getting one never counts the staff member's shifts.
+ */
+public final class Workload {
+
+	private final StaffView _staff;
+	private final int _workerMinutes, _managerMinutes;
+	private final int _workerShifts, _managerShifts;
+	private final int[] _dayMinutes;
+
+	Workload(StaffView staff, int workerMinutes, int managerMinutes, int workerShifts, int managerShifts,
+			int[] dayMinutes) {
+		_staff = staff;
+		_workerMinutes = workerMinutes;
+		_managerMinutes = managerMinutes;
+		_workerShifts = workerShifts;
+		_managerShifts = managerShifts;
+		_dayMinutes = dayMinutes;
+	}
+
+	public StaffView getStaff() {
+		return _staff;
+	}
+
+	/**
+	 * @return the minutes of the shifts the staff member works.
+	 */
+	public int getWorkerMinutes() {
+		return _workerMinutes;
+	}
+
+	/**
+	 * @return the minutes of the shifts the staff member manages.
+	 */
+	public int getManagerMinutes() {
+		return _managerMinutes;
+	}
+
+	/**
+	 * @return the minutes of every shift the staff member works or manages.
+	 */
+	public int getTotalMinutes() {
+		return _workerMinutes + _managerMinutes;
+	}
+
+	/**
+	 * @return the number of shifts the staff member works.
+	 */
+	public int getWorkerShifts() {
+		return _workerShifts;
+	}
+
+	/**
+	 * @return the number of shifts the staff member manages.
+	 */
+	public int getManagerShifts() {
+		return _managerShifts;
+	}
+
+	/**
+	 * @param dayIndex the index of the day in the week, from 0 for Monday.
+	 * @return the minutes the staff member works or manages on the day.
+	 */
+	public int getDayMinutes(int dayIndex) {
+		return _dayMinutes[dayIndex];
+	}
+
+	@Override
+	public String toString() {
+		return _staff + " " + getTotalMinutes() + " minutes (worker " + _workerShifts + " shifts, " + _workerMinutes
+				+ " minutes; manager " + _managerShifts + " shifts, " + _managerMinutes + " minutes)";
+	}
+}
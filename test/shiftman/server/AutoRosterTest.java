@@ -0,0 +1,75 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Proposing and applying assignments that staff a roster.
+ */
+public class AutoRosterTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		for (String day : new String[] {"Monday", "Tuesday", "Wednesday"}) {
+			assertEquals("", _server.setWorkingHours(day, "08:00", "20:00"));
+			assertEquals("", _server.addShift(day, "08:00", "12:00", "2"));
+			assertEquals("", _server.addShift(day, "13:00", "20:00", "3"));
+		}
+		for (int staff = 0; staff < 20; staff++) {
+			assertEquals("", _server.registerStaff("Given" + staff, "Family" + staff));
+		}
+		assertEquals("", _server.assignStaff("Monday", "08:00", "12:00", "Given0", "Family0", false));
+	}
+
+	@Test
+	public void staffsEveryShift() throws RosterException {
+		RosterSolution solution = _server.autoRoster(50);
+		assertEquals(6, solution.countProblemsBefore(ProblemType.UNDERSTAFFED));
+		assertEquals(6, solution.countProblemsBefore(ProblemType.WITHOUT_MANAGERS));
+		assertEquals(0, solution.countProblemsAfter(ProblemType.UNDERSTAFFED));
+		assertEquals(0, solution.countProblemsAfter(ProblemType.WITHOUT_MANAGERS));
+		assertEquals(0, solution.countProblemsAfter(ProblemType.OVERSTAFFED));
+		assertEquals(0, solution.getUnfilled());
+
+		//no one is proposed for a shift they are already on, or for two places on one shift.
+		Set<String> places = new HashSet<String>();
+		for (RosterSolution.Assignment assignment : solution.getAssignments()) {
+			assertTrue(places.add(assignment.getShift() + " " + assignment.getStaff()), assignment.toString());
+			assertFalse(assignment.getShift().getStart() == 8 * 60 && assignment.getShift().getDay().equals("Monday")
+					&& assignment.getStaff().getGivenName().equals("Given0"), assignment.toString());
+		}
+
+		assertEquals("", _server.applyAutoRoster(solution));
+		assertTrue(_server.understaffedShifts().isEmpty());
+		assertTrue(_server.shiftsWithoutManagers().isEmpty());
+		assertTrue(_server.overstaffedShifts().isEmpty());
+	}
+
+	@Test
+	public void appliesNothingIfTheRosterChanged() throws RosterException {
+		RosterSolution solution = _server.autoRoster(10);
+		assertEquals("", _server.assignStaff("Tuesday", "08:00", "12:00", "Given1", "Family1", true));
+		assertTrue(_server.applyAutoRoster(solution).startsWith("ERROR"));
+		assertEquals(6, _server.understaffedShifts().size());
+	}
+
+	@Test
+	public void reportsPlacesThatCannotBeFilled() throws RosterException {
+		assertEquals("", _server.setWorkingHours("Thursday", "08:00", "20:00"));
+		assertEquals("", _server.addShift("Thursday", "08:00", "20:00", "30"));
+		RosterSolution solution = _server.autoRoster(10);
+		assertEquals(1, solution.countProblemsAfter(ProblemType.UNDERSTAFFED));
+		assertEquals(30 + 1 - 20, solution.getUnfilled());
+	}
+}
@@ -0,0 +1,141 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The staffing coverage of a day: the sweep over its shifts, point and range queries, the gaps and thin ranges found in
+ * the working hours, and the coverage changed in place as staff are assigned and rolled back.
+ */
+public class DayCoverageTest {
+
+	private static final int NINE = 9 * 60, NOON = 12 * 60, ONE = 13 * 60, FIVE = 17 * 60;
+
+	private WorkDay _day;
+	private WorkDay.Shift _morning, _afternoon;
+	private Staff _ann, _bob, _cat;
+
+	@BeforeEach
+	public void setUp() throws RosterException {
+		_day = new WorkDay("Monday", 0, new ShiftTable());
+		_day.setHours("09:00", "17:00");
+		_morning = _day.new Shift("09:00", "12:00", "1");
+		_afternoon = _day.new Shift("13:00", "17:00", "2");
+		_day.addShift(_afternoon);
+		_day.addShift(_morning);
+		_ann = new Staff("Ann", "Smith");
+		_bob = new Staff("Bob", "Jones");
+		_cat = new Staff("Cat", "Brown");
+		ShopStaffList staffList = new ShopStaffList(); //shifts tell staff apart by the ids they are registered with.
+		staffList.registerStaff(_ann);
+		staffList.registerStaff(_bob);
+		staffList.registerStaff(_cat);
+	}
+
+	@Test
+	public void sweepsTheShiftsIntoSteps() {
+		DayCoverage coverage = sweep(new int[] {2, 1}, new int[] {1, 0});
+		assertEquals(0, coverage.getHeadcount(0));
+		assertEquals(0, coverage.getHeadcount(NINE - 1));
+		assertEquals(2, coverage.getHeadcount(NINE));
+		assertEquals(1, coverage.getManagers(NINE));
+		assertEquals(2, coverage.getHeadcount(NOON - 1));
+		assertEquals(0, coverage.getHeadcount(NOON)); //a shift does not cover the minute it ends at.
+		assertEquals(1, coverage.getHeadcount(ONE));
+		assertEquals(0, coverage.getManagers(ONE));
+		assertEquals(0, coverage.getHeadcount(FIVE));
+		assertEquals(0, coverage.getHeadcount(Hours.MINUTES_PER_DAY - 1));
+		assertEquals((NINE << 16) | FIVE, coverage.getWorkingHours());
+
+		assertThrows(IllegalArgumentException.class, () -> coverage.getHeadcount(-1));
+		assertThrows(IllegalArgumentException.class, () -> coverage.getManagers(Hours.MINUTES_PER_DAY));
+	}
+
+	@Test
+	public void answersRangesFromTheStepsInThem() {
+		DayCoverage coverage = sweep(new int[] {2, 1}, new int[] {1, 0});
+		assertEquals(2, coverage.getMinHeadcount(NINE, NOON));
+		assertEquals(0, coverage.getMinHeadcount(NINE, NOON + 1)); //reaches into the gap.
+		assertEquals(1, coverage.getMinHeadcount(ONE + 30, ONE + 31));
+		assertEquals(2, coverage.getMaxHeadcount(0, Hours.MINUTES_PER_DAY));
+		assertEquals(1, coverage.getMaxHeadcount(NOON, FIVE));
+		assertEquals(0, coverage.getMaxHeadcount(FIVE, Hours.MINUTES_PER_DAY));
+		assertThrows(IllegalArgumentException.class, () -> coverage.getMinHeadcount(NOON, NOON));
+		assertThrows(IllegalArgumentException.class, () -> coverage.getMaxHeadcount(ONE, NOON));
+	}
+
+	@Test
+	public void findsGapsAndThinRangesInTheWorkingHours() throws RosterException {
+		DayCoverage coverage = sweep(new int[] {2, 1}, new int[] {1, 0});
+		assertArrayEquals(new int[] {(NOON << 16) | ONE}, coverage.getGaps());
+		assertArrayEquals(new int[] {(NOON << 16) | ONE}, coverage.getRangesBelow(1));
+		assertArrayEquals(new int[] {(NOON << 16) | FIVE}, coverage.getRangesBelow(2)); //the gap and thin afternoon join.
+		assertArrayEquals(new int[] {(NINE << 16) | FIVE}, coverage.getRangesBelow(3));
+		assertArrayEquals(new int[0], coverage.getRangesBelow(0));
+
+		_day.setHours("08:00", "18:00"); //the edges of the working hours are gaps too.
+		assertArrayEquals(new int[] {(8 * 60 << 16) | NINE, (NOON << 16) | ONE, (FIVE << 16) | 18 * 60},
+				_day.getCoverage().getGaps());
+
+		WorkDay empty = new WorkDay("Tuesday", 1, new ShiftTable());
+		assertArrayEquals(new int[0], empty.getCoverage().getGaps()); //no working hours, so nothing to cover.
+		assertEquals(0, empty.getCoverage().getWorkingHours());
+	}
+
+	@Test
+	public void changesOnlyTheStepsOfTheShiftWhoseStaffChanged() {
+		DayCoverage coverage = sweep(new int[] {0, 0}, new int[] {0, 0});
+		DayCoverage changed = coverage.withStaffChange(2, _morning.packed(), 2, 1).withStaffChange(3, _afternoon.packed(), 1, 0);
+		assertSameCoverage(sweep(new int[] {2, 1}, new int[] {1, 0}), changed);
+		assertTrue(changed.isCurrent(3));
+		assertSameCoverage(coverage, changed.withStaffChange(4, _morning.packed(), -2, -1)
+				.withStaffChange(5, _afternoon.packed(), -1, 0));
+	}
+
+	@Test
+	public void keepsTheDaysCoverageAsASweepWouldThroughAssignmentsAndRollbacks() throws RosterException {
+		DayCoverage swept = _day.getCoverage();
+		assertSame(swept, _day.getCoverage());
+		assertSameCoverage(sweep(new int[] {0, 0}, new int[] {0, 0}), swept);
+
+		_day.assignStaff(_ann, "09:00", "12:00", false);
+		_day.assignStaff(_bob, "09:00", "12:00", true);
+		_day.assignStaff(_cat, "13:00", "17:00", false);
+		assertSameCoverage(sweep(new int[] {2, 1}, new int[] {1, 0}), _day.getCoverage());
+
+		_day.unassignStaff(_morning, _bob, true); //as when the transaction that assigned them is rolled back.
+		assertSameCoverage(sweep(new int[] {1, 1}, new int[] {0, 0}), _day.getCoverage());
+		_day.unassignStaff(_afternoon, _cat, false);
+		_day.unassignStaff(_morning, _ann, false);
+		assertSameCoverage(swept, _day.getCoverage());
+
+		_day.removeShift(_afternoon); //shifts changing are swept again.
+		assertArrayEquals(new int[] {(NOON << 16) | FIVE}, _day.getCoverage().getGaps());
+	}
+
+	/**
+	 * Sweep the day's shifts, morning then afternoon, with the given staff.
+	 */
+	private DayCoverage sweep(int[] headcounts, int[] managers) {
+		return DayCoverage.sweep(0, _day.getWorkingHours(), new int[] {_morning.packed(), _afternoon.packed()}, headcounts,
+				managers, 2);
+	}
+
+	private static void assertSameCoverage(DayCoverage expected, DayCoverage actual) {
+		for (int minute = 0; minute < Hours.MINUTES_PER_DAY; minute++) {
+			assertEquals(expected.getHeadcount(minute), actual.getHeadcount(minute), "headcount at " + minute);
+			assertEquals(expected.getManagers(minute), actual.getManagers(minute), "managers at " + minute);
+		}
+		assertEquals(expected.getWorkingHours(), actual.getWorkingHours());
+		assertArrayEquals(expected.getGaps(), actual.getGaps());
+		for (int threshold = 0; threshold <= 3; threshold++) {
+			assertArrayEquals(expected.getRangesBelow(threshold), actual.getRangesBelow(threshold));
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The shifts of a day, kept by start time: finding overlaps from the neighbouring shifts, finding a shift by its exact
+ * hours, and listing them in order.
+ */
+public class DayShiftListTest {
+
+	private WorkDay _day;
+	private DayShiftList _shifts;
+	private WorkDay.Shift _morning, _afternoon;
+
+	@BeforeEach
+	public void setUp() throws RosterException {
+		_day = new WorkDay("Monday", 0, new ShiftTable());
+		_day.setHours("08:00", "20:00");
+		_shifts = new DayShiftList();
+		_afternoon = shift("13:00", "17:00");
+		_morning = shift("09:00", "12:00");
+		_shifts.rosterInShift(_afternoon); //added out of order.
+		_shifts.rosterInShift(_morning);
+	}
+
+	@Test
+	public void rejectsShiftsOverlappingEitherNeighbour() throws RosterException {
+		String[][] overlapping = {{"11:00", "12:30"}, {"12:00", "12:30"}, {"12:30", "13:00"}, {"08:00", "09:00"},
+				{"10:00", "11:00"}, {"08:00", "18:00"}, {"16:00", "18:00"}};
+		String[] with = {"09:00", "09:00", "13:00", "09:00", "09:00", "09:00", "13:00"};
+		for (int index = 0; index < overlapping.length; index++) {
+			WorkDay.Shift shift = shift(overlapping[index][0], overlapping[index][1]);
+			RosterException error = assertThrows(RosterException.class, () -> _shifts.rosterInShift(shift));
+			assertEquals("ERROR: cannot roster in shift, overlaps with " + with[index] + " shift.", error.getMessage());
+		}
+		assertEquals(2, _shifts.getShifts().size());
+
+		_shifts.rosterInShift(shift("12:01", "12:59")); //fits between them without touching.
+		_shifts.rosterInShift(shift("17:01", "20:00"));
+		assertEquals(4, _shifts.getShifts().size());
+	}
+
+	@Test
+	public void findsShiftsByTheirExactHours() throws RosterException {
+		assertSame(_morning, _shifts.getShift("09:00", "12:00"));
+		assertSame(_afternoon, _shifts.getShift("13:00", "17:00"));
+
+		RosterException error = assertThrows(RosterException.class, () -> _shifts.getShift("09:00", "11:00"));
+		assertEquals("ERROR: 09:00 shift has not been specified.", error.getMessage()); //same start, different end.
+		error = assertThrows(RosterException.class, () -> _shifts.getShift("10:00", "12:00"));
+		assertEquals("ERROR: 10:00 shift has not been specified.", error.getMessage());
+		error = assertThrows(RosterException.class, () -> _shifts.getShift("9am", "12:00"));
+		assertEquals("ERROR: start and end times given are not valid.", error.getMessage());
+	}
+
+	@Test
+	public void listsShiftsInOrderOfStartTime() throws RosterException {
+		_shifts.rosterInShift(shift("17:30", "19:00"));
+		_shifts.rosterInShift(shift("08:00", "08:30"));
+		List<String> hours = new ArrayList<String>();
+		for (WorkDay.Shift shift : _shifts.getShifts()) {
+			hours.add(shift.toString());
+		}
+		assertEquals(Arrays.asList("08:00-08:30", "09:00-12:00", "13:00-17:00", "17:30-19:00"), hours);
+	}
+
+	@Test
+	public void forgetsRemovedShifts() throws RosterException {
+		_shifts.removeShift(_morning);
+		assertThrows(RosterException.class, () -> _shifts.getShift("09:00", "12:00"));
+		_shifts.rosterInShift(shift("10:00", "12:30")); //no longer overlaps anything.
+	}
+
+	private WorkDay.Shift shift(String start, String end) throws RosterException {
+		return _day.new Shift(start, end, "1");
+	}
+}
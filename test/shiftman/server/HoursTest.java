@@ -0,0 +1,83 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing times into minutes of the day, and the packed hours made from them.
+ */
+public class HoursTest {
+
+	@Test
+	public void parsesTimesIntoMinutesOfTheDay() throws RosterException {
+		int packed = Hours.pack("09:30", "17:05");
+		assertEquals(9 * 60 + 30, Hours.startOf(packed));
+		assertEquals(17 * 60 + 5, Hours.endOf(packed));
+		assertEquals(0, Hours.minuteOf("00:00"));
+		assertEquals(Hours.MINUTES_PER_DAY - 1, Hours.minuteOf("23:59"));
+
+		Hours hours = new ShiftHours("09:30", "17:05");
+		assertEquals(packed, hours.packed());
+		assertEquals("09:30-17:05", hours.toString());
+		assertEquals("09:30-17:05", new ShiftHours(packed).toString());
+	}
+
+	@Test
+	public void formatsEveryMinuteOfTheDay() throws RosterException {
+		for (int minute = 0; minute < Hours.MINUTES_PER_DAY; minute++) {
+			assertEquals(minute, Hours.minuteOf(Hours.format(minute)));
+		}
+		assertEquals("00:00", Hours.format(0));
+		assertEquals("23:59", Hours.format(Hours.MINUTES_PER_DAY - 1));
+	}
+
+	@Test
+	public void rejectsTimesNotInTheFormatHhMm() {
+		for (String time : new String[] {null, "", "9:00", "09:0", "9am00", "09:00 ", "0a:00"}) {
+			RosterException error = assertThrows(RosterException.class, () -> Hours.pack(time, "17:00"));
+			assertEquals("ERROR: start and end times given are not valid.", error.getMessage());
+		}
+		assertThrows(RosterException.class, () -> Hours.minuteOf("24:00"));
+		assertThrows(RosterException.class, () -> Hours.minuteOf("12:60"));
+	}
+
+	@Test
+	public void rejectsHoursThatDoNotEndAfterTheyStart() {
+		for (String[] times : new String[][] {{"09:00", "09:00"}, {"10:00", "09:00"}, {"24:00", "24:30"}, {"09:00", "09:60"}}) {
+			RosterException error = assertThrows(RosterException.class, () -> Hours.pack(times[0], times[1]));
+			assertEquals("ERROR: hours cannot be set. The start time is the same as or after the end time.",
+					error.getMessage());
+		}
+	}
+
+	@Test
+	public void countsTouchingHoursAsOverlapping() throws RosterException {
+		Hours hours = new ShiftHours("09:00", "12:00");
+		assertTrue(hours.overlaps(Hours.minuteOf("12:00"), Hours.minuteOf("13:00")));
+		assertTrue(hours.overlaps(Hours.minuteOf("08:00"), Hours.minuteOf("09:00")));
+		assertTrue(hours.overlaps(Hours.minuteOf("10:00"), Hours.minuteOf("11:00")));
+		assertFalse(hours.overlaps(Hours.minuteOf("12:01"), Hours.minuteOf("13:00")));
+		assertFalse(hours.overlaps(Hours.minuteOf("07:00"), Hours.minuteOf("08:59")));
+	}
+
+	@Test
+	public void checksShiftsAreWithinWorkingHours() throws RosterException {
+		int workingHours = Hours.pack("09:00", "17:00");
+		new ShiftHours("09:00", "17:00").rosterInTime(workingHours);
+		RosterException error = assertThrows(RosterException.class,
+				() -> new ShiftHours("08:59", "12:00").rosterInTime(workingHours));
+		assertEquals("ERROR: shift scheduled is not in working hours range.", error.getMessage());
+		assertThrows(RosterException.class, () -> new ShiftHours("12:00", "17:01").rosterInTime(workingHours));
+	}
+
+	@Test
+	public void keepsWorkingHoursOffMidnight() throws RosterException {
+		new WorkingHours("00:01", "23:59").rosterInTime(0);
+		RosterException error = assertThrows(RosterException.class, () -> new WorkingHours("00:00", "09:00").rosterInTime(0));
+		assertEquals("ERROR: opening hours cannot include nor exceed midnight.", error.getMessage());
+	}
+}
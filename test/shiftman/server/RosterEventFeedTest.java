@@ -0,0 +1,110 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Publishing roster changes through the ring buffer of a feed.
+ */
+public class RosterEventFeedTest {
+
+	private static final int CHANGES = 1000;
+
+	@Test
+	public void publishesNothingWithoutSubscribers() {
+		RosterEventFeed feed = new RosterEventFeed(8);
+		feed.publishStaffRegistered(new Staff("Ann", "Smith"));
+		assertEquals(0, feed.getPublished());
+	}
+
+	@Test
+	public void blockingSubscriberReadsEveryChangeInOrder() throws InterruptedException {
+		RosterEventFeed feed = new RosterEventFeed(8);
+		List<Long> sequences = new CopyOnWriteArrayList<Long>();
+		CountDownLatch read = new CountDownLatch(CHANGES);
+		try (RosterEventFeed.Subscription subscription = feed.subscribe(RosterEventFeed.Policy.BLOCK, event -> {
+			assertEquals(RosterEventType.STAFF_REGISTERED, event.getType());
+			sequences.add(event.getSequence());
+			read.countDown();
+		})) {
+			for (int change = 0; change < CHANGES; change++) {
+				feed.publishStaffRegistered(new Staff("Given" + change, "Family"));
+			}
+			assertTrue(read.await(10, TimeUnit.SECONDS));
+			assertEquals(0, subscription.getDropped());
+		}
+		for (int change = 0; change < CHANGES; change++) {
+			assertEquals(change, sequences.get(change).longValue());
+		}
+	}
+
+	@Test
+	public void listenerThatThrowsClosesItsSubscription() {
+		RosterEventFeed feed = new RosterEventFeed(8);
+		IllegalStateException thrown = new IllegalStateException("listener failed");
+		RosterEventFeed.Subscription subscription = feed.subscribe(RosterEventFeed.Policy.BLOCK, event -> {
+			throw thrown;
+		});
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			for (int change = 0; change < CHANGES; change++) { //publishers do not wait on the stopped subscriber.
+				feed.publishStaffRegistered(new Staff("Given" + change, "Family"));
+			}
+			while (subscription.getFailure() == null) {
+				Thread.sleep(1);
+			}
+		});
+		assertSame(thrown, subscription.getFailure());
+		subscription.close();
+		subscription.close(); //closing again does nothing.
+		long published = feed.getPublished();
+		feed.publishStaffRegistered(new Staff("Ann", "Smith"));
+		assertEquals(published, feed.getPublished()); //no subscribers are left.
+	}
+
+	@Test
+	public void droppingSubscriberIsToldWhatItMissed() throws InterruptedException {
+		RosterEventFeed feed = new RosterEventFeed(8);
+		CountDownLatch stalled = new CountDownLatch(1);
+		AtomicLong read = new AtomicLong(), dropped = new AtomicLong();
+		try (RosterEventFeed.Subscription subscription = feed.subscribe(RosterEventFeed.Policy.DROP,
+				new RosterEventListener() {
+					@Override
+					public void onEvent(RosterEvent event) {
+						try {
+							stalled.await(); //the subscriber stalls on the first change until every change is published.
+						} catch (InterruptedException exception) {
+							Thread.currentThread().interrupt();
+						}
+						read.incrementAndGet();
+					}
+
+					@Override
+					public void onDropped(long count) {
+						dropped.addAndGet(count);
+					}
+				})) {
+			for (int change = 0; change < CHANGES; change++) {
+				feed.publishStaffRegistered(new Staff("Given" + change, "Family"));
+			}
+			stalled.countDown();
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (read.get() + dropped.get() < CHANGES && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(CHANGES, read.get() + dropped.get());
+			assertTrue(dropped.get() > 0);
+			assertEquals(dropped.get(), subscription.getDropped());
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Errors rejecting a request, which carry their message back to the caller but no stack trace.
+ */
+public class RosterExceptionTest {
+
+	@Test
+	public void keepsItsMessageWithoutAStackTrace() {
+		RosterException error = new RosterException("ERROR: something given is not valid.");
+		assertEquals("ERROR: something given is not valid.", error.getMessage());
+		assertEquals(0, error.getStackTrace().length);
+		assertNull(error.getCause());
+
+		error.addSuppressed(new RosterException("ERROR: another")); //suppression is off, so nothing is kept.
+		assertEquals(0, error.getSuppressed().length);
+		error.fillInStackTrace();
+		assertEquals(0, error.getStackTrace().length);
+	}
+
+	@Test
+	public void rejectsEachRequestBeforeARosterWithTheSameError() {
+		ShiftManServer server = new ShiftManServer();
+		RosterException first = assertThrows(RosterException.class, () -> server.beginTransaction());
+		RosterException second = assertThrows(RosterException.class, () -> server.getShiftViewsForDay("Monday"));
+		assertSame(first, second);
+		assertEquals("ERROR: no roster has been created", first.getMessage());
+		assertEquals(0, first.getStackTrace().length);
+		assertEquals("ERROR: no roster has been created", server.registerStaff("Ann", "Smith"));
+	}
+
+	@Test
+	public void keepsTheMessagesOfRejectedRequests() throws RosterException {
+		ShiftManServer server = new ShiftManServer();
+		assertEquals("", server.newRoster("Shop"));
+		assertEquals("ERROR: Someday is not a valid day.", server.setWorkingHours("Someday", "09:00", "17:00"));
+		assertEquals("ERROR: monday is not a valid day.", server.setWorkingHours("monday", "09:00", "17:00"));
+		assertEquals("", server.setWorkingHours(new String("Monday"), "09:00", "17:00")); //equal names need not be interned.
+		assertEquals("", server.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("ERROR: cannot assign Ann Smith, because they have not been registered into the roster yet.",
+				server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertTrue(server.getRosterForDay("Tuesday").isEmpty()); //a day that is not rostered on is no error.
+
+		RosterException error = assertThrows(RosterException.class, () -> server.getShiftViewsForDay("Someday"));
+		assertEquals("ERROR: Someday is not a valid day.", error.getMessage());
+		assertEquals(0, error.getStackTrace().length);
+	}
+}
@@ -0,0 +1,130 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Dated weeks rostered from the shop's week: following the template until a date is first changed, copying the day
+ * then, and rolling the horizon forward.
+ */
+public class RosterHorizonTest {
+
+	private static final String MONDAY = "2026-10-19";
+	private static final String NEXT_MONDAY = "2026-10-26";
+
+	private ShiftManServer _server;
+	private RosterHorizon _horizon;
+
+	@BeforeEach
+	public void setUp() throws RosterException {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertEquals("", _server.setHorizon("2026-10-21", 2)); //any day of the first week.
+		_horizon = _server.beginTransaction().getShop().getHorizon();
+	}
+
+	@Test
+	public void startsWithWeeksThatFollowTheTemplate() throws RosterException {
+		assertEquals(Arrays.asList(LocalDate.parse(MONDAY), LocalDate.parse(NEXT_MONDAY)), _horizon.getWeeks());
+		assertEquals(_server.getRosterForDay("Monday"), _server.getRosterForDate(NEXT_MONDAY));
+
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals(_server.getRosterForDay("Monday"), _server.getRosterForDate(MONDAY)); //changes to the template show.
+		assertSame(_server.beginTransaction().getShop().manageWeekSchedule("Monday"), _horizon.getWorkDay(LocalDate.parse(MONDAY)));
+		assertEquals(0, _horizon.countChangedDays());
+
+		assertEquals("ERROR: 2026-11-02 is not in the rostering horizon.", _server.addShiftOn("2026-11-02", "13:00", "17:00", "1"));
+		assertEquals("ERROR: number of weeks given is not valid.", _server.setHorizon(MONDAY, 0));
+	}
+
+	@Test
+	public void copiesADayOnItsFirstChange() throws RosterException {
+		assertEquals("", _server.assignStaffOn(MONDAY, "09:00", "12:00", "Ann", "Smith", true));
+		assertEquals(1, _horizon.countChangedDays());
+		assertEquals(Arrays.asList("Shop", "Monday 09:00-17:00", "Monday[09:00-12:00]  Manager:Smith, Ann [No workers assigned]"),
+				_server.getRosterForDate(MONDAY));
+		assertEquals(Arrays.asList("Shop", "Monday 09:00-17:00", "Monday[09:00-12:00] [No manager assigned] [No workers assigned]"),
+				_server.getRosterForDay("Monday")); //the template is not changed.
+		assertEquals(Arrays.asList("Ann Smith"), _server.getUnassignedStaff()); //staff only list the template's shifts.
+
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals(3, _server.getRosterForDate(MONDAY).size()); //the copy no longer follows the template.
+		assertEquals(4, _server.getRosterForDate(NEXT_MONDAY).size());
+
+		assertEquals("", _server.setWorkingHoursOn(MONDAY, "08:00", "18:00"));
+		assertEquals(1, _horizon.countChangedDays()); //changed again, but copied once.
+		assertEquals("Monday 08:00-18:00", _server.getRosterForDate(MONDAY).get(1));
+	}
+
+	@Test
+	public void copiesNothingIfTheFirstChangeFails() throws RosterException {
+		assertTrue(_server.addShiftOn(MONDAY, "10:00", "11:00", "1").startsWith("ERROR: cannot roster in shift"));
+		assertTrue(_server.assignStaffOn(MONDAY, "09:00", "12:00", "No", "One", false).startsWith("ERROR: cannot assign"));
+		assertEquals(0, _horizon.countChangedDays());
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals(_server.getRosterForDay("Monday"), _server.getRosterForDate(MONDAY));
+	}
+
+	@Test
+	public void rollsForwardAWeekAtATime() throws RosterException {
+		assertEquals("", _server.addShiftOn(MONDAY, "13:00", "17:00", "1"));
+		assertEquals("", _server.addShiftOn(NEXT_MONDAY, "13:00", "14:00", "1"));
+		assertEquals(2, _horizon.countChangedDays());
+
+		assertEquals("", _server.rollHorizonForward());
+		assertEquals(Arrays.asList(LocalDate.parse(NEXT_MONDAY), LocalDate.parse("2026-11-02")), _horizon.getWeeks());
+		assertEquals(1, _horizon.countChangedDays()); //the first week's copy is dropped.
+		assertEquals("ERROR: " + MONDAY + " is not in the rostering horizon.", _server.getRosterForDate(MONDAY).get(0));
+		assertEquals("Monday[13:00-14:00] [No manager assigned] [No workers assigned]", _server.getRosterForDate(NEXT_MONDAY).get(3));
+		assertEquals(_server.getRosterForDay("Monday"), _server.getRosterForDate("2026-11-02"));
+
+		assertEquals("", _server.newRoster("Other"));
+		assertEquals("ERROR: no rostering horizon has been set.", _server.rollHorizonForward());
+	}
+
+	@Test
+	public void publishesChangesToDatesWithTheirDate() throws Exception {
+		List<RosterEvent> events = new CopyOnWriteArrayList<RosterEvent>();
+		CountDownLatch read = new CountDownLatch(2);
+		try (RosterEventFeed.Subscription subscription = _server.subscribe(RosterEventFeed.Policy.BLOCK, event -> {
+			RosterEvent copy = new RosterEvent();
+			copy.copy(event);
+			events.add(copy);
+			read.countDown();
+		})) {
+			assertEquals("", _server.addShiftOn(MONDAY, "13:00", "17:00", "1"));
+			assertEquals("", _server.addShift("Monday", "14:00", "16:00", "1"));
+			assertTrue(read.await(10, TimeUnit.SECONDS));
+		}
+		assertEquals(LocalDate.parse(MONDAY), events.get(0).getDate());
+		assertEquals("0 shift added day 0 13:00-17:00 on 2026-10-19 minimum 1", events.get(0).toString());
+		assertNull(events.get(1).getDate());
+	}
+
+	@Test
+	public void refusesChangesOnceTheShopIsReplaced() throws RosterException {
+		Shop shop = _server.beginTransaction().getShop();
+		assertEquals("", _server.newRoster("Other"));
+		RosterException error = assertThrows(RosterException.class, () -> shop.setHorizon(LocalDate.parse(MONDAY), 4));
+		assertTrue(error.getMessage().startsWith("ERROR: roster has been replaced"));
+		assertThrows(RosterException.class, () -> shop.addShift(LocalDate.parse(MONDAY), "13:00", "17:00", "1"));
+		assertEquals(2, shop.getHorizon().getWeeks().size());
+		assertEquals(0, shop.getHorizon().countChangedDays());
+	}
+}
@@ -0,0 +1,224 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Rebuilding a roster from its journal.
+ */
+public class RosterJournalTest {
+
+	@TempDir
+	Path _directory;
+
+	@Test
+	public void replaysEverySuccessfulChange() throws IOException {
+		Path path = _directory.resolve("roster.journal");
+		String roster;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			assertTrue(server.addShift("Monday", "10:00", "11:00", "1").startsWith("ERROR")); //not journaled.
+			roster = server.displayRoster();
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(roster, server.displayRoster());
+			assertEquals("", server.assignStaff("Monday", "13:00", "17:00", "Cat", "Brown", false));
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			assertEquals(10, journal.replay(new ShiftManServer()));
+		}
+	}
+
+	@Test
+	public void dropsATornRecordAtTheEnd() throws IOException {
+		Path path = _directory.resolve("roster.journal");
+		String roster;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			roster = server.displayRoster();
+			server.registerStaff("Dan", "White");
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3); //as if the last write was cut short by a crash.
+		}
+		long torn = Files.size(path);
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(roster, server.displayRoster());
+			assertTrue(server.getRegisteredStaff().indexOf("Dan White") < 0);
+		}
+		assertTrue(Files.size(path) < torn);
+	}
+
+	@Test
+	public void compactsToTheCurrentRoster() throws IOException {
+		Path path = _directory.resolve("roster.journal");
+		String roster;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			server.newRoster("Old");
+			server.registerStaff("Old", "Staff");
+			buildRoster(server);
+			assertEquals("", server.compactJournal());
+			roster = server.displayRoster();
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(roster, server.displayRoster());
+			assertTrue(server.getRegisteredStaff().indexOf("Old Staff") < 0);
+		}
+	}
+
+	@Test
+	public void recordsATransactionWhole() throws Exception {
+		Path path = _directory.resolve("roster.journal");
+		String roster;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			roster = server.displayRoster();
+			RosterTransaction transaction = server.beginTransaction();
+			transaction.registerStaff("Dan", "White");
+			transaction.assignStaff("Monday", "13:00", "17:00", "Dan", "White", true);
+			transaction.assignStaff("Monday", "13:00", "17:00", "Cat", "Brown", false);
+			assertEquals("", server.commit(transaction));
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer();
+			assertEquals(10, journal.replay(server)); //the transaction is a single record.
+			assertEquals(Arrays.asList("Jones, Bob", "Monday[09:00-12:00]"), server.getShiftsManagedBy("Bob Jones"));
+			assertEquals(Arrays.asList("White, Dan", "Monday[13:00-17:00]"), server.getShiftsManagedBy("Dan White"));
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3); //a crash part way through the transaction loses all of it.
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(roster, server.displayRoster());
+			assertTrue(server.getRegisteredStaff().indexOf("Dan White") < 0);
+		}
+	}
+
+	@Test
+	public void dropsARecordWithACorruptLength() throws IOException {
+		Path path = _directory.resolve("roster.journal");
+		String roster;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			roster = server.displayRoster();
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+			ByteBuffer corrupt = ByteBuffer.allocate(8).putInt(Integer.MAX_VALUE - 8).putInt(0);
+			corrupt.flip();
+			channel.write(corrupt);
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(roster, server.displayRoster());
+		}
+	}
+
+	@Test
+	public void refusesChangesOnceTheJournalCannotBeWritten() throws IOException {
+		Path path = _directory.resolve("roster.journal");
+		RosterJournal journal = new RosterJournal(path);
+		ShiftManServer server = new ShiftManServer(journal);
+		buildRoster(server);
+		journal.close(); //every later write fails.
+		String roster = server.displayRoster();
+
+		assertTrue(server.registerStaff("Dan", "White").startsWith("ERROR: change was made but could not be saved"));
+		assertTrue(server.registerStaff("Eve", "Green").startsWith("ERROR: roster journal could not be written"));
+		assertTrue(server.assignStaff("Monday", "13:00", "17:00", "Cat", "Brown", false)
+				.startsWith("ERROR: roster journal could not be written"));
+		assertTrue(server.newRoster("Other").startsWith("ERROR: roster journal could not be written"));
+		assertTrue(server.getRegisteredStaff().indexOf("Eve Green") < 0);
+		assertEquals(roster, server.displayRoster());
+	}
+
+	@Test
+	public void recordsChangesUnderWayBeforeANewRoster() throws Exception {
+		Path path = _directory.resolve("roster.journal");
+		List<String> registered;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			Thread registering = new Thread(() -> {
+				for (int staff = 0; staff < 2000; staff++) {
+					server.registerStaff("Given" + staff, "Family");
+				}
+			});
+			registering.start();
+			for (int roster = 0; roster < 20; roster++) {
+				assertEquals("", server.newRoster("Shop" + roster));
+			}
+			registering.join();
+			registered = server.getRegisteredStaff();
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(registered, server.getRegisteredStaff());
+		}
+	}
+
+	@Test
+	public void replaysAndCompactsTheRosteringHorizon() throws Exception {
+		Path path = _directory.resolve("roster.journal");
+		List<String> changed, unchanged;
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			buildRoster(server);
+			assertEquals("", server.setHorizon("2026-10-12", 2));
+			assertEquals("", server.rollHorizonForward());
+			assertEquals("", server.setWorkingHoursOn("2026-10-19", "08:00", "18:00"));
+			assertEquals("", server.addShiftOn("2026-10-19", "17:01", "18:00", "1"));
+			assertEquals("", server.assignStaffOn("2026-10-19", "17:01", "18:00", "Cat", "Brown", true));
+			assertEquals("", server.assignStaffOn("2026-10-19", "13:00", "17:00", "Ann", "Smith", false));
+			assertTrue(server.addShiftOn("2026-10-12", "17:01", "18:00", "1").startsWith("ERROR")); //rolled out of the horizon.
+			changed = server.getRosterForDate("2026-10-19");
+			unchanged = server.getRosterForDate("2026-10-26");
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(changed, server.getRosterForDate("2026-10-19"));
+			assertEquals(unchanged, server.getRosterForDate("2026-10-26"));
+			assertEquals("", server.addShift("Monday", "12:01", "12:59", "1")); //after the date's day was copied.
+			assertEquals("", server.compactJournal());
+			unchanged = server.getRosterForDate("2026-10-26");
+		}
+		try (RosterJournal journal = new RosterJournal(path)) {
+			ShiftManServer server = new ShiftManServer(journal);
+			assertEquals(changed, server.getRosterForDate("2026-10-19")); //rebuilt without the template's later shift.
+			assertEquals(unchanged, server.getRosterForDate("2026-10-26"));
+			assertEquals(1, server.beginTransaction().getShop().getHorizon().countChangedDays());
+		}
+	}
+
+	private static void buildRoster(ShiftManServer server) {
+		assertEquals("", server.newRoster("Shop"));
+		assertEquals("", server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", server.addShift("Monday", "09:00", "12:00", "2"));
+		assertEquals("", server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals("", server.registerStaff("Ann", "Smith"));
+		assertEquals("", server.registerStaff("Bob", "Jones"));
+		assertEquals("", server.registerStaff("Cat", "Brown"));
+		assertEquals("", server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+	}
+}
@@ -0,0 +1,127 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The latency histogram, the percentiles read from it, the counting of errors by category, and the problem counts.
+ */
+public class RosterMetricsTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+	}
+
+	@Test
+	public void givesSmallLatenciesABucketEach() {
+		for (int latency = 0; latency < 8; latency++) {
+			assertEquals(latency, RosterMetrics.bucket(latency));
+			assertEquals(latency, RosterMetrics.bucketMiddle(latency));
+		}
+		assertEquals(8, RosterMetrics.bucket(8)); //the first power of two split into eight still has a bucket each.
+		assertEquals(8.0, RosterMetrics.bucketMiddle(8));
+		assertEquals(15, RosterMetrics.bucket(15));
+		assertEquals(16, RosterMetrics.bucket(16));
+		assertEquals(16, RosterMetrics.bucket(17));
+		assertEquals(16.5, RosterMetrics.bucketMiddle(16));
+	}
+
+	@Test
+	public void splitsEachPowerOfTwoIntoEightBuckets() {
+		long power = 1L << 62;
+		int bucket = RosterMetrics.bucket(power);
+		assertEquals((62 - 3 + 1) * 8, bucket);
+		assertEquals(bucket - 1, RosterMetrics.bucket(power - 1));
+		assertEquals(bucket, RosterMetrics.bucket(power + (power >> 3) - 1));
+		assertEquals(bucket + 1, RosterMetrics.bucket(power + (power >> 3)));
+		assertEquals(RosterMetrics.BUCKETS - 1, RosterMetrics.bucket(Long.MAX_VALUE));
+
+		double previous = -1;
+		for (int index = 0; index < RosterMetrics.BUCKETS; index++) {
+			double middle = RosterMetrics.bucketMiddle(index);
+			assertTrue(middle > previous, "bucket " + index);
+			assertEquals(index, RosterMetrics.bucket((long) middle), "bucket " + index);
+			previous = middle;
+		}
+	}
+
+	@Test
+	public void readsPercentilesFromTheBuckets() {
+		long[] buckets = new long[RosterMetrics.BUCKETS];
+		for (long latency = 1000; latency < 1100; latency++) { //one request for each nanosecond from 1000 to 1099.
+			buckets[RosterMetrics.bucket(latency)]++;
+		}
+		buckets[RosterMetrics.bucket(1_000_000)]++;
+		assertEquals(1.0, RosterMetrics.percentile(buckets, 101, 0.5), 1.0 / 8);
+		assertEquals(1.1, RosterMetrics.percentile(buckets, 101, 0.99), 1.1 / 8);
+		assertEquals(1000.0, RosterMetrics.percentile(buckets, 101, 0.999), 1000.0 / 8);
+	}
+
+	@Test
+	public void countsErrorsByCategory() throws RosterException {
+		assertTrue(_server.registerStaff("Ann", "Smith").startsWith("ERROR"));
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertTrue(_server.registerStaff("Ann", "Smith").startsWith("ERROR"));
+		assertTrue(_server.setWorkingHours("Someday", "09:00", "17:00").startsWith("ERROR"));
+		assertTrue(_server.setWorkingHours("Monday", "17:00", "09:00").startsWith("ERROR"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertTrue(_server.addShift("Monday", "08:00", "12:00", "1").startsWith("ERROR"));
+
+		Map<String, OperationMetrics> operations = new HashMap<String, OperationMetrics>();
+		for (OperationMetrics operation : _server.getMetrics().snapshot()) {
+			operations.put(operation.getOperation(), operation);
+		}
+		assertEquals(3, operations.get("registerStaff").getCalls());
+		assertEquals(2, operations.get("registerStaff").getErrors());
+		assertEquals(1L, operations.get("registerStaff").getErrorsByCategory().get("no roster"));
+		assertEquals(1L, operations.get("registerStaff").getErrorsByCategory().get("already done"));
+		assertEquals(3, operations.get("setWorkingHours").getCalls());
+		assertEquals(Map.of("invalid input", 2L), operations.get("setWorkingHours").getErrorsByCategory());
+		assertEquals(Map.of("scheduling", 1L), operations.get("addShift").getErrorsByCategory());
+		assertEquals(0, operations.get("newRoster").getErrors());
+		assertTrue(operations.get("newRoster").getErrorsByCategory().isEmpty());
+
+		_server.getMetrics().reset();
+		assertTrue(_server.getMetrics().snapshot().isEmpty());
+	}
+
+	@Test
+	public void countsProblemsFromThePublishedVersion() throws RosterException {
+		RosterMetrics metrics = _server.getMetrics();
+		assertEquals(Map.of("without managers", 0, "overstaffed", 0, "understaffed", 0), metrics.getProblemCounts());
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.setWorkingHours("Tuesday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "2"));
+		assertEquals("", _server.addShift("Tuesday", "09:00", "12:00", "0"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertEquals("", _server.registerStaff("Bob", "Jones"));
+		assertEquals("", _server.assignStaff("Tuesday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+		assertCountsMatch(metrics);
+		assertEquals(Map.of("without managers", 2, "overstaffed", 1, "understaffed", 2), metrics.getProblemCounts());
+
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Ann", "Smith", false));
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Bob", "Jones", false));
+		assertCountsMatch(metrics); //counted again for Monday only.
+		assertEquals(1, metrics.getProblemCounts().get("understaffed")); //the morning shift still has a manager and no worker.
+	}
+
+	private void assertCountsMatch(RosterMetrics metrics) throws RosterException {
+		Map<String, Integer> counts = metrics.getProblemCounts();
+		for (ProblemType problemType : ProblemType.values()) {
+			assertEquals(_server.getProblemShiftViews(problemType).size(), counts.get(problemType.toString()));
+		}
+	}
+}
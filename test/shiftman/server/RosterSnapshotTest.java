@@ -0,0 +1,128 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Saving a roster as a snapshot and loading it again.
+ */
+public class RosterSnapshotTest {
+
+	@TempDir
+	Path _directory;
+
+	@Test
+	public void loadsTheSameRoster() {
+		Path path = _directory.resolve("roster.snapshot");
+		ShiftManServer server = buildRoster();
+		assertEquals("", server.saveSnapshot(path));
+
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.loadSnapshot(path));
+		assertEquals(server.displayRoster(), loaded.displayRoster());
+		assertEquals(server.getRosterForDay("Monday"), loaded.getRosterForDay("Monday"));
+		assertEquals(server.getRegisteredStaff(), loaded.getRegisteredStaff());
+		assertEquals(server.getUnassignedStaff(), loaded.getUnassignedStaff());
+		assertEquals(server.getRosterForWorker("Ann Smith"), loaded.getRosterForWorker("Ann Smith"));
+		assertEquals(server.reportRosterIssues(), loaded.reportRosterIssues());
+	}
+
+	@Test
+	public void keepsChangingTheLoadedRoster() {
+		Path path = _directory.resolve("roster.snapshot");
+		assertEquals("", buildRoster().saveSnapshot(path));
+
+		ShiftManServer loaded = new ShiftManServer();
+		assertEquals("", loaded.loadSnapshot(path));
+		assertTrue(loaded.registerStaff("ann", "smith").startsWith("ERROR"));
+		assertEquals("", loaded.assignStaff("Monday", "13:00", "17:00", "Cat", "Brown", false));
+		assertEquals("", loaded.registerStaff("Dan", "White"));
+		assertEquals("", loaded.assignStaff("Monday", "13:00", "17:00", "Dan", "White", true));
+		assertEquals("Monday[13:00-17:00]  Manager:White, Dan [Cat Brown]", loaded.getRosterForDay("Monday").get(3));
+	}
+
+	@Test
+	public void findsStaffByNameWithoutReadingTheStaffList() throws IOException, RosterException {
+		Path path = _directory.resolve("roster.snapshot");
+		assertEquals("", buildRoster().saveSnapshot(path));
+
+		RosterSnapshot snapshot = RosterSnapshot.open(path);
+		assertEquals(0, snapshot.findStaff("ann smith"));
+		assertEquals(2, snapshot.findStaff("cat brown"));
+		assertEquals(-1, snapshot.findStaff("dan white"));
+
+		Shop shop = new Shop(snapshot, null);
+		assertEquals(3, shop.countStaff());
+		assertEquals("Cat Brown", shop.findStaff("Cat Brown").getName(NameType.FIRST_LAST));
+		assertEquals(null, shop.findStaff("cat brown")); //found case insensitively, but the name must match exactly.
+		shop.registerStaffToShop(new Staff("Dan", "White"));
+		assertEquals(3, shop.findStaff("Dan White").getId());
+		assertEquals(Arrays.asList("Cat Brown", "Dan White"), shop.getStaffInfo(StaffFilter.UNASSIGNED));
+	}
+
+	@Test
+	public void journalsALoadWithoutCompacting() throws IOException {
+		Path path = _directory.resolve("roster.snapshot");
+		Path journalPath = _directory.resolve("roster.journal");
+		ShiftManServer server = buildRoster();
+		assertEquals("", server.saveSnapshot(path));
+		String roster;
+		try (RosterJournal journal = new RosterJournal(journalPath)) {
+			ShiftManServer journaled = new ShiftManServer(journal);
+			assertEquals("", journaled.loadSnapshot(path));
+			assertEquals("", journaled.assignStaff("Monday", "13:00", "17:00", "Cat", "Brown", false));
+			roster = journaled.displayRoster();
+		}
+		assertEquals("", server.registerStaff("Dan", "White"));
+		assertEquals("", server.saveSnapshot(path)); //the journal replays the snapshot as it was loaded.
+
+		try (RosterJournal journal = new RosterJournal(journalPath)) {
+			assertEquals(2, journal.replay(new ShiftManServer()));
+		}
+		try (RosterJournal journal = new RosterJournal(journalPath)) {
+			ShiftManServer journaled = new ShiftManServer(journal);
+			assertEquals(roster, journaled.displayRoster());
+			assertTrue(journaled.getRegisteredStaff().indexOf("Dan White") < 0);
+			assertEquals("", journaled.compactJournal());
+		}
+		try (DirectoryStream<Path> kept = Files.newDirectoryStream(_directory, "roster.journal.*.snapshot")) {
+			assertFalse(kept.iterator().hasNext());
+		}
+	}
+
+	@Test
+	public void rejectsAFileThatIsNotASnapshot() throws IOException {
+		Path path = _directory.resolve("roster.snapshot");
+		Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		assertThrows(IOException.class, () -> RosterSnapshot.open(path));
+		assertTrue(new ShiftManServer().loadSnapshot(path).startsWith("ERROR: snapshot could not be loaded."));
+	}
+
+	private static ShiftManServer buildRoster() {
+		ShiftManServer server = new ShiftManServer();
+		assertEquals("", server.newRoster("Shop"));
+		assertEquals("", server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", server.setWorkingHours("Friday", "10:00", "18:00"));
+		assertEquals("", server.addShift("Monday", "09:00", "12:00", "2"));
+		assertEquals("", server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals("", server.addShift("Friday", "10:00", "18:00", "1"));
+		assertEquals("", server.registerStaff("Ann", "Smith"));
+		assertEquals("", server.registerStaff("Bob", "Jones"));
+		assertEquals("", server.registerStaff("Cat", "Brown"));
+		assertEquals("", server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+		assertEquals("", server.assignStaff("Friday", "10:00", "18:00", "Ann", "Smith", true));
+		return server;
+	}
+}
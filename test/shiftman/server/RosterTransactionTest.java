@@ -0,0 +1,105 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Making a set of changes all together or not at all.
+ */
+public class RosterTransactionTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+	}
+
+	@Test
+	public void makesEveryChange() throws RosterException {
+		RosterTransaction transaction = _server.beginTransaction();
+		assertEquals("", transaction.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", transaction.registerStaff("Bob", "Jones"));
+		assertEquals("", transaction.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", transaction.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+		assertEquals(4, transaction.size());
+		assertEquals("", _server.commit(transaction));
+
+		assertEquals(Arrays.asList("Shop", "Monday 09:00-17:00", "Monday[09:00-12:00]  Manager:Jones, Bob [Ann Smith]"),
+				_server.getRosterForDay("Monday"));
+		assertTrue(_server.commit(transaction).startsWith("ERROR: transaction has already been committed."));
+	}
+
+	@Test
+	public void makesNoChangeIfOneFails() throws RosterException {
+		List<String> roster = _server.getRosterForDay("Monday");
+		RosterTransaction transaction = _server.beginTransaction();
+		transaction.addShift("Monday", "09:00", "12:00", "1");
+		transaction.registerStaff("Bob", "Jones");
+		transaction.assignStaff("Monday", "09:00", "12:00", "Cat", "Brown", false); //not registered.
+		String status = _server.commit(transaction);
+		assertTrue(status.startsWith("ERROR"));
+		assertTrue(status.endsWith("Change 3 of the transaction failed, so no changes were made."));
+
+		assertEquals(roster, _server.getRosterForDay("Monday"));
+		assertEquals(Arrays.asList("Ann Smith"), _server.getRegisteredStaff());
+	}
+
+	@Test
+	public void makesNoChangeIfTheRosterChangedFirst() throws RosterException {
+		RosterTransaction transaction = _server.beginTransaction();
+		transaction.addShift("Monday", "09:00", "12:00", "1");
+		assertEquals("", _server.addShift("Monday", "13:00", "14:00", "1"));
+		assertEquals("ERROR: roster has changed since the transaction began. No changes were made.",
+				_server.commit(transaction));
+		assertEquals(3, _server.getRosterForDay("Monday").size());
+	}
+
+	@Test
+	public void makesNoChangeToAReplacedRoster() throws RosterException {
+		RosterTransaction transaction = _server.beginTransaction();
+		transaction.registerStaff("Bob", "Jones");
+		assertEquals("", _server.newRoster("Other"));
+		assertTrue(_server.commit(transaction).startsWith("ERROR: roster has been replaced"));
+		assertTrue(_server.getRegisteredStaff().isEmpty());
+	}
+
+	@Test
+	public void rejectsInvalidDaysWhenTheChangeIsAdded() throws RosterException {
+		RosterTransaction transaction = _server.beginTransaction();
+		assertEquals("ERROR: Funday is not a valid day.", transaction.addShift("Funday", "09:00", "12:00", "1"));
+		assertEquals("ERROR: monday is not a valid day.", transaction.setWorkingHours("monday", "09:00", "12:00"));
+		assertEquals("ERROR: Funday is not a valid day.",
+				transaction.assignStaff("Funday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals(0, transaction.size());
+		assertEquals("", transaction.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.commit(transaction));
+	}
+
+	@Test
+	public void publishesOnlyTheDaysThatChanged() throws RosterException {
+		long version = _server.pinRoster().getVersion();
+		RosterTransaction transaction = _server.beginTransaction();
+		WorkDay tuesday = transaction.getShop().manageWeekSchedule("Tuesday");
+		transaction.expectVersion(tuesday, tuesday.getVersion()); //read, as by an automatic roster, but not changed.
+		assertEquals("", _server.commit(transaction));
+		assertEquals(version, _server.pinRoster().getVersion());
+
+		transaction = _server.beginTransaction();
+		transaction.expectVersion(tuesday, tuesday.getVersion());
+		assertEquals("", transaction.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.commit(transaction));
+		assertEquals(version + 1, _server.pinRoster().getVersion());
+		assertFalse(transaction.hasChanged(tuesday));
+	}
+}
@@ -0,0 +1,103 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reading a pinned version of a roster while it changes.
+ */
+public class RosterVersionTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertEquals("", _server.registerStaff("Bob", "Jones"));
+	}
+
+	@Test
+	public void pinnedVersionDoesNotChange() throws RosterException {
+		RosterVersion pinned = _server.pinRoster();
+		List<String> day = pinned.getRosterForDay("Monday");
+		String week = pinned.displayRoster();
+
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals("", _server.registerStaff("Cat", "Brown"));
+
+		assertEquals(day, pinned.getRosterForDay("Monday"));
+		assertEquals(week, pinned.displayRoster());
+		assertEquals(Arrays.asList("Bob Jones", "Ann Smith"), pinned.getRegisteredStaff());
+		assertEquals(Arrays.asList("Bob Jones", "Ann Smith"), pinned.getUnassignedStaff());
+
+		RosterVersion current = _server.pinRoster();
+		assertTrue(current.getVersion() > pinned.getVersion());
+		assertEquals(_server.getRosterForDay("Monday"), current.getRosterForDay("Monday"));
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), current.getRegisteredStaff());
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"), current.getUnassignedStaff());
+	}
+
+	@Test
+	public void versionsShareUnassignedStaffUntilTheyChange() throws RosterException {
+		List<String> unassigned = _server.pinRoster().getUnassignedStaff();
+		assertEquals("", _server.setWorkingHours("Tuesday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Tuesday", "09:00", "12:00", "1"));
+		assertSame(unassigned, _server.pinRoster().getUnassignedStaff());
+
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		List<String> assigned = _server.pinRoster().getUnassignedStaff();
+		assertEquals(Arrays.asList("Bob Jones"), assigned);
+		assertEquals("", _server.assignStaff("Tuesday", "09:00", "12:00", "Ann", "Smith", true));
+		assertSame(assigned, _server.pinRoster().getUnassignedStaff()); //Ann was already assigned.
+		assertEquals("", _server.registerStaff("Cat", "Brown"));
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"), _server.pinRoster().getUnassignedStaff());
+	}
+
+	@Test
+	public void readersSeeWholeChanges() throws Exception {
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread reader = new Thread(() -> {
+			try {
+				for (int read = 0; read < 2000; read++) {
+					//each transaction adds a shift and assigns its manager, so no version has a shift without one.
+					RosterVersion version = _server.pinRoster();
+					List<String> day = version.getRosterForDay("Tuesday");
+					for (String line : day.subList(Math.min(2, day.size()), day.size())) {
+						assertTrue(line.contains("Manager:"), line);
+					}
+				}
+			} catch (Throwable throwable) {
+				failure.set(throwable);
+			}
+		});
+		assertEquals("", _server.setWorkingHours("Tuesday", "01:00", "23:00"));
+		reader.start();
+		for (int shift = 0; shift < 100; shift++) {
+			RosterTransaction transaction = _server.beginTransaction();
+			String start = Hours.format(60 + shift * 10);
+			String end = Hours.format(65 + shift * 10);
+			transaction.addShift("Tuesday", start, end, "1");
+			transaction.assignStaff("Tuesday", start, end, "Ann", "Smith", true);
+			assertEquals("", _server.commit(transaction));
+		}
+		reader.join();
+		if (failure.get() != null) {
+			throw new AssertionError(failure.get());
+		}
+		assertNotEquals(0, _server.pinRoster().getVersion());
+	}
+}
@@ -0,0 +1,144 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The HTTP/JSON front end, answering requests over loopback, and the JSON it reads and writes.
+ */
+public class ShiftManHttpServerTest {
+
+	private ShiftManHttpServer _server;
+	private HttpClient _client;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		_server = new ShiftManHttpServer(new ShiftManServer(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		_server.start();
+		_client = HttpClient.newHttpClient();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		_server.stop(0);
+	}
+
+	@Test
+	public void answersOperationsPostedAsJson() throws Exception {
+		assertEquals("{\"status\":\"\"}", post("newRoster", "{\"shopName\":\"Shop\"}").body());
+		post("setWorkingHours", "{\"dayOfWeek\":\"Monday\",\"startTime\":\"09:00\",\"endTime\":\"17:00\"}");
+		post("addShift", "{\"dayOfWeek\":\"Monday\",\"startTime\":\"09:00\",\"endTime\":\"12:00\",\"minimumWorkers\":\"1\"}");
+		post("registerStaff", "{\"givenName\":\"Ann\",\"familyName\":\"Smith\"}");
+		HttpResponse<String> response = post("assignStaff", "{\"dayOfWeek\":\"Monday\",\"startTime\":\"09:00\","
+				+ "\"endTime\":\"12:00\",\"givenName\":\"Ann\",\"familyName\":\"Smith\",\"isManager\":true}");
+		assertEquals(200, response.statusCode());
+		assertEquals("{\"status\":\"\"}", response.body());
+		assertEquals("application/json; charset=utf-8", response.headers().firstValue("Content-Type").get());
+
+		response = _client.send(request("getRosterForDay").POST(HttpRequest.BodyPublishers.ofString(
+				"{\"dayOfWeek\":\"Monday\"}")).build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals("{\"result\":[\"Shop\",\"Monday 09:00-17:00\",\"Monday[09:00-12:00]  Manager:Smith, Ann [No workers assigned]\"]}",
+				response.body());
+		response = _client.send(request("getRegisteredStaff").GET().build(), HttpResponse.BodyHandlers.ofString());
+		assertEquals("{\"result\":[\"Ann Smith\"]}", response.body());
+		assertEquals("{\"status\":\"ERROR: Ann Smithalready registered.\"}",
+				post("registerStaff", "{\"givenName\":\"Ann\",\"familyName\":\"Smith\"}").body()); //errors as ShiftMan gives them.
+	}
+
+	@Test
+	public void rejectsIsManagerThatIsNotABoolean() throws Exception {
+		post("newRoster", "{\"shopName\":\"Shop\"}");
+		String assignment = "{\"dayOfWeek\":\"Monday\",\"startTime\":\"09:00\",\"endTime\":\"12:00\",\"givenName\":\"Ann\","
+				+ "\"familyName\":\"Smith\"";
+		for (String isManager : new String[] {",\"isManager\":\"true\"}", ",\"isManager\":1}", ",\"isManager\":null}", "}"}) {
+			HttpResponse<String> response = post("assignStaff", assignment + isManager);
+			assertEquals(400, response.statusCode());
+			assertEquals("{\"error\":\"ERROR: isManager must be true or false.\"}", response.body());
+		}
+	}
+
+	@Test
+	public void answersBadRequestsWithTheirStatus() throws Exception {
+		HttpResponse<String> response = post("noSuchOperation", "{}");
+		assertEquals(404, response.statusCode());
+		assertEquals("{\"error\":\"ERROR: noSuchOperation is not an operation.\"}", response.body());
+
+		response = _client.send(request("displayRoster").PUT(HttpRequest.BodyPublishers.ofString("{}")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertEquals(405, response.statusCode());
+		assertEquals("{\"error\":\"ERROR: method PUT is not supported.\"}", response.body());
+
+		for (String body : new String[] {"[]", "{\"shopName\":}", "{\"shopName\":\"Shop\"} x", "{\"shopName\":{}}"}) {
+			response = post("newRoster", body);
+			assertEquals(400, response.statusCode());
+			assertEquals("{\"error\":\"ERROR: request body is not a JSON object.\"}", response.body());
+		}
+	}
+
+	@Test
+	public void rejectsBodiesLongerThanTheLimit() throws Exception {
+		char[] name = new char[1 << 16];
+		Arrays.fill(name, 'a');
+		HttpResponse<String> response = post("newRoster", "{\"shopName\":\"" + new String(name) + "\"}");
+		assertEquals(400, response.statusCode());
+		assertEquals("{\"status\":\"\"}", post("newRoster", "{\"shopName\":\"" + new String(name, 0, 1000) + "\"}").body());
+	}
+
+	@Test
+	public void refusesSettingsOnceAServerIsCreated() {
+		assertThrows(IllegalStateException.class, () -> ShiftManHttpServer.configure(false, 10));
+		assertThrows(IllegalArgumentException.class, () -> ShiftManHttpServer.configure(true, -1));
+	}
+
+	@Test
+	public void parsesFlatJsonObjects() {
+		Map<String, Object> expected = new HashMap<String, Object>();
+		expected.put("name", "A \"quoted\"\n\u00e9 \\ /");
+		expected.put("yes", Boolean.TRUE);
+		expected.put("no", Boolean.FALSE);
+		expected.put("nothing", null);
+		expected.put("number", "-1.5e3");
+		assertEquals(expected, ShiftManHttpServer.Json.parseObject(
+				" { \"name\" : \"A \\\"quoted\\\"\\n\\u00e9 \\\\ \\/\", \"yes\":true,\"no\":false,\"nothing\":null,\"number\":-1.5e3 } "));
+		assertTrue(ShiftManHttpServer.Json.parseObject("").isEmpty());
+		assertTrue(ShiftManHttpServer.Json.parseObject(" {} ").isEmpty());
+		for (String text : new String[] {"{", "{\"a\"}", "{\"a\":tru}", "{\"a\":\"b}", "{\"a\":\"\\u00\"}", "{} {}", "{\"a\":1,}"}) {
+			assertThrows(IllegalArgumentException.class, () -> ShiftManHttpServer.Json.parseObject(text), text);
+		}
+	}
+
+	@Test
+	public void writesStringsThatParseBackUnchanged() {
+		String string = "quote \" backslash \\ newline \n return \r tab \t bell \u0007 e \u00e9";
+		StringBuilder output = new StringBuilder();
+		ShiftManHttpServer.Json.appendString(output, string);
+		assertEquals("\"quote \\\" backslash \\\\ newline \\n return \\r tab \\t bell \\u0007 e \u00e9\"", output.toString());
+		assertEquals(string, ShiftManHttpServer.Json.parseObject("{\"s\":" + output + "}").get("s"));
+	}
+
+	private HttpResponse<String> post(String operation, String body) throws IOException, InterruptedException {
+		return _client.send(request(operation).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpRequest.Builder request(String operation) {
+		InetSocketAddress address = _server.getAddress();
+		return HttpRequest.newBuilder(URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/" + operation));
+	}
+}
@@ -0,0 +1,159 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The requests of {@link ShiftMan}, and the statuses and formats they return.
+ */
+public class ShiftManServerTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "09:00", "12:00", "2"));
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "1"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertEquals("", _server.registerStaff("Bob", "Jones"));
+		assertEquals("", _server.registerStaff("Cat", "Brown"));
+	}
+
+	@Test
+	public void rejectsRequestsBeforeARosterIsCreated() {
+		ShiftManServer server = new ShiftManServer();
+		assertEquals(Collections.singletonList("ERROR: no roster has been created"), server.getRosterForDay("Monday"));
+		assertEquals("ERROR: no roster has been created", server.registerStaff("Ann", "Smith"));
+		assertEquals("ERROR: no roster has been created", server.displayRoster());
+	}
+
+	@Test
+	public void rejectsInvalidValues() {
+		assertEquals("ERROR: cannot roster in shift, overlaps with 09:00 shift.", _server.addShift("Monday", "11:00", "13:00", "1"));
+		assertEquals("ERROR: shift scheduled is not in working hours range.", _server.addShift("Monday", "08:00", "09:00", "1"));
+		assertEquals("ERROR: start and end times given are not valid.", _server.addShift("Monday", "9am", "10am", "1"));
+		assertEquals(Collections.singletonList("ERROR: Funday is not a valid day."), _server.getRosterForDay("Funday"));
+		assertTrue(_server.registerStaff("ann", "smith").startsWith("ERROR"));
+		assertTrue(_server.registerStaff("", "Smith").startsWith("ERROR"));
+		assertTrue(_server.assignStaff("Monday", "09:00", "12:00", "No", "One", false).startsWith("ERROR"));
+	}
+
+	@Test
+	public void rendersTheRosterOfADay() {
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+		assertEquals("ERROR: this shift already has Bob Jones assigned as a manager.",
+				_server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", false));
+
+		assertEquals(Arrays.asList("Shop", "Monday 09:00-17:00", "Monday[09:00-12:00]  Manager:Jones, Bob [Ann Smith]",
+				"Monday[13:00-17:00] [No manager assigned] [No workers assigned]"), _server.getRosterForDay("Monday"));
+		assertEquals(Collections.emptyList(), _server.getRosterForDay("Tuesday"));
+		assertEquals(Arrays.asList("Smith, Ann", "Monday[09:00-12:00]"), _server.getRosterForWorker("Ann Smith"));
+		assertEquals(Arrays.asList("Jones, Bob", "Monday[09:00-12:00]"), _server.getShiftsManagedBy("Bob Jones"));
+		assertEquals("SHOP NAME: Shop DAY:Monday 09:00-17:00 Monday[09:00-12:00]  Manager:Jones, Bob [Ann Smith]",
+				_server.displayRoster());
+	}
+
+	@Test
+	public void listsStaffInFamilyNameOrder() {
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), _server.getRegisteredStaff());
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Bob", "Jones", false));
+		assertEquals(Arrays.asList("Cat Brown", "Ann Smith"), _server.getUnassignedStaff());
+	}
+
+	@Test
+	public void reportsProblemShifts() {
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Ann", "Smith", false));
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Bob", "Jones", false));
+		assertEquals(Collections.singletonList("Monday[09:00-12:00]"), _server.understaffedShifts());
+		assertEquals(Collections.singletonList("Monday[13:00-17:00]"), _server.overstaffedShifts());
+		assertEquals(Arrays.asList("Monday[09:00-12:00]", "Monday[13:00-17:00]"), _server.shiftsWithoutManagers());
+		assertEquals("There are 1 overstaffed shifts, 1 understaffed shifts, 2 shifts without managers.",
+				_server.reportRosterIssues());
+	}
+
+	@Test
+	public void ordersStaffByWorkload() throws Exception {
+		for (String day : new String[] {"Tuesday", "Wednesday"}) {
+			assertEquals("", _server.setWorkingHours(day, "09:00", "17:00"));
+			for (int hour = 9; hour < 17; hour++) {
+				assertEquals("", _server.addShift(day, String.format("%02d:00", hour), String.format("%02d:59", hour), "1"));
+			}
+		}
+		//Ann works every hour of Tuesday and Wednesday at once, from two threads.
+		Thread[] threads = new Thread[2];
+		for (int thread = 0; thread < threads.length; thread++) {
+			String day = thread == 0 ? "Tuesday" : "Wednesday";
+			threads[thread] = new Thread(() -> {
+				for (int hour = 9; hour < 17; hour++) {
+					_server.assignStaff(day, String.format("%02d:00", hour), String.format("%02d:59", hour), "Ann", "Smith", false);
+				}
+			});
+			threads[thread].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals("", _server.assignStaff("Monday", "13:00", "17:00", "Bob", "Jones", true));
+
+		List<Workload> most = _server.getMostLoadedStaff(10);
+		assertEquals(Arrays.asList("Ann Smith", "Bob Jones", "Cat Brown"), most.stream().map(w -> w.getStaff().toString()).toList());
+		assertEquals(16 * 59, most.get(0).getTotalMinutes());
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"),
+				_server.getLeastLoadedStaff(2).stream().map(w -> w.getStaff().toString()).toList());
+	}
+
+	@Test
+	public void batchesReportTheStatusOfEachEntry() {
+		List<String> statuses = _server.registerStaffBatch(Arrays.asList(new String[] {"Dan", "White"},
+				new String[] {"Ann", "Smith"}, new String[] {"Eve"}));
+		assertEquals("", statuses.get(0));
+		assertTrue(statuses.get(1).startsWith("ERROR"));
+		assertEquals("ERROR: batch entry given is not valid.", statuses.get(2));
+
+		statuses = _server.assignStaffBatch(Arrays.asList(
+				new String[] {"Monday", "09:00", "12:00", "Dan", "White", "false"},
+				new String[] {"Monday", "09:00", "12:00", "Ann", "Smith", "true"}));
+		assertEquals(Arrays.asList("", ""), statuses);
+		assertEquals(Arrays.asList("Smith, Ann", "Monday[09:00-12:00]"), _server.getShiftsManagedBy("Ann Smith"));
+	}
+
+	@Test
+	public void batchSortsTheWorkersItAssigns() {
+		assertEquals("", _server.registerStaff("Dan", "White"));
+		List<String> statuses = _server.assignStaffBatch(Arrays.asList(
+				new String[] {"Monday", "09:00", "12:00", "Ann", "Smith", "false"},
+				new String[] {"Monday", "09:00", "12:00", "Dan", "White", "true"},
+				new String[] {"Monday", "09:00", "12:00", "Cat", "Brown", "false"},
+				new String[] {"Monday", "09:00", "12:00", "Cat", "Brown", "false"},
+				new String[] {"Monday", "09:00", "12:00", "Bob", "Jones", "false"}));
+		assertEquals(Arrays.asList("", "", "", "ERROR: this shift already has Cat Brown assigned as a worker.", ""), statuses);
+		assertEquals("Monday[09:00-12:00]  Manager:White, Dan [Cat Brown, Bob Jones, Ann Smith]", _server.getRosterForDay("Monday").get(2));
+
+		//a later assignment is placed among the sorted workers.
+		assertEquals("", _server.registerStaff("Eve", "Adams"));
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Eve", "Adams", false));
+		assertEquals("Monday[09:00-12:00]  Manager:White, Dan [Eve Adams, Cat Brown, Bob Jones, Ann Smith]",
+				_server.getRosterForDay("Monday").get(2));
+	}
+
+	@Test
+	public void batchRejectsManagerValuesOtherThanTrueOrFalse() {
+		List<String> statuses = _server.assignStaffBatch(Arrays.asList(
+				new String[] {"Monday", "13:00", "17:00", "Cat", "Brown", "yes"},
+				new String[] {"Monday", "13:00", "17:00", "Cat", "Brown", "TRUE"},
+				new String[] {"Monday", "13:00", "17:00", "Cat", "Brown", null}));
+		assertEquals(Collections.nCopies(3, "ERROR: batch entry given is not valid."), statuses);
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), _server.getUnassignedStaff());
+	}
+}
@@ -0,0 +1,54 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Routing requests to the roster of each shop.
+ */
+public class ShopRegistryTest {
+
+	@Test
+	public void keepsTheRosterOfEachShopApart() {
+		ShopRegistry registry = new ShopRegistry();
+		assertEquals("", registry.newRoster("North"));
+		assertEquals("", registry.newRoster("South"));
+		assertEquals("", registry.registerStaff("North", "Ann", "Smith"));
+		assertEquals("", registry.registerStaff("South", "Bob", "Jones"));
+		assertEquals("", registry.registerStaff("South", "Ann", "Smith"));
+
+		assertEquals(Arrays.asList("Ann Smith"), registry.getRegisteredStaff("North"));
+		assertEquals(Arrays.asList("Bob Jones", "Ann Smith"), registry.getRegisteredStaff("South"));
+		assertEquals(2, registry.size());
+	}
+
+	@Test
+	public void reportsShopsWithoutARoster() {
+		ShopRegistry registry = new ShopRegistry();
+		assertEquals("ERROR: no roster has been created", registry.registerStaff("Nowhere", "Ann", "Smith"));
+		assertEquals(Collections.singletonList("ERROR: no roster has been created"), registry.getRosterForDay(null, "Monday"));
+		assertTrue(registry.newRoster("").startsWith("ERROR"));
+		assertNull(registry.getShop(""));
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void replacesAndRemovesRosters() {
+		ShopRegistry registry = new ShopRegistry();
+		assertEquals("", registry.newRoster("North"));
+		assertEquals("", registry.registerStaff("North", "Ann", "Smith"));
+		assertEquals("", registry.newRoster("North"));
+		assertTrue(registry.getRegisteredStaff("North").isEmpty());
+
+		assertTrue(registry.removeRoster("North"));
+		assertFalse(registry.removeRoster("North"));
+		assertEquals("ERROR: no roster has been created", registry.displayRoster("North"));
+	}
+}
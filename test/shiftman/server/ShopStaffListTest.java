@@ -0,0 +1,111 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The staff registry of a shop: its case-insensitive index, its family name order, and the pages, streams and
+ * unassigned staff listed from it.
+ */
+public class ShopStaffListTest {
+
+	private ShopStaffList _staffList;
+	private Staff _ann;
+
+	@BeforeEach
+	public void setUp() throws RosterException {
+		_staffList = new ShopStaffList();
+		_ann = new Staff("Ann", "Smith");
+		_staffList.registerStaff(_ann);
+		_staffList.registerStaff(new Staff("Bob", "Jones"));
+		_staffList.registerStaff(new Staff("Cat", "Brown"));
+	}
+
+	@Test
+	public void rejectsNamesRegisteredInAnotherCase() {
+		RosterException error = assertThrows(RosterException.class, () -> _staffList.registerStaff(new Staff("aNN", "SMITH")));
+		assertEquals("ERROR: aNN SMITHalready registered.", error.getMessage());
+		assertEquals(3, _staffList.countStaff());
+	}
+
+	@Test
+	public void findsStaffByTheirExactName() throws RosterException {
+		assertSame(_ann, _staffList.getStaff("Ann Smith"));
+		assertNull(_staffList.findStaff("ann smith")); //the index ignores case, but the name must match exactly.
+		RosterException error = assertThrows(RosterException.class, () -> _staffList.getStaff("ANN SMITH"));
+		assertEquals("ERROR: cannot assign ANN SMITH, because they have not been registered into the roster yet.",
+				error.getMessage());
+	}
+
+	@Test
+	public void listsStaffInFamilyNameOrder() throws RosterException {
+		_staffList.registerStaff(new Staff("Ada", "Jones")); //same family name, so ordered by given name.
+		assertEquals(Arrays.asList("Cat Brown", "Ada Jones", "Bob Jones", "Ann Smith"),
+				_staffList.displayStaff(StaffFilter.REGISTERED, null, 10));
+	}
+
+	@Test
+	public void givesStaffIdsInOrderOfRegistration() throws RosterException {
+		assertEquals(0, _staffList.getStaff("Ann Smith").getId());
+		assertEquals(1, _staffList.getStaff("Bob Jones").getId());
+		assertEquals(2, _staffList.getStaff("Cat Brown").getId());
+	}
+
+	@Test
+	public void pagesThroughStaffAfterTheLastOneListed() throws RosterException {
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"), _staffList.displayStaff(StaffFilter.REGISTERED, null, 2));
+		assertEquals(Arrays.asList("Ann Smith"), _staffList.displayStaff(StaffFilter.REGISTERED, "Bob Jones", 2));
+		assertTrue(_staffList.displayStaff(StaffFilter.REGISTERED, "Ann Smith", 2).isEmpty());
+
+		RosterException error = assertThrows(RosterException.class,
+				() -> _staffList.displayStaff(StaffFilter.REGISTERED, "bob jones", 2));
+		assertEquals("ERROR: bob jones is not a registered staff member to list staff after.", error.getMessage());
+	}
+
+	@Test
+	public void streamsStaffInFamilyNameOrder() throws RosterException {
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), names(StaffFilter.REGISTERED));
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), names(StaffFilter.UNASSIGNED));
+		assertSame(_ann.getView(), _staffList.streamStaff(StaffFilter.REGISTERED).skip(2).findFirst().get());
+	}
+
+	@Test
+	public void listsStaffAsUnassignedOnceEveryAssignmentIsRolledBack() throws RosterException {
+		ShiftTable shiftTable = new ShiftTable();
+		WorkDay monday = new WorkDay("Monday", 0, shiftTable);
+		WorkDay tuesday = new WorkDay("Tuesday", 1, shiftTable);
+		for (WorkDay day : new WorkDay[] {monday, tuesday}) {
+			day.setHours("09:00", "17:00");
+			day.addShift(day.new Shift("09:00", "12:00", "1"));
+		}
+		WorkDay.Shift mondayShift = monday.assignStaff(_ann, "09:00", "12:00", false);
+		_staffList.updateAssigned(_ann);
+		WorkDay.Shift tuesdayShift = tuesday.assignStaff(_ann, "09:00", "12:00", true);
+		_staffList.updateAssigned(_ann);
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"), names(StaffFilter.UNASSIGNED));
+
+		monday.unassignStaff(mondayShift, _ann, false); //rolled back as a transaction does.
+		_staffList.updateAssigned(_ann);
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones"), names(StaffFilter.UNASSIGNED)); //still manages on Tuesday.
+		assertEquals(Arrays.asList("Bob Jones"), _staffList.displayStaff(StaffFilter.UNASSIGNED, "Cat Brown", 10));
+
+		tuesday.unassignStaff(tuesdayShift, _ann, true);
+		_staffList.updateAssigned(_ann);
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), names(StaffFilter.UNASSIGNED));
+		assertEquals(0, _staffList.getWorkloads(true, 1).get(0).getTotalMinutes()); //no one is left with any minutes.
+	}
+
+	private List<String> names(StaffFilter filter) {
+		return _staffList.streamStaff(filter).map(StaffView::toString).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,122 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The enum-typed queries of {@link ShiftManServer} and the shift and staff views they return, and the strings the enums
+ * stand for.
+ */
+public class TypedApiTest {
+
+	private ShiftManServer _server;
+
+	@BeforeEach
+	public void setUp() {
+		_server = new ShiftManServer();
+		assertEquals("", _server.newRoster("Shop"));
+		assertEquals("", _server.setWorkingHours("Monday", "09:00", "17:00"));
+		assertEquals("", _server.addShift("Monday", "09:00", "12:00", "1"));
+		assertEquals("", _server.addShift("Monday", "13:00", "17:00", "2"));
+		assertEquals("", _server.registerStaff("Ann", "Smith"));
+		assertEquals("", _server.registerStaff("Bob", "Jones"));
+		assertEquals("", _server.registerStaff("Cat", "Brown"));
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Ann", "Smith", false));
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Bob", "Jones", true));
+	}
+
+	@Test
+	public void viewsTheShiftsOfADay() throws RosterException {
+		List<ShiftView> shifts = _server.getShiftViewsForDay("Monday");
+		assertEquals(2, shifts.size());
+		ShiftView morning = shifts.get(0);
+		assertEquals("Monday[09:00-12:00]", morning.toString());
+		assertEquals("Monday", morning.getDay());
+		assertEquals(0, morning.getDayIndex());
+		assertEquals(9 * 60, morning.getStart());
+		assertEquals(12 * 60, morning.getEnd());
+		assertEquals(1, morning.getMinWorkers());
+		assertEquals("Bob Jones", morning.getManager().toString());
+		assertEquals(Arrays.asList("Ann Smith"), names(morning.getWorkers()));
+		assertNull(shifts.get(1).getManager());
+		assertThrows(UnsupportedOperationException.class, () -> morning.getWorkers().clear());
+	}
+
+	@Test
+	public void viewsAreTakenWhenMade() throws RosterException {
+		ShiftView before = _server.getShiftViewsForDay("Monday").get(0);
+		assertEquals("", _server.assignStaff("Monday", "09:00", "12:00", "Cat", "Brown", false));
+		assertEquals(Arrays.asList("Ann Smith"), names(before.getWorkers()));
+		assertEquals(Arrays.asList("Cat Brown", "Ann Smith"), names(_server.getShiftViewsForDay("Monday").get(0).getWorkers()));
+	}
+
+	@Test
+	public void viewsTheShiftsOfAStaffMemberByRole() throws RosterException {
+		assertEquals(Arrays.asList("Monday[09:00-12:00]"), names(_server.getShiftViewsForStaff("Bob Jones", StaffRole.MANAGER)));
+		assertEquals(Arrays.asList(), names(_server.getShiftViewsForStaff("Bob Jones", StaffRole.WORKERS)));
+		assertEquals(Arrays.asList("Monday[09:00-12:00]"), names(_server.getShiftViewsForStaff("Ann Smith", StaffRole.WORKERS)));
+		RosterException error = assertThrows(RosterException.class,
+				() -> _server.getShiftViewsForStaff("No One", StaffRole.WORKERS));
+		assertEquals("ERROR: cannot assign No One, because they have not been registered into the roster yet.",
+				error.getMessage());
+	}
+
+	@Test
+	public void viewsProblemShiftsAndStaff() throws RosterException {
+		assertEquals(Arrays.asList("Monday[13:00-17:00]"), names(_server.getProblemShiftViews(ProblemType.WITHOUT_MANAGERS)));
+		assertEquals(Arrays.asList("Monday[13:00-17:00]"), names(_server.getProblemShiftViews(ProblemType.UNDERSTAFFED)));
+		assertEquals(Arrays.asList(), names(_server.getProblemShiftViews(ProblemType.OVERSTAFFED)));
+
+		List<StaffView> staff = _server.getStaffViews(StaffFilter.REGISTERED);
+		assertEquals(Arrays.asList("Cat Brown", "Bob Jones", "Ann Smith"), names(staff));
+		assertEquals(Arrays.asList("Cat Brown"), names(_server.getStaffViews(StaffFilter.UNASSIGNED)));
+		StaffView cat = staff.get(0);
+		assertEquals("Cat", cat.getGivenName());
+		assertEquals("Brown", cat.getFamilyName());
+		assertEquals("Brown Cat", cat.getName(NameType.LAST_FIRST));
+		assertEquals(2, cat.getId());
+		assertSame(cat, _server.getStaffViews(StaffFilter.UNASSIGNED).get(0)); //each staff member has one view.
+	}
+
+	@Test
+	public void typedQueriesNeedARoster() {
+		RosterException error = assertThrows(RosterException.class,
+				() -> new ShiftManServer().getProblemShiftViews(ProblemType.OVERSTAFFED));
+		assertEquals("ERROR: no roster has been created", error.getMessage());
+	}
+
+	@Test
+	public void enumsStandForTheStringsOfTheStringMethods() {
+		for (ProblemType problemType : ProblemType.values()) {
+			assertSame(problemType, ProblemType.fromString(problemType.toString()));
+		}
+		for (StaffRole role : StaffRole.values()) {
+			assertSame(role, StaffRole.fromString(role.toString()));
+		}
+		for (NameType nameType : NameType.values()) {
+			assertSame(nameType, NameType.fromString(nameType.toString()));
+		}
+		for (RosterType rosterType : RosterType.values()) {
+			assertSame(rosterType, RosterType.fromString(rosterType.toString()));
+		}
+		for (StaffFilter filter : StaffFilter.values()) {
+			assertSame(filter, StaffFilter.fromString(filter.toString()));
+		}
+		assertEquals(ProblemType.WITHOUT_MANAGERS, ProblemType.fromString("without managers"));
+		assertThrows(UnsupportedOperationException.class, () -> ProblemType.fromString("Overstaffed"));
+		assertThrows(UnsupportedOperationException.class, () -> NameType.fromString("full"));
+	}
+
+	private static List<String> names(List<?> views) {
+		return views.stream().map(Object::toString).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,89 @@
+package shiftman.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * A working day's roster, rendered once for each version of the day, and the ids its shifts are given.
+ */
+public class WorkDayTest {
+
+	private ShiftTable _shiftTable;
+	private WorkDay _day;
+	private Staff _ann;
+
+	@BeforeEach
+	public void setUp() throws RosterException {
+		_shiftTable = new ShiftTable();
+		_day = new WorkDay("Monday", 0, _shiftTable);
+		_ann = new Staff("Ann", "Smith");
+	}
+
+	@Test
+	public void hasNoRosterWithoutShifts() throws RosterException {
+		assertTrue(_day.getDayRoster().isEmpty());
+		_day.setHours("09:00", "17:00");
+		assertTrue(_day.getDayRoster().isEmpty());
+	}
+
+	@Test
+	public void rendersTheRosterOnceForEachVersion() throws RosterException {
+		_day.setHours("09:00", "17:00");
+		_day.addShift(_day.new Shift("09:00", "12:00", "1"));
+		RosterVersion.DayVersion version = _day.toVersion();
+		assertSame(version.getLines(), _day.getDayRoster());
+		assertSame(_day.getDayRoster(), _day.getDayRoster());
+		assertEquals(Arrays.asList("Monday 09:00-17:00", "Monday[09:00-12:00] [No manager assigned] [No workers assigned]"),
+				_day.getDayRoster());
+
+		_day.assignStaff(_ann, "09:00", "12:00", false);
+		assertNotSame(version, _day.toVersion());
+		assertEquals(Arrays.asList("Monday 09:00-17:00", "Monday[09:00-12:00] [No manager assigned] [Ann Smith]"),
+				_day.getDayRoster());
+
+		_day.setHours("08:00", "17:00");
+		assertEquals("Monday 08:00-17:00", _day.getDayRoster().get(0));
+	}
+
+	@Test
+	public void rendersAgainAfterARollback() throws RosterException {
+		_day.setHours("09:00", "17:00");
+		_day.addShift(_day.new Shift("09:00", "12:00", "1"));
+		WorkDay.Shift shift = _day.assignStaff(_ann, "09:00", "12:00", true);
+		assertEquals("Monday[09:00-12:00]  Manager:Smith, Ann [No workers assigned]", _day.getDayRoster().get(1));
+
+		_day.unassignStaff(shift, _ann, true);
+		assertEquals("Monday[09:00-12:00] [No manager assigned] [No workers assigned]", _day.getDayRoster().get(1));
+		_day.removeShift(shift);
+		assertTrue(_day.getDayRoster().isEmpty());
+	}
+
+	@Test
+	public void givesTheIdOfARemovedShiftToTheNextShiftAdded() throws RosterException {
+		_day.setHours("09:00", "17:00");
+		WorkDay.Shift morning = _day.new Shift("09:00", "12:00", "1");
+		WorkDay.Shift afternoon = _day.new Shift("13:00", "17:00", "1");
+		_day.addShift(morning);
+		_day.addShift(afternoon);
+		assertEquals(0, morning.getId());
+		assertEquals(1, afternoon.getId());
+
+		_day.removeShift(afternoon); //as when the transaction that added it is rolled back.
+		assertEquals(-1, afternoon.getId());
+		assertEquals(1, _shiftTable.size());
+
+		WorkDay.Shift evening = _day.new Shift("14:00", "16:00", "1");
+		_day.addShift(evening);
+		assertEquals(1, evening.getId());
+		assertSame(evening, _shiftTable.get(1));
+		assertSame(_shiftTable, evening.getShiftTable());
+		assertEquals(2, _shiftTable.size());
+	}
+}